@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.SortedSet;
 import java.util.function.BooleanSupplier;
 
+import org.locationtech.geogig.model.impl.AttributeIndexTreeBuilder;
 import org.locationtech.geogig.model.impl.CanonicalTreeBuilder;
 import org.locationtech.geogig.model.impl.QuadTreeBuilder;
 import org.locationtech.geogig.storage.ObjectStore;
@@ -124,4 +125,9 @@ public interface RevTreeBuilder {
         return QuadTreeBuilder.create(source, target, original, maxBounds);
     }
 
+    public static RevTreeBuilder attributeIndexBuilder(@NonNull ObjectStore source,
+            @NonNull ObjectStore target, @NonNull RevTree original, @NonNull String attributeName) {
+        return AttributeIndexTreeBuilder.create(source, target, original, attributeName);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.model.internal;
+
+import java.util.Comparator;
+
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.model.Node;
+import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.repository.IndexInfo;
+
+import lombok.NonNull;
+
+/**
+ * A clustering strategy that sorts feature nodes by the value of one of their
+ * {@link IndexInfo#FEATURE_ATTRIBUTES_EXTRA_DATA materialized attributes}, in order to build
+ * attribute index trees.
+ * <p>
+ * Nodes are clustered as in a trie over their {@link AttributeIndexKey sort key}: at each depth the
+ * bucket index is one plus the key's hex digit at that depth, and nodes whose key is exhausted go
+ * to the {@link AttributeIndexKey#TERMINAL_BUCKET terminal} bucket {@code 0}, below which all nodes
+ * share the same key and are clustered by name as in a canonical tree. Hence, traversing the tree
+ * in bucket order returns the nodes sorted by attribute value, and the path to a bucket determines
+ * the range of values it may contain.
+ *
+ * @since 2.0
+ */
+final class AttributeClusteringStrategy extends ClusteringStrategy {
+
+    private static final long serialVersionUID = 1L;
+
+    static final Comparator<NodeId> ATTRIBUTE_ORDER = Comparator
+            .comparing((NodeId id) -> (String) id.value())
+            .thenComparing(CanonicalClusteringStrategy.CANONICAL_ORDER);
+
+    private final String attributeName;
+
+    AttributeClusteringStrategy(RevTree original, DAGStorageProvider storageProvider,
+            @NonNull String attributeName) {
+        super(original, storageProvider);
+        this.attributeName = attributeName;
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    /**
+     * @return {@code 128}, the fixed maximum size of a leaf tree at any depth
+     */
+    public @Override int normalizedSizeLimit(final int depthIndex) {
+        return 128;
+    }
+
+    protected @Override Comparator<NodeId> getNodeOrdering() {
+        return ATTRIBUTE_ORDER;
+    }
+
+    /**
+     * @return a {@link NodeId} whose {@link NodeId#value() value} is the {@link AttributeIndexKey
+     *         sort key} of the node's indexed attribute value
+     */
+    public @Override NodeId computeId(final Node node) {
+        return new NodeId(node.getName(), AttributeIndexKey.of(node, attributeName));
+    }
+
+    /**
+     * @return the bucket index in the range {@code 1-16} for the sort key digit at
+     *         {@code depthIndex}, or {@code -1} if the key has no more digits, in which case the
+     *         node goes to the {@link #unpromotableBucketIndex terminal} bucket
+     */
+    public @Override int bucket(final NodeId nodeId, final int depthIndex) {
+        return AttributeIndexKey.bucket(nodeId.value(), depthIndex);
+    }
+
+    protected @Override int unpromotableBucketIndex(final int depthIndex) {
+        return AttributeIndexKey.TERMINAL_BUCKET;
+    }
+
+    public @Override int put(final Node node) {
+        Preconditions.checkArgument(TYPE.FEATURE == node.getType(),
+                "Can't add non feature nodes to an attribute index: %s", node);
+        return super.put(node);
+    }
+}
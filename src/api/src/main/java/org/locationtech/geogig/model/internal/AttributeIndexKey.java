@@ -0,0 +1,150 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.model.internal;
+
+import java.util.Date;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.Node;
+import org.locationtech.geogig.repository.IndexInfo;
+
+import lombok.NonNull;
+
+/**
+ * Computes the order preserving sort keys by which {@link AttributeClusteringStrategy attribute
+ * index} trees cluster feature nodes.
+ * <p>
+ * A sort key is a string of lower case hexadecimal digits, whose natural order matches the order of
+ * the attribute values it was computed from. Each digit of the key determines the bucket a node
+ * falls into at the corresponding tree depth, hence the bucket path to any subtree of an attribute
+ * index tree determines the prefix shared by the sort keys of all the nodes it contains, allowing
+ * to prune whole subtrees when looking for a given value or range of values.
+ * <p>
+ * The first digit of the key is {@code 0} for {@code null} values and {@code 1} otherwise, followed
+ * by:
+ * <ul>
+ * <li>{@link Number numbers} and {@link Date dates}: the 16 digits of the order preserving bit
+ * representation of the value as a {@code double}.
+ * <li>{@link Boolean booleans}: {@code 0} for {@code false}, {@code 1} for {@code true}.
+ * <li>any other value: four digits per UTF-16 char of its string representation, up to
+ * {@link #MAX_STRING_CHARS} chars.
+ * </ul>
+ * The mapping from values to keys is monotonic but not injective (e.g. strings sharing the first
+ * {@link #MAX_STRING_CHARS} chars or numbers beyond the {@code double} precision get the same key),
+ * so keys shall be used to narrow down the nodes to evaluate a filter against, not as a replacement
+ * for evaluating it.
+ *
+ * @since 2.0
+ */
+public final class AttributeIndexKey {
+
+    /**
+     * Maximum number of chars of a string value used to compute its sort key
+     */
+    public static final int MAX_STRING_CHARS = 16;
+
+    /**
+     * Bucket index for the nodes whose key is exhausted at a given depth, sorts before the buckets
+     * for the sixteen possible digits, which are offset by one
+     */
+    static final int TERMINAL_BUCKET = 0;
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private AttributeIndexKey() {
+        // utility class
+    }
+
+    /**
+     * @return the sort key for the given attribute value
+     */
+    public static String of(@Nullable Object value) {
+        if (value == null) {
+            return "0";
+        }
+        StringBuilder key = new StringBuilder(1 + 4 * MAX_STRING_CHARS).append('1');
+        if (value instanceof Number || value instanceof Date) {
+            double d = value instanceof Date ? ((Date) value).getTime()
+                    : ((Number) value).doubleValue();
+            // canonicalize -0.0 to 0.0 for them to be equal as per the filter's number comparison
+            long bits = Double.doubleToLongBits(d == 0d ? 0d : d);
+            bits = bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+            appendHex(key, bits, 16);
+        } else if (value instanceof Boolean) {
+            key.append(((Boolean) value).booleanValue() ? '1' : '0');
+        } else {
+            String s = value.toString();
+            int length = Math.min(MAX_STRING_CHARS, s.length());
+            for (int i = 0; i < length; i++) {
+                appendHex(key, s.charAt(i), 4);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return the sort key for the value of the materialized attribute {@code attributeName} in
+     *         {@code node}'s {@link IndexInfo#FEATURE_ATTRIBUTES_EXTRA_DATA extra data}, a missing
+     *         attribute being treated as {@code null}
+     */
+    public static String of(@NonNull Node node, @NonNull String attributeName) {
+        return of(IndexInfo.getMaterializedAttribute(attributeName, node));
+    }
+
+    /**
+     * @return the bucket index in the range {@code 1-16} for the key's digit at {@code depthIndex},
+     *         or {@code -1} if the key is exhausted at that depth
+     */
+    static int bucket(String key, int depthIndex) {
+        if (depthIndex >= key.length()) {
+            return -1;
+        }
+        return 1 + Character.digit(key.charAt(depthIndex), 16);
+    }
+
+    /**
+     * Determines whether the subtree of an attribute index tree at the given bucket path may
+     * contain nodes whose keys are in the {@code [minKey, maxKey]} range.
+     *
+     * @param bucketPath the bucket indexes from the root tree to the subtree
+     * @param minKey the lower bound (inclusive) of the key range, or {@code null} for no lower
+     *        bound
+     * @param maxKey the upper bound (inclusive) of the key range, or {@code null} for no upper
+     *        bound
+     */
+    public static boolean bucketMayContain(int[] bucketPath, @Nullable String minKey,
+            @Nullable String maxKey) {
+        StringBuilder prefixBuilder = new StringBuilder(bucketPath.length);
+        boolean exact = false;
+        for (int bucket : bucketPath) {
+            if (bucket == TERMINAL_BUCKET) {
+                // keys are exhausted, whatever is below is clustered by name
+                exact = true;
+                break;
+            }
+            prefixBuilder.append(DIGITS[bucket - 1]);
+        }
+        final String prefix = prefixBuilder.toString();
+        if (exact) {
+            return (minKey == null || minKey.compareTo(prefix) <= 0)
+                    && (maxKey == null || maxKey.compareTo(prefix) >= 0);
+        }
+        boolean belowMax = maxKey == null || maxKey.compareTo(prefix) >= 0;
+        boolean aboveMin = minKey == null || minKey.startsWith(prefix)
+                || minKey.compareTo(prefix) < 0;
+        return belowMax && aboveMin;
+    }
+
+    private static void appendHex(StringBuilder sb, long value, int digits) {
+        for (int shift = 4 * (digits - 1); shift >= 0; shift -= 4) {
+            sb.append(DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+    }
+}
@@ -54,6 +54,12 @@ public class Hints implements Serializable {
      */
     public static final String PLATFORM = "PLATFORM";
 
+    /**
+     * Key for the fully qualified class name of the {@code DeduplicationService} to use when
+     * building packs for remote operations, defaults to the heap based one if not set.
+     */
+    public static final String DEDUPLICATOR = "DEDUPLICATOR";
+
     private Map<String, Serializable> hintsMap = new HashMap<>();
 
     public Hints() {
@@ -27,7 +27,15 @@ import lombok.ToString;
 
 public @ToString final class IndexInfo {
     public static enum IndexType {
-        QUADTREE
+        /**
+         * Spatial index on a geometry attribute, clusters feature nodes by their bounds
+         */
+        QUADTREE,
+        /**
+         * Secondary index on a non geometry attribute, clusters feature nodes sorted by the
+         * attribute value, which is always materialized on the index nodes
+         */
+        ATTRIBUTE
     }
 
     /**
@@ -10,6 +10,7 @@
 package org.locationtech.geogig.repository;
 
 import java.net.URI;
+import java.util.Collections;
 import java.util.List;
 
 import org.locationtech.geogig.storage.ConfigDatabase;
@@ -112,4 +113,49 @@ public interface RepositoryResolver {
 
     URI getRootURI(URI repoURI);
 
+    /**
+     * Returns the URIs of the other repositories whose revision objects are physically stored in
+     * the same {@link ObjectDatabase} and {@link IndexDatabase} than the repository at
+     * {@code repoURI}.
+     * <p>
+     * Maintenance operations that delete objects (e.g. garbage collection) must take into account
+     * the objects reachable from these repositories as well.
+     * 
+     * @implNote the default implementation returns an empty list, meaning each repository has its
+     *           own object storage
+     * @param repoURI the repository URI
+     * @return the URIs of the repositories sharing objects with {@code repoURI}, excluding itself
+     */
+    public default @NonNull List<URI> listRepositoriesSharingObjects(@NonNull URI repoURI) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Replaces the revision objects and commit graph, and optionally the spatial indexes, of the
+     * {@code target} repository by a copy of the ones in the repository at {@code source}, taking a
+     * storage specific shortcut (e.g. hard linking the database files) instead of transferring the
+     * objects one by one.
+     * <p>
+     * The copy is physical, hence all the objects in {@code source} are copied, reachable or not.
+     * References and configuration are not copied, it's up to the caller to set them up in the
+     * target repository afterwards.
+     * <p>
+     * {@code source} may be open (preferably read-only) while the copy is made. {@code target} must
+     * not contain any object worth keeping, and the implementation may close and reopen it while
+     * replacing its databases, so no other component shall be using it.
+     *
+     * @implNote the default implementation returns {@code false}, meaning there's no fast path and
+     *           the caller shall fall back to transferring the objects
+     * @param source the URI of the repository to copy the databases from
+     * @param target the repository whose databases to replace
+     * @param includeIndexes whether to copy the spatial indexes too
+     * @return {@code true} if the databases were copied, {@code false} if this resolver has no fast
+     *         path for the given repositories, in which case {@code target} is left untouched
+     * @since 2.0
+     */
+    public default boolean cloneDatabases(@NonNull URI source, @NonNull Repository target,
+            boolean includeIndexes) {
+        return false;
+    }
+
 }
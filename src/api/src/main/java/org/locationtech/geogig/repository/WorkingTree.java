@@ -12,6 +12,7 @@ package org.locationtech.geogig.repository;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import org.locationtech.geogig.feature.FeatureType;
 import org.locationtech.geogig.model.DiffEntry;
@@ -23,6 +24,9 @@ import org.locationtech.geogig.model.RevFeature;
 import org.locationtech.geogig.model.RevFeatureType;
 import org.locationtech.geogig.model.RevTree;
 import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.ObjectStore;
+
+import com.google.common.collect.Iterators;
 
 /**
  * Provides an interface for a working tree of a GeoGig repository.
@@ -139,6 +143,50 @@ public interface WorkingTree {
      */
     ObjectId insert(Iterator<FeatureInfo> featureInfos, ProgressListener progress);
 
+    /**
+     * Inserts the features resulting of applying {@code converter} to each element of
+     * {@code features}, allowing the implementation to run the conversion (usually building and
+     * hashing the {@link RevFeature}s), saving the features, and updating the feature trees, on
+     * multiple threads.
+     * <p>
+     * {@code features} is only ever consumed by the calling thread, while {@code converter} may be
+     * called concurrently from several threads, hence it must be thread safe.
+     * <p>
+     * The default implementation applies {@code converter} on the calling thread and delegates to
+     * {@link #insert(Iterator, ProgressListener)}.
+     * 
+     * @param features the source objects to convert to {@link FeatureInfo}s
+     * @param converter the function to create the {@link FeatureInfo}s from the source objects
+     * @param parallelism the number of worker threads to use, or {@code 0} for an implementation
+     *        defined default
+     * @param progress the progress listener where to report progress and to check whether the
+     *        operation should be aborted.
+     * @return the new {@link ObjectId} for the root tree in the {@link Ref#WORK_HEAD working tree}
+     * @see #insert(Iterator, ProgressListener)
+     * @since 2.0
+     */
+    default <F> ObjectId insert(Iterator<F> features, Function<? super F, FeatureInfo> converter,
+            int parallelism, ProgressListener progress) {
+        return insert(Iterators.transform(features, converter::apply), progress);
+    }
+
+    /**
+     * Same as {@link #insert(Iterator, Function, int, ProgressListener)}, but if {@code ingest} is
+     * {@code true} the features are saved through a {@link ObjectStore#bulkIngest() bulk load
+     * session} instead of {@link ObjectStore#putAll(Iterator) putAll}, which the storage backend
+     * may implement more efficiently for large initial loads. The features are guaranteed to be in
+     * the object database by the time this method returns, and discarded if the operation is
+     * cancelled.
+     * <p>
+     * The default implementation ignores the {@code ingest} argument.
+     *
+     * @since 2.0
+     */
+    default <F> ObjectId insert(Iterator<F> features, Function<? super F, FeatureInfo> converter,
+            int parallelism, boolean ingest, ProgressListener progress) {
+        return insert(features, converter, parallelism, progress);
+    }
+
     /**
      * Determines if a feature tree exists at {@code treePath} in the current working tree.
      * 
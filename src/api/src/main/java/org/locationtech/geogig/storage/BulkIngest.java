@@ -0,0 +1,95 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.locationtech.geogig.model.RevObject;
+
+import com.google.common.collect.Iterators;
+
+import lombok.NonNull;
+
+/**
+ * A bulk load session on an {@link ObjectStore}, meant for the initial load of large amounts of
+ * objects, where the storage backend may take a faster path than
+ * {@link ObjectStore#putAll(Iterator) putAll} at the cost of the objects not being visible until
+ * the session is {@link #ingest() ingested}.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * <code>
+ * try (BulkIngest ingest = store.bulkIngest()) {
+ *     ingest.putAll(objects);
+ *     ...
+ *     ingest.ingest();
+ * }
+ * </code>
+ * </pre>
+ *
+ * Objects added with {@link #putAll} are guaranteed to be in the store only after {@link #ingest()}
+ * returns. If the session is {@link #close() closed} without calling {@link #ingest()} (e.g. the
+ * operation was cancelled or failed), the objects that were not yet saved are discarded, although
+ * implementations that write them right away, like the {@link #direct(ObjectStore) default} one,
+ * may have already saved some or all of them.
+ *
+ * @see ObjectStore#bulkIngest()
+ * @since 2.0
+ */
+public interface BulkIngest extends AutoCloseable {
+
+    /**
+     * Adds the objects to this bulk load session, this method may be called several times but not
+     * concurrently
+     */
+    void putAll(@NonNull Iterator<? extends RevObject> objects);
+
+    /**
+     * Saves all the objects added to the session to the store, and makes them visible
+     *
+     * @return the number of objects ingested, after removing duplicates
+     */
+    long ingest();
+
+    /**
+     * Releases any resource held by the session, discarding the objects not yet {@link #ingest()
+     * ingested}
+     */
+    @Override
+    void close();
+
+    /**
+     * @return a bulk load session that saves the objects right away with
+     *         {@link ObjectStore#putAll(Iterator) putAll}
+     */
+    static BulkIngest direct(@NonNull ObjectStore store) {
+        return new BulkIngest() {
+
+            private final AtomicLong count = new AtomicLong();
+
+            public @Override void putAll(@NonNull Iterator<? extends RevObject> objects) {
+                store.putAll(Iterators.filter(objects, o -> {
+                    count.incrementAndGet();
+                    return true;
+                }));
+            }
+
+            public @Override long ingest() {
+                return count.get();
+            }
+
+            public @Override void close() {
+                // nothing to release
+            }
+        };
+    }
+}
@@ -10,7 +10,12 @@
 package org.locationtech.geogig.storage;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
 
 import org.locationtech.geogig.model.ObjectId;
 
@@ -187,6 +192,22 @@ public interface GraphDatabase extends Store {
      */
     public int getDepth(final ObjectId commitId);
 
+    /**
+     * Gets the generation number of the commit, {@code 1} for commits with no parents, and
+     * {@code 1 +} the maximum generation number of its parents otherwise.
+     * <p>
+     * Generation numbers allow graph walks to be pruned, since if commit {@code A} is an ancestor
+     * of commit {@code B}, then {@code generation(A) < generation(B)}.
+     * 
+     * @param commitId the commit id
+     * @return the generation number of the commit, or {@link OptionalInt#empty() empty} if the
+     *         commit is not in the graph or the implementation does not support generation numbers,
+     *         which is the default implementation.
+     */
+    public default OptionalInt getGeneration(final ObjectId commitId) {
+        return OptionalInt.empty();
+    }
+
     /**
      * Set a property on the provided commit node.
      * 
@@ -194,6 +215,46 @@ public interface GraphDatabase extends Store {
      */
     public void setProperty(ObjectId commitId, String propertyName, String propertyValue);
 
+    /**
+     * Retrieves a property of the provided commit node.
+     *
+     * @param commitId the id of the commit
+     * @param propertyName the name of the property
+     * @return the property value, or {@link Optional#empty() empty} if the commit is not in the
+     *         graph or has no such property
+     * @see #setProperty(ObjectId, String, String)
+     */
+    public Optional<String> getProperty(ObjectId commitId, String propertyName);
+
+    /**
+     * Optional capability to store the changed paths filter of a commit, an opaque value used to
+     * speed up path filtered history walks.
+     * <p>
+     * Implementations shall keep these values apart from the commit nodes, since they're much
+     * larger than a node and only path filtered history walks need them, whereas nodes are read by
+     * every graph traversal.
+     * 
+     * @param commitId the id of the commit, that must already be in the graph
+     * @param filter the encoded filter
+     * @return {@code true} if the filter was stored, {@code false} if this graph database doesn't
+     *         support storing them, which is the default implementation
+     * @since 2.0
+     */
+    public default boolean putChangedPaths(ObjectId commitId, byte[] filter) {
+        return false;
+    }
+
+    /**
+     * Retrieves a changed paths filter stored with {@link #putChangedPaths(ObjectId, byte[])}.
+     * 
+     * @return the encoded filter, or {@link Optional#empty() empty} if the commit has none or this
+     *         graph database doesn't support storing them, which is the default implementation
+     * @since 2.0
+     */
+    public default Optional<byte[]> getChangedPaths(ObjectId commitId) {
+        return Optional.empty();
+    }
+
     /**
      * Retrieves the {@code GraphNode} that represents the provided identifier.
      * 
@@ -206,4 +267,74 @@ public interface GraphDatabase extends Store {
      * Drops all data from the graph database. Usually used when rebuilding the graph.
      */
     public void truncate();
+
+    /**
+     * Optional capability to compute the commits reachable from any of the {@code want} commits and
+     * not reachable from any of the {@code have} commits without traversing the graph, for example
+     * by means of precomputed reachability bitmaps.
+     * <p>
+     * Callers shall fall back to walking the commit graph if the result is {@link Optional#empty()
+     * empty}, which is the default implementation.
+     * 
+     * @param want the tip commits whose history is requested
+     * @param have the commits whose history shall be excluded from the result
+     * @return the missing commits, in reverse topological order (children before parents), or
+     *         {@link Optional#empty() empty} if this graph database can't compute them
+     * @since 2.0
+     */
+    public default Optional<List<ObjectId>> findMissingCommits(Set<ObjectId> want,
+            Set<ObjectId> have) {
+        return Optional.empty();
+    }
+
+    /**
+     * Optional capability to count the commits reachable from any of the {@code want} commits and
+     * not reachable from any of the {@code have} commits, for example to report how many commits a
+     * branch is ahead or behind another one.
+     * <p>
+     * The default implementation returns the size of {@link #findMissingCommits(Set, Set)}, if
+     * supported.
+     * 
+     * @return the number of missing commits, or {@link OptionalInt#empty() empty} if this graph
+     *         database can't compute it
+     * @since 2.0
+     */
+    public default OptionalInt countMissingCommits(Set<ObjectId> want, Set<ObjectId> have) {
+        Optional<List<ObjectId>> missing = findMissingCommits(want, have);
+        return missing.isPresent() ? OptionalInt.of(missing.get().size()) : OptionalInt.empty();
+    }
+
+    /**
+     * Optional capability to compute the lowest common ancestors (merge bases) of two commits
+     * without walking the graph one commit at a time.
+     * <p>
+     * Callers shall fall back to walking the commit graph if the result is {@link Optional#empty()
+     * empty}, which is the default implementation.
+     * 
+     * @return the common ancestors of {@code left} and {@code right} that are not ancestors of any
+     *         other common ancestor, in no particular order; an empty list if they have no common
+     *         ancestor; or {@link Optional#empty() empty} if this graph database can't compute them
+     * @since 2.0
+     */
+    public default Optional<List<ObjectId>> findMergeBases(ObjectId left, ObjectId right) {
+        return Optional.empty();
+    }
+
+    /**
+     * Retrieves the parents of several commits at once.
+     * <p>
+     * The default implementation calls {@link #getParents(ObjectId)} for each commit, remote
+     * backends shall override it to save round trips.
+     * 
+     * @return the parents of each of the given commits in the order they were given, with an empty
+     *         list for commits with no parents or not in the graph
+     * @since 2.0
+     */
+    public default Map<ObjectId, List<ObjectId>> getParents(Iterable<ObjectId> commitIds) {
+        Map<ObjectId, List<ObjectId>> parents = new LinkedHashMap<>();
+        for (ObjectId id : commitIds) {
+            parents.computeIfAbsent(id, this::getParents);
+        }
+        return parents;
+    }
 }
@@ -215,6 +215,21 @@ public interface ObjectStore extends Store {
      */
     public void putAll(Iterator<? extends RevObject> objects, BulkOpListener listener);
 
+    /**
+     * Starts a bulk load session to insert large amounts of objects, allowing the implementation to
+     * take a faster path than {@link #putAll(Iterator)} (e.g. by creating the storage files
+     * directly instead of going through its write path) at the cost of the objects not being
+     * visible until the session is {@link BulkIngest#ingest() ingested}.
+     * <p>
+     * The default implementation returns a {@link BulkIngest#direct(ObjectStore) session} that
+     * saves the objects right away with {@link #putAll(Iterator)}.
+     *
+     * @since 2.0
+     */
+    public default BulkIngest bulkIngest() {
+        return BulkIngest.direct(this);
+    }
+
     /**
      * Shorthand for {@link #deleteAll(Iterator, BulkOpListener)} with
      * {@link BulkOpListener#NOOP_LISTENER} as second argument
@@ -235,6 +250,21 @@ public interface ObjectStore extends Store {
      */
     public void deleteAll(Iterator<ObjectId> ids, BulkOpListener listener);
 
+    /**
+     * Returns an iterator over the identifiers of all the objects in the database, in no particular
+     * order.
+     * <p>
+     * Implementations shall stream the ids rather than loading them all in memory, and are
+     * encouraged to iterate over a point-in-time snapshot of the database, so that objects inserted
+     * after this method is called are not reported. Client code must close the returned iterator
+     * once done with it.
+     *
+     * @return an iterator over the ids of all the objects in the database
+     * @since 2.0
+     */
+    @Beta
+    public AutoCloseableIterator<ObjectId> getAllIds();
+
     @Beta
     public <T extends RevObject> AutoCloseableIterator<ObjectInfo<T>> getObjects(
             Iterator<NodeRef> nodes, BulkOpListener listener, Class<T> type);
@@ -12,6 +12,7 @@ package org.locationtech.geogig.storage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevObject;
@@ -30,6 +31,26 @@ public interface RevObjectSerializer {
 
     RevObject read(ObjectId id, @NonNull byte[] data, int offset, int length) throws IOException;
 
+    /**
+     * Reads the object encoded in the {@link ByteBuffer#remaining() remaining} bytes of
+     * {@code data}, without changing its position or limit.
+     * <p>
+     * Implementations whose objects are lazy views over their serialized form may keep a reference
+     * to {@code data} instead of copying it, hence the caller shall not reuse the buffer's contents
+     * after this method returns.
+     * <p>
+     * The default implementation delegates to {@link #read(ObjectId, byte[], int, int)}, copying
+     * the buffer contents only if it's not backed by an accessible array.
+     */
+    default RevObject read(ObjectId id, @NonNull ByteBuffer data) throws IOException {
+        if (data.hasArray()) {
+            return read(id, data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+        byte[] copy = new byte[data.remaining()];
+        data.duplicate().get(copy);
+        return read(id, copy, 0, copy.length);
+    }
+
     @NonNull
     String getDisplayName();
 
@@ -14,9 +14,12 @@ import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.model.Bucket;
+import org.locationtech.geogig.model.DiffEntry;
 import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.plumbing.DiffTree;
 import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk.BucketIndex;
 import org.locationtech.geogig.repository.DiffObjectCount;
+import org.locationtech.geogig.storage.AutoCloseableIterator;
 import org.locationtech.geogig.storage.ObjectStore;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -24,12 +27,14 @@ import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Timeout;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -59,12 +64,27 @@ public class PreOrderDiffWalkBenchmark {
 
     }
 
+    /**
+     * Parameters for the end-to-end {@link DiffTree} benchmarks, run them with {@code -prof gc} (or
+     * through {@link #main}) to compare allocation rates
+     */
+    @State(Scope.Benchmark)
+    public static class DiffTreeState {
+
+        @Param(value = { "256", "16384" })
+        int diffTreeBufferSize;
+
+        @Param(value = { "false", "true" })
+        boolean preserveIterationOrder;
+    }
+
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()//
                 .include(PreOrderDiffWalkBenchmark.class.getSimpleName())//
                 // .warmupIterations(5)//
                 // .measurementIterations(5)//
                 .forks(1)//
+                .addProfiler(GCProfiler.class)//
                 .build();
 
         new Runner(opt).run();
@@ -112,6 +132,21 @@ public class PreOrderDiffWalkBenchmark {
         bh.consume(testPreorderDiffWalkPerf(state));
     }
 
+    @BenchmarkMode(value = { Mode.Throughput })
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public @Benchmark void DiffTree_Concurrency_1(Blackhole bh,
+            PreOrderDiffWalkBenchmarkState state, DiffTreeState diffTreeState) {
+        bh.consume(testDiffTreePerf(bh, state, diffTreeState));
+    }
+
+    @Threads(8)
+    @BenchmarkMode(value = { Mode.Throughput })
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public @Benchmark void DiffTree_Concurrency_8(Blackhole bh,
+            PreOrderDiffWalkBenchmarkState state, DiffTreeState diffTreeState) {
+        bh.consume(testDiffTreePerf(bh, state, diffTreeState));
+    }
+
     private static class AcceptAllDiffCountConsumer extends DiffCountConsumer {
         public AcceptAllDiffCountConsumer(ObjectStore leftSource, ObjectStore rightSource) {
             super(leftSource, rightSource);
@@ -147,4 +182,28 @@ public class PreOrderDiffWalkBenchmark {
         return diffCountConsumer.get();
     }
 
+    /**
+     * Iterates over all the {@link DiffEntry diff entries} returned by {@link DiffTree}, accounting
+     * for the hand-off of diffs from the tree walk to the calling thread
+     */
+    private long testDiffTreePerf(Blackhole bh, PreOrderDiffWalkBenchmarkState state,
+            DiffTreeState diffTreeState) {
+
+        DiffTree diffTree = new DiffTree()//
+                .setOldTree(state.left)//
+                .setNewTree(state.right)//
+                .setLeftSource(state.leftSourceWithLatency)//
+                .setRightSource(state.rightSourceWithLatency)//
+                .setPreserveIterationOrder(diffTreeState.preserveIterationOrder)//
+                .setBufferSize(diffTreeState.diffTreeBufferSize);
+
+        long count = 0;
+        try (AutoCloseableIterator<DiffEntry> diffs = diffTree.call()) {
+            while (diffs.hasNext()) {
+                bh.consume(diffs.next());
+                count++;
+            }
+        }
+        return count;
+    }
 }
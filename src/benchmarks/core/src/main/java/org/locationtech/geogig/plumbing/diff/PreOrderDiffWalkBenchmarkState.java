@@ -9,6 +9,7 @@
  */
 package org.locationtech.geogig.plumbing.diff;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -18,11 +19,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.junit.rules.TemporaryFolder;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevObject;
 import org.locationtech.geogig.model.RevObjects;
 import org.locationtech.geogig.model.RevTree;
 import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.rocksdb.RocksdbObjectStore;
 import org.locationtech.geogig.storage.BulkOpListener;
 import org.locationtech.geogig.storage.BulkOpListener.CountingListener;
 import org.locationtech.geogig.storage.ObjectStore;
@@ -56,19 +59,31 @@ public class PreOrderDiffWalkBenchmarkState {
     @Param(value = { "true" })
     boolean sameStore;
 
+    /**
+     * {@code heap} or {@code rocksdb}, the latter to account for the cost of decoding the objects
+     * read from the database (e.g. run with {@code -prof gc} to compare allocation rates)
+     */
+    @Param(value = { "heap" })
+    String storage;
+
+    private TemporaryFolder tmpFolder;
+
     ObjectStore leftSource, rightSource;
 
     LatencyObjectStore leftSourceWithLatency, rightSourceWithLatency;
 
     RevTree left, right;
 
-    public @Setup(Level.Trial) void prepareData() throws InterruptedException, ExecutionException {
-        leftSource = new HeapObjectStore();
+    public @Setup(Level.Trial) void prepareData()
+            throws InterruptedException, ExecutionException, IOException {
+        tmpFolder = new TemporaryFolder();
+        tmpFolder.create();
+        leftSource = createStore("left");
         leftSource.open();
         if (sameStore) {
             rightSource = leftSource;
         } else {
-            rightSource = new HeapObjectStore();
+            rightSource = createStore("right");
             rightSource.open();
         }
 
@@ -99,9 +114,21 @@ public class PreOrderDiffWalkBenchmarkState {
         }
     }
 
+    private ObjectStore createStore(String name) throws IOException {
+        switch (storage) {
+        case "heap":
+            return new HeapObjectStore();
+        case "rocksdb":
+            return new RocksdbObjectStore(tmpFolder.newFolder(name), false);
+        default:
+            throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+    }
+
     public @TearDown void tearDown() {
         leftSource.close();
         rightSource.close();
+        tmpFolder.delete();
     }
 
     public int getGetAllCalls() {
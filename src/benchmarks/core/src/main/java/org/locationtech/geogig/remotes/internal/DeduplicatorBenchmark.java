@@ -0,0 +1,133 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.remotes.internal;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.tempstorage.rocksdb.OffHeapDeduplicator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares throughput and memory usage of {@link HeapDeduplicator} and {@link OffHeapDeduplicator}
+ * , the later both fitting in memory and spilling to disk, visiting {@code size} ids and then
+ * querying them all back.
+ * <p>
+ * Memory usage is printed to stderr after each invocation, as retained heap for the heap
+ * deduplicator and allocated off-heap bytes for the off-heap one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(value = { Mode.SingleShotTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Warmup(iterations = 1, batchSize = 1)
+@Timeout(time = 5, timeUnit = TimeUnit.MINUTES)
+@Measurement(iterations = 3, batchSize = 1)
+public class DeduplicatorBenchmark {
+
+    @Param(value = { "heap", "offheap", "offheap-spill" })
+    String impl;
+
+    @Param(value = { "1000000", "5000000" })
+    int size;
+
+    private List<ObjectId> ids;
+
+    private Deduplicator deduplicator;
+
+    private long heapBefore;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()//
+                .include(DeduplicatorBenchmark.class.getSimpleName())//
+                .forks(1)//
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    public @Setup(Level.Trial) void createIds() {
+        ids = IntStream.range(0, size).parallel()
+                .mapToObj(i -> RevObjectTestSupport.hashString("id" + i))
+                .collect(Collectors.toList());
+    }
+
+    public @Setup(Level.Invocation) void createDeduplicator() {
+        heapBefore = usedHeap();
+        switch (impl) {
+        case "heap":
+            deduplicator = new HeapDeduplicator();
+            break;
+        case "offheap":
+            deduplicator = new OffHeapDeduplicator(1024L * 1024 * 1024);
+            break;
+        case "offheap-spill":
+            // a budget that fits about a fifth of the ids
+            deduplicator = new OffHeapDeduplicator(size * 20L / 5);
+            break;
+        default:
+            throw new IllegalArgumentException(impl);
+        }
+    }
+
+    public @TearDown(Level.Invocation) void reportMemory() {
+        if (deduplicator instanceof OffHeapDeduplicator) {
+            OffHeapDeduplicator offheap = (OffHeapDeduplicator) deduplicator;
+            System.err.printf("%n%s: off-heap: %,d bytes, spilled: %s%n", impl,
+                    offheap.offHeapBytes(), offheap.isSpilled());
+        } else {
+            System.err.printf("%n%s: heap: %,d bytes%n", impl, usedHeap() - heapBefore);
+        }
+        deduplicator.release();
+        deduplicator = null;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public @Benchmark void visit(Blackhole bh) {
+        for (ObjectId id : ids) {
+            bh.consume(deduplicator.visit(id));
+        }
+        for (ObjectId id : ids) {
+            bh.consume(deduplicator.isDuplicate(id));
+        }
+    }
+
+    public @Benchmark void visitConcurrent(Blackhole bh) {
+        ids.parallelStream().forEach(id -> bh.consume(deduplicator.visit(id)));
+        ids.parallelStream().forEach(id -> bh.consume(deduplicator.isDuplicate(id)));
+    }
+}
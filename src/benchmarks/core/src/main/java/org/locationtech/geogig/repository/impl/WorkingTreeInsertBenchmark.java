@@ -0,0 +1,65 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.repository.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.repository.DefaultProgressListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * End to end benchmark of
+ * {@link WorkingTreeImpl#insert(java.util.Iterator, java.util.function.Function, int, org.locationtech.geogig.repository.ProgressListener)}
+ * on a RocksDB repository, from lazily created source features to the updated {@code WORK_HEAD},
+ * comparing the single threaded insert against the {@link WorkingTreeInsertPipeline} with different
+ * worker counts, and saving the features with {@code putAll} against a
+ * {@link org.locationtech.geogig.storage.ObjectStore#bulkIngest() bulk ingest} session, which
+ * includes sorting the features and ingesting the SST files into the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(value = { Mode.SingleShotTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = { "-Xms2G", "-Xmx2G" })
+@Warmup(iterations = 1)
+@Measurement(iterations = 3, batchSize = 1)
+public class WorkingTreeInsertBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()//
+                .include(WorkingTreeInsertBenchmark.class.getSimpleName())//
+                .forks(1)//
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    public @Benchmark void insert(Blackhole bh, WorkingTreeInsertBenchmarkState state) {
+        DefaultProgressListener progress = new DefaultProgressListener();
+        ObjectId workHead = state.workingTree.insert(state.features(), state::toFeatureInfo,
+                state.parallelism, state.ingest, progress);
+        bh.consume(workHead);
+        System.err.printf("%n%,d features inserted with parallelism %d, ingest %s: %s%n",
+                state.workingTree.getTree().size(), state.parallelism, state.ingest, workHead);
+    }
+}
@@ -0,0 +1,109 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.repository.impl;
+
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.dsl.Geogig;
+import org.locationtech.geogig.feature.Feature;
+import org.locationtech.geogig.feature.FeatureType;
+import org.locationtech.geogig.feature.FeatureTypes;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.RevFeatureType;
+import org.locationtech.geogig.repository.FeatureInfo;
+import org.locationtech.geogig.repository.WorkingTree;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+public class WorkingTreeInsertBenchmarkState {
+
+    @Param(value = { "100000", "1000000" })
+    int size;
+
+    @Param(value = { "1", "2", "4", "8" })
+    int parallelism;
+
+    /**
+     * Number of feature trees the features are spread across
+     */
+    @Param(value = { "1", "4" })
+    int trees;
+
+    /**
+     * Whether to save the features through a bulk ingest session instead of {@code putAll}
+     */
+    @Param(value = { "false", "true" })
+    boolean ingest;
+
+    private static final GeometryFactory GF = new GeometryFactory();
+
+    private FeatureType featureType;
+
+    private RevFeatureType revFeatureType;
+
+    private TemporaryFolder repoFolder;
+
+    Geogig repo;
+
+    WorkingTree workingTree;
+
+    public @Setup(Level.Trial) void setUp() {
+        featureType = FeatureTypes.createType("http://geogig.org#bench", "geom:Point",
+                "name:String", "value:Integer", "amount:Double");
+        revFeatureType = RevFeatureType.builder().type(featureType).build();
+    }
+
+    public @Setup(Level.Invocation) void setUpRepository() throws Exception {
+        repoFolder = new TemporaryFolder();
+        repoFolder.create();
+        repo = Geogig.create(repoFolder.getRoot().toURI());
+        repo.getRepository().context().objectDatabase().put(revFeatureType);
+        workingTree = repo.getRepository().context().workingTree();
+    }
+
+    public @TearDown(Level.Invocation) void tearDownRepository() {
+        repo.close();
+        repoFolder.delete();
+    }
+
+    /**
+     * Lazily creates the source features, like a datastore feature iterator would
+     */
+    Iterator<Feature> features() {
+        return IntStream.range(0, size).mapToObj(i -> {
+            Feature f = Feature.build("f" + i, featureType);
+            f.setAttribute("geom", GF.createPoint(new Coordinate(i % 360 - 180, i % 180 - 90)));
+            f.setAttribute("name", "feature number " + i);
+            f.setAttribute("value", i);
+            f.setAttribute("amount", i * 1.5);
+            return f;
+        }).iterator();
+    }
+
+    /**
+     * Builds and hashes the {@link RevFeature}, as {@code ImportOp} does
+     */
+    FeatureInfo toFeatureInfo(Feature f) {
+        RevFeature feature = RevFeature.builder().build(f);
+        int index = Integer.parseInt(f.getId().substring(1));
+        String path = NodeRef.appendChild("layer" + (index % trees), f.getId());
+        return FeatureInfo.insert(feature, revFeatureType.getId(), path);
+    }
+}
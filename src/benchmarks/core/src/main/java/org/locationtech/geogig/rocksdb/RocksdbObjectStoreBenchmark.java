@@ -0,0 +1,125 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.RevObject;
+import org.locationtech.geogig.rocksdb.DBHandle.RocksDBReference;
+import org.locationtech.geogig.storage.BulkIngest;
+import org.locationtech.geogig.storage.BulkOpListener;
+import org.locationtech.geogig.storage.BulkOpListener.CountingListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the {@link RocksdbObjectStore} bulk paths ({@code putAll} with {@code WriteBatch} and
+ * {@code multiGet} existence checks, {@code getAll} with sorted {@code multiGet} chunks) against
+ * the single object paths ({@code put} and {@code get} one object at a time), and the
+ * {@link RocksdbObjectStore#bulkIngest() bulk ingest} path (sorted SST files ingested directly)
+ * against {@code putAll}.
+ * <p>
+ * Note the write benchmarks time the insertion of the objects, but the cost of the memtable flushes
+ * and compactions {@code putAll} triggers is partly paid in the background and after the
+ * measurement, whereas the bulk ingest does all its work upfront. For a fair comparison on large
+ * sizes, also compare the {@code putAllAndCompact} and {@code bulkIngest} results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(value = { Mode.SingleShotTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = { "-Xms2G", "-Xmx2G" })
+@Warmup(iterations = 2, batchSize = 1)
+@Timeout(time = 2, timeUnit = TimeUnit.MINUTES)
+@Measurement(iterations = 5, batchSize = 1)
+public class RocksdbObjectStoreBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()//
+                .include(RocksdbObjectStoreBenchmark.class.getSimpleName())//
+                .forks(1)//
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    public @Benchmark void putAll(Blackhole bh, RocksdbObjectStoreBenchmarkState state) {
+        CountingListener listener = BulkOpListener.newCountingListener();
+        state.emptyStore.putAll(state.features.iterator(), listener);
+        bh.consume(listener.inserted());
+    }
+
+    public @Benchmark void putAllNoListener(Blackhole bh, RocksdbObjectStoreBenchmarkState state) {
+        state.emptyStore.putAll(state.features.iterator(), BulkOpListener.NOOP_LISTENER);
+    }
+
+    /**
+     * {@link #putAllNoListener} plus a full compaction, for the data to end up in its final layout
+     * as with {@link #bulkIngest}
+     */
+    public @Benchmark void putAllAndCompact(Blackhole bh, RocksdbObjectStoreBenchmarkState state)
+            throws Exception {
+        state.emptyStore.putAll(state.features.iterator(), BulkOpListener.NOOP_LISTENER);
+        try (RocksDBReference dbRef = state.emptyStore.dbhandle.getReference()) {
+            dbRef.db().compactRange();
+        }
+    }
+
+    public @Benchmark void bulkIngest(Blackhole bh, RocksdbObjectStoreBenchmarkState state) {
+        try (BulkIngest ingest = state.emptyStore.bulkIngest()) {
+            ingest.putAll(state.features.iterator());
+            bh.consume(ingest.ingest());
+        }
+    }
+
+    public @Benchmark void putAllExisting(Blackhole bh, RocksdbObjectStoreBenchmarkState state) {
+        CountingListener listener = BulkOpListener.newCountingListener();
+        state.populatedStore.putAll(state.features.iterator(), listener);
+        bh.consume(listener.found());
+    }
+
+    public @Benchmark void putOneByOne(Blackhole bh, RocksdbObjectStoreBenchmarkState state) {
+        int inserted = 0;
+        for (RevFeature f : state.features) {
+            if (state.emptyStore.put(f)) {
+                inserted++;
+            }
+        }
+        bh.consume(inserted);
+    }
+
+    public @Benchmark void getAll(Blackhole bh, RocksdbObjectStoreBenchmarkState state) {
+        Iterator<RevObject> it = state.populatedStore.getAll(state.ids);
+        while (it.hasNext()) {
+            bh.consume(it.next());
+        }
+    }
+
+    public @Benchmark void getOneByOne(Blackhole bh, RocksdbObjectStoreBenchmarkState state) {
+        for (ObjectId id : state.ids) {
+            bh.consume(state.populatedStore.get(id));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.storage.BulkOpListener;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+public class RocksdbObjectStoreBenchmarkState {
+
+    @Param(value = { "10000", "100000" })
+    int size;
+
+    List<RevFeature> features;
+
+    List<ObjectId> ids;
+
+    /**
+     * Pre-populated store for the read benchmarks
+     */
+    RocksdbObjectStore populatedStore;
+
+    /**
+     * Empty store re-created for each invocation of the write benchmarks
+     */
+    RocksdbObjectStore emptyStore;
+
+    private TemporaryFolder populatedFolder, emptyFolder;
+
+    public @Setup(Level.Trial) void setUp() throws Exception {
+        features = IntStream.range(0, size)
+                .mapToObj(i -> RevObjectTestSupport.feature(i, "value-" + i, (double) i))
+                .collect(Collectors.toList());
+        ids = features.stream().map(RevFeature::getId).collect(Collectors.toList());
+        // do not let the insertion order make for sorted ids on getAll
+        Collections.shuffle(ids);
+
+        populatedFolder = new TemporaryFolder();
+        populatedFolder.create();
+        populatedStore = new RocksdbObjectStore(populatedFolder.getRoot(), false);
+        populatedStore.open();
+        populatedStore.putAll(features.iterator(), BulkOpListener.NOOP_LISTENER);
+    }
+
+    public @TearDown(Level.Trial) void tearDown() {
+        populatedStore.close();
+        populatedFolder.delete();
+    }
+
+    public @Setup(Level.Invocation) void setUpEmptyStore() throws Exception {
+        emptyFolder = new TemporaryFolder();
+        emptyFolder.create();
+        emptyStore = new RocksdbObjectStore(emptyFolder.getRoot(), false);
+        emptyStore.open();
+    }
+
+    public @TearDown(Level.Invocation) void tearDownEmptyStore() {
+        emptyStore.close();
+        emptyFolder.delete();
+    }
+}
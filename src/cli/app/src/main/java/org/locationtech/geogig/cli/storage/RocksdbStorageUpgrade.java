@@ -0,0 +1,34 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.cli.storage;
+
+import java.io.IOException;
+
+import org.locationtech.geogig.cli.AbstractCommand;
+import org.locationtech.geogig.cli.CLICommand;
+import org.locationtech.geogig.cli.GeogigCLI;
+import org.locationtech.geogig.rocksdb.commands.RocksdbDatabaseUpgrade;
+
+import picocli.CommandLine.Command;
+
+/**
+ * Migrates the current RocksDB repository to the typed storage layout
+ * 
+ * @see RocksdbDatabaseUpgrade
+ */
+@Command(name = "rocksdb-upgrade", description = "Upgrade the storage layout of a RocksDB repository to store each kind of object in its own column family")
+public class RocksdbStorageUpgrade extends AbstractCommand implements CLICommand {
+
+    protected @Override void runInternal(GeogigCLI cli) throws IOException {
+        long moved = cli.getGeogig().command(RocksdbDatabaseUpgrade.class)
+                .setProgressListener(cli.getProgressListener()).call();
+        cli.getConsole().println(String.format("Moved %,d objects to the typed layout.", moved));
+    }
+}
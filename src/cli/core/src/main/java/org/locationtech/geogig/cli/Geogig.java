@@ -9,6 +9,7 @@
  */
 package org.locationtech.geogig.cli;
 
+import org.locationtech.geogig.cli.plumbing.BuildChangedPaths;
 import org.locationtech.geogig.cli.plumbing.Cat;
 import org.locationtech.geogig.cli.plumbing.DiffTree;
 import org.locationtech.geogig.cli.plumbing.Insert;
@@ -32,6 +33,7 @@ import org.locationtech.geogig.cli.porcelain.Config;
 import org.locationtech.geogig.cli.porcelain.Conflicts;
 import org.locationtech.geogig.cli.porcelain.Diff;
 import org.locationtech.geogig.cli.porcelain.FormatPatch;
+import org.locationtech.geogig.cli.porcelain.Gc;
 import org.locationtech.geogig.cli.porcelain.Init;
 import org.locationtech.geogig.cli.porcelain.Log;
 import org.locationtech.geogig.cli.porcelain.Ls;
@@ -76,6 +78,7 @@ import picocli.CommandLine.Spec;
                 , DiffTree.class//
                 , FormatPatch.class//
                 , VerifyPatch.class//
+                , Gc.class//
                 , Init.class//
                 , Insert.class//
                 , Log.class//
@@ -95,6 +98,7 @@ import picocli.CommandLine.Spec;
                 , Tag.class//
                 , WalkGraph.class//
                 , RebuildGraph.class//
+                , BuildChangedPaths.class//
                 , IndexCommandProxy.class//
         }//
 )
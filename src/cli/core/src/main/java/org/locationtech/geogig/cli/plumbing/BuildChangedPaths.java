@@ -0,0 +1,41 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.cli.plumbing;
+
+import java.io.IOException;
+
+import org.locationtech.geogig.cli.AbstractCommand;
+import org.locationtech.geogig.cli.CLICommand;
+import org.locationtech.geogig.cli.GeogigCLI;
+import org.locationtech.geogig.plumbing.BuildChangedPathsOp;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Builds the changed paths filters used to speed up path filtered log and blame, for the commits of
+ * all branches that don't have one yet.
+ * 
+ * @see BuildChangedPathsOp
+ */
+@Command(name = "build-changed-paths", description = "Builds the changed paths filters of the commits that don't have one.")
+public class BuildChangedPaths extends AbstractCommand implements CLICommand {
+
+    @Option(names = "--force", description = "Rebuild the filters of all commits, even if they already have one.")
+    private boolean force = false;
+
+    public @Override void runInternal(GeogigCLI cli) throws IOException {
+        int built = cli.getGeogig().command(BuildChangedPathsOp.class)//
+                .setForce(force)//
+                .setProgressListener(cli.getProgressListener())//
+                .call();
+        cli.getConsole().println(String.format("Built %,d changed paths filters.", built));
+    }
+}
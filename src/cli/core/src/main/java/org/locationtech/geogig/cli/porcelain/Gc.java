@@ -0,0 +1,74 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.cli.porcelain;
+
+import java.io.IOException;
+
+import org.locationtech.geogig.cli.AbstractCommand;
+import org.locationtech.geogig.cli.Console;
+import org.locationtech.geogig.cli.GeogigCLI;
+import org.locationtech.geogig.porcelain.GarbageCollectOp;
+import org.locationtech.geogig.porcelain.GarbageCollectOp.Result;
+import org.locationtech.geogig.porcelain.GarbageCollectOp.Stats;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Deletes all the objects that are not reachable from any ref, transaction, conflict, or index.
+ *
+ * @see GarbageCollectOp
+ */
+@Command(name = "gc", description = "Deletes unreachable objects from the object and index databases")
+public class Gc extends AbstractCommand {
+
+    @Option(names = { "--dry-run",
+            "-n" }, description = "Don't actually delete anything, just report what would be deleted.")
+    private boolean dryRun;
+
+    @Option(names = "--batch-size", description = "Number of objects to fetch or delete at once. Defaults to "
+            + GarbageCollectOp.DEFAULT_BATCH_SIZE)
+    private int batchSize = GarbageCollectOp.DEFAULT_BATCH_SIZE;
+
+    public @Override void runInternal(GeogigCLI cli) throws IOException {
+        checkParameter(batchSize > 0, "batch-size must be > 0");
+        final Console console = cli.getConsole();
+
+        Result result = cli.getGeogig().command(GarbageCollectOp.class).dryRun(dryRun)
+                .batchSize(batchSize).setProgressListener(cli.getProgressListener()).call();
+        if (result == null) {
+            console.println("Garbage collection aborted.");
+            return;
+        }
+        print(console, "objects", result.objects());
+        print(console, "index objects", result.index());
+    }
+
+    private void print(Console console, String name, Stats stats) throws IOException {
+        if (dryRun) {
+            console.println(String.format(
+                    "%,d reachable %s, %,d unreachable %s would be deleted (%s)", stats.reachable(),
+                    name, stats.unreachable(), name, toHumanReadable(stats.unreachableBytes())));
+        } else {
+            console.println(
+                    String.format("%,d reachable %s, %,d unreachable %s deleted (%s reclaimed)",
+                            stats.reachable(), name, stats.deleted(), name,
+                            toHumanReadable(stats.unreachableBytes())));
+        }
+    }
+
+    static String toHumanReadable(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int exp = (int) (Math.log(bytes) / Math.log(1024));
+        return String.format("%.1f %sB", bytes / Math.pow(1024, exp), "KMGTPE".charAt(exp - 1));
+    }
+}
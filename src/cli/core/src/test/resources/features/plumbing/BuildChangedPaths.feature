@@ -0,0 +1,22 @@
+Feature: "build-changed-paths" command
+    In order to speed up path filtered log and blame on existing histories
+    As a Geogig User
+    I want to build the changed paths filters of the commits that don't have one
+
+Scenario: I try to build the changed paths filters when all commits have one
+    Given I have a repository
+      And I have 3 commits
+     When I run the command "build-changed-paths"
+     Then the response should contain "Built 0 changed paths filters."
+
+Scenario: I try to rebuild all the changed paths filters
+    Given I have a repository
+      And I have 3 commits
+     When I run the command "build-changed-paths --force"
+     Then the response should contain "Built 3 changed paths filters."
+
+Scenario: I try to build the changed paths filters from outside a repository
+    Given I am in an empty directory
+     When I run the command "build-changed-paths"
+     Then the response should start with "Not in a geogig repository"
+      And it should exit with non-zero exit code
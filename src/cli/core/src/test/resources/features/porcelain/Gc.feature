@@ -0,0 +1,42 @@
+Feature: "gc" command
+    In order to reclaim storage space
+    As a Geogig User
+    I want to delete the objects that are no longer reachable
+
+  Scenario: Try to garbage collect a repository twice
+    Given I have a repository
+      And I have several commits
+     When I run the command "gc"
+     Then it should exit with zero exit code
+     When I run the command "gc"
+     Then the response should contain ", 0 unreachable objects deleted"
+      And the response should contain ", 0 unreachable index objects deleted"
+     When I run the command "log"
+     Then the response should contain "Commit1"
+      And the response should contain "Commit4"
+
+  Scenario: Try to garbage collect a repository with unreachable objects
+    Given I have a repository
+      And I have several commits
+      And I have staged "points1"
+      And I run the command "reset --hard"
+     When I run the command "gc"
+     Then the response should not contain ", 0 unreachable objects deleted"
+     When I run the command "gc"
+     Then the response should contain ", 0 unreachable objects deleted"
+
+  Scenario: Try to garbage collect a repository in dry-run mode
+    Given I have a repository
+      And I have several commits
+      And I have staged "points1"
+      And I run the command "reset --hard"
+     When I run the command "gc --dry-run"
+     Then the response should contain "unreachable objects would be deleted"
+     When I run the command "gc"
+     Then the response should not contain ", 0 unreachable objects deleted"
+
+  Scenario: Try to garbage collect from outside a repository
+    Given I am in an empty directory
+     When I run the command "gc"
+     Then the response should contain "Not in a geogig repository"
+      And it should exit with non-zero exit code
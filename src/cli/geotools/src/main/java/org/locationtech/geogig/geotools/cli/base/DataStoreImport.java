@@ -85,6 +85,17 @@ public abstract class DataStoreImport extends AbstractCommand implements CLIComm
     @Option(names = { "-f", "--cql-filter" }, description = "GetoTools ECQL filter")
     String cqlFilter;
 
+    @Option(names = {
+            "--workers" }, description = "Number of threads used to build, save, and index the imported features. Defaults to the number of available processors, use 1 to do all the work on a single thread")
+    int workers = 0;
+
+    /**
+     * Bulk load the imported features
+     */
+    @Option(names = {
+            "--ingest" }, description = "Bulk load the imported features, bypassing the regular write path of the repository storage when supported (e.g. writing sorted RocksDB table files directly). Meant for large initial loads")
+    boolean ingest;
+
     protected abstract String getSourceDatabaseName();
 
     protected abstract DataStore getDataStore();
@@ -115,7 +126,8 @@ public abstract class DataStoreImport extends AbstractCommand implements CLIComm
             ImportOp op = repository.command(ImportOp.class).setAll(all).setTable(table)
                     .setAlter(alter).setDestinationPath(destTable).setOverwrite(!add)
                     .setDataStore(dataStore).setAdaptToDefaultFeatureType(!forceFeatureType)
-                    .setFidAttribute(fidAttribute).setFilter(filter);
+                    .setFidAttribute(fidAttribute).setFilter(filter).setParallelism(workers)
+                    .setIngest(ingest);
             ForwardingFeatureIteratorProvider transformer = getForwardingFeatureIteratorProvider();
             if (transformer != null) {
                 op.setForwardingFeatureIteratorProvider(transformer);
@@ -89,6 +89,13 @@ public class GeoJsonImport extends AbstractGeoJsonCommand implements CLICommand
             "--fid-attrib" }, description = "Use the specified attribute to create the feature Id")
     String fidAttribute;
 
+    /**
+     * Bulk load the imported features
+     */
+    @Option(names = {
+            "--ingest" }, description = "Bulk load the imported features, bypassing the regular write path of the repository storage when supported (e.g. writing sorted RocksDB table files directly). Meant for large initial loads")
+    boolean ingest;
+
     protected @Override void runInternal(GeogigCLI cli)
             throws InvalidParameterException, CommandFailedException, IOException {
         checkParameter(geoJSONList != null && !geoJSONList.isEmpty(), "No GeoJSON specified");
@@ -136,7 +143,7 @@ public class GeoJsonImport extends AbstractGeoJsonCommand implements CLICommand
                 cli.getGeogig().command(ImportOp.class).setAll(true).setTable(null).setAlter(alter)
                         .setOverwrite(!add).setDestinationPath(destTable).setDataStore(dataStore)
                         .setFidAttribute(fidAttribute).setGeometryNameOverride(geomName)
-                        .setAdaptToDefaultFeatureType(!forceFeatureType)
+                        .setAdaptToDefaultFeatureType(!forceFeatureType).setIngest(ingest)
                         .setProgressListener(progressListener).call();
 
                 cli.getConsole().println(geoJSON + " imported successfully.");
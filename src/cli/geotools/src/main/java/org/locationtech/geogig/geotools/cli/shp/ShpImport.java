@@ -97,6 +97,13 @@ public class ShpImport extends AbstractShpCommand implements CLICommand {
     @Option(names = { "-f", "--cql-filter" }, description = "GetoTools ECQL filter")
     String cqlFilter;
 
+    /**
+     * Bulk load the imported features
+     */
+    @Option(names = {
+            "--ingest" }, description = "Bulk load the imported features, bypassing the regular write path of the repository storage when supported (e.g. writing sorted RocksDB table files directly). Meant for large initial loads")
+    boolean ingest;
+
     /**
      * Executes the import command using the provided options.
      */
@@ -139,7 +146,7 @@ public class ShpImport extends AbstractShpCommand implements CLICommand {
                         .setDestinationPath(destTable).setDataStore(dataStore)
                         .setFidAttribute(fidAttribute)
                         .setAdaptToDefaultFeatureType(!forceFeatureType)
-                        .setCreateSchemaOnly(onlyCreate).setFilter(filter);
+                        .setCreateSchemaOnly(onlyCreate).setFilter(filter).setIngest(ingest);
 
                 // force the import not to use paging due to a bug in the shapefile datastore
                 command.setUsePaging(false);
@@ -9,12 +9,17 @@
  */
 package org.locationtech.geogig.data.retrieve;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.base.Preconditions;
 import org.locationtech.geogig.crs.CoordinateReferenceSystem;
 import org.locationtech.geogig.feature.Feature;
 import org.locationtech.geogig.feature.FeatureType;
@@ -23,6 +28,7 @@ import org.locationtech.geogig.feature.Name;
 import org.locationtech.geogig.feature.PropertyDescriptor;
 import org.locationtech.geogig.model.DiffEntry;
 import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevFeature;
 import org.locationtech.geogig.model.RevFeatureType;
 import org.locationtech.geogig.storage.AutoCloseableIterator;
@@ -33,6 +39,8 @@ import org.locationtech.geogig.storage.ObjectStore;
 import org.locationtech.geogig.storage.internal.ObjectStoreDiffObjectIterator;
 import org.locationtech.jts.geom.GeometryFactory;
 
+import com.google.common.collect.Iterators;
+
 import lombok.NonNull;
 
 /**
@@ -95,6 +103,35 @@ public class BulkFeatureRetriever {
         };
     }
 
+    /**
+     * Like {@link #getGeoGIGFeatures(Iterator)}, but returns the features in the same order as
+     * {@code refs}, which {@link ObjectStore#getObjects} does not guarantee, by fetching them in
+     * batches of {@code batchSize} objects with {@link ObjectStore#getAll}.
+     * <p>
+     * The features not found in the database are skipped.
+     *
+     * @param refs the refs of the features to fetch, in the order they shall be returned
+     * @param batchSize the number of features to fetch at once
+     * @since 2.0
+     */
+    public AutoCloseableIterator<ObjectInfo<RevFeature>> getGeoGIGFeaturesInOrder(
+            @NonNull AutoCloseableIterator<NodeRef> refs, int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "batchSize shall be > 0");
+        Iterator<List<NodeRef>> batches = Iterators.partition(refs, batchSize);
+        Iterator<Iterator<ObjectInfo<RevFeature>>> fetched = Iterators.transform(batches,
+                this::fetchInOrder);
+        return AutoCloseableIterator.fromIterator(Iterators.concat(fetched), it -> refs.close());
+    }
+
+    private Iterator<ObjectInfo<RevFeature>> fetchInOrder(List<NodeRef> batch) {
+        Set<ObjectId> ids = batch.stream().map(NodeRef::getObjectId).collect(Collectors.toSet());
+        Map<ObjectId, RevFeature> features = new HashMap<>();
+        odb.getAll(ids, BulkOpListener.NOOP_LISTENER, RevFeature.class)
+                .forEachRemaining(f -> features.put(f.getId(), f));
+        return batch.stream().filter(ref -> features.containsKey(ref.getObjectId()))
+                .map(ref -> ObjectInfo.of(ref, features.get(ref.getObjectId()))).iterator();
+    }
+
     /**
      * Given a bunch of NodeRefs, create Features from the results. The result might be mixed
      * FeatureTypes
@@ -137,6 +174,26 @@ public class BulkFeatureRetriever {
         return AutoCloseableIterator.transform(fis, funcBuildFeature);
     }
 
+    /**
+     * Same as
+     * {@link #getGeoToolsFeatures(AutoCloseableIterator, RevFeatureType, Name, GeometryFactory)},
+     * but preserving the order of {@code refs} as per
+     * {@link #getGeoGIGFeaturesInOrder(AutoCloseableIterator, int)}
+     *
+     * @since 2.0
+     */
+    public AutoCloseableIterator<Feature> getGeoToolsFeaturesInOrder(
+            AutoCloseableIterator<NodeRef> refs, RevFeatureType nativeType,
+            @Nullable Name typeNameOverride, GeometryFactory geometryFactory, int batchSize) {
+
+        Function<ObjectInfo<RevFeature>, Feature> funcBuildFeature = info -> Feature
+                .build(info.node().getName(), nativeType.type(), info.object(), geometryFactory);
+        AutoCloseableIterator<ObjectInfo<RevFeature>> fis = getGeoGIGFeaturesInOrder(refs,
+                batchSize);
+
+        return AutoCloseableIterator.transform(fis, funcBuildFeature);
+    }
+
     public AutoCloseableIterator<DiffObjectInfo<RevFeature>> getDiffFeatures(
             Iterator<DiffEntry> refs) {
         AutoCloseableIterator<DiffObjectInfo<RevFeature>> objects;
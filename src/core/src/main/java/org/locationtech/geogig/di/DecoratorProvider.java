@@ -44,7 +44,10 @@ class DecoratorProvider {
                 decorated = (T) decorator.decorate(decorated);
             }
         }
-        if (isSingleton(undecoratedClass)) {
+        // only cache actual decorators, caching an undecorated instance by class would return a
+        // stale one once the provider hands out a new instance (e.g. the blob store or graph
+        // database of an object database after the repository is closed and reopened)
+        if (decorated != undecorated && isSingleton(undecoratedClass)) {
             singletonDecorators.put(undecoratedClass, decorated);
         }
 
@@ -0,0 +1,83 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.hooks.builtin;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.hooks.CannotRunGeogigOperationException;
+import org.locationtech.geogig.hooks.CommandHook;
+import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.model.SymRef;
+import org.locationtech.geogig.plumbing.BuildChangedPathsOp;
+import org.locationtech.geogig.plumbing.ChangedPathsFilter;
+import org.locationtech.geogig.plumbing.UpdateRefs;
+import org.locationtech.geogig.repository.Command;
+import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
+import org.locationtech.geogig.storage.RefChange;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hooks into {@link UpdateRefs} to build the {@link ChangedPathsFilter changed paths filters} of
+ * the new commits in the updated local branches.
+ * <p>
+ * Other refs are ignored: remote branches are fetched in bulk and their commits get their filters
+ * once merged into a local branch or backfilled, tags may point to tag objects, and transaction
+ * branches get theirs when the transaction is committed.
+ * <p>
+ * At most {@link #MAX_COMMITS} filters are built per updated ref, so updating a ref to a long
+ * history that has no filters yet (e.g. on the first commit to a pre-existing repository) doesn't
+ * take long. Such histories shall be backfilled with {@link BuildChangedPathsOp}.
+ */
+@Slf4j(topic = "geogig.hooks")
+public class ChangedPathsHook implements CommandHook {
+
+    static final int MAX_COMMITS = 100;
+
+    public @Override boolean appliesTo(Class<? extends AbstractGeoGigOp<?>> clazz) {
+        return UpdateRefs.class.equals(clazz);
+    }
+
+    public @Override <C extends Command<?>> C pre(C command)
+            throws CannotRunGeogigOperationException {
+        return command;
+    }
+
+    @SuppressWarnings("unchecked")
+    public @Override <T> T post(Command<T> command, @Nullable Object retVal,
+            @Nullable RuntimeException exception) throws Exception {
+        if (exception != null) {
+            return (T) retVal;
+        }
+        for (RefChange change : (List<RefChange>) retVal) {
+            Optional<Ref> ref = change.newValue().filter(this::isBranch);
+            if (ref.isPresent()) {
+                try {
+                    int built = command.context().command(BuildChangedPathsOp.class)//
+                            .addTip(ref.get().getObjectId())//
+                            .setLimit(MAX_COMMITS)//
+                            .call();
+                    log.debug("Built {} changed paths filters for {}", built, ref.get());
+                } catch (Exception e) {
+                    log.error("Error building changed paths filters for {}", ref.get(), e);
+                }
+            }
+        }
+        return (T) retVal;
+    }
+
+    private boolean isBranch(@NonNull Ref ref) {
+        return !ref.getObjectId().isNull() && !(ref instanceof SymRef)
+                && ref.getName().startsWith(Ref.HEADS_PREFIX);
+    }
+}
@@ -17,7 +17,6 @@ import static org.locationtech.geogig.model.Ref.STAGE_HEAD;
 import static org.locationtech.geogig.model.Ref.WORK_HEAD;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -32,6 +31,7 @@ import org.locationtech.geogig.model.SymRef;
 import org.locationtech.geogig.plumbing.UpdateRefs;
 import org.locationtech.geogig.porcelain.ConflictsException;
 import org.locationtech.geogig.porcelain.index.Index;
+import org.locationtech.geogig.porcelain.index.IndexUpdateService;
 import org.locationtech.geogig.porcelain.index.UpdateIndexesOp;
 import org.locationtech.geogig.repository.Command;
 import org.locationtech.geogig.repository.Context;
@@ -45,7 +45,10 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * Hooks into {@link UpdateRefs} to update all the indexes that need updating after a branch is
  * updated.
- *
+ * <p>
+ * If the {@value IndexUpdateService#ASYNC_CONFIG_KEY} repository config option is {@code true}, the
+ * indexes are updated in the background by the {@link IndexUpdateService} instead of before
+ * {@link UpdateRefs} returns.
  */
 @Slf4j(topic = "geogig.hooks")
 public class UpdateIndexesHook implements CommandHook {
@@ -68,8 +71,17 @@ public class UpdateIndexesHook implements CommandHook {
         if (exception != null) {
             return (T) retVal;
         }
-        final List<Ref> indexableRefs = findIndexableRefs(command, retVal);
-        for (Ref ref : indexableRefs) {
+        final List<RefChange> indexableChanges = findIndexableChanges(command, retVal);
+        if (!indexableChanges.isEmpty() && IndexUpdateService.isEnabled(command.context())) {
+            for (RefChange change : indexableChanges) {
+                ObjectId previous = change.oldValue().map(Ref::getObjectId).orElse(null);
+                IndexUpdateService.INSTANCE.submit(command.context(), change.newValue().get(),
+                        previous);
+            }
+            return (T) retVal;
+        }
+        for (RefChange change : indexableChanges) {
+            final Ref ref = change.newValue().get();
             final Context context = command.context();
             try {
                 ProgressListener listener = command.getProgressListener();
@@ -95,12 +107,12 @@ public class UpdateIndexesHook implements CommandHook {
     }
 
     @SuppressWarnings("unchecked")
-    private List<Ref> findIndexableRefs(Command<?> command, Object retVal) {
+    private List<RefChange> findIndexableChanges(Command<?> command, Object retVal) {
         Preconditions.checkState(command instanceof UpdateRefs);
         List<RefChange> updated = (List<RefChange>) retVal;
 
-        return updated.stream().map(RefChange::newValue).filter(Optional::isPresent)
-                .map(Optional::get).filter(this::isIndexable).collect(Collectors.toList());
+        return updated.stream().filter(c -> c.newValue().filter(this::isIndexable).isPresent())
+                .collect(Collectors.toList());
     }
 
     private boolean isIndexable(@NonNull Ref ref) {
@@ -0,0 +1,162 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.plumbing;
+
+import static org.locationtech.geogig.base.Preconditions.checkArgument;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.DiffEntry;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.porcelain.BranchListOp;
+import org.locationtech.geogig.repository.ProgressListener;
+import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
+import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.GraphDatabase;
+import org.locationtech.geogig.storage.ObjectDatabase;
+
+import lombok.NonNull;
+
+/**
+ * Computes and stores the {@link ChangedPathsFilter changed paths filter} of the commits reachable
+ * from a set of tip commits, and returns the number of filters built.
+ * <p>
+ * By default the whole history of all the local and remote branches is walked, and the filters are
+ * built for all the commits that don't have one yet, which is how existing repositories are
+ * backfilled. If a {@link #setLimit(Integer) limit} is given, the walk is incremental instead: it
+ * doesn't go past the commits that already have a filter, and stops after building {@code limit}
+ * filters.
+ *
+ * @since 2.0
+ */
+public class BuildChangedPathsOp extends AbstractGeoGigOp<Integer> {
+
+    private List<ObjectId> tips = new ArrayList<>();
+
+    private @Nullable Integer limit;
+
+    private boolean force;
+
+    /**
+     * Adds a commit to start walking the history from. If no tip is given, all local and remote
+     * branches are used.
+     */
+    public BuildChangedPathsOp addTip(@NonNull ObjectId commitId) {
+        this.tips.add(commitId);
+        return this;
+    }
+
+    /**
+     * @param limit if not {@code null}, the maximum number of filters to build, and indicates the
+     *        walk shall not go past the commits that already have a filter
+     */
+    public BuildChangedPathsOp setLimit(@Nullable Integer limit) {
+        checkArgument(limit == null || limit > 0, "limit shall be > 0: %s", limit);
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @param force whether to rebuild the filters of the commits that already have one
+     */
+    public BuildChangedPathsOp setForce(boolean force) {
+        this.force = force;
+        return this;
+    }
+
+    protected @Override Integer _call() {
+        final ObjectDatabase objects = objectDatabase();
+        final GraphDatabase graph = graphDatabase();
+        final ProgressListener listener = getProgressListener();
+
+        final Deque<ObjectId> queue = new ArrayDeque<>(resolveTips());
+        final Set<ObjectId> visited = new HashSet<>();
+        int built = 0;
+        while (!queue.isEmpty() && !listener.isCanceled()) {
+            final ObjectId commitId = queue.removeFirst();
+            if (!visited.add(commitId) || !graph.exists(commitId) || !objects.exists(commitId)) {
+                continue;
+            }
+            final boolean exists = !force && ChangedPathsFilter.exists(graph, commitId);
+            if (!exists) {
+                if (limit != null && built == limit.intValue()) {
+                    break;
+                }
+                RevCommit commit = objects.getCommit(commitId);
+                ChangedPathsFilter filter = build(commit);
+                if (!filter.save(graph, commitId)) {
+                    // the graph database can't store them
+                    break;
+                }
+                listener.setProgress(++built);
+            } else if (limit != null) {
+                continue;
+            }
+            queue.addAll(graph.getParents(commitId));
+        }
+        return built;
+    }
+
+    private List<ObjectId> resolveTips() {
+        if (!tips.isEmpty()) {
+            return tips;
+        }
+        List<Ref> branches = command(BranchListOp.class).setLocal(true).setRemotes(true).call();
+        List<ObjectId> branchTips = new ArrayList<>();
+        branches.forEach(b -> branchTips.add(b.getObjectId()));
+        return branchTips;
+    }
+
+    /**
+     * Computes the changed paths filter for {@code commit} as the union of the changes against each
+     * of its parents, or against the empty tree if it has no parents or they're missing (e.g. at
+     * the bottom of a shallow clone)
+     */
+    ChangedPathsFilter build(RevCommit commit) {
+        final ObjectDatabase objects = objectDatabase();
+        final Set<String> changedPaths = new HashSet<>();
+        final List<ObjectId> parentTrees = new ArrayList<>();
+        for (ObjectId parentId : commit.getParentIds()) {
+            if (objects.exists(parentId)) {
+                parentTrees.add(objects.getCommit(parentId).getTreeId());
+            }
+        }
+        if (parentTrees.isEmpty()) {
+            parentTrees.add(RevTree.EMPTY_TREE_ID);
+        }
+        for (ObjectId parentTree : parentTrees) {
+            try (AutoCloseableIterator<DiffEntry> diffs = command(DiffTree.class)//
+                    .setOldTree(parentTree)//
+                    .setNewTree(commit.getTreeId())//
+                    .setReportTrees(true)//
+                    .setPreserveIterationOrder(false)//
+                    .setMaxDiffs(Long.valueOf(ChangedPathsFilter.MAX_PATHS + 1))//
+                    .call()) {
+                while (diffs.hasNext()) {
+                    changedPaths.addAll(NodeRef.allPathsTo(diffs.next().path()));
+                    if (changedPaths.size() > ChangedPathsFilter.MAX_PATHS) {
+                        return ChangedPathsFilter.ALL_PATHS;
+                    }
+                }
+            }
+        }
+        return ChangedPathsFilter.of(changedPaths);
+    }
+}
@@ -0,0 +1,193 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.plumbing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.porcelain.BlameOp;
+import org.locationtech.geogig.porcelain.LogOp;
+import org.locationtech.geogig.storage.GraphDatabase;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A Bloom filter of the paths of the trees and features a commit changed with respect to any of its
+ * parents, persisted apart from the commit graph nodes with
+ * {@link GraphDatabase#putChangedPaths(ObjectId, byte[])}.
+ * <p>
+ * Allows {@link LogOp} and {@link BlameOp} to rule out the commits that did not change a given path
+ * without loading and comparing the commit trees: if {@link #mightContain(String)} returns
+ * {@code false}, the commit definitely did not change the path.
+ * <p>
+ * The paths of the parent trees of every changed node are also added to the filter, so both tree
+ * and feature paths can be tested. Commits with more than {@link #MAX_PATHS} changed paths get a
+ * filter that {@link #isAllPaths() matches all paths}, to bound the size of the filters.
+ *
+ * @see BuildChangedPathsOp
+ * @since 2.0
+ */
+@Slf4j
+public final class ChangedPathsFilter {
+
+    /**
+     * Maximum number of changed paths a filter is built for
+     */
+    public static final int MAX_PATHS = 2048;
+
+    /**
+     * Filter that matches all paths
+     */
+    public static final ChangedPathsFilter ALL_PATHS = new ChangedPathsFilter(null);
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private static final byte VERSION = 1;
+
+    private static final byte ALL_PATHS_MARKER = 0;
+
+    private static final byte BLOOM_FILTER_MARKER = 1;
+
+    private final @Nullable BloomFilter<CharSequence> filter;
+
+    private ChangedPathsFilter(@Nullable BloomFilter<CharSequence> filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * @param changedPaths the paths of the changed trees and features, including their parent tree
+     *        paths
+     * @return a filter for the given paths, or {@link #ALL_PATHS} if there are more than
+     *         {@link #MAX_PATHS} of them
+     */
+    public static ChangedPathsFilter of(@NonNull Collection<String> changedPaths) {
+        if (changedPaths.size() > MAX_PATHS) {
+            return ALL_PATHS;
+        }
+        BloomFilter<CharSequence> filter = BloomFilter.create(
+                Funnels.stringFunnel(StandardCharsets.UTF_8), Math.max(1, changedPaths.size()),
+                FALSE_POSITIVE_PROBABILITY);
+        changedPaths.forEach(filter::put);
+        return new ChangedPathsFilter(filter);
+    }
+
+    /**
+     * @return {@code true} if this filter can't rule out any path, because the commit changed more
+     *         than {@link #MAX_PATHS} paths
+     */
+    public boolean isAllPaths() {
+        return filter == null;
+    }
+
+    /**
+     * @return {@code false} if the commit definitely did not change {@code path}, {@code true} if
+     *         it might have
+     */
+    public boolean mightContain(@NonNull String path) {
+        return filter == null || filter.mightContain(path);
+    }
+
+    /**
+     * @return {@code false} if the commit definitely did not change any of the {@code paths},
+     *         {@code true} if it might have changed some
+     */
+    public boolean mightContainAny(@NonNull Iterable<String> paths) {
+        for (String path : paths) {
+            if (mightContain(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the binary representation of this filter as stored in the graph database
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        if (filter == null) {
+            out.write(ALL_PATHS_MARKER);
+            return out.toByteArray();
+        }
+        out.write(BLOOM_FILTER_MARKER);
+        try {
+            filter.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the filter decoded from its {@link #encode() binary representation}, or empty if the
+     *         format is not recognized
+     */
+    public static Optional<ChangedPathsFilter> decode(@NonNull byte[] encoded) {
+        if (encoded.length < 2 || encoded[0] != VERSION) {
+            return Optional.empty();
+        }
+        if (encoded[1] == ALL_PATHS_MARKER) {
+            return Optional.of(ALL_PATHS);
+        }
+        if (encoded[1] != BLOOM_FILTER_MARKER) {
+            return Optional.empty();
+        }
+        try {
+            BloomFilter<CharSequence> filter = BloomFilter.readFrom(
+                    new ByteArrayInputStream(encoded, 2, encoded.length - 2),
+                    Funnels.stringFunnel(StandardCharsets.UTF_8));
+            return Optional.of(new ChangedPathsFilter(filter));
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Unable to decode changed paths filter, ignoring it", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return whether the commit has a stored filter, without decoding it
+     */
+    public static boolean exists(@NonNull GraphDatabase graph, @NonNull ObjectId commitId) {
+        return graph.getChangedPaths(commitId).isPresent();
+    }
+
+    /**
+     * @return the filter stored for the commit, or empty if it has none
+     */
+    public static Optional<ChangedPathsFilter> load(@NonNull GraphDatabase graph,
+            @NonNull ObjectId commitId) {
+        return graph.getChangedPaths(commitId).flatMap(ChangedPathsFilter::decode);
+    }
+
+    /**
+     * Stores this filter for the given commit, that must already be in the graph database
+     *
+     * @return {@code false} if the graph database doesn't support storing changed paths filters
+     */
+    public boolean save(@NonNull GraphDatabase graph, @NonNull ObjectId commitId) {
+        return graph.putChangedPaths(commitId, encode());
+    }
+
+    public @Override String toString() {
+        return filter == null ? "ChangedPathsFilter[all paths]"
+                : String.format("ChangedPathsFilter[~%d paths]", filter.approximateElementCount());
+    }
+}
@@ -11,14 +11,18 @@ package org.locationtech.geogig.plumbing;
 
 import static org.locationtech.geogig.base.Preconditions.checkArgument;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -37,12 +41,15 @@ import org.locationtech.geogig.model.NodeOrdering;
 import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.plumbing.diff.AttributeIndexFilteringDiffConsumer;
+import org.locationtech.geogig.plumbing.diff.AttributeIndexFilteringDiffConsumer.KeyRange;
 import org.locationtech.geogig.plumbing.diff.BoundsFilteringDiffConsumer;
 import org.locationtech.geogig.plumbing.diff.PathFilteringDiffConsumer;
 import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk;
 import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk.BucketIndex;
 import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk.Consumer;
 import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk.ForwardingConsumer;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
 import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
 import org.locationtech.geogig.storage.AutoCloseableIterator;
 import org.locationtech.geogig.storage.ObjectDatabase;
@@ -62,10 +69,36 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DiffTree.class);
 
+    /**
+     * System property to set the default maximum number of {@link DiffEntry diff entries} buffered
+     * between the tree walk and the returned iterator, see {@link #setBufferSize(int)}
+     */
+    public static final String BUFFER_SIZE_PROPERTY = "geogig.difftree.bufferSize";
+
+    /**
+     * System property to set the default maximum number of diffs for which the tree walk is
+     * performed in the calling thread, see {@link #setSynchronousThreshold(long)}
+     */
+    public static final String SYNCHRONOUS_THRESHOLD_PROPERTY = "geogig.difftree.synchronousThreshold";
+
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+    public static final long DEFAULT_SYNCHRONOUS_THRESHOLD = 1_000;
+
+    /**
+     * Number of {@link DiffEntry diff entries} handed off at once from the tree walk to the
+     * returned iterator
+     */
+    static final int CHUNK_SIZE = 256;
+
     private final List<String> pathFilters = new LinkedList<>();
 
     private Envelope boundsFilter;
 
+    private String indexedAttribute;
+
+    private List<KeyRange> indexKeyRanges;
+
     private ChangeType changeTypeFilter;
 
     private String oldRefSpec, newRefSpec;
@@ -82,6 +115,8 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
 
     private Long limit;
 
+    private Long offset;
+
     private ObjectId metadataId;
 
     private ObjectStore leftSource;
@@ -90,6 +125,11 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
 
     private boolean preserveIterationOrder = false;
 
+    private int bufferSize = Integer.getInteger(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE);
+
+    private long synchronousThreshold = Long.getLong(SYNCHRONOUS_THRESHOLD_PROPERTY,
+            DEFAULT_SYNCHRONOUS_THRESHOLD);
+
     private static ExecutorService producerThreads;
 
     private Stats stats;
@@ -215,6 +255,23 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
         return this;
     }
 
+    /**
+     * Sets the value ranges to filter the nodes of {@link IndexType#ATTRIBUTE attribute index}
+     * trees by, pruning the buckets that can't contain matching nodes.
+     * 
+     * @param attributeName the indexed attribute name, or {@code null} to clear the filter
+     * @param ranges the ranges of values to match, or {@code null} to clear the filter
+     * @see AttributeIndexFilteringDiffConsumer
+     */
+    public DiffTree setIndexKeyRanges(@Nullable String attributeName,
+            @Nullable List<KeyRange> ranges) {
+        checkArgument((attributeName == null) == (ranges == null),
+                "both attribute name and key ranges shall be null or non null");
+        this.indexedAttribute = attributeName;
+        this.indexKeyRanges = ranges;
+        return this;
+    }
+
     public DiffTree setCustomFilter(@Nullable Predicate<Bounded> customFilter) {
         this.customFilter = customFilter;
         return this;
@@ -290,43 +347,22 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
             visitor.nodeOrder(nodeOrdering);
         }
 
-        final BlockingQueue<DiffEntry> queue = new ArrayBlockingQueue<>(1000_000);
-        final DiffEntryProducer diffProducer = new DiffEntryProducer(queue);
+        if (recordStats) {
+            stats = new Stats();
+        }
+        if (isSynchronous(oldTree, newTree)) {
+            return walkSynchronously(visitor, oldTree, newTree, leftSource, rightSource);
+        }
+
+        final ChunkedDiffEntryProducer diffProducer = new ChunkedDiffEntryProducer(bufferSize);
         diffProducer.setReportTrees(this.reportTrees);
         diffProducer.setRecursive(this.recursive);
 
         final List<RuntimeException> producerErrors = new LinkedList<>();
-        if (recordStats) {
-            stats = new Stats();
-        }
         Runnable producer = new Runnable() {
             public @Override void run() {
-                Consumer consumer = diffProducer;
-                if (recordStats) {
-                    consumer = new AcceptedFeaturesStatsConsumer(consumer, stats);
-                }
-                if (limit != null) {// evaluated the latest
-                    consumer = new PreOrderDiffWalk.MaxFeatureDiffsLimiter(consumer, limit);
-                }
-                if (customFilter != null) {
-                    consumer = new PreOrderDiffWalk.FilteringConsumer(consumer, customFilter);
-                }
-                if (changeTypeFilter != null) {
-                    consumer = new ChangeTypeFilteringDiffConsumer(changeTypeFilter, consumer);
-                }
-                if (boundsFilter != null) {
-                    consumer = new BoundsFilteringDiffConsumer(boundsFilter, consumer);
-                }
-                if (!pathFilters.isEmpty()) {// evaluated the former
-                    consumer = new PathFilteringDiffConsumer(pathFilters, consumer);
-                }
-                if (recordStats) {
-                    consumer = new StatsConsumer(consumer, stats);
-                }
-                if (wrapper != null) {
-                    wrapper.setDelegate(consumer);
-                    consumer = wrapper;
-                }
+                Consumer consumer = createConsumer(diffProducer, oldTree, newTree, leftSource,
+                        rightSource);
                 try {
                     LOGGER.trace("walking diff {} / {}", oldRefSpec, newRefSpec);
                     visitor.walk(consumer);
@@ -335,7 +371,7 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
                     LOGGER.error("Error traversing diffs", e);
                     producerErrors.add(e);
                 } finally {
-                    diffProducer.finished = true;
+                    diffProducer.complete();
                 }
             }
         };
@@ -343,38 +379,53 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
 
         AutoCloseableIterator<DiffEntry> consumerIterator = new AutoCloseableIterator<DiffEntry>() {
 
+            private List<DiffEntry> chunk = Collections.emptyList();
+
+            private int chunkIndex;
+
             private DiffEntry next = null;
 
             private DiffEntry computeNext() {
                 if (!producerErrors.isEmpty()) {
                     throw new RuntimeException("Error in producer thread", producerErrors.get(0));
                 }
-                BlockingQueue<DiffEntry> entries = queue;
+                if (chunkIndex < chunk.size()) {
+                    return chunk.get(chunkIndex++);
+                }
+                diffProducer.recycle(chunk);
+                chunk = Collections.emptyList();
+                chunkIndex = 0;
+
                 boolean finished = diffProducer.isFinished();
-                boolean empty = entries.isEmpty();
+                boolean empty = diffProducer.isEmpty();
                 while (!finished || !empty) {
                     try {
-                        DiffEntry entry = entries.poll(10, TimeUnit.MILLISECONDS);
-                        if (entry != null) {
-                            return entry;
+                        List<DiffEntry> entries = diffProducer.poll(10, TimeUnit.MILLISECONDS);
+                        if (entries != null) {
+                            chunk = entries;
+                            chunkIndex = 1;
+                            return entries.get(0);
                         }
                         finished = diffProducer.isFinished();
-                        empty = entries.isEmpty();
+                        empty = diffProducer.isEmpty();
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
                     }
                 }
+                if (!producerErrors.isEmpty()) {
+                    throw new RuntimeException("Error in producer thread", producerErrors.get(0));
+                }
                 return null;
             }
 
             protected @Override void finalize() {
-                diffProducer.finished = true;
+                diffProducer.abort();
             }
 
             public @Override void close() {
                 visitor.abortTraversal();
                 // free up any threads waiting for the queue to be unblocked
-                queue.clear();
+                diffProducer.abort();
                 // in case any threads are in the middle of reading
                 visitor.awaitTermination();
             }
@@ -398,6 +449,88 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
         return consumerIterator;
     }
 
+    /**
+     * Whether the walk is expected to produce few enough diffs to be worth running in the calling
+     * thread instead of handing off the diffs from a producer thread
+     */
+    private boolean isSynchronous(RevTree oldTree, RevTree newTree) {
+        if (limit != null && !reportTrees && limit.longValue() <= synchronousThreshold) {
+            return true;
+        }
+        long maxDiffs = oldTree.size() + newTree.size();
+        if (reportTrees) {
+            maxDiffs += oldTree.numTrees() + newTree.numTrees();
+        }
+        return maxDiffs <= synchronousThreshold;
+    }
+
+    private AutoCloseableIterator<DiffEntry> walkSynchronously(PreOrderDiffWalk visitor,
+            RevTree oldTree, RevTree newTree, ObjectStore leftSource, ObjectStore rightSource) {
+
+        final CollectingDiffEntryProducer diffProducer = new CollectingDiffEntryProducer();
+        diffProducer.setReportTrees(this.reportTrees);
+        diffProducer.setRecursive(this.recursive);
+        Consumer consumer = createConsumer(diffProducer, oldTree, newTree, leftSource, rightSource);
+        LOGGER.trace("walking diff {} / {} synchronously", oldRefSpec, newRefSpec);
+        try {
+            visitor.walk(consumer);
+        } finally {
+            diffProducer.complete();
+        }
+        return AutoCloseableIterator.fromIterator(diffProducer.entries.iterator());
+    }
+
+    private Consumer createConsumer(Consumer diffProducer, RevTree oldTree, RevTree newTree,
+            ObjectStore leftSource, ObjectStore rightSource) {
+        Consumer consumer = diffProducer;
+        if (recordStats) {
+            consumer = new AcceptedFeaturesStatsConsumer(consumer, stats);
+        }
+        if (limit != null) {// evaluated the latest
+            consumer = new PreOrderDiffWalk.MaxFeatureDiffsLimiter(consumer, limit);
+        }
+        if (offset != null) {
+            consumer = createSkipper(consumer, oldTree, newTree, leftSource, rightSource);
+        }
+        if (customFilter != null) {
+            consumer = new PreOrderDiffWalk.FilteringConsumer(consumer, customFilter);
+        }
+        if (changeTypeFilter != null) {
+            consumer = new ChangeTypeFilteringDiffConsumer(changeTypeFilter, consumer);
+        }
+        if (boundsFilter != null) {
+            consumer = new BoundsFilteringDiffConsumer(boundsFilter, consumer);
+        }
+        if (indexKeyRanges != null) {
+            consumer = new AttributeIndexFilteringDiffConsumer(indexedAttribute, indexKeyRanges,
+                    consumer);
+        }
+        if (!pathFilters.isEmpty()) {// evaluated the former
+            consumer = new PathFilteringDiffConsumer(pathFilters, consumer);
+        }
+        if (recordStats) {
+            consumer = new StatsConsumer(consumer, stats);
+        }
+        if (wrapper != null) {
+            wrapper.setDelegate(consumer);
+            consumer = wrapper;
+        }
+        return consumer;
+    }
+
+    private Consumer createSkipper(Consumer consumer, RevTree oldTree, RevTree newTree,
+            ObjectStore leftSource, ObjectStore rightSource) {
+        // buckets can only be skipped by size if all their features would reach the skipper
+        final boolean skipBuckets = (oldTree.isEmpty() || newTree.isEmpty())
+                && pathFilters.isEmpty() && boundsFilter == null && indexKeyRanges == null
+                && customFilter == null;
+        if (skipBuckets) {
+            return new PreOrderDiffWalk.FeatureDiffsSkipper(consumer, offset, leftSource,
+                    rightSource);
+        }
+        return new PreOrderDiffWalk.FeatureDiffsSkipper(consumer, offset);
+    }
+
     private RevTree resolveTree(@Nullable final String treeIsh, @Nullable final ObjectId treeOid,
             @Nullable RevTree tree, final ObjectStore source) {
 
@@ -506,27 +639,29 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
         }
     }
 
-    private static class DiffEntryProducer extends PreOrderDiffWalk.AbstractConsumer {
+    private static abstract class DiffEntryProducer extends PreOrderDiffWalk.AbstractConsumer {
 
         private boolean reportFeatures = true, reportTrees = false;
 
-        private BlockingQueue<DiffEntry> entries;
-
-        private volatile boolean finished;
+        protected volatile boolean finished;
 
         private boolean recursive = true;
 
-        public DiffEntryProducer(BlockingQueue<DiffEntry> queue) {
-            this.entries = queue;
+        /**
+         * @return {@code false} if the traversal was aborted and no more entries shall be produced
+         */
+        protected abstract boolean put(DiffEntry entry);
+
+        /**
+         * Called once the traversal is finished, either normally, aborted, or with an error
+         */
+        public void complete() {
+            finished = true;
         }
 
         public @Override boolean feature(NodeRef left, NodeRef right) {
             if (!finished && reportFeatures) {
-                try {
-                    entries.put(new DiffEntry(left, right));
-                } catch (InterruptedException e) {
-                    // throw new RuntimeException(e);
-                }
+                put(new DiffEntry(left, right));
             }
             return true;
         }
@@ -548,10 +683,7 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
 
             if (!finished && reportTrees) {
                 if (parentPath != null) {// do not report the root tree
-                    try {
-                        entries.put(new DiffEntry(left, right));
-                    } catch (InterruptedException e) {
-                        // throw new RuntimeException(e);
+                    if (!put(new DiffEntry(left, right))) {
                         // die gracefully
                         return false;
                     }
@@ -568,7 +700,7 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
 
             if (NodeRef.ROOT.equals(name)) {
                 LOGGER.trace("Reached end of tree traversal");
-                finished = true;
+                complete();
             }
         }
 
@@ -579,6 +711,112 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
         }
     }
 
+    /**
+     * Collects all the diff entries in memory, for walks performed in the calling thread
+     */
+    private static class CollectingDiffEntryProducer extends DiffEntryProducer {
+
+        private final List<DiffEntry> entries = new ArrayList<>();
+
+        // synchronized, the walk may report diffs from several threads if it doesn't preserve the
+        // iteration order
+        protected @Override synchronized boolean put(DiffEntry entry) {
+            entries.add(entry);
+            return true;
+        }
+    }
+
+    /**
+     * Hands off diff entries to the consuming thread in chunks of {@link DiffTree#CHUNK_SIZE} to
+     * amortize the cost of synchronization, with at most {@code bufferSize} entries waiting to be
+     * consumed. The consumer gives back the chunks it's done with, so they're reused instead of
+     * allocating new ones.
+     */
+    private static class ChunkedDiffEntryProducer extends DiffEntryProducer {
+
+        private final int chunkSize;
+
+        private final BlockingQueue<List<DiffEntry>> chunks;
+
+        private final Queue<List<DiffEntry>> recycled = new ConcurrentLinkedQueue<>();
+
+        private List<DiffEntry> current;
+
+        private volatile boolean aborted;
+
+        ChunkedDiffEntryProducer(final int bufferSize) {
+            checkArgument(bufferSize > 0, "bufferSize shall be > 0");
+            this.chunkSize = Math.min(CHUNK_SIZE, bufferSize);
+            this.chunks = new ArrayBlockingQueue<>(Math.max(1, bufferSize / chunkSize));
+            this.current = new ArrayList<>(chunkSize);
+        }
+
+        // synchronized, the walk may report diffs from several threads if it doesn't preserve the
+        // iteration order
+        protected @Override synchronized boolean put(DiffEntry entry) {
+            if (aborted) {
+                return false;
+            }
+            current.add(entry);
+            if (current.size() == chunkSize) {
+                return flush();
+            }
+            return true;
+        }
+
+        private boolean flush() {
+            final List<DiffEntry> chunk = current;
+            if (chunk.isEmpty()) {
+                return true;
+            }
+            try {
+                while (!aborted) {
+                    if (chunks.offer(chunk, 10, TimeUnit.MILLISECONDS)) {
+                        List<DiffEntry> reused = recycled.poll();
+                        current = reused == null ? new ArrayList<>(chunkSize) : reused;
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // die gracefully
+                aborted = true;
+            }
+            return false;
+        }
+
+        public @Override synchronized void complete() {
+            if (!finished) {
+                flush();
+                super.complete();
+            }
+        }
+
+        public void abort() {
+            aborted = true;
+            finished = true;
+            chunks.clear();
+        }
+
+        public boolean isEmpty() {
+            return chunks.isEmpty();
+        }
+
+        public @Nullable List<DiffEntry> poll(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return chunks.poll(timeout, unit);
+        }
+
+        /**
+         * Gives back a chunk the consumer is done with
+         */
+        public void recycle(List<DiffEntry> chunk) {
+            if (chunk instanceof ArrayList && recycled.size() < 2) {
+                chunk.clear();
+                recycled.offer(chunk);
+            }
+        }
+    }
+
     /**
      * @param reportTrees
      * @return
@@ -609,6 +847,51 @@ public class DiffTree extends AbstractGeoGigOp<AutoCloseableIterator<DiffEntry>>
         return this;
     }
 
+    /**
+     * Sets the number of feature diffs to skip before starting to report them, meant to be used
+     * with {@link #setPreserveIterationOrder(boolean) preserveIterationOrder} for paging.
+     * <p>
+     * If one of the trees is empty and no path, bounds, index key range, or custom filter is set,
+     * the buckets whose features are all to be skipped are skipped without being traversed, as
+     * given by their tree sizes.
+     *
+     * @see PreOrderDiffWalk.FeatureDiffsSkipper
+     */
+    public DiffTree setOffset(@Nullable Long offset) {
+        Preconditions.checkArgument(offset == null || offset.longValue() >= 0L,
+                "offset must be >= 0: ", offset);
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of diff entries buffered between the tree walk, performed in a
+     * separate thread, and the returned iterator, the walk blocks while the buffer is full.
+     * Defaults to the {@link #BUFFER_SIZE_PROPERTY} system property, or
+     * {@link #DEFAULT_BUFFER_SIZE}.
+     */
+    public DiffTree setBufferSize(int bufferSize) {
+        Preconditions.checkArgument(bufferSize > 0, "bufferSize must be > 0: ", bufferSize);
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of diffs for which the tree walk is performed in the calling thread
+     * and all the diffs collected in memory before being returned, instead of walking the trees in
+     * a separate thread. It applies when the sum of the sizes of the trees being compared, or the
+     * {@link #setMaxDiffs(Long) limit} if trees are not reported, is at most this value. Defaults
+     * to the {@link #SYNCHRONOUS_THRESHOLD_PROPERTY} system property, or
+     * {@link #DEFAULT_SYNCHRONOUS_THRESHOLD}. Use {@code 0} to always walk the trees in a separate
+     * thread unless both trees are empty.
+     */
+    public DiffTree setSynchronousThreshold(long synchronousThreshold) {
+        Preconditions.checkArgument(synchronousThreshold >= 0,
+                "synchronousThreshold must be >= 0: ", synchronousThreshold);
+        this.synchronousThreshold = synchronousThreshold;
+        return this;
+    }
+
     public DiffTree setDefaultMetadataId(ObjectId metadataId) {
         this.metadataId = metadataId;
         return this;
@@ -9,11 +9,16 @@
  */
 package org.locationtech.geogig.plumbing;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -27,8 +32,18 @@ import org.locationtech.geogig.storage.GraphDatabase.Direction;
 import org.locationtech.geogig.storage.GraphDatabase.GraphEdge;
 import org.locationtech.geogig.storage.GraphDatabase.GraphNode;
 
+import lombok.Value;
+
 /**
  * Finds the common {@link RevCommit commit} ancestor of two commits.
+ * <p>
+ * If both commits are in the same {@link GraphDatabase} and it supports
+ * {@link GraphDatabase#getGeneration generation numbers}, the graph is walked in decreasing
+ * generation number order, which allows to stop at the first common ancestor found instead of
+ * walking both histories. Else if it can {@link GraphDatabase#findMergeBases find the merge bases}
+ * by itself (e.g. with a server side query) and there's at most one, it's returned. Otherwise
+ * (including criss-cross merges, where the merge bases come in no particular order) a bidirectional
+ * breadth first search is performed.
  */
 public class FindCommonAncestor extends AbstractGeoGigOp<Optional<ObjectId>> {
 
@@ -115,6 +130,24 @@ public class FindCommonAncestor extends AbstractGeoGigOp<Optional<ObjectId>> {
      *         {@link Optional#empty()} if a common ancestor could not be found.
      */
     public Optional<ObjectId> findLowestCommonAncestor(ObjectId leftId, ObjectId rightId) {
+        final GraphDatabase leftGraph = leftSource.get();
+        if (leftGraph == rightSource.get()) {
+            OptionalInt leftGeneration = leftGraph.getGeneration(leftId);
+            OptionalInt rightGeneration = leftGraph.getGeneration(rightId);
+            if (leftGeneration.isPresent() && rightGeneration.isPresent()) {
+                return findLowestCommonAncestor(leftGraph, leftId, leftGeneration.getAsInt(),
+                        rightId, rightGeneration.getAsInt());
+            }
+            Optional<List<ObjectId>> mergeBases = leftGraph.findMergeBases(leftId, rightId);
+            // with more than one merge base let the breadth first search pick the closest one
+            if (mergeBases.isPresent() && mergeBases.get().size() < 2) {
+                return mergeBases.get().stream().findFirst();
+            }
+        }
+        return findLowestCommonAncestorBFS(leftId, rightId);
+    }
+
+    private Optional<ObjectId> findLowestCommonAncestorBFS(ObjectId leftId, ObjectId rightId) {
         Set<GraphNode> leftSet = new HashSet<GraphNode>();
         Set<GraphNode> rightSet = new HashSet<GraphNode>();
 
@@ -151,6 +184,57 @@ public class FindCommonAncestor extends AbstractGeoGigOp<Optional<ObjectId>> {
         return ancestor;
     }
 
+    private static final int LEFT = 1, RIGHT = 2;
+
+    private static @Value class Generation {
+        ObjectId commit;
+
+        int generation;
+    }
+
+    /**
+     * Walks down the graph from both commits in decreasing generation number order, flagging each
+     * commit with the sides it's reachable from. The first commit found to be reachable from both
+     * sides is a lowest common ancestor, since all its descendants have a higher generation number
+     * and hence have already been visited, so there's no need to walk the rest of the graph, nor to
+     * verify the result.
+     */
+    private Optional<ObjectId> findLowestCommonAncestor(final GraphDatabase graph,
+            final ObjectId leftId, final int leftGeneration, final ObjectId rightId,
+            final int rightGeneration) {
+
+        final Map<ObjectId, Integer> flags = new HashMap<>();
+        final PriorityQueue<Generation> queue = new PriorityQueue<>(
+                Comparator.comparingInt(Generation::getGeneration).reversed());
+
+        flags.put(leftId, LEFT);
+        flags.put(rightId, RIGHT);
+        queue.add(new Generation(leftId, leftGeneration));
+        queue.add(new Generation(rightId, rightGeneration));
+
+        while (!queue.isEmpty()) {
+            final ObjectId commit = queue.poll().getCommit();
+            final int commitFlags = flags.get(commit);
+            if (commitFlags == (LEFT | RIGHT)) {
+                return Optional.of(commit);
+            }
+            for (ObjectId parent : graph.getParents(commit)) {
+                final int parentFlags = flags.getOrDefault(parent, 0);
+                if ((parentFlags & commitFlags) == commitFlags) {
+                    continue;
+                }
+                OptionalInt generation = graph.getGeneration(parent);
+                if (!generation.isPresent()) {
+                    // shouldn't happen, parents are added to the commit graph before their children
+                    return findLowestCommonAncestorBFS(leftId, rightId);
+                }
+                flags.put(parent, parentFlags | commitFlags);
+                queue.add(new Generation(parent, generation.getAsInt()));
+            }
+        }
+        return Optional.empty();
+    }
+
     /**
      * Process a commit to see if it has already been seen. If it has, prevent unnecessary work from
      * continuing on the other traversal queue. If it hasn't, add it's parents to the traversal
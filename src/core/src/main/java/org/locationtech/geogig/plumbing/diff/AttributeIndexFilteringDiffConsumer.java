@@ -0,0 +1,135 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.plumbing.diff;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.model.Bucket;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.internal.AttributeIndexKey;
+import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk.BucketIndex;
+import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk.Consumer;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A {@link Consumer} decorator for walks over {@link IndexType#ATTRIBUTE attribute index} trees,
+ * that prunes the buckets that can't contain nodes whose indexed attribute value is in any of a set
+ * of value ranges, and filters out the feature nodes whose value is out of all the ranges.
+ * <p>
+ * Since the {@link AttributeIndexKey sort keys} the index is built upon are not unique, the ranges
+ * are always inclusive and features shall still be evaluated against the actual filter.
+ */
+public final class AttributeIndexFilteringDiffConsumer extends PreOrderDiffWalk.ForwardingConsumer {
+
+    /**
+     * An inclusive range of attribute index {@link AttributeIndexKey sort keys}
+     */
+    public static @Value class KeyRange {
+        /**
+         * Lower bound, or {@code null} if unbounded
+         */
+        private @Nullable String min;
+
+        /**
+         * Upper bound, or {@code null} if unbounded
+         */
+        private @Nullable String max;
+
+        /**
+         * @return a range that matches the nodes whose attribute value is {@code value}
+         */
+        public static KeyRange equalTo(@Nullable Object value) {
+            String key = AttributeIndexKey.of(value);
+            return new KeyRange(key, key);
+        }
+
+        /**
+         * @param min the lower bound value, inclusive, or {@code null} for no lower bound
+         * @param max the upper bound value, inclusive, or {@code null} for no upper bound
+         * @return a range that matches the nodes whose attribute value is between {@code min} and
+         *         {@code max}, inclusive. Note {@code null} attribute values always fall out of
+         *         range if a lower bound is given
+         */
+        public static KeyRange between(@Nullable Object min, @Nullable Object max) {
+            return new KeyRange(min == null ? null : AttributeIndexKey.of(min),
+                    max == null ? null : AttributeIndexKey.of(max));
+        }
+
+        public boolean contains(@NonNull String key) {
+            return (min == null || min.compareTo(key) <= 0)
+                    && (max == null || max.compareTo(key) >= 0);
+        }
+
+        public boolean mayContain(@NonNull BucketIndex bucket) {
+            return AttributeIndexKey.bucketMayContain(bucket.getIndexPath(), min, max);
+        }
+    }
+
+    private final String attributeName;
+
+    private final List<KeyRange> ranges;
+
+    public AttributeIndexFilteringDiffConsumer(@NonNull String attributeName,
+            @NonNull List<KeyRange> ranges, @NonNull Consumer delegate) {
+        super(delegate);
+        Preconditions.checkArgument(!ranges.isEmpty(), "no key ranges provided");
+        this.attributeName = attributeName;
+        this.ranges = List.copyOf(ranges);
+    }
+
+    public @Override boolean bucket(NodeRef lparent, NodeRef rparent, BucketIndex bucketIndex,
+            Bucket left, Bucket right) {
+        if (mayContain(bucketIndex)) {
+            return super.bucket(lparent, rparent, bucketIndex, left, right);
+        }
+        return false;
+    }
+
+    public @Override void endBucket(NodeRef lparent, NodeRef rparent, BucketIndex bucketIndex,
+            Bucket left, Bucket right) {
+        if (mayContain(bucketIndex)) {
+            super.endBucket(lparent, rparent, bucketIndex, left, right);
+        }
+    }
+
+    public @Override boolean feature(NodeRef left, NodeRef right) {
+        if (contains(left) || contains(right)) {
+            return super.feature(left, right);
+        }
+        return true;
+    }
+
+    private boolean mayContain(BucketIndex bucketIndex) {
+        for (KeyRange range : ranges) {
+            if (range.mayContain(bucketIndex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(@Nullable NodeRef node) {
+        if (node == null) {
+            return false;
+        }
+        final String key = AttributeIndexKey.of(node.getNode(), attributeName);
+        for (KeyRange range : ranges) {
+            if (range.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
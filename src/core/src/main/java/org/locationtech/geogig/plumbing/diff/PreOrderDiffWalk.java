@@ -100,7 +100,7 @@ public class PreOrderDiffWalk {
         return worker;
     };
 
-    private static final ForkJoinPool SHARED_FORK_JOIN_POOL;
+    static final ForkJoinPool SHARED_FORK_JOIN_POOL;
 
     private static final int DEFAULT_PARALLELISM = Math.max(2,
             Runtime.getRuntime().availableProcessors());
@@ -1320,6 +1320,78 @@ public class PreOrderDiffWalk {
         }
     }
 
+    /**
+     * Skips the first {@code offset} feature diffs, meant to be used with a walk that
+     * {@link PreOrderDiffWalk#PreOrderDiffWalk(RevTree, RevTree, ObjectStore, ObjectStore, boolean)
+     * preserves the iteration order}.
+     * <p>
+     * If the left and right {@link ObjectStore}s are provided, whole buckets that only exist at one
+     * side of the comparison are skipped by their bucket tree {@link RevTree#size() size} without
+     * being traversed, as long as all their features are to be skipped. Hence, they shall only be
+     * provided if every feature under such a bucket results in a diff that reaches this consumer,
+     * that is, when one of the trees being compared is empty and no feature filtering consumer is
+     * evaluated after this one. This way, seeking to an offset only traverses the bucket trees
+     * along a single path from the root to a leaf tree.
+     */
+    public static class FeatureDiffsSkipper extends ForwardingConsumer {
+
+        private final AtomicLong remaining;
+
+        private final @Nullable ObjectStore leftSource, rightSource;
+
+        // whether the last reported bucket was skipped, so its endBucket event is not forwarded
+        private boolean bucketSkipped;
+
+        public FeatureDiffsSkipper(final Consumer delegate, final long offset) {
+            this(delegate, offset, null, null);
+        }
+
+        public FeatureDiffsSkipper(final Consumer delegate, final long offset,
+                @Nullable ObjectStore leftSource, @Nullable ObjectStore rightSource) {
+            super(delegate);
+            checkArgument(offset >= 0, "offset shall be >= 0");
+            checkArgument((leftSource == null) == (rightSource == null),
+                    "either both or none of leftSource and rightSource shall be provided");
+            this.remaining = new AtomicLong(offset);
+            this.leftSource = leftSource;
+            this.rightSource = rightSource;
+        }
+
+        public @Override boolean feature(NodeRef left, NodeRef right) {
+            if (remaining.get() > 0) {
+                remaining.decrementAndGet();
+                return true;
+            }
+            return super.feature(left, right);
+        }
+
+        public @Override boolean bucket(NodeRef leftParent, NodeRef rightParent,
+                BucketIndex bucketIndex, @Nullable Bucket left, @Nullable Bucket right) {
+            final long remaining = this.remaining.get();
+            if (remaining > 0 && leftSource != null && (left == null) != (right == null)) {
+                final Bucket bucket = left == null ? right : left;
+                final ObjectStore source = left == null ? rightSource : leftSource;
+                // already cached by the walk, that loaded the bucket trees before reporting them
+                final long size = source.getTree(bucket.getObjectId()).size();
+                if (size <= remaining) {
+                    this.remaining.addAndGet(-size);
+                    bucketSkipped = true;
+                    return false;
+                }
+            }
+            return super.bucket(leftParent, rightParent, bucketIndex, left, right);
+        }
+
+        public @Override void endBucket(NodeRef leftParent, NodeRef rightParent,
+                BucketIndex bucketIndex, @Nullable Bucket left, @Nullable Bucket right) {
+            if (bucketSkipped) {
+                bucketSkipped = false;
+            } else {
+                super.endBucket(leftParent, rightParent, bucketIndex, left, right);
+            }
+        }
+    }
+
     public static class FilteringConsumer extends ForwardingConsumer {
 
         private final Predicate<Bounded> predicate;
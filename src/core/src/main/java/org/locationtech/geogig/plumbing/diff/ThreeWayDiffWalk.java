@@ -0,0 +1,456 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.plumbing.diff;
+
+import static java.util.Objects.requireNonNull;
+import static org.locationtech.geogig.storage.BulkOpListener.NOOP_LISTENER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.CanonicalNodeOrder;
+import org.locationtech.geogig.model.DiffEntry;
+import org.locationtech.geogig.model.Node;
+import org.locationtech.geogig.model.NodeOrdering;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.model.RevObjectFactory;
+import org.locationtech.geogig.model.RevObjects;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.storage.ObjectStore;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import lombok.NonNull;
+
+/**
+ * Provides a means to "walk" the changes two branches made since their common ancestor, traversing
+ * the three {@link RevTree trees} at once, and emit each change made by "theirs", paired with the
+ * change made by "ours" to the same path if any, to a {@link Consumer}.
+ * <p>
+ * As opposed to matching the results of two diffs (ancestor to ours, and ancestor to theirs) by
+ * path, named subtrees and buckets that are equal on any two sides are pruned as soon as they're
+ * found:
+ * <ul>
+ * <li>if "theirs" equals the ancestor, there are no changes to merge from it;
+ * <li>if "theirs" equals "ours", both branches made the same changes and there's nothing to merge;
+ * <li>if "ours" equals the ancestor, all the changes made by "theirs" are reported with no matching
+ * change at "ours" and without loading "ours" any further.
+ * </ul>
+ * <p>
+ * Like {@link PreOrderDiffWalk}, the walk runs in parallel on a {@link ForkJoinPool}, hence the
+ * {@link Consumer} must be thread safe and the order in which changes are reported is undefined.
+ * Only {@link CanonicalNodeOrder canonical} trees, like the ones commits point to, are supported.
+ *
+ * @since 2.0
+ */
+public class ThreeWayDiffWalk {
+
+    private static final NodeOrdering ORDER = CanonicalNodeOrder.INSTANCE;
+
+    private final RevTree ancestor;
+
+    private final RevTree ours;
+
+    private final RevTree theirs;
+
+    private final ObjectStore source;
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    /**
+     * Receives the changes found by a {@link ThreeWayDiffWalk}.
+     * <p>
+     * Changes to named trees are reported before walking their contents.
+     */
+    public static interface Consumer {
+
+        /**
+         * Called for each change made by "theirs" that "ours" didn't make as well
+         *
+         * @param ours the change "ours" made to the same path, or {@code null} if "ours" didn't
+         *        change it
+         * @param theirs the change "theirs" made to the path
+         * @return {@code true} to continue the walk, {@code false} to abort it
+         */
+        public boolean change(@Nullable DiffEntry ours, DiffEntry theirs);
+    }
+
+    public ThreeWayDiffWalk(@NonNull RevTree ancestor, @NonNull RevTree ours,
+            @NonNull RevTree theirs, @NonNull ObjectStore source) {
+        this.ancestor = ancestor;
+        this.ours = ours;
+        this.theirs = theirs;
+        this.source = source;
+    }
+
+    /**
+     * Walks the changes made by "theirs" and "ours" and reports them to {@code consumer}, returning
+     * once the walk is complete or aborted.
+     * <p>
+     * NOTE: the {@link Consumer} must be thread safe.
+     */
+    public void walk(@NonNull Consumer consumer) {
+        cancelled.set(false);
+        WalkInfo info = new WalkInfo(source, consumer, cancelled, rootRef(ancestor), rootRef(ours),
+                rootRef(theirs));
+        TraverseContents task = new TraverseContents(info, Level.of(ancestor), Level.of(ours),
+                Level.of(theirs), 0);
+        try {
+            PreOrderDiffWalk.SHARED_FORK_JOIN_POOL.invoke(task);
+        } catch (RuntimeException e) {
+            if (source.isOpen()) {
+                throw e;
+            }
+            // someone closed the repo, we're ok.
+        }
+    }
+
+    /**
+     * Aborts the walk, {@link #walk} will return as soon as the running tasks notice it
+     */
+    public void abortTraversal() {
+        cancelled.set(true);
+    }
+
+    private static NodeRef rootRef(RevTree tree) {
+        Node node = RevObjectFactory.defaultInstance().createNode(NodeRef.ROOT, tree.getId(),
+                ObjectId.NULL, TYPE.TREE, null, null);
+        return NodeRef.createRoot(node);
+    }
+
+    /**
+     * The contents of one side of the comparison at a given tree depth: either a bucket tree, the
+     * nodes of a leaf tree, or the subset of them that fall into a bucket if another side is a
+     * bucket tree at the same depth. A bucket tree may also be referenced by id but not loaded yet.
+     */
+    private static final class Level {
+
+        static final Level EMPTY = new Level(RevTree.EMPTY_TREE_ID, null, Collections.emptyList());
+
+        /**
+         * The id of the tree this level comes from, {@code null} if it's a subset of a leaf tree
+         * nodes
+         */
+        final @Nullable ObjectId id;
+
+        final @Nullable RevTree buckets;
+
+        final @Nullable List<Node> nodes;
+
+        Level(@Nullable ObjectId id, @Nullable RevTree buckets, @Nullable List<Node> nodes) {
+            this.id = id;
+            this.buckets = buckets;
+            this.nodes = nodes;
+        }
+
+        static Level of(RevTree tree) {
+            if (tree.bucketsSize() > 0) {
+                return new Level(tree.getId(), tree, null);
+            }
+            return new Level(tree.getId(), null,
+                    Lists.newArrayList(RevObjects.children(tree, ORDER)));
+        }
+
+        static Level unloaded(ObjectId treeId) {
+            return RevTree.EMPTY_TREE_ID.equals(treeId) ? EMPTY : new Level(treeId, null, null);
+        }
+
+        boolean isLoaded() {
+            return buckets != null || nodes != null;
+        }
+
+        boolean isLeaf() {
+            return nodes != null;
+        }
+
+        boolean sameAs(Level other) {
+            return id != null && id.equals(other.id);
+        }
+
+        Level load(Map<ObjectId, RevTree> trees) {
+            if (isLoaded()) {
+                return this;
+            }
+            return of(requireNonNull(trees.get(id), () -> "tree not found: " + id));
+        }
+    }
+
+    private static final class WalkInfo {
+
+        final ObjectStore source;
+
+        final Consumer consumer;
+
+        final AtomicBoolean cancelled;
+
+        final @Nullable NodeRef ancestorParent, oursParent, theirsParent;
+
+        WalkInfo(ObjectStore source, Consumer consumer, AtomicBoolean cancelled,
+                @Nullable NodeRef ancestorParent, @Nullable NodeRef oursParent,
+                @Nullable NodeRef theirsParent) {
+            this.source = source;
+            this.consumer = consumer;
+            this.cancelled = cancelled;
+            this.ancestorParent = ancestorParent;
+            this.oursParent = oursParent;
+            this.theirsParent = theirsParent;
+        }
+
+        WalkInfo child(@Nullable NodeRef ancestor, @Nullable NodeRef ours,
+                @Nullable NodeRef theirs) {
+            return new WalkInfo(source, consumer, cancelled, ancestor, ours, theirs);
+        }
+
+        boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * Fetches all the given trees at once, to leverage ObjectStore optimizations
+         */
+        Map<ObjectId, RevTree> loadTrees(Set<ObjectId> ids) {
+            Map<ObjectId, RevTree> trees = new HashMap<>();
+            if (!ids.isEmpty()) {
+                source.getAll(ids, NOOP_LISTENER, RevTree.class)
+                        .forEachRemaining(t -> trees.put(t.getId(), t));
+            }
+            return trees;
+        }
+    }
+
+    /**
+     * Walks the contents of a named tree that changed in "theirs", given the refs to it at each
+     * side, {@code null} where it doesn't exist or is not a tree
+     */
+    @SuppressWarnings("serial")
+    private static class TraverseTree extends RecursiveAction {
+
+        private final WalkInfo info;
+
+        TraverseTree(WalkInfo info) {
+            this.info = info;
+        }
+
+        protected @Override void compute() {
+            if (info.isCancelled()) {
+                return;
+            }
+            Level ancestor = Level.unloaded(treeId(info.ancestorParent));
+            Level ours = Level.unloaded(treeId(info.oursParent));
+            Level theirs = Level.unloaded(treeId(info.theirsParent));
+            if (theirs.sameAs(ancestor) || theirs.sameAs(ours)) {
+                return;
+            }
+            Set<ObjectId> ids = new HashSet<>();
+            for (Level level : Arrays.asList(ancestor, ours, theirs)) {
+                if (!level.isLoaded()) {
+                    ids.add(level.id);
+                }
+            }
+            Map<ObjectId, RevTree> trees = info.loadTrees(ids);
+            new TraverseContents(info, ancestor.load(trees), ours.load(trees), theirs.load(trees),
+                    0).compute();
+        }
+
+        private static ObjectId treeId(@Nullable NodeRef ref) {
+            return ref == null ? RevTree.EMPTY_TREE_ID : ref.getObjectId();
+        }
+    }
+
+    /**
+     * Compares the contents of the three sides at a given depth of a named tree, descending into
+     * the buckets that differ between "theirs" and the other two sides in parallel
+     */
+    @SuppressWarnings("serial")
+    private static class TraverseContents extends RecursiveAction {
+
+        private final WalkInfo info;
+
+        private final Level ancestor, ours, theirs;
+
+        private final int depth;
+
+        TraverseContents(WalkInfo info, Level ancestor, Level ours, Level theirs, int depth) {
+            this.info = info;
+            this.ancestor = ancestor;
+            this.ours = ours;
+            this.theirs = theirs;
+            this.depth = depth;
+        }
+
+        protected @Override void compute() {
+            if (info.isCancelled() || theirs.sameAs(ancestor) || theirs.sameAs(ours)) {
+                return;
+            }
+            if (ancestor.isLeaf() && ours.isLeaf() && theirs.isLeaf()) {
+                compareNodes();
+            } else {
+                compareBuckets();
+            }
+        }
+
+        private void compareBuckets() {
+            final boolean oursUnchanged = ours.sameAs(ancestor);
+            final SortedMap<Integer, Level> ancestorBuckets = split(ancestor);
+            final SortedMap<Integer, Level> oursBuckets = oursUnchanged ? ancestorBuckets
+                    : split(ours);
+            final SortedMap<Integer, Level> theirsBuckets = split(theirs);
+
+            // buckets present only at "ours" have no changes to merge
+            Set<Integer> indexes = new TreeSet<>(
+                    Sets.union(ancestorBuckets.keySet(), theirsBuckets.keySet()));
+
+            List<Level[]> changed = new ArrayList<>();
+            Set<ObjectId> toLoad = new HashSet<>();
+            for (Integer index : indexes) {
+                Level a = ancestorBuckets.getOrDefault(index, Level.EMPTY);
+                Level o = oursBuckets.getOrDefault(index, Level.EMPTY);
+                Level t = theirsBuckets.getOrDefault(index, Level.EMPTY);
+                if (t.sameAs(a) || t.sameAs(o)) {
+                    continue;
+                }
+                for (Level level : new Level[] { a, o, t }) {
+                    if (!level.isLoaded()) {
+                        toLoad.add(level.id);
+                    }
+                }
+                changed.add(new Level[] { a, o, t });
+            }
+            if (changed.isEmpty() || info.isCancelled()) {
+                return;
+            }
+            final Map<ObjectId, RevTree> trees = info.loadTrees(toLoad);
+            List<TraverseContents> tasks = new ArrayList<>(changed.size());
+            for (Level[] bucket : changed) {
+                tasks.add(new TraverseContents(info, bucket[0].load(trees), bucket[1].load(trees),
+                        bucket[2].load(trees), depth + 1));
+            }
+            invokeAll(tasks);
+        }
+
+        /**
+         * Splits the contents of a side into the buckets at the next depth, either as the
+         * (unloaded) bucket trees, or as the subsets of a leaf tree nodes that would fall into each
+         * bucket
+         */
+        private SortedMap<Integer, Level> split(Level level) {
+            SortedMap<Integer, Level> buckets = new TreeMap<>();
+            if (level.isLeaf()) {
+                Map<Integer, List<Node>> nodesByBucket = new HashMap<>();
+                for (Node node : level.nodes) {
+                    Integer index = Integer.valueOf(ORDER.bucket(node, depth));
+                    nodesByBucket.computeIfAbsent(index, i -> new ArrayList<>()).add(node);
+                }
+                nodesByBucket.forEach(
+                        (index, nodes) -> buckets.put(index, new Level(null, null, nodes)));
+            } else {
+                level.buckets
+                        .forEachBucket(bucket -> buckets.put(Integer.valueOf(bucket.getIndex()),
+                                Level.unloaded(bucket.getObjectId())));
+            }
+            return buckets;
+        }
+
+        private void compareNodes() {
+            final Map<String, Node> ancestorNodes = index(ancestor.nodes);
+            final Map<String, Node> oursNodes = ours.sameAs(ancestor) ? ancestorNodes
+                    : index(ours.nodes);
+            final Map<String, Node> theirsNodes = index(theirs.nodes);
+
+            List<TraverseTree> tasks = new ArrayList<>();
+            for (Node t : theirs.nodes) {
+                if (info.isCancelled()) {
+                    return;
+                }
+                String name = t.getName();
+                change(ancestorNodes.get(name), oursNodes.get(name), t, tasks);
+            }
+            for (Node a : ancestor.nodes) {
+                if (info.isCancelled()) {
+                    return;
+                }
+                String name = a.getName();
+                if (!theirsNodes.containsKey(name)) {
+                    change(a, oursNodes.get(name), null, tasks);
+                }
+            }
+            if (!info.isCancelled()) {
+                invokeAll(tasks);
+            }
+        }
+
+        private void change(@Nullable Node a, @Nullable Node o, @Nullable Node t,
+                List<TraverseTree> tasks) {
+            // a change to the metadata id only is not a change, but it's a conflict if the other
+            // side changed it differently
+            if (Objects.equals(t, a) || sameNode(t, o)) {
+                return;
+            }
+            NodeRef aref = newRef(info.ancestorParent, a);
+            NodeRef oref = newRef(info.oursParent, o);
+            NodeRef tref = newRef(info.theirsParent, t);
+
+            DiffEntry theirsDiff = new DiffEntry(aref, tref);
+            DiffEntry oursDiff = Objects.equals(o, a) ? null : new DiffEntry(aref, oref);
+            if (!info.consumer.change(oursDiff, theirsDiff)) {
+                info.cancelled.set(true);
+                return;
+            }
+            if (isTree(a) || isTree(t)) {
+                tasks.add(
+                        new TraverseTree(info.child(treeRef(aref), treeRef(oref), treeRef(tref))));
+            }
+        }
+
+        private static boolean sameNode(@Nullable Node n1, @Nullable Node n2) {
+            return Objects.equals(n1, n2)
+                    && (n1 == null || n1.getMetadataId().equals(n2.getMetadataId()));
+        }
+
+        private static Map<String, Node> index(List<Node> nodes) {
+            Map<String, Node> index = new HashMap<>(nodes.size());
+            nodes.forEach(n -> index.put(n.getName(), n));
+            return index;
+        }
+
+        private static boolean isTree(@Nullable Node node) {
+            return node != null && TYPE.TREE == node.getType();
+        }
+
+        private static @Nullable NodeRef treeRef(@Nullable NodeRef ref) {
+            return ref == null || TYPE.TREE != ref.getType() ? null : ref;
+        }
+
+        private static @Nullable NodeRef newRef(@Nullable NodeRef parent, @Nullable Node node) {
+            if (node == null) {
+                return null;
+            }
+            requireNonNull(parent);
+            return NodeRef.create(parent.path(), node, parent.metadataId());
+        }
+    }
+}
@@ -12,6 +12,7 @@ package org.locationtech.geogig.plumbing.index;
 import static org.locationtech.geogig.base.Preconditions.checkState;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -144,8 +145,8 @@ public class BuildIndexOp extends AbstractGeoGigOp<RevTree> {
                 indexTree.getId());
 
         indexDatabase().addIndexedTree(index, newCanonicalTree.getId(), indexTree.getId());
-        progress.setDescription(String.format("QuadTree created. Size: %,d, time: %s",
-                indexTree.size(), revTreeTime));
+        progress.setDescription(String.format("%s index created. Size: %,d, time: %s",
+                index.getIndexType(), indexTree.size(), revTreeTime));
 
         progress.complete();
 
@@ -155,7 +156,11 @@ public class BuildIndexOp extends AbstractGeoGigOp<RevTree> {
 
     private Consumer resolveConsumer(RevTreeBuilder builder,
             final ProgressListener progressListener) {
-        final Set<String> attNames = IndexInfo.getMaterializedAttributeNames(index);
+        final Set<String> attNames = new HashSet<>(IndexInfo.getMaterializedAttributeNames(index));
+        if (IndexType.ATTRIBUTE == index.getIndexType()) {
+            // the attribute index tree builder clusters nodes by the materialized attribute value
+            attNames.add(index.getAttributeName());
+        }
 
         final boolean isMaterialized = !attNames.isEmpty();
         final Consumer consumer;
@@ -223,6 +228,10 @@ public class BuildIndexOp extends AbstractGeoGigOp<RevTree> {
             ObjectStore target = source;
             builder = RevTreeBuilder.quadBuilder(source, target, oldIndexTree, maxBounds);
             break;
+        case ATTRIBUTE:
+            builder = RevTreeBuilder.attributeIndexBuilder(indexDatabase, indexDatabase,
+                    oldIndexTree, index.getAttributeName());
+            break;
         default:
             throw new UnsupportedOperationException("Uknown index type: " + indexType);
         }
@@ -15,13 +15,13 @@ import static org.locationtech.geogig.base.Preconditions.checkState;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.feature.PropertyDescriptor;
@@ -38,6 +38,7 @@ import org.locationtech.geogig.plumbing.merge.DiffMergeFeaturesOp.DiffMergeFeatu
 import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
 import org.locationtech.geogig.storage.BulkOpListener;
 import org.locationtech.geogig.storage.ObjectDatabase;
+import org.locationtech.geogig.storage.ObjectStore;
 import org.locationtech.jts.geom.Geometry;
 
 import com.google.common.collect.Maps;
@@ -150,7 +151,52 @@ public class DiffMergeFeaturesOp extends AbstractGeoGigOp<DiffMergeFeatureResult
     protected @Override DiffMergeFeatureResult _call() {
         checkPreconditions(commonAncestor, mergeInto, toMerge);
 
-        final Map<ObjectId, RevObject> objects = getObjects();
+        final Set<ObjectId> ids = new HashSet<>();
+        addObjectIds(commonAncestor, mergeInto, toMerge, ids);
+        final Map<ObjectId, RevObject> objects = getObjects(objectDatabase(), ids);
+
+        return diffMerge(commonAncestor, mergeInto, toMerge, objects);
+    }
+
+    /**
+     * Adds the ids of the features and feature types needed to
+     * {@link #diffMerge(NodeRef, NodeRef, NodeRef, Map) diff-merge} the given versions of a feature
+     * to {@code target}, so that the objects for several features can be fetched at once
+     */
+    static void addObjectIds(NodeRef commonAncestor, NodeRef mergeInto, NodeRef toMerge,
+            Set<ObjectId> target) {
+        target.add(commonAncestor.getObjectId());
+        target.add(mergeInto.getObjectId());
+        target.add(toMerge.getObjectId());
+        target.add(commonAncestor.metadataId());
+        target.add(mergeInto.metadataId());
+        target.add(toMerge.metadataId());
+    }
+
+    /**
+     * Fetches all the requested objects with a single {@link ObjectStore#getAll} call
+     * 
+     * @throws IllegalStateException if any of the objects is not found
+     */
+    static Map<ObjectId, RevObject> getObjects(ObjectStore store, Set<ObjectId> ids) {
+        Iterator<RevObject> objsit = store.getAll(ids, BulkOpListener.NOOP_LISTENER);
+        Map<ObjectId, RevObject> map = Maps.uniqueIndex(objsit, RevObject::getId);
+
+        if (ids.size() != map.size()) {
+            ids.forEach((id) -> checkState(map.containsKey(id), "Invalid reference: %s", id));
+        }
+        return map;
+    }
+
+    /**
+     * Performs the diff-merge of a feature with the already fetched feature and feature type
+     * objects.
+     * 
+     * @param objects the objects for at least all the ids given by
+     *        {@link #addObjectIds(NodeRef, NodeRef, NodeRef, Set)}
+     */
+    static DiffMergeFeatureResult diffMerge(NodeRef commonAncestor, NodeRef mergeInto,
+            NodeRef toMerge, Map<ObjectId, RevObject> objects) {
 
         RevFeature ancestorF = (RevFeature) objects.get(commonAncestor.getObjectId());
         RevFeature mergeIntoF = (RevFeature) objects.get(mergeInto.getObjectId());
@@ -160,36 +206,13 @@ public class DiffMergeFeaturesOp extends AbstractGeoGigOp<DiffMergeFeatureResult
         RevFeatureType mergetIntoT = (RevFeatureType) objects.get(mergeInto.metadataId());
         RevFeatureType toMergeT = (RevFeatureType) objects.get(toMerge.metadataId());
 
-        FeatureDiff mergeIntoDiff = compare(ancestorF, mergeIntoF, ancestorT, mergetIntoT);
-        FeatureDiff toMergeDiff = compare(ancestorF, toMergeF, ancestorT, toMergeT);
+        final String path = mergeInto.path();
+        FeatureDiff mergeIntoDiff = compare(path, ancestorF, mergeIntoF, ancestorT, mergetIntoT);
+        FeatureDiff toMergeDiff = compare(path, ancestorF, toMergeF, ancestorT, toMergeT);
 
         return new DiffMergeFeatureResult(mergeIntoDiff, toMergeDiff);
     }
 
-    private Map<ObjectId, RevObject> getObjects() {
-
-        final ObjectId ancestorMetadataId = commonAncestor.metadataId();
-        final ObjectId mergetIntoMetadataId = mergeInto.metadataId();
-        final ObjectId toMergeMetadataId = toMerge.metadataId();
-
-        final ObjectId ancestorFeatureId = commonAncestor.getObjectId();
-        final ObjectId featureAId = mergeInto.getObjectId();
-        final ObjectId featureBId = toMerge.getObjectId();
-
-        Set<ObjectId> ids = Arrays
-                .asList(ancestorMetadataId, mergetIntoMetadataId, toMergeMetadataId,
-                        ancestorFeatureId, featureAId, featureBId)
-                .stream().collect(Collectors.toSet());
-
-        Iterator<RevObject> objsit = objectDatabase().getAll(ids, BulkOpListener.NOOP_LISTENER);
-        Map<ObjectId, RevObject> map = Maps.uniqueIndex(objsit, RevObject::getId);
-
-        if (ids.size() != map.size()) {
-            ids.forEach((id) -> checkState(map.containsKey(id), "Invalid reference: %s", id));
-        }
-        return map;
-    }
-
     private void checkPreconditions(NodeRef commonAncestor, NodeRef mergeInto, NodeRef toMerge) {
 
         requireNonNull(commonAncestor, "common ancestor version not specified");
@@ -282,10 +305,11 @@ public class DiffMergeFeaturesOp extends AbstractGeoGigOp<DiffMergeFeatureResult
         return g1.equalsExact(g2);
     }
 
-    private FeatureDiff compare(RevFeature oldRevFeature, RevFeature newRevFeature,
-            RevFeatureType oldRevFeatureType, RevFeatureType newRevFeatureType) {
+    private static FeatureDiff compare(String path, RevFeature oldRevFeature,
+            RevFeature newRevFeature, RevFeatureType oldRevFeatureType,
+            RevFeatureType newRevFeatureType) {
 
-        return new FeatureDiff(mergeInto.path(), newRevFeature, oldRevFeature, newRevFeatureType,
+        return new FeatureDiff(path, newRevFeature, oldRevFeature, newRevFeatureType,
                 oldRevFeatureType, false);
     }
 
@@ -11,38 +11,48 @@ package org.locationtech.geogig.plumbing.merge;
 
 import static org.locationtech.geogig.base.Preconditions.checkArgument;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.base.Preconditions;
 import org.locationtech.geogig.model.DiffEntry;
+import org.locationtech.geogig.model.DiffEntry.ChangeType;
 import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevCommit;
 import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.RevObject;
 import org.locationtech.geogig.model.RevObject.TYPE;
 import org.locationtech.geogig.model.RevTree;
-import org.locationtech.geogig.plumbing.DiffTree;
 import org.locationtech.geogig.plumbing.FindCommonAncestor;
+import org.locationtech.geogig.plumbing.diff.ThreeWayDiffWalk;
 import org.locationtech.geogig.plumbing.merge.DiffMergeFeaturesOp.DiffMergeFeatureResult;
 import org.locationtech.geogig.repository.Conflict;
 import org.locationtech.geogig.repository.FeatureInfo;
 import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
-import org.locationtech.geogig.storage.AutoCloseableIterator;
-
-import com.google.common.collect.AbstractIterator;
-import com.google.common.collect.Iterators;
-import com.google.common.collect.PeekingIterator;
 
 /**
  * Reports conflicts between changes introduced by two different histories. Given a commit and
  * another reference commit, it returns the set of changes from the common ancestor to the first
  * commit, classified according to whether they can or not be safely applied onto the reference
  * commit. Changes that will have no effect on the target commit are not included as unconflicted.
+ * <p>
+ * The three trees are compared at once with a {@link ThreeWayDiffWalk}, which skips the subtrees
+ * only one of the branches changed, or both changed the same way, and the features modified by both
+ * branches are diff-merged in batches.
  */
 public class ReportMergeScenarioOp extends AbstractGeoGigOp<MergeScenarioReport> {
 
+    /**
+     * Number of features modified at both sides to diff-merge at once
+     */
+    private static final int MERGE_BATCH_SIZE = 1_000;
+
     private RevCommit toMerge;
 
     private RevCommit mergeInto;
@@ -80,76 +90,24 @@ public class ReportMergeScenarioOp extends AbstractGeoGigOp<MergeScenarioReport>
 
         final ObjectId ancestor = ancestorOpt.get();
 
-        MergeScenarioReport report = null;
-
-        try (AutoCloseableIterator<DiffEntry> mergeIntoDiffs = command(DiffTree.class)
-                .setOldTree(ancestor).setReportTrees(true).setNewTree(mergeInto.getId())
-                .setPreserveIterationOrder(true).call();
-                AutoCloseableIterator<DiffEntry> toMergeDiffs = command(DiffTree.class)
-                        .setOldTree(ancestor).setReportTrees(true).setNewTree(toMerge.getId())
-                        .setPreserveIterationOrder(true).call();) {
-
-            Iterator<MergeDiffRef> tupleIterator = new MergeDiffIterator(mergeIntoDiffs,
-                    toMergeDiffs);
-
-            final RevCommit ancestorCommit = objectDatabase().getCommit(ancestor);
-            final RevTree ancestorTree = objectDatabase().getTree(ancestorCommit.getTreeId());
-
-            report = process(tupleIterator, ancestorTree);
-        }
-
-        return report;
-
-    }
-
-    private static class MergeDiffIterator extends AbstractIterator<MergeDiffRef> {
+        final RevCommit ancestorCommit = objectDatabase().getCommit(ancestor);
+        final RevTree ancestorTree = objectDatabase().getTree(ancestorCommit.getTreeId());
+        final RevTree mergeIntoTree = objectDatabase().getTree(mergeInto.getTreeId());
+        final RevTree toMergeTree = objectDatabase().getTree(toMerge.getTreeId());
 
-        private PeekingIterator<DiffEntry> ours;
+        MergeScenarioReport report = new MergeScenarioReport();
+        ChangeProcessor processor = new ChangeProcessor(report);
 
-        private PeekingIterator<DiffEntry> theirs;
+        new ThreeWayDiffWalk(ancestorTree, mergeIntoTree, toMergeTree, objectDatabase())
+                .walk(processor);
 
-        MergeDiffIterator(AutoCloseableIterator<DiffEntry> ours,
-                AutoCloseableIterator<DiffEntry> theirs) {
-            this.ours = Iterators.peekingIterator(ours);
-            this.theirs = Iterators.peekingIterator(theirs);
+        if (!consumer.isCancelled()) {
+            processor.flush();
         }
-
-        protected @Override MergeDiffRef computeNext() {
-            DiffEntry left = ours.hasNext() ? ours.peek() : null;
-            DiffEntry right = theirs.hasNext() ? theirs.peek() : null;
-
-            if (left == null && right == null) {
-                return endOfData();
-            }
-            if (right == null) {
-                // no more their's diffs to process
-                return endOfData();
-            }
-
-            if (left != null && right != null) {
-                final int compare = DiffEntry.COMPARATOR.compare(left, right);
-                if (compare < 0) {
-                    // Only "our" branch modified the path, advance "our" iterator
-                    ours.next();
-                    right = null;
-                } else if (compare > 0) {
-                    // Only "their" branch modified the path, advance "their" iterator
-                    theirs.next();
-                    left = null;
-                } else {
-                    // Same path modified on both, advance both iterators
-                    ours.next();
-                    theirs.next();
-                }
-            } else if (left == null) {
-                theirs.next();
-            } else {
-                ours.next();
-            }
-
-            return new MergeDiffRef(left, right);
+        if (!consumer.isCancelled()) {
+            consumer.finished();
         }
-
+        return report;
     }
 
     private static class MergeDiffRef {
@@ -158,7 +116,7 @@ public class ReportMergeScenarioOp extends AbstractGeoGigOp<MergeScenarioReport>
 
         private final DiffEntry theirs;
 
-        public MergeDiffRef(@Nullable DiffEntry ours, @Nullable DiffEntry theirs) {
+        public MergeDiffRef(DiffEntry ours, DiffEntry theirs) {
             checkArgument(!(ours == null && theirs == null));
             this.ours = ours;
             this.theirs = theirs;
@@ -173,42 +131,79 @@ public class ReportMergeScenarioOp extends AbstractGeoGigOp<MergeScenarioReport>
         }
     }
 
-    private MergeScenarioReport process(Iterator<MergeDiffRef> tupleIterator,
-            RevTree ancestorTree) {
+    /**
+     * Receives the changes found by the {@link ThreeWayDiffWalk} and reports them to the
+     * {@link MergeScenarioConsumer}, one at a time, as it's not required to be thread safe.
+     * <p>
+     * Features modified at both sides are queued and diff-merged in batches of
+     * {@link #MERGE_BATCH_SIZE}, fetching the ancestor, ours, and theirs versions of all the
+     * features in a batch, and their feature types, with a single call to the object database.
+     */
+    private class ChangeProcessor implements ThreeWayDiffWalk.Consumer {
 
-        MergeScenarioReport report = new MergeScenarioReport();
-        while (tupleIterator.hasNext()) {
-            MergeDiffRef mr = tupleIterator.next();
+        private final MergeScenarioReport report;
 
-            DiffEntry ours = mr.ours();
-            DiffEntry theirs = mr.theirs();
+        private final List<MergeDiffRef> pending = new ArrayList<>();
+
+        ChangeProcessor(MergeScenarioReport report) {
+            this.report = report;
+        }
+
+        public @Override synchronized boolean change(@Nullable DiffEntry ours, DiffEntry theirs) {
+            if (consumer.isCancelled()) {
+                return false;
+            }
             if (ours == null) {
                 // Only "their" branch modified the path
                 consumer.unconflicted(theirs);
                 report.addUnconflicted(theirs);
-            } else if (theirs == null) {
-                // Only "our" branch modified the path
-                // nothing else to do
+            } else if (isFeatureModifiedByBoth(ours, theirs)) {
+                pending.add(new MergeDiffRef(ours, theirs));
+                if (pending.size() >= MERGE_BATCH_SIZE) {
+                    flush();
+                }
             } else {
                 // both branches modifies the same path
-                processPossibleConflict(ours, theirs, ancestorTree, report);
-            }
-
-            if (consumer.isCancelled()) {
-                break;
+                processPossibleConflict(ours, theirs, report);
             }
+            return !consumer.isCancelled();
         }
 
-        if (!consumer.isCancelled() || !tupleIterator.hasNext()) {
-            consumer.finished();
+        private boolean isFeatureModifiedByBoth(DiffEntry ours, DiffEntry theirs) {
+            return ChangeType.MODIFIED == ours.changeType()
+                    && ChangeType.MODIFIED == theirs.changeType()
+                    && TYPE.FEATURE == theirs.newObjectType().orElseThrow();
         }
 
-        return report;
+        synchronized void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            final Set<ObjectId> ids = new HashSet<>();
+            for (MergeDiffRef ref : pending) {
+                DiffMergeFeaturesOp.addObjectIds(ref.theirs().getOldObject(),
+                        ref.ours().getNewObject(), ref.theirs().getNewObject(), ids);
+            }
+            final Map<ObjectId, RevObject> objects = DiffMergeFeaturesOp
+                    .getObjects(objectDatabase(), ids);
 
+            for (MergeDiffRef ref : pending) {
+                if (consumer.isCancelled()) {
+                    break;
+                }
+                DiffEntry oursDiff = ref.ours();
+                DiffEntry theirsDiff = ref.theirs();
+                DiffMergeFeatureResult result = DiffMergeFeaturesOp.diffMerge(
+                        theirsDiff.getOldObject(), oursDiff.getNewObject(),
+                        theirsDiff.getNewObject(), objects);
+                processFeatureMerge(oursDiff, theirsDiff, result, report);
+            }
+            pending.clear();
+        }
     }
 
     private void processPossibleConflict(DiffEntry oursDiff, DiffEntry theirsDiff,
-            RevTree ancestorTree, MergeScenarioReport report) {
+            MergeScenarioReport report) {
 
         Preconditions.checkArgument(oursDiff.oldObject().equals(theirsDiff.oldObject()));
 
@@ -247,32 +242,38 @@ public class ReportMergeScenarioOp extends AbstractGeoGigOp<MergeScenarioReport>
                 break;
             }
 
-            DiffMergeFeatureResult diffMergeFeatureResult = command(DiffMergeFeaturesOp.class)//
-                    .setCommonAncestor(theirsDiff.getOldObject())//
-                    .setMergeInto(oursDiff.getNewObject())//
-                    .setToMerge(theirsDiff.getNewObject())//
-                    .call();
-
-            if (diffMergeFeatureResult.isConflict()) {
-                consumer.conflicted(new Conflict(path, ancestorVersionId, ours, theirs));
-                report.addConflict(path);
-            } else if (diffMergeFeatureResult.isMerge()) {
-                RevFeature mergedFeature = diffMergeFeatureResult.mergedFeature();
-                if (mergedFeature.getId().equals(theirsDiff.newObjectId())) {
-                    // the resulting merged feature equals the feature to merge from
-                    // the branch, which means that it exists in the merge into tree and there
-                    // is no need to report the to merge change as merged.
-                    consumer.unconflicted(theirsDiff);
-                    report.addUnconflicted(theirsDiff);
-                } else {
-                    ObjectId featureTypeId = oursDiff.getNewObject().metadataId();
-                    FeatureInfo merged = FeatureInfo.insert(mergedFeature, featureTypeId, path);
-                    consumer.merged(merged);
-                    report.addMerged(path);
-                }
+            // features modified by both branches are diff-merged in batches by ChangeProcessor
+            throw new IllegalStateException("Unexpected feature modification at " + path);
+        }
+    }
+
+    private void processFeatureMerge(DiffEntry oursDiff, DiffEntry theirsDiff,
+            DiffMergeFeatureResult diffMergeFeatureResult, MergeScenarioReport report) {
+
+        final String path = oursDiff.path();
+        final ObjectId ancestorVersionId = theirsDiff.oldObjectId();
+        final ObjectId ours = oursDiff.newObjectId();
+        final ObjectId theirs = theirsDiff.newObjectId();
+
+        if (diffMergeFeatureResult.isConflict()) {
+            consumer.conflicted(new Conflict(path, ancestorVersionId, ours, theirs));
+            report.addConflict(path);
+        } else if (diffMergeFeatureResult.isMerge()) {
+            RevFeature mergedFeature = diffMergeFeatureResult.mergedFeature();
+            if (mergedFeature.getId().equals(theirsDiff.newObjectId())) {
+                // the resulting merged feature equals the feature to merge from
+                // the branch, which means that it exists in the merge into tree and there
+                // is no need to report the to merge change as merged.
+                consumer.unconflicted(theirsDiff);
+                report.addUnconflicted(theirsDiff);
+            } else {
+                ObjectId featureTypeId = oursDiff.getNewObject().metadataId();
+                FeatureInfo merged = FeatureInfo.insert(mergedFeature, featureTypeId, path);
+                consumer.merged(merged);
+                report.addMerged(path);
             }
-            // else do nothing, 'ours' has changed in the same way as 'theirs'
         }
+        // else do nothing, 'ours' has changed in the same way as 'theirs'
     }
 
     private void checkForFeatureTypeConflict(Optional<NodeRef> ancestorVersion, DiffEntry oursDiff,
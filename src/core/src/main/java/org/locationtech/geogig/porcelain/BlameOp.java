@@ -98,7 +98,7 @@ public class BlameOp extends AbstractGeoGigOp<BlameReport> {
             }
             RevCommit commitB = log.next();
             try (AutoCloseableIterator<DiffEntry> diffs = diffOp.setNewVersion(commit.getId())
-                    .setOldVersion(commitB.getId()).setReportTrees(false).call()) {
+                    .setOldVersion(commitB.getId()).setFilter(path).setReportTrees(false).call()) {
                 while (diffs.hasNext()) {
                     DiffEntry diff = diffs.next();
                     if (path.equals(diff.path())) {
@@ -0,0 +1,397 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.porcelain;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.di.CanRunDuringConflict;
+import org.locationtech.geogig.model.Bucket;
+import org.locationtech.geogig.model.Node;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.model.RevObject;
+import org.locationtech.geogig.model.RevTag;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.repository.Conflict;
+import org.locationtech.geogig.repository.Context;
+import org.locationtech.geogig.repository.ProgressListener;
+import org.locationtech.geogig.repository.Repository;
+import org.locationtech.geogig.repository.RepositoryConnectionException;
+import org.locationtech.geogig.repository.RepositoryFinder;
+import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
+import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.BulkOpListener;
+import org.locationtech.geogig.storage.BulkOpListener.CountingListener;
+import org.locationtech.geogig.storage.ConflictsDatabase;
+import org.locationtech.geogig.storage.IndexDatabase;
+import org.locationtech.geogig.storage.IndexDatabase.IndexTreeMapping;
+import org.locationtech.geogig.storage.ObjectStore;
+import org.locationtech.geogig.storage.RefDatabase;
+import org.locationtech.geogig.storage.impl.ObjectIdSet;
+
+import com.google.common.collect.Iterators;
+
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.Value;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes the objects in the repository's {@link Context#objectDatabase() object} and
+ * {@link Context#indexDatabase() index} databases that can't be reached from any {@link RefDatabase
+ * ref}, transaction, {@link ConflictsDatabase conflict}, or
+ * {@link IndexDatabase#resolveIndexedTrees index mapping}.
+ * <p>
+ * The operation works in two phases:
+ * <ul>
+ * <li><b>mark</b>: the object graph is traversed starting at the roots mentioned above, fetching
+ * objects in batches through {@link ObjectStore#getAll(Iterable, BulkOpListener)}. Only commits,
+ * tags, and trees are loaded, features and feature types are marked as reachable straight from the
+ * tree nodes pointing to them. The set of reachable ids is kept in a compact {@link ObjectIdSet}.
+ * <li><b>sweep</b>: the ids of all the objects in the database are streamed through
+ * {@link ObjectStore#getAllIds()} and the ones not marked as reachable are deleted in batches
+ * through {@link ObjectStore#deleteAll(Iterator, BulkOpListener)}.
+ * </ul>
+ * <p>
+ * The list of candidate objects to delete is obtained <b>before</b> marking starts, and the roots
+ * are collected a second time once the first traversal finished, so that objects inserted, or refs
+ * updated, while the operation runs are never deleted. Hence it's safe to run while other processes
+ * are reading from the repository. Concurrent writers are not guarded against though, since an
+ * in-progress operation may produce a tree pointing to a pre-existing unreachable object before
+ * updating any ref.
+ * <p>
+ * If the repository shares its object storage with other repositories (e.g. all repositories in the
+ * same PostgreSQL database), as reported by
+ * {@link org.locationtech.geogig.repository.RepositoryResolver#listRepositoriesSharingObjects
+ * RepositoryResolver.listRepositoriesSharingObjects}, the roots of all of them are taken into
+ * account.
+ * <p>
+ * The {@link org.locationtech.geogig.storage.GraphDatabase graph database} is not modified.
+ *
+ * @since 2.0
+ */
+@Slf4j
+@CanRunDuringConflict
+@Accessors(fluent = true)
+public class GarbageCollectOp extends AbstractGeoGigOp<GarbageCollectOp.Result> {
+
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    /**
+     * If {@code true}, unreachable objects are only reported but not deleted
+     */
+    private @Setter boolean dryRun;
+
+    /**
+     * Number of objects to fetch or delete per call to the {@link ObjectStore}
+     */
+    private @Setter int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Garbage collection statistics for a single {@link ObjectStore}
+     */
+    public static @Value class Stats {
+        /**
+         * Number of object ids found reachable from any of the roots, including the ones that don't
+         * exist in the database (e.g. missing parents of shallow clones)
+         */
+        private long reachable;
+
+        /**
+         * Number of objects in the database that are not reachable
+         */
+        private long unreachable;
+
+        /**
+         * Number of unreachable objects that have been deleted, always zero in dry-run mode
+         */
+        private long deleted;
+
+        /**
+         * Storage size of the unreachable objects, as reported by the {@link ObjectStore}, may be
+         * zero if the store doesn't report object sizes
+         */
+        private long unreachableBytes;
+    }
+
+    public static @Value class Result {
+        private boolean dryRun;
+
+        private Stats objects;
+
+        private Stats index;
+    }
+
+    protected @Override Result _call() {
+        Preconditions.checkArgument(batchSize > 0, "batchSize must be > 0: %s", batchSize);
+        final Repository repository = repository();
+        Preconditions.checkState(!repository.isSparse(),
+                "Cannot garbage collect a sparse repository.");
+
+        final Context context = repository.context();
+        final ProgressListener progress = getProgressListener();
+        progress.started();
+
+        final ObjectStore objectStore = context.objectDatabase();
+        final IndexDatabase indexStore = context.indexDatabase();
+        final Reachability objects = new Reachability(objectStore, null);
+        final Reachability index = new Reachability(indexStore, objects);
+
+        // snapshot the existing objects before marking, objects created afterwards won't be swept
+        try (AutoCloseableIterator<ObjectId> objectCandidates = objectStore.getAllIds();
+                AutoCloseableIterator<ObjectId> indexCandidates = indexStore.getAllIds()) {
+
+            progress.setDescription("Marking reachable objects...");
+            markRoots(context, objects, index);
+            markSharedRepositories(repository.getLocation(), objects, index);
+            walk(objects, index, progress);
+
+            // refs may have been updated while walking, catch up
+            markRoots(context, objects, index);
+            walk(objects, index, progress);
+            if (progress.isCanceled()) {
+                return null;
+            }
+            log.debug("Found {} reachable objects and {} reachable index objects",
+                    objects.reachable.size(), index.reachable.size());
+
+            progress.setDescription("%s unreachable objects...", dryRun ? "Counting" : "Deleting");
+            Stats objectStats = sweep(objects, objectCandidates, progress);
+            Stats indexStats = sweep(index, indexCandidates, progress);
+            if (progress.isCanceled()) {
+                return null;
+            }
+            progress.complete();
+            return new Result(dryRun, objectStats, indexStats);
+        }
+    }
+
+    private void walk(Reachability objects, Reachability index, ProgressListener progress) {
+        objects.walk(progress);
+        index.walk(progress);
+    }
+
+    private void markRoots(Context context, Reachability objects, Reachability index) {
+        final RefDatabase refs = context.refDatabase();
+        // getAll() does not return transaction refs, but includes top level refs like HEAD
+        final Set<Ref> allRefs = new HashSet<>(refs.getAll());
+        allRefs.addAll(refs.getAll(Ref.REFS_PREFIX));
+
+        // lots of code assumes the empty tree is always present
+        objects.mark(RevTree.EMPTY_TREE_ID);
+
+        final Set<String> conflictNamespaces = new HashSet<>();
+        for (Ref ref : allRefs) {
+            objects.push(ref.peel().getObjectId());
+            transactionId(ref.getName()).ifPresent(conflictNamespaces::add);
+        }
+
+        final ConflictsDatabase conflicts = context.conflictsDatabase();
+        markConflicts(conflicts, null, objects);
+        conflictNamespaces.forEach(ns -> markConflicts(conflicts, ns, objects));
+
+        final IndexDatabase indexDatabase = context.indexDatabase();
+        indexDatabase.getIndexInfos().forEach(indexInfo -> {
+            try (AutoCloseableIterator<IndexTreeMapping> mappings = indexDatabase
+                    .resolveIndexedTrees(indexInfo)) {
+                mappings.forEachRemaining(mapping -> {
+                    objects.push(mapping.featureTree);
+                    index.push(mapping.indexTree);
+                });
+            }
+        });
+    }
+
+    private Optional<String> transactionId(String refName) {
+        if (refName.startsWith(Ref.TRANSACTIONS_PREFIX)) {
+            String txRef = refName.substring(Ref.TRANSACTIONS_PREFIX.length());
+            int idx = txRef.indexOf('/');
+            if (idx > 0) {
+                return Optional.of(txRef.substring(0, idx));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void markConflicts(ConflictsDatabase conflicts, String namespace,
+            Reachability objects) {
+        Iterator<Conflict> it = conflicts.getByPrefix(namespace, null);
+        while (it.hasNext()) {
+            Conflict c = it.next();
+            objects.mark(c.getAncestor());
+            objects.mark(c.getOurs());
+            objects.mark(c.getTheirs());
+        }
+    }
+
+    private void markSharedRepositories(URI location, Reachability objects, Reachability index) {
+        if (location == null) {
+            return;
+        }
+        final List<URI> shared = RepositoryFinder.INSTANCE.lookup(location)
+                .listRepositoriesSharingObjects(location);
+        for (URI uri : shared) {
+            log.debug("Collecting roots of {} sharing object storage with {}", uri, location);
+            Repository repo;
+            try {
+                repo = RepositoryFinder.INSTANCE.open(uri);
+            } catch (RepositoryConnectionException e) {
+                throw new IllegalStateException(
+                        String.format("Unable to open repository %s, which shares objects with %s",
+                                uri, location),
+                        e);
+            }
+            try {
+                markRoots(repo.context(), objects, index);
+            } finally {
+                repo.close();
+            }
+        }
+    }
+
+    private Stats sweep(Reachability reachability, Iterator<ObjectId> candidates,
+            ProgressListener progress) {
+
+        final ObjectStore store = reachability.store;
+        final ObjectIdSet reachable = reachability.reachable;
+
+        final AtomicLong unreachableBytes = new AtomicLong();
+        final BulkOpListener sizeListener = new BulkOpListener() {
+            public @Override void found(ObjectId object, Integer storageSizeBytes) {
+                if (storageSizeBytes != null) {
+                    unreachableBytes.addAndGet(storageSizeBytes.longValue());
+                }
+            }
+        };
+        final CountingListener deleteListener = BulkOpListener.newCountingListener();
+
+        long unreachable = 0;
+        Iterator<List<ObjectId>> batches = Iterators
+                .partition(Iterators.filter(candidates, id -> !reachable.contains(id)), batchSize);
+        while (batches.hasNext() && !progress.isCanceled()) {
+            List<ObjectId> batch = batches.next();
+            unreachable += batch.size();
+            Iterators.size(store.getAll(batch, sizeListener));
+            if (!dryRun) {
+                store.deleteAll(batch.iterator(), deleteListener);
+            }
+            progress.setProgress(unreachable);
+        }
+        return new Stats(reachable.size(), unreachable, deleteListener.deleted(),
+                unreachableBytes.get());
+    }
+
+    /**
+     * Tracks the objects reachable in a single {@link ObjectStore}, with a LIFO queue of object ids
+     * pending to be loaded
+     */
+    private class Reachability {
+
+        final ObjectStore store;
+
+        final ObjectIdSet reachable = new ObjectIdSet();
+
+        /**
+         * Where to mark leaf (feature and feature type) ids, for index trees these live in the
+         * object database, not in the index database
+         */
+        final ObjectIdSet leaves;
+
+        private final Deque<ObjectId> pending = new ArrayDeque<>();
+
+        Reachability(@NonNull ObjectStore store, Reachability leavesStore) {
+            this.store = store;
+            this.leaves = leavesStore == null ? reachable : leavesStore.reachable;
+        }
+
+        /**
+         * Marks the object as reachable, without loading it
+         */
+        void mark(ObjectId id) {
+            if (!id.isNull()) {
+                reachable.add(id);
+            }
+        }
+
+        /**
+         * Marks the object as reachable and enqueues it for loading, unless it was already marked
+         */
+        void push(ObjectId id) {
+            if (!id.isNull() && reachable.add(id)) {
+                pending.push(id);
+            }
+        }
+
+        void walk(ProgressListener progress) {
+            while (!pending.isEmpty() && !progress.isCanceled()) {
+                final int size = Math.min(batchSize, pending.size());
+                List<ObjectId> batch = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    batch.add(pending.pop());
+                }
+                store.getAll(batch).forEachRemaining(this::visit);
+                progress.setProgress(reachable.size());
+            }
+        }
+
+        private void visit(RevObject o) {
+            switch (o.getType()) {
+            case COMMIT:
+                RevCommit commit = (RevCommit) o;
+                push(commit.getTreeId());
+                commit.getParentIds().forEach(this::push);
+                break;
+            case TAG:
+                push(((RevTag) o).getCommitId());
+                break;
+            case TREE:
+                RevTree tree = (RevTree) o;
+                tree.forEachTree(this::visitTreeNode);
+                tree.forEachFeature(this::visitFeatureNode);
+                tree.forEachBucket(this::visitBucket);
+                break;
+            default:
+                break;
+            }
+        }
+
+        private void visitTreeNode(Node node) {
+            push(node.getObjectId());
+            node.getMetadataId().ifPresent(this::markLeaf);
+        }
+
+        private void visitFeatureNode(Node node) {
+            markLeaf(node.getObjectId());
+            node.getMetadataId().ifPresent(this::markLeaf);
+        }
+
+        private void visitBucket(Bucket bucket) {
+            push(bucket.getObjectId());
+        }
+
+        private void markLeaf(ObjectId id) {
+            if (!id.isNull()) {
+                leaves.add(id);
+            }
+        }
+    }
+}
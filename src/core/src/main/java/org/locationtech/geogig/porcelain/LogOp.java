@@ -29,6 +29,7 @@ import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevCommit;
 import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.plumbing.ChangedPathsFilter;
 import org.locationtech.geogig.plumbing.FindTreeChild;
 import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
 import org.locationtech.geogig.storage.GraphDatabase;
@@ -36,7 +37,6 @@ import org.locationtech.geogig.storage.GraphDatabase;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Range;
-import com.google.common.collect.Streams;
 
 import lombok.NonNull;
 
@@ -49,7 +49,9 @@ import lombok.NonNull;
  * <li>{@link #setTimeRange(Range) timeRange}: return commits that fall in to the given time range.
  * <li>{@link #setSince(ObjectId) since}...{@link #setUntil(ObjectId) until}: Show only commits
  * between the named two commits.
- * <li>{@link #addPath(String) addPath}: Show only commits that affect the specified path.
+ * <li>{@link #addPath(String) addPath}: Show only commits that affect the specified path. Commits
+ * that have a {@link ChangedPathsFilter changed paths filter} are ruled out without comparing their
+ * trees if the filter says they didn't change any of the paths.
  * </ul>
  * </p>
  * 
@@ -268,7 +270,7 @@ public class LogOp extends AbstractGeoGigOp<Iterator<RevCommit>> {
         }
         LogFilter filter = new LogFilter(geogig, oldestCommitId, timeRange, paths, author,
                 commiter);
-        Iterator<RevCommit> filteredCommits = Streams.stream(history).filter(filter).iterator();
+        Iterator<RevCommit> filteredCommits = filter(history, filter);
         if (skip != null) {
             Iterators.advance(filteredCommits, skip.intValue());
         }
@@ -278,6 +280,25 @@ public class LogOp extends AbstractGeoGigOp<Iterator<RevCommit>> {
         return filteredCommits;
     }
 
+    /**
+     * Filters {@code history} with {@code filter}, stopping the history walk as soon as the
+     * {@code since} commit is reached, instead of walking the rest of the history down to the root
+     * commit only to have the filter discard it
+     */
+    private Iterator<RevCommit> filter(Iterator<RevCommit> history, LogFilter filter) {
+        return new AbstractIterator<RevCommit>() {
+            protected @Override RevCommit computeNext() {
+                while (!filter.isSinceReached() && history.hasNext()) {
+                    RevCommit commit = history.next();
+                    if (filter.test(commit)) {
+                        return commit;
+                    }
+                }
+                return endOfData();
+            }
+        };
+    }
+
     /**
      * Iterator that traverses the commit history backwards starting from the provided commit, in
      * chronological order. It performs a reverse breadth-first search
@@ -530,6 +551,8 @@ public class LogOp extends AbstractGeoGigOp<Iterator<RevCommit>> {
 
         private FindTreeChild findTreeChild;
 
+        private GraphDatabase graph;
+
         private @NonNull Geogig repo;
 
         /**
@@ -552,6 +575,15 @@ public class LogOp extends AbstractGeoGigOp<Iterator<RevCommit>> {
             this.committer = commiter;
             this.paths = paths;
             findTreeChild = repo.commands().command(FindTreeChild.class);
+            graph = repo.graph().db();
+        }
+
+        /**
+         * @return whether the {@code since} commit has been reached, after which no other commit is
+         *         accepted
+         */
+        public boolean isSinceReached() {
+            return toReached;
         }
 
         /**
@@ -584,6 +616,12 @@ public class LogOp extends AbstractGeoGigOp<Iterator<RevCommit>> {
                 return false;
             }
             if (paths != null) {
+                // rule out the commit without loading any tree if its changed paths filter can
+                Optional<ChangedPathsFilter> changedPaths = ChangedPathsFilter.load(graph,
+                        commit.getId());
+                if (changedPaths.isPresent() && !changedPaths.get().mightContainAny(paths)) {
+                    return false;
+                }
                 applies = false;
                 // did this commit touch any of the paths?
                 RevTree commitTree = repo.objects().getTree(commit.getTreeId());
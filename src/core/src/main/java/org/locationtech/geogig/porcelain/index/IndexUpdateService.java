@@ -0,0 +1,287 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.porcelain.index;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.porcelain.ConflictsException;
+import org.locationtech.geogig.repository.Context;
+import org.locationtech.geogig.repository.Repository;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background index maintenance service used by
+ * {@link org.locationtech.geogig.hooks.builtin.UpdateIndexesHook UpdateIndexesHook} when the
+ * {@value #ASYNC_CONFIG_KEY} repository config option is {@code true}, so that updating a branch
+ * does not wait for its indexes to be rebuilt.
+ * <p>
+ * Updates are queued per repository and branch. While an update is queued or running, further
+ * updates of the same branch are coalesced, only the latest branch tip is indexed, incrementally
+ * from the branch tip before the first coalesced update. Updates run on a fixed size pool of daemon
+ * threads, whose size is given by the {@value #THREADS_ARG} System property or environment
+ * variable, defaulting to {@code 2}. The service only keeps track of a branch while it has an
+ * update queued or running.
+ * <p>
+ * {@link #isPending(Context, String)} tells whether the indexes of a branch may be behind its
+ * current tip.
+ *
+ * @since 2.0
+ */
+@Slf4j(topic = "geogig.hooks")
+public class IndexUpdateService {
+
+    /**
+     * Repository config key that enables asynchronous index updates
+     */
+    public static final String ASYNC_CONFIG_KEY = "index.async";
+
+    /**
+     * System property or environment variable to set the number of index update threads
+     */
+    public static final String THREADS_ARG = "geogig.index.async.threads";
+
+    public static final IndexUpdateService INSTANCE = new IndexUpdateService(
+            newExecutor(resolveThreads()));
+
+    private final ExecutorService executor;
+
+    private final Map<Key, Status> updates = new ConcurrentHashMap<>();
+
+    IndexUpdateService(@NonNull ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("geogig-index-update-%d").build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return whether asynchronous index updates are enabled for the repository
+     */
+    public static boolean isEnabled(@NonNull Context context) {
+        return context.configDatabase().get(ASYNC_CONFIG_KEY, Boolean.class).orElse(Boolean.FALSE)
+                .booleanValue();
+    }
+
+    private static @Value class Key {
+        private URI repository;
+
+        private String refName;
+    }
+
+    private static class Status {
+        final Key key;
+
+        // the latest branch tip to index, null if none is queued
+        @Nullable
+        Ref pending;
+
+        // where to run the update, latest repository instance the update was submitted for
+        @Nullable
+        Repository repository;
+
+        // whether there's a task queued or running for the branch
+        boolean scheduled;
+
+        // whether the status was removed from the service once its updates finished
+        boolean removed;
+
+        // the last branch tip indexed, base for the next incremental update
+        @Nullable
+        ObjectId indexed;
+
+        Status(Key key, @Nullable ObjectId indexed) {
+            this.key = key;
+            this.indexed = indexed;
+        }
+    }
+
+    /**
+     * Queues an update of the indexes of the given branch, replacing any other update for the same
+     * branch that didn't start yet.
+     *
+     * @param context the repository context
+     * @param ref the new value of the branch ref
+     * @param previous the previous value of the branch ref, whose indexes are the base for an
+     *        incremental update, or {@code null} to use the parent of {@code ref}'s commit
+     */
+    public void submit(@NonNull Context context, @NonNull Ref ref, @Nullable ObjectId previous) {
+        final Repository repository = context.repository();
+        final Key key = new Key(repository.getLocation(), ref.getName());
+        while (true) {
+            final Status status = updates.computeIfAbsent(key, k -> new Status(k, previous));
+            final boolean schedule;
+            synchronized (status) {
+                if (status.removed) {
+                    // finished meanwhile, start over with a new one
+                    continue;
+                }
+                if (status.pending != null) {
+                    log.debug("Coalescing index update of {} with {}", status.pending, ref);
+                }
+                status.pending = ref;
+                status.repository = repository;
+                schedule = !status.scheduled;
+                status.scheduled = true;
+            }
+            if (schedule) {
+                executor.execute(() -> run(status));
+            }
+            return;
+        }
+    }
+
+    /**
+     * @return whether there's an index update queued or running for the given branch, meaning its
+     *         indexes may not match its current tip yet
+     */
+    public boolean isPending(@NonNull Context context, @NonNull String refName) {
+        Key key = new Key(context.repository().getLocation(), refName);
+        Status status = updates.get(key);
+        if (status == null) {
+            return false;
+        }
+        synchronized (status) {
+            return status.scheduled;
+        }
+    }
+
+    /**
+     * @return the number of branches with an update queued or running
+     */
+    @VisibleForTesting
+    int size() {
+        return updates.size();
+    }
+
+    /**
+     * Waits for all the queued and running index updates of the repository to finish
+     *
+     * @return {@code true} if all the updates finished, {@code false} if the timeout elapsed first
+     */
+    public boolean awaitIdle(@NonNull Context context, long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException {
+        final URI location = context.repository().getLocation();
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<Status> statuses = updates.entrySet().stream()
+                .filter(e -> e.getKey().getRepository().equals(location)).map(Map.Entry::getValue)
+                .collect(Collectors.toCollection(ArrayList::new));
+        for (Status status : statuses) {
+            synchronized (status) {
+                while (status.scheduled) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    status.wait(remaining);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void run(final Status status) {
+        while (true) {
+            final Ref ref;
+            final Repository repository;
+            final ObjectId indexed;
+            synchronized (status) {
+                ref = status.pending;
+                repository = status.repository;
+                indexed = status.indexed;
+                if (ref == null) {
+                    status.scheduled = false;
+                    status.repository = null;
+                    status.removed = true;
+                    updates.remove(status.key, status);
+                    status.notifyAll();
+                    return;
+                }
+                status.pending = null;
+            }
+            if (update(repository, ref, indexed)) {
+                synchronized (status) {
+                    status.indexed = ref.getObjectId();
+                }
+            }
+        }
+    }
+
+    private boolean update(Repository repository, Ref ref, @Nullable ObjectId indexed) {
+        if (!repository.isOpen()) {
+            log.debug("Not updating indexes at {}, repository {} was closed", ref,
+                    repository.getLocation());
+            return false;
+        }
+        try {
+            log.debug("Calling UpdateIndexesOp for {}", ref);
+            List<Index> updates = repository.command(UpdateIndexesOp.class)//
+                    .setRef(ref)//
+                    .setPreviousRootRef(indexed == null ? null : indexed.toString())//
+                    .call();
+            if (!updates.isEmpty()) {
+                log.debug("Updated indexes at {}: {}", ref, updates.stream()
+                        .map(i -> i.info().getTreeName()).collect(Collectors.joining(", ")));
+            }
+            return true;
+        } catch (ConflictsException conflictsEx) {
+            // expected, we don't update indexes if there are merge conflicts
+            log.debug("Not updating indexes, there are merge conflicts at {}", ref);
+        } catch (Exception e) {
+            log.error("Error updating indexes at {}", ref, e);
+        }
+        return false;
+    }
+
+    private static int resolveThreads() {
+        final int defaultValue = 2;
+        String arg = System.getProperty(THREADS_ARG);
+        if (isNullOrEmpty(arg)) {
+            arg = System.getenv(THREADS_ARG);
+        }
+        if (isNullOrEmpty(arg)) {
+            return defaultValue;
+        }
+        try {
+            int threads = Integer.parseInt(arg.trim());
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        log.warn("Invalid {}={}, using default value {}", THREADS_ARG, arg, defaultValue);
+        return defaultValue;
+    }
+}
@@ -21,11 +21,15 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.crs.CoordinateReferenceSystem;
 import org.locationtech.geogig.feature.FeatureType;
 import org.locationtech.geogig.feature.PropertyDescriptor;
+import org.locationtech.geogig.model.NodeOrdering;
 import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.RevFeatureType;
+import org.locationtech.geogig.model.impl.AttributeIndexTreeBuilder;
+import org.locationtech.geogig.model.impl.QuadTreeBuilder;
 import org.locationtech.geogig.plumbing.FindFeatureTypeTrees;
 import org.locationtech.geogig.repository.Context;
 import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
 import org.locationtech.geogig.repository.impl.SpatialOps;
 import org.locationtech.geogig.storage.IndexDatabase;
 import org.locationtech.jts.geom.Envelope;
@@ -165,4 +169,25 @@ public class IndexUtils {
         }
         return descriptor;
     }
+
+    /**
+     * Resolves the {@link NodeOrdering} the trees of the given index are built with, as needed to
+     * traverse or compare them.
+     * 
+     * @param index the index info
+     * @return the node ordering for the index's {@link IndexInfo#getIndexType() type}
+     */
+    public static NodeOrdering resolveNodeOrdering(IndexInfo index) {
+        final IndexType indexType = index.getIndexType();
+        switch (indexType) {
+        case QUADTREE:
+            Envelope maxBounds = IndexInfo.getMaxBounds(index);
+            checkArgument(maxBounds != null, "QuadTree index does not contain max bounds");
+            return QuadTreeBuilder.nodeOrdering(maxBounds);
+        case ATTRIBUTE:
+            return AttributeIndexTreeBuilder.nodeOrdering(index.getAttributeName());
+        default:
+            throw new UnsupportedOperationException("Uknown index type: " + indexType);
+        }
+    }
 }
@@ -27,6 +27,7 @@ import org.locationtech.geogig.model.RevTree;
 import org.locationtech.geogig.plumbing.index.BuildFullHistoryIndexOp;
 import org.locationtech.geogig.plumbing.index.BuildIndexOp;
 import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
 import org.locationtech.geogig.repository.ProgressListener;
 import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
 import org.locationtech.geogig.storage.IndexDatabase;
@@ -180,6 +181,18 @@ public class UpdateIndexOp extends AbstractGeoGigOp<Index> {
             updatedAttributes = oldAttributes;
         }
 
+        if (IndexType.ATTRIBUTE == oldIndexInfo.getIndexType()) {
+            checkArgument(bounds == null, "Attribute indexes have no bounds to update");
+            // the indexed attribute can't be removed from the materialized ones
+            final String indexedAttribute = oldIndexInfo.getAttributeName();
+            if (updatedAttributes == null) {
+                updatedAttributes = new String[] { indexedAttribute };
+            } else if (!Arrays.asList(updatedAttributes).contains(indexedAttribute)) {
+                updatedAttributes = Arrays.copyOf(updatedAttributes, updatedAttributes.length + 1);
+                updatedAttributes[updatedAttributes.length - 1] = indexedAttribute;
+            }
+        }
+
         boolean updated = false;
         if (!contentsEqual(updatedAttributes, oldAttributes)) {
             if (updatedAttributes == null) {
@@ -39,6 +39,8 @@ public class UpdateIndexesOp extends AbstractGeoGigOp<List<Index>> {
 
     private Ref rootRefSpec;
 
+    private @Nullable String previousRootRefSpec;
+
     /**
      * @param branchRef the refSpec that resolves to a root tree
      * @return {@code this}
@@ -52,6 +54,17 @@ public class UpdateIndexesOp extends AbstractGeoGigOp<List<Index>> {
         return this;
     }
 
+    /**
+     * @param previousRootRefSpec the refSpec that resolves to the root tree the indexes were last
+     *        updated for, to update them incrementally from there. Defaults to the first parent of
+     *        {@link #setRef(Ref) ref}
+     * @return {@code this}
+     */
+    public UpdateIndexesOp setPreviousRootRef(final @Nullable String previousRootRefSpec) {
+        this.previousRootRefSpec = previousRootRefSpec;
+        return this;
+    }
+
     /**
      * Performs the operation.
      * 
@@ -66,7 +79,8 @@ public class UpdateIndexesOp extends AbstractGeoGigOp<List<Index>> {
         featureTypeTreeRefs = command(FindFeatureTypeTrees.class)
                 .setRootTreeRef(branchRef.getName()).call();
 
-        String previousRefSpec = branchRef.getName() + "^";
+        String previousRefSpec = previousRootRefSpec == null ? branchRef.getName() + "^"
+                : previousRootRefSpec;
 
         final List<NodeRef> previousVersionTrees = command(FindFeatureTypeTrees.class)
                 .setRootTreeRef(previousRefSpec).call();
@@ -23,6 +23,7 @@ import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -54,10 +55,12 @@ import org.locationtech.geogig.repository.Context;
 import org.locationtech.geogig.repository.DefaultProgressListener;
 import org.locationtech.geogig.repository.DiffObjectCount;
 import org.locationtech.geogig.repository.FeatureInfo;
+import org.locationtech.geogig.repository.Platform;
 import org.locationtech.geogig.repository.ProgressListener;
 import org.locationtech.geogig.repository.Repository;
 import org.locationtech.geogig.repository.WorkingTree;
 import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.BulkIngest;
 import org.locationtech.geogig.storage.ObjectDatabase;
 import org.locationtech.jts.geom.Envelope;
 
@@ -318,7 +321,32 @@ public class WorkingTreeImpl implements WorkingTree {
 
     public @Override ObjectId insert(Iterator<FeatureInfo> featureInfos,
             ProgressListener progress) {
-        checkArgument(featureInfos != null);
+        return insert(featureInfos, Function.identity(), 1, progress);
+    }
+
+    /**
+     * Inserts the features in a single thread if {@code parallelism == 1}, or using a
+     * {@link WorkingTreeInsertPipeline} otherwise, defaulting to as many worker threads as
+     * {@link Platform#availableProcessors() available processors} if {@code parallelism == 0}.
+     */
+    public @Override <F> ObjectId insert(Iterator<F> features,
+            Function<? super F, FeatureInfo> converter, int parallelism,
+            ProgressListener progress) {
+        return insert(features, converter, parallelism, false, progress);
+    }
+
+    /**
+     * Same as {@link #insert(Iterator, Function, int, ProgressListener)}, saving the features
+     * through a {@link ObjectDatabase#bulkIngest() bulk load session} if {@code ingest} is
+     * {@code true}. The session is ingested once all the features are saved and before building the
+     * feature trees, or discarded if the operation is cancelled.
+     */
+    public @Override <F> ObjectId insert(Iterator<F> features,
+            Function<? super F, FeatureInfo> converter, int parallelism, boolean ingest,
+            ProgressListener progress) {
+        checkArgument(features != null);
+        checkArgument(converter != null);
+        checkArgument(parallelism >= 0, "parallelism must be >= 0: %s", parallelism);
         checkArgument(progress != null);
 
         final RevTree currentWorkHead = getTree();
@@ -328,54 +356,55 @@ public class WorkingTreeImpl implements WorkingTree {
 
         Map<String, RevTreeBuilder> parentBuilders = new HashMap<>();
 
-        progress.setProgress(0);
-        final AtomicLong p = new AtomicLong();
-        Function<FeatureInfo, RevFeature> treeBuildingTransformer = fi -> {
+        final Function<FeatureInfo, RevTreeBuilder> builderResolver = fi -> {
             final String parentPath = NodeRef.parentPath(fi.getPath());
-            final String fid = NodeRef.nodeFromPath(fi.getPath());
-            @Nullable
-            ObjectId metadataId = fi.getFeatureTypeId();
             RevTreeBuilder parentBuilder = getTreeBuilder(currentTrees, parentBuilders, parentPath,
-                    metadataId);
-
+                    fi.getFeatureTypeId());
+            Preconditions.checkState(parentBuilder != null || fi.isDelete());
+            return parentBuilder;
+        };
+        final BiFunction<FeatureInfo, Envelope, Node> nodeFactory = (fi, bounds) -> {
+            final String fid = NodeRef.nodeFromPath(fi.getPath());
             if (fi.isDelete()) {
-                if (parentBuilder != null) {
-                    parentBuilder.remove(RevObjectFactory.defaultInstance().createNode(fid,
-                            ObjectId.NULL, ObjectId.NULL, TYPE.FEATURE, null, null));
-                }
-                return null;
+                return RevObjectFactory.defaultInstance().createNode(fid, ObjectId.NULL,
+                        ObjectId.NULL, TYPE.FEATURE, null, null);
             }
-
-            Preconditions.checkState(parentBuilder != null);
-            RevFeature feature = fi.getFeature();
-            NodeRef parentRef = currentTrees.get(parentPath);
+            NodeRef parentRef = currentTrees.get(NodeRef.parentPath(fi.getPath()));
             Objects.requireNonNull(parentRef);
-            if (fi.getFeatureTypeId().equals(parentRef.metadataId())) {
+            ObjectId metadataId = fi.getFeatureTypeId();
+            if (metadataId.equals(parentRef.metadataId())) {
                 metadataId = ObjectId.NULL;// use the parent's default
             }
-
-            ObjectId oid = feature.getId();
-            Envelope bounds = SpatialOps.boundsOf(feature);
-            Node featureNode = RevObjectFactory.defaultInstance().createNode(fid, oid, metadataId,
-                    TYPE.FEATURE, bounds, null);
-
-            parentBuilder.put(featureNode);
-
-            progress.setProgress(p.incrementAndGet());
-            return feature;
+            ObjectId oid = fi.getFeature().getId();
+            return RevObjectFactory.defaultInstance().createNode(fid, oid, metadataId, TYPE.FEATURE,
+                    bounds, null);
         };
 
-        Stream<RevFeature> features = Streams.stream(featureInfos).map(treeBuildingTransformer)
-                .filter(Objects::nonNull).filter(f -> !progress.isCanceled());
+        final int workers = parallelism == 0 ? context.platform().availableProcessors()
+                : parallelism;
 
+        progress.setProgress(0);
+        final long insertCount;
         Stopwatch insertTime = Stopwatch.createStarted();
-        indexDatabase.putAll(features.iterator());
+        try (BulkIngest target = ingest ? indexDatabase.bulkIngest()
+                : BulkIngest.direct(indexDatabase)) {
+            insertCount = insert(features, converter, workers, builderResolver, nodeFactory, target,
+                    progress);
+            if (!progress.isCanceled()) {
+                if (ingest) {
+                    progress.setDescription(
+                            String.format("Ingesting %,d features...", insertCount));
+                }
+                target.ingest();
+            }
+        }
         insertTime.stop();
         if (progress.isCanceled()) {
             return currentWorkHead.getId();
         }
 
-        progress.setDescription(String.format("%,d features inserted in %s", p.get(), insertTime));
+        progress.setDescription(
+                String.format("%,d features inserted in %s", insertCount, insertTime));
 
         UpdateTree updateTree = context.command(UpdateTree.class).setRoot(currentWorkHead);
         parentBuilders.forEach((path, builder) -> {
@@ -393,7 +422,48 @@ public class WorkingTreeImpl implements WorkingTree {
         });
 
         final RevTree newWorkHead = updateTree.call();
-        return updateWorkHead(newWorkHead.getId(), String.format("%,d feature changes", p.get()));
+        return updateWorkHead(newWorkHead.getId(),
+                String.format("%,d feature changes", insertCount));
+    }
+
+    /**
+     * Saves the features to {@code target} and populates the tree builders, in a single thread if
+     * {@code workers == 1}, or using a {@link WorkingTreeInsertPipeline} otherwise
+     *
+     * @return the number of features inserted
+     */
+    private <F> long insert(Iterator<F> features, Function<? super F, FeatureInfo> converter,
+            int workers, Function<FeatureInfo, RevTreeBuilder> builderResolver,
+            BiFunction<FeatureInfo, Envelope, Node> nodeFactory, BulkIngest target,
+            ProgressListener progress) {
+        if (workers == 1) {
+            final AtomicLong p = new AtomicLong();
+            Function<F, RevFeature> treeBuildingTransformer = source -> {
+                final FeatureInfo fi = converter.apply(source);
+                RevTreeBuilder parentBuilder = builderResolver.apply(fi);
+                if (fi.isDelete()) {
+                    if (parentBuilder != null) {
+                        parentBuilder.remove(nodeFactory.apply(fi, null));
+                    }
+                    return null;
+                }
+                RevFeature feature = fi.getFeature();
+                Envelope bounds = SpatialOps.boundsOf(feature);
+                parentBuilder.put(nodeFactory.apply(fi, bounds));
+
+                progress.setProgress(p.incrementAndGet());
+                return feature;
+            };
+
+            Stream<RevFeature> revFeatures = Streams.stream(features).map(treeBuildingTransformer)
+                    .filter(Objects::nonNull).filter(f -> !progress.isCanceled());
+
+            target.putAll(revFeatures.iterator());
+            return p.get();
+        } else {
+            return new WorkingTreeInsertPipeline<F>(target::putAll, converter, builderResolver,
+                    nodeFactory, workers, progress).run(features);
+        }
     }
 
     @Nullable
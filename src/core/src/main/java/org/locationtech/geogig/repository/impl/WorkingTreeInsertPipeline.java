@@ -0,0 +1,295 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.repository.impl;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.model.Node;
+import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.RevTreeBuilder;
+import org.locationtech.geogig.repository.FeatureInfo;
+import org.locationtech.geogig.repository.ProgressListener;
+import org.locationtech.geogig.storage.BulkIngest;
+import org.locationtech.geogig.storage.ObjectDatabase;
+import org.locationtech.jts.geom.Envelope;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Staged, multi-threaded implementation of the feature insertion loop of
+ * {@link WorkingTreeImpl#insert(Iterator, Function, int, ProgressListener)}.
+ * <p>
+ * The pipeline is made of the following stages:
+ * <ul>
+ * <li><b>read</b>: the calling thread consumes the source iterator (which is usually not thread
+ * safe, like a GeoTools {@code FeatureIterator}) in batches of {@link #BATCH_SIZE} elements, and
+ * submits each batch to the encode stage;
+ * <li><b>encode</b>: the worker threads convert the source objects to {@link FeatureInfo}s
+ * (building and hashing the {@link RevFeature}s) and compute their bounds;
+ * <li><b>write</b>: a single thread takes the encoded batches in the same order they were read,
+ * saves the features with one call to the {@code store} function per batch (usually
+ * {@link ObjectDatabase#putAll putAll} or {@link BulkIngest#putAll}), and dispatches the feature
+ * nodes to the index stage;
+ * <li><b>index</b>: the worker threads populate the {@link RevTreeBuilder}s, with each feature
+ * tree's nodes being added sequentially and in source order, but different feature trees being
+ * populated concurrently.
+ * </ul>
+ * The queues between stages are bounded to {@code 2 * parallelism} batches, so a slow stage makes
+ * the upstream ones block instead of buffering the whole source in memory.
+ */
+@Slf4j
+class WorkingTreeInsertPipeline<F> {
+
+    static final int BATCH_SIZE = 1_000;
+
+    private static final List<Encoded> END_OF_INPUT = new ArrayList<>();
+
+    private final Consumer<Iterator<RevFeature>> store;
+
+    private final Function<? super F, FeatureInfo> converter;
+
+    private final Function<FeatureInfo, RevTreeBuilder> builderResolver;
+
+    private final BiFunction<FeatureInfo, Envelope, Node> nodeFactory;
+
+    private final int parallelism;
+
+    private final ProgressListener progress;
+
+    private final AtomicLong read = new AtomicLong();
+
+    private final AtomicLong encoded = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong indexed = new AtomicLong();
+
+    private final AtomicLong inserted = new AtomicLong();
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private static @Value class Encoded {
+        FeatureInfo info;
+
+        @Nullable
+        Envelope bounds;
+    }
+
+    /**
+     * @param store saves a batch of features, called only from the write stage thread
+     * @param builderResolver resolves the tree builder for a feature info, called only from the
+     *        write stage thread, may return {@code null} for deletes on non existing trees
+     * @param nodeFactory creates the feature node to add to or remove from the tree builder, called
+     *        only from the write stage thread
+     */
+    WorkingTreeInsertPipeline(@NonNull Consumer<Iterator<RevFeature>> store,
+            @NonNull Function<? super F, FeatureInfo> converter,
+            @NonNull Function<FeatureInfo, RevTreeBuilder> builderResolver,
+            @NonNull BiFunction<FeatureInfo, Envelope, Node> nodeFactory, int parallelism,
+            @NonNull ProgressListener progress) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be > 0: %s", parallelism);
+        this.store = store;
+        this.converter = converter;
+        this.builderResolver = builderResolver;
+        this.nodeFactory = nodeFactory;
+        this.parallelism = parallelism;
+        this.progress = progress;
+    }
+
+    /**
+     * Runs the pipeline until {@code source} is exhausted or the progress listener is canceled.
+     *
+     * @return the number of features inserted
+     */
+    public long run(Iterator<F> source) {
+        final Function<ProgressListener, String> oldIndicator = progress.progressIndicator();
+        progress.setProgressIndicator(
+                p -> String.format("read %,d, encoded %,d, saved %,d, indexed %,d", read.get(),
+                        encoded.get(), written.get(), indexed.get()));
+
+        final ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("geogig-insert-worker-%d")
+                        .build());
+        final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("geogig-insert-writer-%d").build());
+
+        final BlockingQueue<Future<List<Encoded>>> encodeQueue = new ArrayBlockingQueue<>(
+                2 * parallelism);
+        try {
+            Future<?> writeTask = writer.submit(() -> write(encodeQueue, workers));
+            read(source, encodeQueue, workers, writeTask);
+            enqueue(encodeQueue, CompletableFuture.completedFuture(END_OF_INPUT), writeTask);
+            writeTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.cancel();
+            throw new IllegalStateException("Interrupted while inserting features", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // the write stage fails with the encode stage's ExecutionException
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            failure.compareAndSet(null, cause);
+        } finally {
+            writer.shutdownNow();
+            workers.shutdownNow();
+            progress.setProgressIndicator(oldIndicator);
+        }
+        Throwable error = failure.get();
+        if (error != null) {
+            Throwables.throwIfUnchecked(error);
+            throw new IllegalStateException(error);
+        }
+        log.debug("Inserted {} features: {} read, {} saved, {} indexed", inserted.get(), read.get(),
+                written.get(), indexed.get());
+        return inserted.get();
+    }
+
+    private void read(Iterator<F> source, BlockingQueue<Future<List<Encoded>>> encodeQueue,
+            ExecutorService workers, Future<?> writeTask) throws InterruptedException {
+
+        while (source.hasNext() && !isAborted()) {
+            final List<F> batch = new ArrayList<>(BATCH_SIZE);
+            while (batch.size() < BATCH_SIZE && source.hasNext()) {
+                batch.add(source.next());
+            }
+            read.addAndGet(batch.size());
+            Future<List<Encoded>> encodeTask = workers.submit(() -> encode(batch));
+            if (!enqueue(encodeQueue, encodeTask, writeTask)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Blocks until there's room in the queue for {@code task}, or the write stage finished
+     * prematurely
+     */
+    private boolean enqueue(BlockingQueue<Future<List<Encoded>>> queue, Future<List<Encoded>> task,
+            Future<?> writeTask) throws InterruptedException {
+        while (!queue.offer(task, 100, TimeUnit.MILLISECONDS)) {
+            if (writeTask.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Encoded> encode(List<F> batch) {
+        List<Encoded> encodedBatch = new ArrayList<>(batch.size());
+        for (F source : batch) {
+            if (isAborted()) {
+                break;
+            }
+            FeatureInfo info = converter.apply(source);
+            Envelope bounds = info.isDelete() ? null : SpatialOps.boundsOf(info.getFeature());
+            encodedBatch.add(new Encoded(info, bounds));
+        }
+        encoded.addAndGet(encodedBatch.size());
+        return encodedBatch;
+    }
+
+    private Void write(BlockingQueue<Future<List<Encoded>>> encodeQueue, ExecutorService workers)
+            throws InterruptedException, ExecutionException {
+
+        final Semaphore indexPermits = new Semaphore(2 * parallelism);
+        // tail of the chain of index tasks for each tree, to populate each tree sequentially
+        final Map<RevTreeBuilder, CompletableFuture<Void>> indexLanes = new IdentityHashMap<>();
+
+        List<Encoded> batch;
+        while ((batch = encodeQueue.take().get()) != END_OF_INPUT) {
+            if (isAborted()) {
+                break;
+            }
+            index(batch, workers, indexPermits, indexLanes);
+
+            List<RevFeature> features = batch.stream().map(Encoded::getInfo)
+                    .filter(fi -> !fi.isDelete()).map(FeatureInfo::getFeature)
+                    .collect(Collectors.toList());
+            store.accept(features.iterator());
+            written.addAndGet(features.size());
+            progress.setProgress(written.get());
+        }
+        CompletableFuture.allOf(indexLanes.values().toArray(new CompletableFuture[0])).join();
+        return null;
+    }
+
+    private void index(List<Encoded> batch, ExecutorService workers, Semaphore indexPermits,
+            Map<RevTreeBuilder, CompletableFuture<Void>> indexLanes) throws InterruptedException {
+
+        final Map<RevTreeBuilder, List<Runnable>> byTree = new IdentityHashMap<>();
+        for (Encoded e : batch) {
+            final FeatureInfo info = e.getInfo();
+            final RevTreeBuilder builder = builderResolver.apply(info);
+            if (builder == null) {
+                continue;
+            }
+            final Node node = nodeFactory.apply(info, e.getBounds());
+            Runnable op;
+            if (info.isDelete()) {
+                op = () -> builder.remove(node);
+            } else {
+                inserted.incrementAndGet();
+                op = () -> builder.put(node);
+            }
+            byTree.computeIfAbsent(builder, b -> new ArrayList<>()).add(op);
+        }
+
+        for (Map.Entry<RevTreeBuilder, List<Runnable>> e : byTree.entrySet()) {
+            final List<Runnable> ops = e.getValue();
+            indexPermits.acquire();
+            CompletableFuture<Void> tail = indexLanes.getOrDefault(e.getKey(),
+                    CompletableFuture.completedFuture(null));
+            indexLanes.put(e.getKey(), tail.thenRunAsync(() -> {
+                try {
+                    if (!isAborted()) {
+                        ops.forEach(Runnable::run);
+                        indexed.addAndGet(ops.size());
+                    }
+                } catch (RuntimeException | Error err) {
+                    failure.compareAndSet(null, err);
+                } finally {
+                    indexPermits.release();
+                }
+            }, workers));
+        }
+    }
+
+    private boolean isAborted() {
+        return failure.get() != null || progress.isCanceled();
+    }
+}
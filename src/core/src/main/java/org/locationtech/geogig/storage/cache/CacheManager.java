@@ -13,6 +13,8 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static org.locationtech.geogig.base.Preconditions.checkArgument;
 
 import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
@@ -67,6 +69,14 @@ import lombok.NonNull;
  * <li>{float}G[B]: size in gibibytes (e.g. {@code 1.5G}, {@code 2g}, {@code 2.5G})
  * </ul>
  * <p>
+ * <h3>Off-heap tier</h3> {@link SharedCacheBuilder} implementations may support a second cache tier
+ * that keeps the objects evicted from the heap outside the Java heap. It is disabled by default,
+ * and enabled by setting its capacity through the {@code GEOGIG_CACHE_OFFHEAP_MAX_SIZE} System
+ * property or environment variable, using the same format as {@code GEOGIG_CACHE_MAX_SIZE} but not
+ * bounded by the JVM heap size. The off-heap tier uses direct memory unless a local directory is
+ * given through {@code GEOGIG_CACHE_OFFHEAP_DIR}, in which case it uses a memory mapped file in
+ * that directory.
+ * <p>
  * At runtime, the maximum cache capacity can be changed as described by the mutator methods of
  * {@link CacheManagerBean}
  */
@@ -114,6 +124,12 @@ public class CacheManager implements CacheManagerBean {
      */
     private long currentMaxCacheSize = -1;
 
+    /**
+     * Off-heap tier capacity, resolved by {@link #getOffHeapMaximumSize()} or set by
+     * {@link #setOffHeapMaximumSizeMB(double)}
+     */
+    private long currentOffHeapMaxSize = -1;
+
     @VisibleForTesting
     CacheManager() {
         CACHES = new CacheConnections(this);
@@ -424,6 +440,10 @@ public class CacheManager implements CacheManagerBean {
                         .lookupDefaultService(SharedCacheBuilder.class);
                 LOG.info("Obtained cache builder {}", builder.getClass().getName());
                 builder.setMaxSizeBytes(maxSizeBytes);
+                builder.setOffHeapMaxSizeBytes(getOffHeapMaximumSize());
+                String offHeapDir = getOffHeapDirectory();
+                builder.setOffHeapDirectory(
+                        isNullOrEmpty(offHeapDir) ? null : Paths.get(offHeapDir));
                 cache = builder.build();
                 LOG.info("Initialized shared cache {}", cache.getClass().getName());
             } catch (NoSuchElementException noBuilderPresent) {
@@ -437,11 +457,90 @@ public class CacheManager implements CacheManagerBean {
         SharedCache old = _SHARED_CACHE;
         _SHARED_CACHE = cache;
         if (old != null) {
-            old.invalidateAll();
+            old.dispose();
         }
         this.currentMaxCacheSize = maxSizeBytes;
     }
 
+    /**
+     * @return the off-heap tier capacity as given by the {@code GEOGIG_CACHE_OFFHEAP_MAX_SIZE}
+     *         System property or environment variable, or set through
+     *         {@link #setOffHeapMaximumSizeMB(double)}, zero meaning no off-heap tier
+     */
+    long getOffHeapMaximumSize() {
+        if (currentOffHeapMaxSize == -1L) {
+            final String arg = getOffHeapMaximumSizeArgument();
+            long size = 0L;
+            try {
+                size = Math.max(0L, parseCacheSizeArgument(arg));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Unable to parse {}={}, off-heap cache tier is disabled",
+                        GEOGIG_CACHE_OFFHEAP_MAX_SIZE, arg, e);
+            }
+            if (size > 0L) {
+                LOG.info(String.format(
+                        "Configuring GeoGig shared object cache off-heap tier size to %,d bytes as given by %s=%s",
+                        size, GEOGIG_CACHE_OFFHEAP_MAX_SIZE, arg));
+            }
+            currentOffHeapMaxSize = size;
+        }
+        return currentOffHeapMaxSize;
+    }
+
+    @Nullable
+    String getOffHeapMaximumSizeArgument() {
+        String arg = System.getProperty(GEOGIG_CACHE_OFFHEAP_MAX_SIZE);
+        return isNullOrEmpty(arg) ? System.getenv(GEOGIG_CACHE_OFFHEAP_MAX_SIZE) : arg;
+    }
+
+    @Nullable
+    public @Override String getOffHeapDirectory() {
+        String dir = System.getProperty(GEOGIG_CACHE_OFFHEAP_DIR);
+        return isNullOrEmpty(dir) ? System.getenv(GEOGIG_CACHE_OFFHEAP_DIR) : dir;
+    }
+
+    public @Override double getOffHeapMaximumSizeMB() {
+        return getOffHeapMaximumSize() / (1024d * 1024d);
+    }
+
+    public @Override void setOffHeapMaximumSizeMB(double maxSizeMB) {
+        checkArgument(maxSizeMB >= 0, "Off-heap cache size must be >= 0, got %s", maxSizeMB);
+        this.currentOffHeapMaxSize = (long) (maxSizeMB * (1024 * 1024));
+        setMaximumSize(currentMaxCacheSize == -1L ? resolveDefaultMaxSize() : currentMaxCacheSize);
+    }
+
+    public @Override long getOffHeapSizeBytes() {
+        return sharedCache().offHeapSizeBytes();
+    }
+
+    public @Override double getOffHeapSizeMB() {
+        return getOffHeapSizeBytes() / (1024D * 1024D);
+    }
+
+    public @Override long getOffHeapSize() {
+        return sharedCache().offHeapObjectCount();
+    }
+
+    public @Override long getOffHeapHitCount() {
+        return sharedCache().getOffHeapStats().hitCount();
+    }
+
+    public @Override double getOffHeapHitRate() {
+        return sharedCache().getOffHeapStats().hitRate();
+    }
+
+    public @Override long getOffHeapMissCount() {
+        return sharedCache().getOffHeapStats().missCount();
+    }
+
+    public @Override double getOffHeapMissRate() {
+        return sharedCache().getOffHeapStats().missRate();
+    }
+
+    public @Override long getOffHeapEvictionCount() {
+        return sharedCache().getOffHeapStats().evictionCount();
+    }
+
     public @Override double getMaximumSizePercent() {
         final long maxMemory = getMaximumHeapSize();
         double percent = (double) getMaximumSize() / maxMemory;
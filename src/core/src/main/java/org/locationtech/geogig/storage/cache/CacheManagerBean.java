@@ -32,6 +32,24 @@ public interface CacheManagerBean {
 
     final String GEOGIG_CACHE_MAX_SIZE = "GEOGIG_CACHE_MAX_SIZE";
 
+    /**
+     * Name of the System property or environment variable used to enable the off-heap cache tier
+     * and set its capacity, using the same format as {@code GEOGIG_CACHE_MAX_SIZE} (e.g.
+     * {@code 4G}). The off-heap tier is disabled by default.
+     * 
+     * @since 2.0
+     */
+    final String GEOGIG_CACHE_OFFHEAP_MAX_SIZE = "GEOGIG_CACHE_OFFHEAP_MAX_SIZE";
+
+    /**
+     * Name of the System property or environment variable used to provide a local directory where
+     * the off-heap cache tier keeps its memory mapped file. If not provided, the off-heap tier uses
+     * direct memory, which is bounded by the {@code -XX:MaxDirectMemorySize} JVM argument.
+     * 
+     * @since 2.0
+     */
+    final String GEOGIG_CACHE_OFFHEAP_DIR = "GEOGIG_CACHE_OFFHEAP_DIR";
+
     /**
      * The default maximum cache capacity, used if neither the {@code GEOGIG_CACHE_MAX_SIZE}
      * environment variable or system property where provided, or couldn't be parsed; expressed as
@@ -198,4 +216,77 @@ public interface CacheManagerBean {
      */
     long getEvictionCount();
 
+    /**
+     * @return the configured capacity of the off-heap cache tier in MB, {@code 0} meaning the
+     *         off-heap tier is disabled
+     * @since 2.0
+     */
+    double getOffHeapMaximumSizeMB();
+
+    /**
+     * Sets the capacity of the off-heap cache tier, {@code 0} meaning no off-heap tier.
+     * <p>
+     * Note this is a destructive method, the internal cache is discarded and replaced by a new one.
+     * The off-heap tier capacity is not bounded by the JVM heap size.
+     * 
+     * @since 2.0
+     */
+    void setOffHeapMaximumSizeMB(double maxSizeMB) throws IllegalArgumentException;
+
+    /**
+     * @return the directory where the off-heap cache tier keeps its memory mapped file, or
+     *         {@code null} if it uses direct memory
+     * @since 2.0
+     */
+    @Nullable
+    String getOffHeapDirectory();
+
+    /**
+     * @return the approximate size of the off-heap cache tier in bytes
+     * @since 2.0
+     */
+    long getOffHeapSizeBytes();
+
+    /**
+     * @return the approximate size of the off-heap cache tier in MibiBytes
+     * @since 2.0
+     */
+    double getOffHeapSizeMB();
+
+    /**
+     * @return number of {@link RevObject}s in the off-heap cache tier
+     * @since 2.0
+     */
+    long getOffHeapSize();
+
+    /**
+     * @return number of off-heap tier queries that were hits
+     * @since 2.0
+     */
+    long getOffHeapHitCount();
+
+    /**
+     * @return ratio between number of off-heap tier queries and those that were hits
+     * @since 2.0
+     */
+    double getOffHeapHitRate();
+
+    /**
+     * @return number of off-heap tier queries that were misses
+     * @since 2.0
+     */
+    long getOffHeapMissCount();
+
+    /**
+     * @return ratio between number of off-heap tier queries and those that were misses
+     * @since 2.0
+     */
+    double getOffHeapMissRate();
+
+    /**
+     * @return number of entries dropped from the off-heap tier due to size restrictions
+     * @since 2.0
+     */
+    long getOffHeapEvictionCount();
+
 }
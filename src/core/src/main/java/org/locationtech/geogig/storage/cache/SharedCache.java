@@ -94,9 +94,38 @@ public interface SharedCache {
         return 0L;
     }
 
+    /**
+     * @return the statistics of the first level, on-heap, cache tier
+     */
     default CacheStats getStats() {
         return new CacheStats() {
         };
     }
 
+    /**
+     * @return the approximate size in bytes of the off-heap cache tier, if any
+     * @since 2.0
+     */
+    default long offHeapSizeBytes() {
+        return 0L;
+    }
+
+    /**
+     * @return the number of objects in the off-heap cache tier, if any
+     * @since 2.0
+     */
+    default long offHeapObjectCount() {
+        return 0L;
+    }
+
+    /**
+     * @return the statistics of the off-heap cache tier, if any. Objects found in the off-heap tier
+     *         are counted as misses by the on-heap tier {@link #getStats() stats}
+     * @since 2.0
+     */
+    default CacheStats getOffHeapStats() {
+        return new CacheStats() {
+        };
+    }
+
 }
@@ -9,6 +9,9 @@
  */
 package org.locationtech.geogig.storage.cache;
 
+import java.nio.file.Path;
+
+import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.model.PriorityService;
 import org.locationtech.geogig.model.ServiceFinder;
 
@@ -22,6 +25,27 @@ public interface SharedCacheBuilder extends PriorityService {
 
     void setMaxSizeBytes(long maxSizeBytes);
 
+    /**
+     * Sets the capacity of the off-heap cache tier, for implementations that support one.
+     * 
+     * @param maxSizeBytes the off-heap tier capacity, {@code 0} meaning no off-heap tier
+     * @since 2.0
+     */
+    default void setOffHeapMaxSizeBytes(long maxSizeBytes) {
+        // off-heap tier not supported by default
+    }
+
+    /**
+     * Sets the local directory where the off-heap cache tier shall keep its memory mapped file, for
+     * implementations that support one.
+     * 
+     * @param directory the directory, or {@code null} to use direct memory instead of a file
+     * @since 2.0
+     */
+    default void setOffHeapDirectory(@Nullable Path directory) {
+        // off-heap tier not supported by default
+    }
+
     SharedCache build();
 
 }
@@ -40,7 +40,7 @@ import com.google.common.io.ByteStreams;
  * A class to serializer/deserialize attribute values to/from a data stream
  * 
  */
-class DataStreamValueSerializerV1 implements ValueSerializer {
+public class DataStreamValueSerializerV1 implements ValueSerializer {
 
     public static DataStreamValueSerializerV1 INSTANCE = new DataStreamValueSerializerV1();
 
@@ -13,6 +13,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.model.ObjectId;
@@ -86,6 +87,21 @@ public class RevObjectSerializerProxy implements RevObjectSerializer {
         return revObject;
     }
 
+    public @Override RevObject read(@Nullable ObjectId id, @NonNull ByteBuffer data) {
+        final int serialVersionHeader = data.get(data.position()) & 0xFF;
+        assert serialVersionHeader >= 0 && serialVersionHeader <= maxFormatCode;
+        final RevObjectSerializer serializer = serializer(id, serialVersionHeader);
+        ByteBuffer payload = data.duplicate();
+        payload.position(payload.position() + 1);
+        RevObject revObject;
+        try {
+            revObject = serializer.read(id, payload.slice());
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading object " + id, e);
+        }
+        return revObject;
+    }
+
     private RevObjectSerializer serializer(final @Nullable ObjectId id, final int serializerIndex) {
         if (serializerIndex < 0) {
             throw new RuntimeException(
@@ -105,9 +121,11 @@ public class RevObjectSerializerProxy implements RevObjectSerializer {
 
     /**
      * Reads object from its binary representation as stored in the database.
+     * <p>
+     * The returned object may be a view over {@code bytes}, so the array must not be reused.
      */
     public RevObject decode(final ObjectId id, final byte[] bytes) {
-        return read(id, bytes, 0, bytes.length);
+        return read(id, ByteBuffer.wrap(bytes));
     }
 
     public byte[] encode(final RevObject o) {
@@ -120,6 +138,13 @@ public class RevObjectSerializerProxy implements RevObjectSerializer {
         }
     }
 
+    /**
+     * @return whether the serializer used for writing supports streaming
+     */
+    public @Override boolean supportsStreaming() {
+        return writer.supportsStreaming();
+    }
+
     public @Override String getDisplayName() {
         StringBuilder sb = new StringBuilder("Proxy[");
         for (RevObjectSerializer f : supportedFormats) {
@@ -10,6 +10,10 @@
 package org.locationtech.geogig.storage.decorator;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
 
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.storage.GraphDatabase;
@@ -72,11 +76,27 @@ public @RequiredArgsConstructor class ForwardingGraphDatabase implements GraphDa
         return actual.getDepth(commitId);
     }
 
+    public @Override OptionalInt getGeneration(ObjectId commitId) {
+        return actual.getGeneration(commitId);
+    }
+
     public @Override void setProperty(ObjectId commitId, String propertyName,
             String propertyValue) {
         actual.setProperty(commitId, propertyName, propertyValue);
     }
 
+    public @Override Optional<String> getProperty(ObjectId commitId, String propertyName) {
+        return actual.getProperty(commitId, propertyName);
+    }
+
+    public @Override boolean putChangedPaths(ObjectId commitId, byte[] filter) {
+        return actual.putChangedPaths(commitId, filter);
+    }
+
+    public @Override Optional<byte[]> getChangedPaths(ObjectId commitId) {
+        return actual.getChangedPaths(commitId);
+    }
+
     public @Override GraphNode getNode(ObjectId id) {
         return actual.getNode(id);
     }
@@ -84,4 +104,21 @@ public @RequiredArgsConstructor class ForwardingGraphDatabase implements GraphDa
     public @Override void truncate() {
         actual.truncate();
     }
+
+    public @Override Optional<List<ObjectId>> findMissingCommits(Set<ObjectId> want,
+            Set<ObjectId> have) {
+        return actual.findMissingCommits(want, have);
+    }
+
+    public @Override OptionalInt countMissingCommits(Set<ObjectId> want, Set<ObjectId> have) {
+        return actual.countMissingCommits(want, have);
+    }
+
+    public @Override Optional<List<ObjectId>> findMergeBases(ObjectId left, ObjectId right) {
+        return actual.findMergeBases(left, right);
+    }
+
+    public @Override Map<ObjectId, List<ObjectId>> getParents(Iterable<ObjectId> commitIds) {
+        return actual.getParents(commitIds);
+    }
 }
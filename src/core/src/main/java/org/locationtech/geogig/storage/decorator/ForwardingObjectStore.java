@@ -21,6 +21,7 @@ import org.locationtech.geogig.model.RevObject;
 import org.locationtech.geogig.model.RevTag;
 import org.locationtech.geogig.model.RevTree;
 import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.BulkIngest;
 import org.locationtech.geogig.storage.BulkOpListener;
 import org.locationtech.geogig.storage.ObjectInfo;
 import org.locationtech.geogig.storage.ObjectStore;
@@ -146,6 +147,11 @@ public class ForwardingObjectStore implements ObjectStore {
         actual.putAll(objects, listener);
     }
 
+    public @Override BulkIngest bulkIngest() {
+        checkWritable();
+        return actual.bulkIngest();
+    }
+
     public @Override void deleteAll(Iterator<ObjectId> ids) {
         checkWritable();
         actual.deleteAll(ids);
@@ -156,6 +162,11 @@ public class ForwardingObjectStore implements ObjectStore {
         actual.deleteAll(ids, listener);
     }
 
+    public @Override AutoCloseableIterator<ObjectId> getAllIds() {
+        checkOpen();
+        return actual.getAllIds();
+    }
+
     public @Override String toString() {
         return String.format("%s[%s]", getClass().getSimpleName(), actual);
     }
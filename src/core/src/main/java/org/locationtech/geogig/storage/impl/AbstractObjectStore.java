@@ -16,6 +16,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import org.locationtech.geogig.model.RevCommit;
 import org.locationtech.geogig.model.RevFeature;
 import org.locationtech.geogig.model.RevFeatureType;
 import org.locationtech.geogig.model.RevObject;
+import org.locationtech.geogig.model.RevObject.TYPE;
 import org.locationtech.geogig.model.RevTag;
 import org.locationtech.geogig.model.RevTree;
 import org.locationtech.geogig.storage.AbstractStore;
@@ -32,6 +34,7 @@ import org.locationtech.geogig.storage.BulkOpListener;
 import org.locationtech.geogig.storage.ObjectStore;
 import org.locationtech.geogig.storage.RevObjectSerializer;
 
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Closeables;
 
 import lombok.NonNull;
@@ -128,7 +131,7 @@ public abstract class AbstractObjectStore extends AbstractStore implements Objec
 
         RevObject obj = null;
         try {
-            obj = get(id, true);
+            obj = get(id, typeHint(clazz), true);
             return clazz.cast(obj);
         } catch (ClassCastException e) {
             throw new IllegalArgumentException(
@@ -143,7 +146,7 @@ public abstract class AbstractObjectStore extends AbstractStore implements Objec
         requireNonNull(clazz, "argument class is null");
         checkOpen();
         try {
-            return clazz.cast(get(id, false));
+            return clazz.cast(get(id, typeHint(clazz), false));
         } catch (ClassCastException e) {
             return null;
         }
@@ -151,7 +154,11 @@ public abstract class AbstractObjectStore extends AbstractStore implements Objec
     }
 
     protected RevObject get(final ObjectId id, boolean failIfNotFound) {
-        InputStream raw = getRaw(id, failIfNotFound);
+        return get(id, null, failIfNotFound);
+    }
+
+    protected RevObject get(final ObjectId id, @Nullable TYPE typeHint, boolean failIfNotFound) {
+        ByteBuffer raw = getRawBufferInternal(id, typeHint, failIfNotFound);
         if (null == raw) {
             return null;
         }
@@ -160,12 +167,24 @@ public abstract class AbstractObjectStore extends AbstractStore implements Objec
             object = serializer().read(id, raw);
         } catch (IOException e) {
             throw new RuntimeException(e);
-        } finally {
-            Closeables.closeQuietly(raw);
         }
         return object;
     }
 
+    /**
+     * @return the {@link TYPE} bound to {@code clazz}, to be used as a hint of the type of the
+     *         object being requested, or {@code null} if {@code clazz} is not bound to a single
+     *         object type (e.g. {@code RevObject.class})
+     */
+    protected static @Nullable TYPE typeHint(@NonNull Class<?> clazz) {
+        for (TYPE type : TYPE.values()) {
+            if (type.binding().equals(clazz)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
     public @Override RevTree getTree(ObjectId id) {
         return get(id, RevTree.class);
     }
@@ -196,6 +215,50 @@ public abstract class AbstractObjectStore extends AbstractStore implements Objec
      */
     protected abstract InputStream getRawInternal(ObjectId id, boolean failIfNotFound);
 
+    /**
+     * Returns the serialized form of the object with the given id as a buffer the
+     * {@link #serializer() serializer} can {@link RevObjectSerializer#read(ObjectId, ByteBuffer)
+     * read} in place.
+     * <p>
+     * The default implementation reads the whole {@link #getRawInternal stream} into a heap buffer.
+     * Subclasses that get the object's bytes from the database as an array or buffer should
+     * override this method to return it as is, saving the intermediate stream and copies. The
+     * returned buffer may be retained by the resulting object, so it must not be reused.
+     * 
+     * @throws IllegalArgumentException if the object is not found and {@code failIfNotFound} is
+     *         {@code true}
+     */
+    protected @Nullable ByteBuffer getRawBufferInternal(ObjectId id, boolean failIfNotFound) {
+        InputStream raw = getRaw(id, failIfNotFound);
+        if (null == raw) {
+            return null;
+        }
+        try {
+            return ByteBuffer.wrap(ByteStreams.toByteArray(raw));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            Closeables.closeQuietly(raw);
+        }
+    }
+
+    /**
+     * Same as {@link #getRawBufferInternal(ObjectId, boolean)}, but receives the type of the
+     * requested object, if known, so that stores that partition the objects by type can look it up
+     * only where an object of that type would be. If the object exists but is not of the hinted
+     * type, implementations may either return it or consider it not found.
+     * <p>
+     * The default implementation ignores the hint.
+     * 
+     * @param typeHint the expected type of the object, or {@code null} if unknown
+     * @throws IllegalArgumentException if the object is not found and {@code failIfNotFound} is
+     *         {@code true}
+     */
+    protected @Nullable ByteBuffer getRawBufferInternal(ObjectId id, @Nullable TYPE typeHint,
+            boolean failIfNotFound) {
+        return getRawBufferInternal(id, failIfNotFound);
+    }
+
     public @Override boolean put(final RevObject object) {
         requireNonNull(object, "argument object is null");
         checkArgument(!object.getId().isNull(), "ObjectId is NULL %s", object);
@@ -205,13 +268,13 @@ public abstract class AbstractObjectStore extends AbstractStore implements Objec
         writeObject(object, rawOut);
         final ObjectId id = object.getId();
         final byte[] rawData = rawOut.toByteArray();
-        final boolean inserted = putInternal(id, rawData);
+        final boolean inserted = putInternal(id, object.getType(), rawData);
         return inserted;
     }
 
     /**
-     * This default implementation calls {@link #putInternal(ObjectId, byte[])} for each object;
-     * subclasses may override if appropriate.
+     * This default implementation calls {@link #putInternal(ObjectId, TYPE, byte[])} for each
+     * object; subclasses may override if appropriate.
      */
     public @Override void putAll(Iterator<? extends RevObject> objects,
             final BulkOpListener listener) {
@@ -228,7 +291,7 @@ public abstract class AbstractObjectStore extends AbstractStore implements Objec
             final byte[] rawData = rawOut.toByteArray();
 
             final ObjectId id = object.getId();
-            final boolean added = putInternal(id, rawData);
+            final boolean added = putInternal(id, object.getType(), rawData);
             if (added) {
                 listener.inserted(object.getId(), rawData.length);
             } else {
@@ -251,6 +314,14 @@ public abstract class AbstractObjectStore extends AbstractStore implements Objec
      */
     protected abstract boolean putInternal(ObjectId id, byte[] rawData);
 
+    /**
+     * Same as {@link #putInternal(ObjectId, byte[])}, but receives the type of the object, for
+     * stores that partition the objects by type. The default implementation ignores it.
+     */
+    protected boolean putInternal(ObjectId id, TYPE type, byte[] rawData) {
+        return putInternal(id, rawData);
+    }
+
     public @Override Iterator<RevObject> getAll(final Iterable<ObjectId> ids) {
         checkOpen();
         return getAll(ids, BulkOpListener.NOOP_LISTENER);
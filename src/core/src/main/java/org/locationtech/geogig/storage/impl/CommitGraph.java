@@ -0,0 +1,446 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.storage.GraphDatabase;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A compact, append only, representation of the commit graph of a {@link GraphDatabase}, that
+ * assigns each commit a dense integer position and stores, for each commit, its parents' positions,
+ * its <b>generation number</b> and its <b>depth</b>.
+ * <p>
+ * The generation number of a commit with no parents is {@code 1}, and {@code 1 +} the maximum
+ * generation number of its parents otherwise. Hence if commit {@code A} is an ancestor of commit
+ * {@code B}, {@code generation(A) < generation(B)}, which allows graph walks to stop exploring a
+ * branch as soon as its generation number falls below the one of the commit they're looking for.
+ * <p>
+ * The depth of a commit is the length of the shortest path to a commit with no parents, as defined
+ * by {@link GraphDatabase#getDepth(ObjectId)}.
+ * <p>
+ * The structure is kept in a single {@link ByteBuffer}, either on the heap ({@link #inMemory()}) or
+ * memory mapped from a file ({@link #open(File)}), made of a fixed size header followed by one
+ * variable length record per commit:
+ *
+ * <pre>
+ * <code>
+ * header: magic (int), version (int), count (int), end offset (int)
+ * record: commit id (20 bytes), generation (int), depth (int), parent count (int), parent positions (int[])
+ * </code>
+ * </pre>
+ *
+ * Records are appended in topological order, since a commit can only be added once all its parents
+ * have been, so parent positions always refer to previous records. The id to position lookup table
+ * is built when the file is opened and lives on the heap.
+ * <p>
+ * Like {@link ReachabilityIndex}, commits are added incrementally by {@link #update} as they're
+ * added to the graph database, cascading to the children that were waiting for them, and commits
+ * added before the commit graph existed are added lazily by {@link #resolve}. A commit that's added
+ * again with different parents (e.g. when deepening a shallow clone) invalidates the whole
+ * structure, which is then rebuilt lazily.
+ *
+ * @since 2.0
+ */
+@Slf4j
+public class CommitGraph implements AutoCloseable {
+
+    private static final int MAGIC = 0x47474347;// GGCG
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    private static final int COUNT_OFFSET = 2 * Integer.BYTES;
+
+    private static final int END_OFFSET = 3 * Integer.BYTES;
+
+    private static final int ID_SIZE = ObjectId.NUM_BYTES;
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    /**
+     * A commit's entry in the commit graph
+     */
+    public static @Value class Commit {
+        private @NonNull ObjectId id;
+
+        private int position;
+
+        private int generation;
+
+        private int depth;
+
+        private @NonNull List<ObjectId> parents;
+    }
+
+    private final @Nullable FileChannel channel;
+
+    private ByteBuffer buffer;
+
+    private int count;
+
+    /**
+     * Position to record offset
+     */
+    private int[] offsets = new int[1024];
+
+    /**
+     * Open addressing hash table of commit positions {@code + 1}, {@code 0} meaning empty slot
+     */
+    private int[] table = new int[2048];
+
+    private final byte[] idScratch = new byte[ID_SIZE];
+
+    private final ByteBuffer idScratchBuffer = ByteBuffer.wrap(idScratch);
+
+    private CommitGraph(@Nullable FileChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return a heap based commit graph
+     */
+    public static CommitGraph inMemory() {
+        CommitGraph graph = new CommitGraph(null, ByteBuffer.allocate(INITIAL_CAPACITY));
+        graph.reset();
+        return graph;
+    }
+
+    /**
+     * Opens or creates the memory mapped commit graph file, which shall not be open by any other
+     * {@code CommitGraph} instance, even in a different process
+     */
+    public static CommitGraph open(@NonNull File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final long size = channel.size();
+            MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0,
+                    Math.max(size, INITIAL_CAPACITY));
+            CommitGraph graph = new CommitGraph(channel, buffer);
+            if (size == 0 || !graph.load()) {
+                graph.reset();
+            }
+            return graph;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public @Override synchronized void close() {
+        if (channel != null && channel.isOpen()) {
+            try {
+                ((MappedByteBuffer) buffer).force();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of commits in the graph
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized void clear() {
+        reset();
+    }
+
+    /**
+     * @return the commit graph entry for the given commit, if present, without trying to compute it
+     *         if it's not
+     */
+    public synchronized Optional<Commit> get(@NonNull ObjectId commitId) {
+        int position = positionOf(commitId);
+        return position == -1 ? Optional.empty() : Optional.of(commit(position));
+    }
+
+    /**
+     * @return the commit graph entry for the given commit, computing the entries for it and its
+     *         ancestors if necessary, unless {@code readOnly} is {@code true}, or
+     *         {@link Optional#empty() empty} if the commit is not in the {@code graph}
+     */
+    public synchronized Optional<Commit> resolve(@NonNull GraphDatabase graph,
+            @NonNull ObjectId commitId, boolean readOnly) {
+        int position = positionOf(commitId);
+        if (position == -1 && !readOnly && graph.exists(commitId)) {
+            backfill(graph, commitId);
+            position = positionOf(commitId);
+        }
+        return position == -1 ? Optional.empty() : Optional.of(commit(position));
+    }
+
+    /**
+     * Adds the given commit to the commit graph after it's been added to the graph database, if all
+     * its parents are present, and cascades to its children that were waiting for it.
+     */
+    public synchronized void update(@NonNull GraphDatabase graph, @NonNull ObjectId commitId) {
+        final int position = positionOf(commitId);
+        if (position != -1) {
+            if (commit(position).getParents().equals(graph.getParents(commitId))) {
+                return;
+            }
+            log.debug("Parents of commit {} changed, clearing commit graph", commitId);
+            reset();
+        }
+        if (add(graph, commitId)) {
+            cascade(graph, commitId);
+        }
+    }
+
+    /**
+     * Adds {@code commitId} and all its ancestors that are not in the commit graph, treating
+     * commits with no parents as roots
+     */
+    private void backfill(GraphDatabase graph, ObjectId commitId) {
+        Deque<ObjectId> stack = new ArrayDeque<>();
+        Set<ObjectId> expanded = new HashSet<>();
+        stack.push(commitId);
+        while (!stack.isEmpty()) {
+            final ObjectId id = stack.peek();
+            if (positionOf(id) != -1) {
+                stack.pop();
+                continue;
+            }
+            if (expanded.add(id)) {
+                for (ObjectId parent : graph.getParents(id)) {
+                    if (positionOf(parent) == -1) {
+                        stack.push(parent);
+                    }
+                }
+            } else {
+                stack.pop();
+                add(graph, id);
+            }
+        }
+    }
+
+    private void cascade(GraphDatabase graph, ObjectId commitId) {
+        Deque<ObjectId> queue = new ArrayDeque<>(graph.getChildren(commitId));
+        while (!queue.isEmpty()) {
+            ObjectId child = queue.poll();
+            if (positionOf(child) == -1 && add(graph, child)) {
+                queue.addAll(graph.getChildren(child));
+            }
+        }
+    }
+
+    /**
+     * Appends the record for {@code commitId} if all its parents are present
+     *
+     * @return {@code true} if added, {@code false} if any parent is missing
+     */
+    private boolean add(GraphDatabase graph, ObjectId commitId) {
+        final List<ObjectId> parents = graph.getParents(commitId);
+        final int[] parentPositions = new int[parents.size()];
+        int generation = 0;
+        int depth = parents.isEmpty() ? 0 : Integer.MAX_VALUE;
+        for (int i = 0; i < parentPositions.length; i++) {
+            final int parent = positionOf(parents.get(i));
+            if (parent == -1) {
+                return false;
+            }
+            parentPositions[i] = parent;
+            final int offset = offsets[parent];
+            generation = Math.max(generation, buffer.getInt(offset + ID_SIZE));
+            depth = Math.min(depth, 1 + buffer.getInt(offset + ID_SIZE + Integer.BYTES));
+        }
+        generation++;
+
+        final int offset = buffer.getInt(END_OFFSET);
+        final int recordSize = ID_SIZE + (3 + parentPositions.length) * Integer.BYTES;
+        ensureCapacity(offset + recordSize);
+        commitId.getRawValue(idScratch);
+        buffer.position(offset);
+        buffer.put(idScratch);
+        buffer.putInt(generation);
+        buffer.putInt(depth);
+        buffer.putInt(parentPositions.length);
+        for (int p : parentPositions) {
+            buffer.putInt(p);
+        }
+        // update the header after the record is written
+        buffer.putInt(END_OFFSET, offset + recordSize);
+        buffer.putInt(COUNT_OFFSET, count + 1);
+        index(offset);
+        return true;
+    }
+
+    private Commit commit(int position) {
+        final int offset = offsets[position];
+        final ObjectId id = idAt(offset);
+        final int generation = buffer.getInt(offset + ID_SIZE);
+        final int depth = buffer.getInt(offset + ID_SIZE + Integer.BYTES);
+        final int parentCount = buffer.getInt(offset + ID_SIZE + 2 * Integer.BYTES);
+        List<ObjectId> parents = new ArrayList<>(parentCount);
+        for (int i = 0; i < parentCount; i++) {
+            int parent = buffer.getInt(offset + ID_SIZE + (3 + i) * Integer.BYTES);
+            parents.add(idAt(offsets[parent]));
+        }
+        return new Commit(id, position, generation, depth, parents);
+    }
+
+    private ObjectId idAt(int offset) {
+        return ObjectId.create(buffer.getInt(offset), buffer.getLong(offset + Integer.BYTES),
+                buffer.getLong(offset + Integer.BYTES + Long.BYTES));
+    }
+
+    private int positionOf(ObjectId id) {
+        id.getRawValue(idScratch);
+        final int h1 = idScratchBuffer.getInt(0);
+        final long h2 = idScratchBuffer.getLong(Integer.BYTES);
+        final long h3 = idScratchBuffer.getLong(Integer.BYTES + Long.BYTES);
+        final int mask = table.length - 1;
+        for (int slot = slot(h1, mask);; slot = (slot + 1) & mask) {
+            final int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            final int position = entry - 1;
+            final int offset = offsets[position];
+            if (buffer.getInt(offset) == h1 && buffer.getLong(offset + Integer.BYTES) == h2
+                    && buffer.getLong(offset + Integer.BYTES + Long.BYTES) == h3) {
+                return position;
+            }
+        }
+    }
+
+    private static int slot(int h1, int mask) {
+        // the first bytes of a SHA-1 are already well distributed
+        return (h1 ^ (h1 >>> 16)) & mask;
+    }
+
+    /**
+     * Adds the record at {@code offset} as the next position to the in-memory lookup structures
+     */
+    private void index(int offset) {
+        final int position = count++;
+        if (position == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+        }
+        offsets[position] = offset;
+        if (2 * count > table.length) {
+            rehash(2 * table.length);
+        } else {
+            insert(table, position);
+        }
+    }
+
+    private void rehash(int size) {
+        int[] newTable = new int[size];
+        for (int p = 0; p < count; p++) {
+            insert(newTable, p);
+        }
+        this.table = newTable;
+    }
+
+    private void insert(int[] target, int position) {
+        final int mask = target.length - 1;
+        int slot = slot(buffer.getInt(offsets[position]), mask);
+        while (target[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        target[slot] = position + 1;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        final int capacity = Math.max(required, 2 * buffer.capacity());
+        if (channel == null) {
+            ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+            ByteBuffer current = buffer.duplicate();
+            current.clear();
+            newBuffer.put(current);
+            buffer = newBuffer;
+        } else {
+            try {
+                ((MappedByteBuffer) buffer).force();
+                buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void reset() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(Integer.BYTES, VERSION);
+        buffer.putInt(COUNT_OFFSET, 0);
+        buffer.putInt(END_OFFSET, HEADER_SIZE);
+        count = 0;
+        Arrays.fill(table, 0);
+    }
+
+    /**
+     * Builds the in-memory lookup structures out of the file contents
+     *
+     * @return {@code false} if the file is not a valid commit graph
+     */
+    private boolean load() {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+            log.warn("Invalid commit graph file, rebuilding");
+            return false;
+        }
+        final int storedCount = buffer.getInt(COUNT_OFFSET);
+        final int end = buffer.getInt(END_OFFSET);
+        if (storedCount < 0 || end < HEADER_SIZE || end > buffer.capacity()) {
+            log.warn("Corrupt commit graph header, rebuilding");
+            return false;
+        }
+        offsets = new int[Math.max(1024, storedCount)];
+        table = new int[Math.max(2048, Integer.highestOneBit(Math.max(1, 2 * storedCount)) * 2)];
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < storedCount; i++) {
+            if (offset + ID_SIZE + 3 * Integer.BYTES > end) {
+                log.warn("Corrupt commit graph record at position {}, rebuilding", i);
+                return false;
+            }
+            final int parentCount = buffer.getInt(offset + ID_SIZE + 2 * Integer.BYTES);
+            final int recordSize = ID_SIZE + (3 + parentCount) * Integer.BYTES;
+            if (parentCount < 0 || offset + recordSize > end) {
+                log.warn("Corrupt commit graph record at position {}, rebuilding", i);
+                return false;
+            }
+            index(offset);
+            offset += recordSize;
+        }
+        log.debug("Loaded commit graph with {} commits", count);
+        return true;
+    }
+}
@@ -0,0 +1,245 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import static org.locationtech.geogig.base.Preconditions.checkArgument;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.impl.PersistedIterable.Serializer;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sorts a stream of objects that may not fit in memory, using at most {@link #maxInMemory(int)
+ * maxInMemory} objects in memory at any given time.
+ * <p>
+ * The objects are read in chunks of {@code maxInMemory} objects, each chunk is sorted in memory and
+ * "spilled" to a temporary file using the provided {@link Serializer}, and the resulting sorted
+ * runs are then lazily merged as the returned iterator is consumed. If all the objects fit in
+ * memory, no temporary files are created.
+ * <p>
+ * If a {@link #limit(Long) limit} is set, only the first {@code limit} objects in sort order are
+ * returned, and if they fit in memory they're computed in a single pass using a bounded heap
+ * instead of sorting the whole stream.
+ * <p>
+ * The comparator shall impose a total order (e.g. break ties by a unique key) if the result must be
+ * deterministic, since the relative order of equal objects is undefined.
+ *
+ * @since 2.0
+ */
+@Slf4j
+public class ExternalMergeSort<T> {
+
+    public static final int DEFAULT_MAX_IN_MEMORY = 100_000;
+
+    private final Comparator<? super T> comparator;
+
+    private final Serializer<T> serializer;
+
+    private int maxInMemory = DEFAULT_MAX_IN_MEMORY;
+
+    private @Nullable Long limit;
+
+    private @Nullable Path tmpDir;
+
+    public ExternalMergeSort(@NonNull Comparator<? super T> comparator,
+            @NonNull Serializer<T> serializer) {
+        this.comparator = comparator;
+        this.serializer = serializer;
+    }
+
+    /**
+     * @param maxInMemory the maximum number of objects to hold in memory, defaults to
+     *        {@link #DEFAULT_MAX_IN_MEMORY}
+     */
+    public ExternalMergeSort<T> maxInMemory(int maxInMemory) {
+        checkArgument(maxInMemory > 0, "maxInMemory shall be > 0");
+        this.maxInMemory = maxInMemory;
+        return this;
+    }
+
+    /**
+     * @param limit if not {@code null}, the maximum number of objects to return
+     */
+    public ExternalMergeSort<T> limit(@Nullable Long limit) {
+        checkArgument(limit == null || limit.longValue() >= 0, "limit shall be >= 0");
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @param tmpDir where to create the temporary files, defaults to the system's temporary
+     *        directory
+     */
+    public ExternalMergeSort<T> tempDirectory(@Nullable Path tmpDir) {
+        this.tmpDir = tmpDir;
+        return this;
+    }
+
+    /**
+     * Consumes {@code objects} and returns them sorted. The returned iterator must be closed to
+     * release the temporary files, if any.
+     */
+    public AutoCloseableIterator<T> sort(@NonNull Iterator<? extends T> objects) {
+        if (limit != null && limit.longValue() <= maxInMemory) {
+            return AutoCloseableIterator.fromIterator(topN(objects, limit.intValue()).iterator());
+        }
+        final List<Path> runs = new ArrayList<>();
+        try {
+            List<T> buffer = new ArrayList<>();
+            while (objects.hasNext()) {
+                buffer.add(objects.next());
+                if (buffer.size() == maxInMemory && objects.hasNext()) {
+                    runs.add(spill(buffer));
+                    buffer.clear();
+                }
+            }
+            buffer.sort(comparator);
+            if (runs.isEmpty()) {
+                return AutoCloseableIterator.fromIterator(limit(buffer.iterator()));
+            }
+            log.debug("Merging {} sorted runs", runs.size() + 1);
+            return merge(runs, buffer);
+        } catch (RuntimeException e) {
+            runs.forEach(ExternalMergeSort::delete);
+            throw e;
+        }
+    }
+
+    private List<T> topN(Iterator<? extends T> objects, int n) {
+        if (n == 0) {
+            return Collections.emptyList();
+        }
+        // max heap holding the n smallest objects seen so far
+        PriorityQueue<T> heap = new PriorityQueue<>(Math.min(n, 1024) + 1,
+                Collections.reverseOrder(comparator));
+        while (objects.hasNext()) {
+            T next = objects.next();
+            if (heap.size() < n) {
+                heap.add(next);
+            } else if (comparator.compare(next, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(next);
+            }
+        }
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    private Iterator<T> limit(Iterator<T> iterator) {
+        return limit == null ? iterator : Iterators.limit(iterator, limit.intValue());
+    }
+
+    private Path spill(List<T> buffer) {
+        buffer.sort(comparator);
+        List<T> run = limit == null || buffer.size() <= limit.longValue() ? buffer
+                : buffer.subList(0, limit.intValue());
+        Path file = null;
+        try {
+            file = tmpDir == null ? Files.createTempFile("geogigSortRun", ".tmp")
+                    : Files.createTempFile(tmpDir, "geogigSortRun", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file), 16 * 1024))) {
+                for (T o : run) {
+                    serializer.write(out, o);
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            if (file != null) {
+                delete(file);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private AutoCloseableIterator<T> merge(List<Path> runs, List<T> lastRun) {
+        final List<RunIterator> readers = new ArrayList<>(runs.size());
+        try {
+            for (Path run : runs) {
+                readers.add(new RunIterator(run));
+            }
+        } catch (RuntimeException e) {
+            readers.forEach(RunIterator::close);
+            runs.forEach(ExternalMergeSort::delete);
+            throw e;
+        }
+        List<Iterator<T>> iterators = new ArrayList<>(readers);
+        iterators.add(lastRun.iterator());
+        Iterator<T> merged = limit(Iterators.mergeSorted(iterators, comparator));
+        return AutoCloseableIterator.fromIterator(merged, it -> {
+            readers.forEach(RunIterator::close);
+            runs.forEach(ExternalMergeSort::delete);
+        });
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete temporary file {}", file, e);
+        }
+    }
+
+    private class RunIterator extends AbstractIterator<T> implements AutoCloseable {
+
+        private final DataInputStream in;
+
+        RunIterator(Path file) {
+            try {
+                in = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(file), 16 * 1024));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        protected @Override T computeNext() {
+            try {
+                return serializer.read(in);
+            } catch (EOFException eof) {
+                close();
+                return endOfData();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public @Override void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                log.debug("Error closing sort run", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import org.locationtech.geogig.model.ObjectId;
+
+import lombok.NonNull;
+
+/**
+ * A compact, open addressing hash set of {@link ObjectId}s that stores the raw 20 bytes of each id
+ * instead of {@code ObjectId} instances.
+ * <p>
+ * The set is split in 256 segments, one per possible value of the first byte of the ids, each of
+ * which is a single {@code byte[]} using linear probing and grown independently. Compared to a
+ * {@code java.util.HashSet<ObjectId>}, the memory footprint is roughly a third, with no per entry
+ * object allocations, making it suitable to keep track of the millions of ids visited while
+ * traversing a large repository.
+ * <p>
+ * Instances of this class are not thread safe.
+ *
+ * @since 2.0
+ */
+public class ObjectIdSet {
+
+    private static final int ID_SIZE = ObjectId.NUM_BYTES;
+
+    private static final int SEGMENTS = 256;
+
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    private final byte[][] segments = new byte[SEGMENTS][];
+
+    private final int[] segmentSizes = new int[SEGMENTS];
+
+    private final byte[] buff = new byte[ID_SIZE];
+
+    /**
+     * Slots are empty when all their bytes are zero, hence the {@link ObjectId#NULL NULL} id is
+     * tracked separately
+     */
+    private boolean containsNullId;
+
+    private long size;
+
+    /**
+     * Adds the given id to the set
+     *
+     * @return {@code true} if the id was not already in the set
+     */
+    public boolean add(@NonNull ObjectId id) {
+        if (id.isNull()) {
+            boolean added = !containsNullId;
+            containsNullId = true;
+            if (added) {
+                size++;
+            }
+            return added;
+        }
+        final byte[] raw = buff;
+        id.getRawValue(raw);
+        final int segmentIndex = raw[0] & 0xFF;
+        byte[] segment = segments[segmentIndex];
+        if (segment == null) {
+            segment = new byte[INITIAL_SEGMENT_CAPACITY * ID_SIZE];
+            segments[segmentIndex] = segment;
+        }
+        final int slot = find(segment, raw);
+        if (!isEmpty(segment, slot)) {
+            return false;
+        }
+        System.arraycopy(raw, 0, segment, slot * ID_SIZE, ID_SIZE);
+        size++;
+        final int segmentSize = ++segmentSizes[segmentIndex];
+        final int capacity = segment.length / ID_SIZE;
+        if (segmentSize > (capacity * 3) / 4) {
+            segments[segmentIndex] = rehash(segment, 2 * capacity);
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the given id has been {@link #add added} to this set
+     */
+    public boolean contains(@NonNull ObjectId id) {
+        if (id.isNull()) {
+            return containsNullId;
+        }
+        final byte[] raw = buff;
+        id.getRawValue(raw);
+        final byte[] segment = segments[raw[0] & 0xFF];
+        if (segment == null) {
+            return false;
+        }
+        return !isEmpty(segment, find(segment, raw));
+    }
+
+    /**
+     * @return the number of ids in this set
+     */
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0L;
+    }
+
+    /**
+     * @return the approximate number of bytes used by the hash tables of this set
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (byte[] segment : segments) {
+            bytes += segment == null ? 0 : segment.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Removes all the ids in this set, releasing the memory used by its hash tables
+     */
+    public void clear() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = null;
+            segmentSizes[i] = 0;
+        }
+        containsNullId = false;
+        size = 0;
+    }
+
+    /**
+     * @return the index of the slot holding {@code raw} or the index of the empty slot where it
+     *         shall be stored
+     */
+    private static int find(final byte[] segment, final byte[] raw) {
+        final int mask = (segment.length / ID_SIZE) - 1;
+        // first byte is the segment discriminator, use the next four ones as hash code, they're
+        // uniformly distributed already
+        final int hash = ((raw[1] & 0xFF) << 24) | ((raw[2] & 0xFF) << 16) | ((raw[3] & 0xFF) << 8)
+                | (raw[4] & 0xFF);
+        int slot = hash & mask;
+        while (!isEmpty(segment, slot) && !equals(segment, slot, raw)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static boolean isEmpty(final byte[] segment, final int slot) {
+        final int offset = slot * ID_SIZE;
+        for (int i = 0; i < ID_SIZE; i++) {
+            if (segment[offset + i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(final byte[] segment, final int slot, final byte[] raw) {
+        final int offset = slot * ID_SIZE;
+        for (int i = ID_SIZE - 1; i >= 0; i--) {
+            if (segment[offset + i] != raw[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] rehash(final byte[] segment, final int newCapacity) {
+        final byte[] target = new byte[newCapacity * ID_SIZE];
+        final byte[] raw = new byte[ID_SIZE];
+        final int capacity = segment.length / ID_SIZE;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (!isEmpty(segment, slot)) {
+                System.arraycopy(segment, slot * ID_SIZE, raw, 0, ID_SIZE);
+                int newSlot = find(target, raw);
+                System.arraycopy(raw, 0, target, newSlot * ID_SIZE, ID_SIZE);
+            }
+        }
+        return target;
+    }
+}
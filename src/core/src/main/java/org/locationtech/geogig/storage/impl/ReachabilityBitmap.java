@@ -0,0 +1,226 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.storage.datastream.Varint;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * An immutable, run-length encoded set of non negative {@code int} positions, used to represent the
+ * set of commits reachable from a given commit by {@link ReachabilityIndex}.
+ * <p>
+ * The positions are kept as a sorted array of non overlapping, non adjacent, {@code [start, end)}
+ * runs. Since commits are numbered in topological order as they're added to the index, the ancestry
+ * of a commit tends to be made of a few long runs, making for a very compact representation.
+ */
+public final class ReachabilityBitmap {
+
+    public static final ReachabilityBitmap EMPTY = new ReachabilityBitmap(new int[0]);
+
+    /**
+     * Pairs of {@code [start, end)} positions
+     */
+    private final int[] runs;
+
+    private ReachabilityBitmap(int[] runs) {
+        this.runs = runs;
+    }
+
+    public static ReachabilityBitmap of(int position) {
+        Preconditions.checkArgument(position >= 0 && position < Integer.MAX_VALUE,
+                "invalid position: %s", position);
+        return new ReachabilityBitmap(new int[] { position, position + 1 });
+    }
+
+    public boolean isEmpty() {
+        return runs.length == 0;
+    }
+
+    public boolean contains(int position) {
+        int low = 0, high = runs.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (position < runs[2 * mid]) {
+                high = mid - 1;
+            } else if (position >= runs[2 * mid + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < runs.length; i += 2) {
+            cardinality += runs[i + 1] - runs[i];
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return the number of runs this bitmap is made of
+     */
+    public int runCount() {
+        return runs.length / 2;
+    }
+
+    /**
+     * Calls {@code consumer} with each position in this set, in ascending order
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < runs.length; i += 2) {
+            for (int p = runs[i]; p < runs[i + 1]; p++) {
+                consumer.accept(p);
+            }
+        }
+    }
+
+    public ReachabilityBitmap with(int position) {
+        return or(of(position));
+    }
+
+    /**
+     * @return the union of this set and {@code other}
+     */
+    public ReachabilityBitmap or(ReachabilityBitmap other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+        final int[] a = this.runs, b = other.runs;
+        int[] result = new int[a.length + b.length];
+        int size = 0;
+        int i = 0, j = 0;
+        while (i < a.length || j < b.length) {
+            int start, end;
+            if (j == b.length || (i < a.length && a[i] <= b[j])) {
+                start = a[i];
+                end = a[i + 1];
+                i += 2;
+            } else {
+                start = b[j];
+                end = b[j + 1];
+                j += 2;
+            }
+            if (size > 0 && start <= result[size - 1]) {
+                result[size - 1] = Math.max(result[size - 1], end);
+            } else {
+                result[size++] = start;
+                result[size++] = end;
+            }
+        }
+        return new ReachabilityBitmap(Arrays.copyOf(result, size));
+    }
+
+    /**
+     * @return the positions in this set that are not in {@code other}
+     */
+    public ReachabilityBitmap andNot(ReachabilityBitmap other) {
+        if (this.isEmpty() || other.isEmpty()) {
+            return this;
+        }
+        final int[] a = this.runs, b = other.runs;
+        int[] result = new int[a.length + b.length];
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < a.length; i += 2) {
+            int start = a[i];
+            final int end = a[i + 1];
+            // skip the runs of b that end before this run starts
+            while (j < b.length && b[j + 1] <= start) {
+                j += 2;
+            }
+            int k = j;
+            while (start < end && k < b.length && b[k] < end) {
+                if (b[k] > start) {
+                    result[size++] = start;
+                    result[size++] = b[k];
+                }
+                start = Math.max(start, b[k + 1]);
+                k += 2;
+            }
+            if (start < end) {
+                result[size++] = start;
+                result[size++] = end;
+            }
+        }
+        return new ReachabilityBitmap(Arrays.copyOf(result, size));
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput(1 + 2 * runs.length);
+        try {
+            Varint.writeUnsignedVarInt(runs.length / 2, out);
+            int last = 0;
+            for (int i = 0; i < runs.length; i++) {
+                Varint.writeUnsignedVarInt(runs[i] - last, out);
+                last = runs[i];
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static ReachabilityBitmap fromByteArray(byte[] bytes) {
+        return read(ByteStreams.newDataInput(bytes));
+    }
+
+    public static ReachabilityBitmap read(DataInput in) {
+        try {
+            final int runCount = Varint.readUnsignedVarInt(in);
+            int[] runs = new int[2 * runCount];
+            int last = 0;
+            for (int i = 0; i < runs.length; i++) {
+                last += Varint.readUnsignedVarInt(in);
+                runs[i] = last;
+            }
+            return new ReachabilityBitmap(runs);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public @Override boolean equals(Object o) {
+        return o instanceof ReachabilityBitmap
+                && Arrays.equals(runs, ((ReachabilityBitmap) o).runs);
+    }
+
+    public @Override int hashCode() {
+        return Arrays.hashCode(runs);
+    }
+
+    public @Override String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < runs.length; i += 2) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(runs[i]);
+            if (runs[i + 1] - runs[i] > 1) {
+                sb.append("..").append(runs[i + 1] - 1);
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
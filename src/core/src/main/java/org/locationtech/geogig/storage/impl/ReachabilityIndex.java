@@ -0,0 +1,314 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.storage.GraphDatabase;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains per-commit {@link ReachabilityBitmap reachability bitmaps} for a {@link GraphDatabase},
+ * to answer "commits reachable from {@code want} and not from {@code have}" queries with bitmap
+ * operations instead of walking the commit graph.
+ * <p>
+ * Each commit is assigned a sequential position when its bitmap is computed, and its bitmap is the
+ * union of its parents' bitmaps plus its own position. Hence a commit's bitmap can only be computed
+ * once all its parents have one, and positions are always in topological order (a commit's position
+ * is higher than any of its ancestors').
+ * <p>
+ * Bitmaps are computed incrementally by {@link #update(ObjectId)} as commits are added to the
+ * graph. Since commits are not necessarily added in topological order (e.g. fetched commits are
+ * usually added children first), computing a commit's bitmap cascades to its children that were
+ * waiting for it. Commits added before the index existed get their bitmaps computed lazily by
+ * {@link #findMissingCommits} on writable databases.
+ * <p>
+ * A commit with no known parents is indexed as a root commit. If it's later added with parents
+ * (e.g. when deepening a shallow clone), its bitmap and the ones of all its descendants are
+ * invalidated and computed again. A missing bitmap is always safe, as callers fall back to walking
+ * the graph, but a stale one is not.
+ *
+ * @since 2.0
+ */
+@Slf4j
+public class ReachabilityIndex {
+
+    /**
+     * A commit's position and bitmap
+     */
+    public static @Value class Entry {
+        private int position;
+
+        private @NonNull ReachabilityBitmap bitmap;
+    }
+
+    /**
+     * Persistence abstraction for the reachability entries
+     */
+    public static interface Storage {
+
+        Optional<Entry> get(ObjectId commitId);
+
+        /**
+         * Saves the entry for the given commit, and the reverse position to commit mapping
+         */
+        void put(ObjectId commitId, Entry entry);
+
+        void remove(ObjectId commitId);
+
+        Optional<ObjectId> getCommit(int position);
+
+        /**
+         * @return the next available position
+         */
+        int nextPosition();
+
+        void clear();
+    }
+
+    private final GraphDatabase graph;
+
+    private final Storage storage;
+
+    private final boolean readOnly;
+
+    public ReachabilityIndex(@NonNull GraphDatabase graph, @NonNull Storage storage,
+            boolean readOnly) {
+        this.graph = graph;
+        this.storage = storage;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * @return an in-memory {@link Storage}
+     */
+    public static Storage heapStorage() {
+        return new HeapStorage();
+    }
+
+    public Optional<Entry> get(@NonNull ObjectId commitId) {
+        return storage.get(commitId);
+    }
+
+    public synchronized void clear() {
+        storage.clear();
+    }
+
+    /**
+     * Updates the reachability bitmap for the given commit after it's been added to the graph
+     * database, computing it if all its parents have one, and cascading to its children that were
+     * waiting for it.
+     */
+    public synchronized void update(@NonNull ObjectId commitId) {
+        final Optional<Entry> current = storage.get(commitId);
+        if (current.isPresent()) {
+            if (isUpToDate(commitId, current.get())) {
+                return;
+            }
+            invalidate(commitId);
+        }
+        if (compute(commitId) != null) {
+            cascade(commitId);
+        }
+    }
+
+    /**
+     * Computes the commits reachable from any of the {@code want} commits and not reachable from
+     * any of the {@code have} commits.
+     *
+     * @return the missing commits, in reverse topological order (children before parents), or
+     *         {@link Optional#empty() empty} if any of the argument commits has no bitmap and it
+     *         can't be computed
+     */
+    public synchronized Optional<List<ObjectId>> findMissingCommits(
+            @NonNull Collection<ObjectId> want, @NonNull Collection<ObjectId> have) {
+
+        ReachabilityBitmap wantBitmap = ReachabilityBitmap.EMPTY;
+        ReachabilityBitmap haveBitmap = ReachabilityBitmap.EMPTY;
+        for (ObjectId id : want) {
+            Optional<Entry> entry = resolve(id);
+            if (!entry.isPresent()) {
+                return Optional.empty();
+            }
+            wantBitmap = wantBitmap.or(entry.get().getBitmap());
+        }
+        for (ObjectId id : have) {
+            Optional<Entry> entry = resolve(id);
+            if (!entry.isPresent()) {
+                return Optional.empty();
+            }
+            haveBitmap = haveBitmap.or(entry.get().getBitmap());
+        }
+        final ReachabilityBitmap missing = wantBitmap.andNot(haveBitmap);
+        final List<ObjectId> commits = new ArrayList<>((int) missing.cardinality());
+        final boolean[] unresolved = { false };
+        missing.forEach(position -> {
+            Optional<ObjectId> commit = storage.getCommit(position);
+            if (commit.isPresent()) {
+                commits.add(commit.get());
+            } else {
+                unresolved[0] = true;
+            }
+        });
+        if (unresolved[0]) {
+            log.warn("Unable to resolve some commit positions, falling back to graph traversal");
+            return Optional.empty();
+        }
+        Collections.reverse(commits);
+        return Optional.of(commits);
+    }
+
+    private Optional<Entry> resolve(ObjectId commitId) {
+        Optional<Entry> entry = storage.get(commitId);
+        if (entry.isPresent() || readOnly || !graph.exists(commitId)) {
+            return entry;
+        }
+        backfill(commitId);
+        return storage.get(commitId);
+    }
+
+    /**
+     * Computes the bitmaps of {@code commitId} and all its ancestors that don't have one, treating
+     * commits with no parents as roots
+     */
+    private void backfill(ObjectId commitId) {
+        Deque<ObjectId> stack = new ArrayDeque<>();
+        Set<ObjectId> expanded = new HashSet<>();
+        stack.push(commitId);
+        while (!stack.isEmpty()) {
+            final ObjectId id = stack.peek();
+            if (storage.get(id).isPresent()) {
+                stack.pop();
+                continue;
+            }
+            if (expanded.add(id)) {
+                for (ObjectId parent : graph.getParents(id)) {
+                    if (!storage.get(parent).isPresent()) {
+                        stack.push(parent);
+                    }
+                }
+            } else {
+                stack.pop();
+                compute(id);
+            }
+        }
+    }
+
+    private boolean isUpToDate(ObjectId commitId, Entry entry) {
+        for (ObjectId parent : graph.getParents(commitId)) {
+            Optional<Entry> parentEntry = storage.get(parent);
+            if (!parentEntry.isPresent()
+                    || !entry.getBitmap().contains(parentEntry.get().getPosition())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the bitmaps of {@code commitId} and all its descendants
+     */
+    private void invalidate(ObjectId commitId) {
+        Deque<ObjectId> queue = new ArrayDeque<>();
+        queue.add(commitId);
+        while (!queue.isEmpty()) {
+            ObjectId id = queue.poll();
+            if (storage.get(id).isPresent()) {
+                storage.remove(id);
+                queue.addAll(graph.getChildren(id));
+            }
+        }
+    }
+
+    /**
+     * Computes and saves the bitmap for {@code commitId} if all its parents have one
+     *
+     * @return the new entry, or {@code null} if any parent has no bitmap
+     */
+    private @Nullable Entry compute(ObjectId commitId) {
+        ReachabilityBitmap bitmap = ReachabilityBitmap.EMPTY;
+        for (ObjectId parent : graph.getParents(commitId)) {
+            Optional<Entry> parentEntry = storage.get(parent);
+            if (!parentEntry.isPresent()) {
+                return null;
+            }
+            bitmap = bitmap.or(parentEntry.get().getBitmap());
+        }
+        final int position = storage.nextPosition();
+        Entry entry = new Entry(position, bitmap.with(position));
+        storage.put(commitId, entry);
+        return entry;
+    }
+
+    /**
+     * Computes the bitmaps of the descendants of {@code commitId} that were waiting for it
+     */
+    private void cascade(ObjectId commitId) {
+        Deque<ObjectId> queue = new ArrayDeque<>(graph.getChildren(commitId));
+        while (!queue.isEmpty()) {
+            ObjectId child = queue.poll();
+            if (!storage.get(child).isPresent() && compute(child) != null) {
+                queue.addAll(graph.getChildren(child));
+            }
+        }
+    }
+
+    private static class HeapStorage implements Storage {
+
+        private final Map<ObjectId, Entry> entries = new ConcurrentHashMap<>();
+
+        private final Map<Integer, ObjectId> positions = new ConcurrentHashMap<>();
+
+        private final AtomicInteger nextPosition = new AtomicInteger();
+
+        public @Override Optional<Entry> get(ObjectId commitId) {
+            return Optional.ofNullable(entries.get(commitId));
+        }
+
+        public @Override void put(ObjectId commitId, Entry entry) {
+            entries.put(commitId, entry);
+            positions.put(entry.getPosition(), commitId);
+        }
+
+        public @Override void remove(ObjectId commitId) {
+            entries.remove(commitId);
+        }
+
+        public @Override Optional<ObjectId> getCommit(int position) {
+            return Optional.ofNullable(positions.get(position));
+        }
+
+        public @Override int nextPosition() {
+            return nextPosition.getAndIncrement();
+        }
+
+        public @Override void clear() {
+            entries.clear();
+            positions.clear();
+            nextPosition.set(0);
+        }
+    }
+}
@@ -12,7 +12,11 @@ package org.locationtech.geogig.storage.memory;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -20,6 +24,8 @@ import org.locationtech.geogig.base.Preconditions;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.storage.AbstractStore;
 import org.locationtech.geogig.storage.GraphDatabase;
+import org.locationtech.geogig.storage.impl.CommitGraph;
+import org.locationtech.geogig.storage.impl.ReachabilityIndex;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
@@ -34,12 +40,19 @@ public class HeapGraphDatabase extends AbstractStore implements GraphDatabase {
 
     private final Graph graph = new Graph();
 
+    private final ReachabilityIndex reachability;
+
+    private final CommitGraph commitGraph = CommitGraph.inMemory();
+
+    private final Map<ObjectId, byte[]> changedPaths = new ConcurrentHashMap<>();
+
     public HeapGraphDatabase() {
-        super(false);
+        this(false);
     }
 
     public HeapGraphDatabase(boolean ro) {
         super(ro);
+        this.reachability = new ReachabilityIndex(this, ReachabilityIndex.heapStorage(), ro);
     }
 
     public @Override boolean exists(ObjectId commitId) {
@@ -59,6 +72,15 @@ public class HeapGraphDatabase extends AbstractStore implements GraphDatabase {
     }
 
     public @Override boolean put(ObjectId commitId, List<ObjectId> parentIds) {
+        boolean updated = attach(commitId, parentIds);
+        if (updated) {
+            reachability.update(commitId);
+            commitGraph.update(this, commitId);
+        }
+        return updated;
+    }
+
+    private boolean attach(ObjectId commitId, List<ObjectId> parentIds) {
         Node n = graph.getOrAdd(commitId);
         synchronized (n) {
             if (parentIds.isEmpty()) {
@@ -94,6 +116,10 @@ public class HeapGraphDatabase extends AbstractStore implements GraphDatabase {
     }
 
     public @Override int getDepth(@NonNull ObjectId commitId) {
+        Optional<CommitGraph.Commit> commit = commitGraph.resolve(this, commitId, isReadOnly());
+        if (commit.isPresent()) {
+            return commit.get().getDepth();
+        }
         Optional<Node> nodeOpt = graph.get(commitId);
         Preconditions.checkArgument(nodeOpt.isPresent(), "No graph entry for commit %s on %s",
                 commitId, this.toString());
@@ -111,14 +137,41 @@ public class HeapGraphDatabase extends AbstractStore implements GraphDatabase {
         return depth;
     }
 
+    public @Override OptionalInt getGeneration(@NonNull ObjectId commitId) {
+        return commitGraph.resolve(this, commitId, isReadOnly())
+                .map(c -> OptionalInt.of(c.getGeneration())).orElse(OptionalInt.empty());
+    }
+
     public @Override void setProperty(ObjectId commitId, String propertyName,
             String propertyValue) {
         graph.get(commitId).get().put(propertyName, propertyValue);
         ;
     }
 
+    public @Override Optional<String> getProperty(ObjectId commitId, String propertyName) {
+        return graph.get(commitId).flatMap(n -> n.get(propertyName));
+    }
+
+    public @Override boolean putChangedPaths(@NonNull ObjectId commitId, @NonNull byte[] filter) {
+        Preconditions.checkArgument(exists(commitId), "No graph entry for commit %s", commitId);
+        changedPaths.put(commitId, filter);
+        return true;
+    }
+
+    public @Override Optional<byte[]> getChangedPaths(@NonNull ObjectId commitId) {
+        return Optional.ofNullable(changedPaths.get(commitId));
+    }
+
     public @Override void truncate() {
         graph.clear();
+        reachability.clear();
+        commitGraph.clear();
+        changedPaths.clear();
+    }
+
+    public @Override Optional<List<ObjectId>> findMissingCommits(@NonNull Set<ObjectId> want,
+            @NonNull Set<ObjectId> have) {
+        return reachability.findMissingCommits(want, have);
     }
 
     static class Ref {
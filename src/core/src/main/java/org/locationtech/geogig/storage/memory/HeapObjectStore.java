@@ -19,6 +19,7 @@ import static org.locationtech.geogig.base.Preconditions.checkArgument;
 import static org.locationtech.geogig.base.Preconditions.checkState;
 import static org.locationtech.geogig.storage.BulkOpListener.NOOP_LISTENER;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
@@ -188,6 +189,16 @@ public class HeapObjectStore extends AbstractStore implements ObjectStore {
         }
     }
 
+    /**
+     * @return an iterator over a copy of the current key set, so that concurrent modifications are
+     *         not reported
+     */
+    public @Override AutoCloseableIterator<ObjectId> getAllIds() {
+        checkState(isOpen(), "db is closed");
+        List<ObjectId> ids = new ArrayList<>(this.objects.keySet());
+        return AutoCloseableIterator.fromIterator(ids.iterator());
+    }
+
     public @Override Iterator<RevObject> getAll(Iterable<ObjectId> ids) {
         return getAll(ids, NOOP_LISTENER);
     }
@@ -0,0 +1,114 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+public class AttributeIndexKeyTest {
+
+    private void assertOrder(Object... sortedValues) {
+        for (int i = 1; i < sortedValues.length; i++) {
+            String k1 = AttributeIndexKey.of(sortedValues[i - 1]);
+            String k2 = AttributeIndexKey.of(sortedValues[i]);
+            assertTrue(String.format("%s < %s", sortedValues[i - 1], sortedValues[i]),
+                    k1.compareTo(k2) < 0);
+        }
+    }
+
+    public @Test void testNullSortsFirst() {
+        assertEquals("0", AttributeIndexKey.of(null));
+        assertOrder(null, Double.NEGATIVE_INFINITY);
+        assertOrder(null, "");
+        assertOrder(null, Boolean.FALSE);
+    }
+
+    public @Test void testNumbers() {
+        assertOrder(Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1000L, -1.5f, -1,
+                -Double.MIN_VALUE, 0, Double.MIN_VALUE, 1, 1.5d, 2, 1000, Long.MAX_VALUE,
+                Double.POSITIVE_INFINITY);
+        assertEquals(AttributeIndexKey.of(0d), AttributeIndexKey.of(-0d));
+        assertEquals(AttributeIndexKey.of(1), AttributeIndexKey.of(1d));
+        assertEquals(17, AttributeIndexKey.of(1).length());
+    }
+
+    public @Test void testDates() {
+        assertOrder(new Date(-1000), new Date(0), new Date(1000));
+        assertEquals(AttributeIndexKey.of(1000L), AttributeIndexKey.of(new Date(1000)));
+    }
+
+    public @Test void testBooleans() {
+        assertOrder(false, true);
+    }
+
+    public @Test void testStrings() {
+        assertOrder("", "A", "AB", "B", "a", "b", "ba", "á");
+        String longValue = "0123456789abcdef";
+        assertEquals(1 + 4 * AttributeIndexKey.MAX_STRING_CHARS,
+                AttributeIndexKey.of(longValue + "ghi").length());
+        assertEquals(AttributeIndexKey.of(longValue), AttributeIndexKey.of(longValue + "ghi"));
+    }
+
+    public @Test void testBucket() {
+        String key = AttributeIndexKey.of(true);
+        assertEquals("11", key);
+        assertEquals(2, AttributeIndexKey.bucket(key, 0));
+        assertEquals(2, AttributeIndexKey.bucket(key, 1));
+        assertEquals(-1, AttributeIndexKey.bucket(key, 2));
+        assertEquals(1, AttributeIndexKey.bucket(AttributeIndexKey.of(null), 0));
+        assertEquals(16, AttributeIndexKey.bucket("f", 0));
+    }
+
+    public @Test void testBucketMayContain() {
+        final String min = AttributeIndexKey.of(10);
+        final String max = AttributeIndexKey.of(20);
+        // root bucket may contain anything
+        assertTrue(AttributeIndexKey.bucketMayContain(new int[0], min, max));
+        // null values bucket
+        assertFalse(AttributeIndexKey.bucketMayContain(path("0"), min, max));
+        assertTrue(AttributeIndexKey.bucketMayContain(path("0"), null, max));
+        assertTrue(AttributeIndexKey.bucketMayContain(path("1"), min, max));
+        // all the values in range share this prefix
+        String commonPrefix = commonPrefix(min, max);
+        assertTrue(AttributeIndexKey.bucketMayContain(path(commonPrefix), min, max));
+        assertTrue(AttributeIndexKey.bucketMayContain(path(min), min, max));
+        assertTrue(AttributeIndexKey.bucketMayContain(path(max), min, max));
+        assertFalse(AttributeIndexKey.bucketMayContain(path(AttributeIndexKey.of(9)), min, max));
+        assertFalse(AttributeIndexKey.bucketMayContain(path(AttributeIndexKey.of(21)), min, max));
+
+        // terminal bucket, keys below are exactly the path prefix
+        int[] terminal = Arrays.copyOf(path("11"), 3);
+        assertTrue(AttributeIndexKey.bucketMayContain(terminal, "11", "11"));
+        assertFalse(AttributeIndexKey.bucketMayContain(terminal, "110", "12"));
+        assertTrue(AttributeIndexKey.bucketMayContain(path("11"), "110", "12"));
+    }
+
+    private static int[] path(String key) {
+        int[] path = new int[key.length()];
+        for (int i = 0; i < key.length(); i++) {
+            path[i] = AttributeIndexKey.bucket(key, i);
+        }
+        return path;
+    }
+
+    private static String commonPrefix(String k1, String k2) {
+        int i = 0;
+        while (i < Math.min(k1.length(), k2.length()) && k1.charAt(i) == k2.charAt(i)) {
+            i++;
+        }
+        return k1.substring(0, i);
+    }
+}
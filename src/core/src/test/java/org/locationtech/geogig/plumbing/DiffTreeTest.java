@@ -11,6 +11,8 @@ package org.locationtech.geogig.plumbing;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
@@ -181,6 +183,57 @@ public class DiffTreeTest {
         assertChangeTypeFilter(root2.getId(), root1.getId(), 10, 0, 10);
     }
 
+    @Test
+    public void testOffset() {
+        ObjectDatabase db = repository.context().objectDatabase();
+        final RevTree tree = tree(5000, db);
+        assertFalse(tree.bucketsSize() == 0);
+
+        diffTree.setOldTree(ObjectId.NULL).setNewTree(tree.getId()).setPreserveIterationOrder(true);
+        final List<DiffEntry> all = diffTree.call().toList();
+        assertEquals(5000, all.size());
+
+        for (long offset : new long[] { 0, 1, 511, 2500, 4990, 5000, 6000 }) {
+            diffTree.setOffset(offset).setMaxDiffs(10L).recordStats();
+            List<DiffEntry> page = diffTree.call().toList();
+            int from = (int) Math.min(offset, all.size());
+            assertEquals(all.subList(from, Math.min(from + 10, all.size())), page);
+            // the skipped buckets were not traversed
+            assertThat(diffTree.getStats().get().allFeatures.get(), lessThan(600L));
+        }
+
+        // a filter may discard features inside a bucket, all features are traversed then
+        diffTree.setBoundsFilter(new Envelope(0, 10_000, 0, 10_000));
+        diffTree.setOffset(2500L).setMaxDiffs(10L).recordStats();
+        assertEquals(all.subList(2500, 2510), diffTree.call().toList());
+        assertThat(diffTree.getStats().get().allFeatures.get(), greaterThanOrEqualTo(2510L));
+    }
+
+    @Test
+    public void testSynchronousAndBufferedHandOff() {
+        ObjectDatabase db = repository.context().objectDatabase();
+        final RevTree tree = tree(5000, db);
+        diffTree.setOldTree(ObjectId.NULL).setNewTree(tree.getId()).setPreserveIterationOrder(true);
+
+        final List<DiffEntry> expected = diffTree.setSynchronousThreshold(10_000).call().toList();
+        assertEquals(5000, expected.size());
+
+        // smaller than, equal to, and not a multiple of the chunk size
+        for (int bufferSize : new int[] { 1, 10, DiffTree.CHUNK_SIZE, 1000 }) {
+            diffTree.setSynchronousThreshold(0).setBufferSize(bufferSize);
+            assertEquals(expected, diffTree.call().toList());
+        }
+
+        diffTree.setSynchronousThreshold(0).setBufferSize(10);
+        try (AutoCloseableIterator<DiffEntry> it = diffTree.call()) {
+            assertEquals(expected.get(0), it.next());
+        }
+
+        // a small enough limit makes it synchronous
+        diffTree.setSynchronousThreshold(100).setMaxDiffs(100L);
+        assertEquals(expected.subList(0, 100), diffTree.call().toList());
+    }
+
     private Node node(String id) {
         return RevObjectFactory.defaultInstance().createNode(id, ObjectId.NULL, ObjectId.NULL,
                 TYPE.FEATURE, null, null);
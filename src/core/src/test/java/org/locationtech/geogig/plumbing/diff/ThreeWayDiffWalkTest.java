@@ -0,0 +1,228 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.plumbing.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.geogig.model.DiffEntry;
+import org.locationtech.geogig.model.Node;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.model.RevObjectFactory;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.model.RevTreeBuilder;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.storage.ObjectDatabase;
+import org.locationtech.geogig.storage.memory.HeapObjectDatabase;
+
+public class ThreeWayDiffWalkTest {
+
+    private ObjectDatabase source;
+
+    @Before
+    public void beforeTest() {
+        source = new HeapObjectDatabase();
+        source.open();
+    }
+
+    private static class Change {
+        final @Nullable DiffEntry ours;
+
+        final DiffEntry theirs;
+
+        Change(@Nullable DiffEntry ours, DiffEntry theirs) {
+            this.ours = ours;
+            this.theirs = theirs;
+        }
+    }
+
+    private Map<String, Change> walk(RevTree ancestor, RevTree ours, RevTree theirs) {
+        Map<String, Change> changes = new ConcurrentHashMap<>();
+        new ThreeWayDiffWalk(ancestor, ours, theirs, source).walk((o, t) -> {
+            assertNull("path reported twice: " + t.path(), changes.put(t.path(), new Change(o, t)));
+            return true;
+        });
+        return changes;
+    }
+
+    private RevTree tree(Map<String, Node> nodes) {
+        RevTreeBuilder builder = RevTreeBuilder.builder(source);
+        nodes.values().forEach(builder::put);
+        RevTree tree = builder.build();
+        source.put(tree);
+        return tree;
+    }
+
+    private Map<String, Node> features(int count) {
+        Map<String, Node> nodes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Node node = RevObjectTestSupport.featureNode("f", i);
+            nodes.put(node.getName(), node);
+        }
+        return nodes;
+    }
+
+    private Node modify(Node node, String salt) {
+        ObjectId id = RevObjectTestSupport.hashString(node.getName() + salt);
+        return RevObjectFactory.defaultInstance().createNode(node.getName(), id, ObjectId.NULL,
+                TYPE.FEATURE, node.bounds().orElse(null), null);
+    }
+
+    /**
+     * Verifies the walk reports exactly the changes made by "theirs" that "ours" didn't make as
+     * well, paired with the change made by "ours" to the same feature, if any
+     */
+    private void verify(Map<String, Node> ancestor, Map<String, Node> ours,
+            Map<String, Node> theirs) {
+
+        Map<String, Change> changes = walk(tree(ancestor), tree(ours), tree(theirs));
+
+        Set<String> expected = new TreeSet<>();
+        Set<String> names = new TreeSet<>(ancestor.keySet());
+        names.addAll(theirs.keySet());
+        for (String name : names) {
+            Node a = ancestor.get(name);
+            Node o = ours.get(name);
+            Node t = theirs.get(name);
+            if (Objects.equals(t, a) || Objects.equals(t, o)) {
+                continue;
+            }
+            expected.add(name);
+            Change change = changes.get(name);
+            assertNotNull("change not reported: " + name, change);
+            assertEquals(a, change.theirs.getOldObject() == null ? null
+                    : change.theirs.getOldObject().getNode());
+            assertEquals(t, change.theirs.getNewObject() == null ? null
+                    : change.theirs.getNewObject().getNode());
+            if (Objects.equals(o, a)) {
+                assertNull(change.ours);
+            } else {
+                assertNotNull(change.ours);
+                assertEquals(o, change.ours.getNewObject() == null ? null
+                        : change.ours.getNewObject().getNode());
+            }
+        }
+        assertEquals(expected, changes.keySet());
+    }
+
+    @Test
+    public void testTheirsUnchanged() {
+        Map<String, Node> ancestor = features(1000);
+        Map<String, Node> ours = new HashMap<>(ancestor);
+        ours.replaceAll((name, node) -> modify(node, "ours"));
+
+        assertTrue(walk(tree(ancestor), tree(ours), tree(ancestor)).isEmpty());
+    }
+
+    @Test
+    public void testSameChangesAtBothSides() {
+        Map<String, Node> ancestor = features(1000);
+        Map<String, Node> changed = new HashMap<>(ancestor);
+        changed.replaceAll((name, node) -> modify(node, "both"));
+        RevTree tree = tree(changed);
+
+        assertTrue(walk(tree(ancestor), tree, tree).isEmpty());
+    }
+
+    @Test
+    public void testOursUnchanged() {
+        Map<String, Node> ancestor = features(1000);
+        Map<String, Node> theirs = new HashMap<>(ancestor);
+        for (int i = 0; i < 100; i++) {
+            theirs.computeIfPresent("f" + i, (name, node) -> modify(node, "theirs"));
+            theirs.remove("f" + (100 + i));
+        }
+        verify(ancestor, ancestor, theirs);
+    }
+
+    @Test
+    public void testChangesAtBothSidesBucketTrees() {
+        Map<String, Node> ancestor = features(2000);
+        Map<String, Node> ours = new HashMap<>(ancestor);
+        Map<String, Node> theirs = new HashMap<>(ancestor);
+        for (int i = 0; i < 200; i++) {
+            ours.computeIfPresent("f" + i, (name, node) -> modify(node, "ours"));
+            ours.remove("f" + (1000 + i));
+        }
+        for (int i = 100; i < 300; i++) {
+            // same change at both sides for half of the overlapping features
+            String salt = i < 150 ? "ours" : "theirs";
+            theirs.computeIfPresent("f" + i, (name, node) -> modify(node, salt));
+            theirs.remove("f" + (1100 + i));
+        }
+        for (int i = 2000; i < 2100; i++) {
+            Node node = RevObjectTestSupport.featureNode("f", i);
+            theirs.put(node.getName(), node);
+        }
+        verify(ancestor, ours, theirs);
+    }
+
+    @Test
+    public void testChangesAtBothSidesMixedLeafAndBucketTrees() {
+        Map<String, Node> ancestor = features(1000);
+        // ours removes most features and becomes a leaf tree
+        Map<String, Node> ours = features(100);
+        ours.replaceAll((name, node) -> modify(node, "ours"));
+        Map<String, Node> theirs = new HashMap<>(ancestor);
+        for (int i = 50; i < 150; i++) {
+            theirs.computeIfPresent("f" + i, (name, node) -> modify(node, "theirs"));
+        }
+        verify(ancestor, ours, theirs);
+        // and the other way around
+        verify(ancestor, theirs, ours);
+    }
+
+    @Test
+    public void testNestedTrees() {
+        final ObjectId metadataId = RevObjectTestSupport.hashString("featureType");
+        RevTree ancestor = RevObjectTestSupport.INSTANCE.createTreesTree(source, 10, 100,
+                metadataId);
+        RevTree ours = RevObjectTestSupport.INSTANCE.createTreesTree(source, 5, 100, metadataId);
+        RevTree theirs = RevObjectTestSupport.INSTANCE.createTreesTree(source, 12, 100, metadataId);
+
+        // ours removed subtrees 5 to 9, theirs added subtrees 10 and 11
+        Map<String, Change> changes = walk(ancestor, ours, theirs);
+        assertEquals(2 + 2 * 100, changes.size());
+        Change treeChange = changes.get("subtree10");
+        assertNotNull(treeChange);
+        assertNull(treeChange.ours);
+        assertEquals(TYPE.TREE, treeChange.theirs.newObjectType().orElseThrow());
+        Change featureChange = changes.get("subtree11/subtree110");
+        assertNotNull(featureChange);
+        assertNull(featureChange.ours);
+        assertEquals(metadataId, featureChange.theirs.getNewObject().metadataId());
+    }
+
+    @Test
+    public void testAbort() {
+        Map<String, Node> ancestor = features(2000);
+        Map<String, Node> theirs = new HashMap<>(ancestor);
+        theirs.replaceAll((name, node) -> modify(node, "theirs"));
+
+        AtomicInteger calls = new AtomicInteger();
+        new ThreeWayDiffWalk(tree(ancestor), tree(ancestor), tree(theirs), source)
+                .walk((o, t) -> calls.incrementAndGet() < 10);
+        assertTrue(calls.get() < 2000);
+    }
+}
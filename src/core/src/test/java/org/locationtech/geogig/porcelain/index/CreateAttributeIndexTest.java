@@ -0,0 +1,141 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.porcelain.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.locationtech.geogig.model.DiffEntry;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.plumbing.DiffTree;
+import org.locationtech.geogig.plumbing.diff.AttributeIndexFilteringDiffConsumer.KeyRange;
+import org.locationtech.geogig.plumbing.index.IndexTestSupport;
+import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
+import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.IndexDatabase;
+import org.locationtech.geogig.test.integration.RepositoryTestCase;
+
+public class CreateAttributeIndexTest extends RepositoryTestCase {
+
+    private IndexDatabase indexdb;
+
+    private NodeRef worldPointsLayer;
+
+    private RevTree worldPointsTree;
+
+    protected @Override void setUpInternal() throws Exception {
+        indexdb = repo.context().indexDatabase();
+        worldPointsLayer = IndexTestSupport.createWorldPointsLayer(repo);
+        super.add();
+        super.commit("created world points layer");
+        worldPointsTree = repo.context().objectDatabase().getTree(worldPointsLayer.getObjectId());
+    }
+
+    private Index createIndex(String attribute, String... extraAttributes) {
+        return repo.command(CreateAttributeIndex.class)//
+                .setTreeRefSpec(worldPointsLayer.path())//
+                .setAttributeName(attribute)//
+                .setExtraAttributes(extraAttributes.length == 0 ? null : List.of(extraAttributes))//
+                .call();
+    }
+
+    public @Test void testCreateIndex() {
+        Index index = createIndex("x");
+
+        IndexInfo indexInfo = indexdb.getIndexInfo(worldPointsLayer.path(), "x").get();
+        assertEquals(indexInfo, index.info());
+        assertEquals(IndexType.ATTRIBUTE, indexInfo.getIndexType());
+        assertArrayEquals(new String[] { "x" },
+                (String[]) indexInfo.getMetadata().get(IndexInfo.FEATURE_ATTRIBUTES_EXTRA_DATA));
+
+        assertEquals(index.indexTreeId(),
+                indexdb.resolveIndexedTree(indexInfo, worldPointsTree.getId()).get());
+        IndexTestSupport.verifyIndex(repo.context(), index.indexTreeId(), worldPointsTree.getId(),
+                "x");
+    }
+
+    public @Test void testCreateIndexExtraAttributes() {
+        Index index = createIndex("xystr", "y");
+        IndexTestSupport.verifyIndex(repo.context(), index.indexTreeId(), worldPointsTree.getId(),
+                "xystr", "y");
+    }
+
+    public @Test void testGeometryAttribute() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> createIndex("geom"));
+        assertTrue(e.getMessage().contains("use a spatial index instead"));
+    }
+
+    public @Test void testMissingAttribute() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> createIndex("nonexistent"));
+        assertTrue(e.getMessage().contains("property nonexistent does not exist"));
+    }
+
+    public @Test void testIndexOrder() {
+        Index index = createIndex("x");
+        List<Double> values = new ArrayList<>();
+        try (AutoCloseableIterator<DiffEntry> diffs = diff(index.indexTreeId(), null)) {
+            diffs.forEachRemaining(e -> values.add(x(e)));
+        }
+        assertEquals(worldPointsTree.size(), values.size());
+        List<Double> sorted = new ArrayList<>(values);
+        sorted.sort(Double::compare);
+        assertEquals(sorted, values);
+    }
+
+    public @Test void testKeyRanges() {
+        Index index = createIndex("x");
+
+        assertEquals(Set.of(-5d), diffValues(index, KeyRange.equalTo(-5d)));
+        assertEquals(Set.of(), diffValues(index, KeyRange.equalTo(-6d)));
+        assertEquals(Set.of(0d, 5d, 10d), diffValues(index, KeyRange.between(-1d, 10d)));
+        assertEquals(Set.of(170d, 175d, 180d), diffValues(index, KeyRange.between(170d, null)));
+        assertEquals(Set.of(-180d, -175d), diffValues(index, KeyRange.between(null, -175d)));
+        assertEquals(Set.of(-180d, 45d, 180d), diffValues(index, KeyRange.equalTo(-180d),
+                KeyRange.equalTo(45d), KeyRange.equalTo(180d)));
+    }
+
+    private Set<Double> diffValues(Index index, KeyRange... ranges) {
+        Set<Double> values = new TreeSet<>();
+        try (AutoCloseableIterator<DiffEntry> diffs = diff(index.indexTreeId(), List.of(ranges))) {
+            diffs.forEachRemaining(e -> values.add(x(e)));
+        }
+        return values;
+    }
+
+    private AutoCloseableIterator<DiffEntry> diff(ObjectId indexTreeId, List<KeyRange> ranges) {
+        return repo.command(DiffTree.class)//
+                .setOldTree(RevTree.EMPTY_TREE_ID)//
+                .setNewTree(indexTreeId)//
+                .setLeftSource(indexdb)//
+                .setRightSource(indexdb)//
+                .setNodeOrdering(IndexUtils.resolveNodeOrdering(
+                        indexdb.getIndexInfo(worldPointsLayer.path(), "x").get()))//
+                .setPreserveIterationOrder(true)//
+                .setIndexKeyRanges(ranges == null ? null : "x", ranges)//
+                .call();
+    }
+
+    private double x(DiffEntry e) {
+        return (Double) IndexInfo.getMaterializedAttribute("x", e.getNewObject().getNode());
+    }
+}
@@ -0,0 +1,145 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.porcelain.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.plumbing.index.IndexTestSupport;
+import org.locationtech.geogig.porcelain.RemoveOp;
+import org.locationtech.geogig.repository.Context;
+import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.storage.IndexDatabase;
+import org.locationtech.geogig.test.integration.RepositoryTestCase;
+
+public class IndexUpdateServiceTest extends RepositoryTestCase {
+
+    private static final String MASTER = Ref.HEADS_PREFIX + "master";
+
+    private Context context;
+
+    private IndexDatabase indexdb;
+
+    private NodeRef worldPointsLayer;
+
+    private List<RevCommit> commits;
+
+    private IndexInfo index;
+
+    protected @Override void setUpInternal() throws Exception {
+        context = repo.context();
+        indexdb = context.indexDatabase();
+        worldPointsLayer = IndexTestSupport.createWorldPointsLayer(repo);
+        super.add();
+        commits = new ArrayList<>();
+        commits.add(super.commit("created world points layer"));
+        for (int i = 0; i < 3; i++) {
+            commits.add(removePoint(0, 5 * i));
+        }
+        // index the first commit only, the other ones were made before the index existed
+        index = repo.command(CreateAttributeIndex.class)//
+                .setTreeRefSpec("HEAD~3:" + worldPointsLayer.path())//
+                .setAttributeName("x")//
+                .call().info();
+        assertIndexed(commits.get(0));
+        assertNotIndexed(commits.get(3));
+    }
+
+    private RevCommit removePoint(double x, double y) throws Exception {
+        String fid = IndexTestSupport.getPointFid(x, y);
+        repo.command(RemoveOp.class)
+                .addPathToRemove(NodeRef.appendChild(worldPointsLayer.path(), fid)).call();
+        super.add();
+        return super.commit(String.format("deleted %s, %s", x, y));
+    }
+
+    private ObjectId layerTree(RevCommit commit) {
+        return IndexUtils
+                .resolveTypeTreeRef(context, commit.getId() + ":" + worldPointsLayer.path())
+                .getObjectId();
+    }
+
+    private void assertIndexed(RevCommit commit) {
+        ObjectId canonicalTree = layerTree(commit);
+        Optional<ObjectId> indexTree = indexdb.resolveIndexedTree(index, canonicalTree);
+        assertTrue(indexTree.isPresent());
+        IndexTestSupport.verifyIndex(context, indexTree.get(), canonicalTree, "x");
+    }
+
+    private void assertNotIndexed(RevCommit commit) {
+        assertFalse(indexdb.resolveIndexedTree(index, layerTree(commit)).isPresent());
+    }
+
+    private Ref master(RevCommit commit) {
+        return new Ref(MASTER, commit.getId());
+    }
+
+    public @Test void testCoalescesUpdates() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final IndexUpdateService service = new IndexUpdateService(executor);
+            final CountDownLatch latch = new CountDownLatch(1);
+            // keep the only thread busy until all the updates were submitted
+            executor.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertFalse(service.isPending(context, MASTER));
+            service.submit(context, master(commits.get(1)), commits.get(0).getId());
+            service.submit(context, master(commits.get(2)), commits.get(1).getId());
+            service.submit(context, master(commits.get(3)), commits.get(2).getId());
+            assertTrue(service.isPending(context, MASTER));
+            assertEquals(1, service.size());
+
+            latch.countDown();
+            assertTrue(service.awaitIdle(context, 10, TimeUnit.SECONDS));
+
+            assertFalse(service.isPending(context, MASTER));
+            // the branch is no longer tracked once its update finished
+            assertEquals(0, service.size());
+            assertNotIndexed(commits.get(1));
+            assertNotIndexed(commits.get(2));
+            assertIndexed(commits.get(3));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public @Test void testAsyncHook() throws Exception {
+        context.configDatabase().put(IndexUpdateService.ASYNC_CONFIG_KEY, "true");
+        RevCommit commit = removePoint(0, 15);
+        assertTrue(IndexUpdateService.INSTANCE.awaitIdle(context, 10, TimeUnit.SECONDS));
+        assertFalse(IndexUpdateService.INSTANCE.isPending(context, MASTER));
+        assertIndexed(commit);
+    }
+
+    public @Test void testSynchronousByDefault() throws Exception {
+        RevCommit commit = removePoint(0, 15);
+        assertIndexed(commit);
+        assertFalse(IndexUpdateService.INSTANCE.isPending(context, MASTER));
+    }
+}
@@ -58,6 +58,12 @@ public class CacheManagerTest {
 
         private @Getter @Setter long maxSizeBytes;
 
+        static long offHeapMaxSizeBytes;
+
+        public @Override void setOffHeapMaxSizeBytes(long maxSizeBytes) {
+            offHeapMaxSizeBytes = maxSizeBytes;
+        }
+
         public @Override SharedCache build() {
             // TODO Auto-generated method stub
             return new TestCache();
@@ -100,6 +106,33 @@ public class CacheManagerTest {
         assertThat(e.getMessage(), containsString("Cache max size must be between 0 and"));
     }
 
+    public @Test void offHeapMaximumSizeDisabledByDefault() {
+        doReturn(null).when(cacheManager).getOffHeapMaximumSizeArgument();
+        TestCacheBuilder.offHeapMaxSizeBytes = -1;
+        cacheManager.setMaximumSize(1000);
+        assertEquals(0L, TestCacheBuilder.offHeapMaxSizeBytes);
+        assertEquals(0D, cacheManager.getOffHeapMaximumSizeMB(), 0D);
+    }
+
+    public @Test void offHeapMaximumSize() {
+        doReturn("2G").when(cacheManager).getOffHeapMaximumSizeArgument();
+        cacheManager.setMaximumSize(1000);
+        assertEquals(2L * 1024 * 1024 * 1024, TestCacheBuilder.offHeapMaxSizeBytes);
+
+        SharedCache cache = cacheManager._SHARED_CACHE;
+        cacheManager.setOffHeapMaximumSizeMB(1);
+        assertEquals(1024 * 1024, TestCacheBuilder.offHeapMaxSizeBytes);
+        assertEquals(1D, cacheManager.getOffHeapMaximumSizeMB(), 0D);
+        assertEquals(1000, cacheManager.getMaximumSize());
+        assertNotSame(cache, cacheManager._SHARED_CACHE);
+        assertIAE(() -> cacheManager.setOffHeapMaximumSizeMB(-1));
+    }
+
+    public @Test void offHeapMaximumSizeInvalidValue() {
+        doReturn("-1G").when(cacheManager).getOffHeapMaximumSizeArgument();
+        assertEquals(0L, cacheManager.getOffHeapMaximumSize());
+    }
+
     public @Test void getCacheSizePercentNegative() {
         Exception e = assertThrows(IllegalArgumentException.class,
                 () -> cacheManager.getCacheSizePercent(-1));
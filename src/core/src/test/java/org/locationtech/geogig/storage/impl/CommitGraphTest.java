@@ -0,0 +1,178 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.storage.memory.HeapGraphDatabase;
+
+public class CommitGraphTest {
+
+    public @Rule TemporaryFolder tmp = new TemporaryFolder();
+
+    private HeapGraphDatabase graph;
+
+    private File file;
+
+    private CommitGraph commitGraph;
+
+    public @Before void before() throws IOException {
+        graph = new HeapGraphDatabase();
+        graph.open();
+        file = tmp.newFile("commit-graph");
+        commitGraph = CommitGraph.open(file);
+    }
+
+    public @After void after() {
+        commitGraph.close();
+        graph.close();
+    }
+
+    private ObjectId put(String name, ObjectId... parents) {
+        ObjectId id = RevObjectTestSupport.hashString(name);
+        graph.put(id, Arrays.asList(parents));
+        commitGraph.update(graph, id);
+        return id;
+    }
+
+    @Test
+    public void testUpdate() {
+        ObjectId root = put("root");
+        ObjectId c1 = put("c1", root);
+        ObjectId b1 = put("b1", root);
+        ObjectId b2 = put("b2", b1);
+        ObjectId merge = put("merge", c1, b2);
+
+        assertEquals(5, commitGraph.size());
+        CommitGraph.Commit commit = commitGraph.get(merge).get();
+        assertEquals(merge, commit.getId());
+        assertEquals(4, commit.getGeneration());
+        assertEquals(2, commit.getDepth());
+        assertEquals(Arrays.asList(c1, b2), commit.getParents());
+        assertEquals(1, commitGraph.get(root).get().getGeneration());
+        assertEquals(0, commitGraph.get(root).get().getDepth());
+        assertFalse(commitGraph.get(RevObjectTestSupport.hashString("unknown")).isPresent());
+    }
+
+    @Test
+    public void testUpdateChildrenFirst() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = put("c2", c1);
+        // c1 is not in the graph database yet, only as a parent placeholder
+        graph.put(c1, Arrays.asList(root));
+        assertFalse(commitGraph.get(c2).isPresent());
+
+        put("root");
+        commitGraph.update(graph, c1);
+        assertEquals(3, commitGraph.get(c2).get().getGeneration());
+        assertEquals(3, commitGraph.size());
+    }
+
+    @Test
+    public void testResolveBackfills() {
+        List<ObjectId> history = new ArrayList<>();
+        ObjectId parent = RevObjectTestSupport.hashString("root");
+        graph.put(parent, Collections.emptyList());
+        history.add(parent);
+        for (int i = 0; i < 100; i++) {
+            ObjectId commit = RevObjectTestSupport.hashString("c" + i);
+            graph.put(commit, Arrays.asList(parent));
+            history.add(commit);
+            parent = commit;
+        }
+        assertEquals(0, commitGraph.size());
+        assertFalse(commitGraph.resolve(graph, parent, true).isPresent());
+
+        assertEquals(101, commitGraph.resolve(graph, parent, false).get().getGeneration());
+        assertEquals(101, commitGraph.size());
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals(i + 1, commitGraph.get(history.get(i)).get().getGeneration());
+        }
+    }
+
+    @Test
+    public void testParentsChangedInvalidates() {
+        ObjectId root = put("root");
+        ObjectId c1 = put("c1", root);
+        ObjectId other = put("other");
+        assertEquals(1, commitGraph.get(other).get().getGeneration());
+
+        graph.put(other, Arrays.asList(c1));
+        commitGraph.update(graph, other);
+        assertEquals(3, commitGraph.resolve(graph, other, false).get().getGeneration());
+        assertEquals(Arrays.asList(c1), commitGraph.get(other).get().getParents());
+    }
+
+    @Test
+    public void testPersistenceAndGrowth() throws IOException {
+        // enough commits to outgrow the initial mapping and lookup table sizes
+        final int count = 5_000;
+        List<ObjectId> history = new ArrayList<>();
+        ObjectId parent = put("root");
+        history.add(parent);
+        for (int i = 0; i < count; i++) {
+            ObjectId branch = put("branch" + i, parent);
+            parent = put("merge" + i, parent, branch);
+            history.add(parent);
+        }
+        assertEquals(2 * count + 1, commitGraph.size());
+        commitGraph.close();
+
+        commitGraph = CommitGraph.open(file);
+        assertEquals(2 * count + 1, commitGraph.size());
+        for (int i = 0; i < history.size(); i++) {
+            CommitGraph.Commit commit = commitGraph.get(history.get(i)).get();
+            assertEquals(2 * i + 1, commit.getGeneration());
+            assertEquals(i, commit.getDepth());
+        }
+    }
+
+    @Test
+    public void testCorruptFileIsReset() throws IOException {
+        ObjectId root = put("root");
+        commitGraph.close();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(0xCAFEBABE);
+        }
+        commitGraph = CommitGraph.open(file);
+        assertEquals(0, commitGraph.size());
+        assertTrue(commitGraph.resolve(graph, root, false).isPresent());
+    }
+
+    @Test
+    public void testInMemory() {
+        commitGraph.close();
+        commitGraph = CommitGraph.inMemory();
+        ObjectId root = put("root");
+        ObjectId c1 = put("c1", root);
+        assertEquals(2, commitGraph.get(c1).get().getGeneration());
+        commitGraph.clear();
+        assertEquals(0, commitGraph.size());
+        assertFalse(commitGraph.get(root).isPresent());
+    }
+}
@@ -0,0 +1,94 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.impl.PersistedIterable.StringSerializer;
+
+public class ExternalMergeSortTest {
+
+    public @Rule TemporaryFolder tmp = new TemporaryFolder();
+
+    private List<String> values;
+
+    private File tmpDir;
+
+    public @Before void before() throws Exception {
+        Random rnd = new Random(1);
+        values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add("s" + rnd.nextInt(500));
+        }
+        tmpDir = tmp.newFolder();
+    }
+
+    private List<String> sort(int maxInMemory, @Nullable Long limit, boolean expectSpill) {
+        ExternalMergeSort<String> sort = new ExternalMergeSort<String>(Comparator.naturalOrder(),
+                new StringSerializer()).maxInMemory(maxInMemory).limit(limit)
+                        .tempDirectory(tmpDir.toPath());
+        List<String> sorted;
+        try (AutoCloseableIterator<String> it = sort.sort(values.iterator())) {
+            assertEquals(expectSpill, tmpDir.list().length > 0);
+            sorted = it.toList();
+        }
+        assertEquals(0, tmpDir.list().length);
+        return sorted;
+    }
+
+    private List<String> expected(@Nullable Long limit) {
+        List<String> expected = new ArrayList<>(values);
+        Collections.sort(expected);
+        return limit == null ? expected : expected.subList(0, limit.intValue());
+    }
+
+    public @Test void testSortInMemory() {
+        assertEquals(expected(null), sort(1000, null, false));
+    }
+
+    public @Test void testSortSpillingRuns() {
+        assertEquals(expected(null), sort(100, null, true));
+        assertEquals(expected(null), sort(333, null, true));
+    }
+
+    public @Test void testTopN() {
+        assertEquals(expected(10L), sort(100, 10L, false));
+        assertEquals(expected(100L), sort(100, 100L, false));
+        assertEquals(expected(0L), sort(100, 0L, false));
+    }
+
+    public @Test void testLimitSpillingRuns() {
+        assertEquals(expected(250L), sort(100, 250L, true));
+    }
+
+    public @Test void testCloseBeforeExhausted() {
+        ExternalMergeSort<String> sort = new ExternalMergeSort<String>(Comparator.naturalOrder(),
+                new StringSerializer()).maxInMemory(10).tempDirectory(tmpDir.toPath());
+        try (AutoCloseableIterator<String> it = sort.sort(values.iterator())) {
+            assertTrue(it.hasNext());
+            assertEquals(expected(null).get(0), it.next());
+        }
+        assertEquals(0, tmpDir.list().length);
+    }
+}
@@ -9,6 +9,7 @@
  */
 package org.locationtech.geogig.storage.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -19,8 +20,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -28,6 +33,7 @@ import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -277,6 +283,254 @@ public abstract class GraphDatabaseTest {
         assertFalse(database.exists(commit2));
     }
 
+    @Test
+    public void testFindMissingCommits() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = RevObjectTestSupport.hashString("c2");
+        ObjectId b1 = RevObjectTestSupport.hashString("b1");
+        ObjectId b2 = RevObjectTestSupport.hashString("b2");
+        ObjectId merge = RevObjectTestSupport.hashString("merge");
+        database.put(root, Collections.emptyList());
+        database.put(c1, Arrays.asList(root));
+        database.put(c2, Arrays.asList(c1));
+        database.put(b1, Arrays.asList(c1));
+        database.put(b2, Arrays.asList(b1));
+        database.put(merge, Arrays.asList(c2, b2));
+
+        Optional<List<ObjectId>> missing = findMissing(merge);
+        Assume.assumeTrue("findMissingCommits not supported", missing.isPresent());
+        assertTopoOrder(missing.get(), merge, c2, b2, b1, c1, root);
+
+        assertTopoOrder(findMissing(merge, c2).get(), merge, b2, b1);
+        assertTopoOrder(findMissing(merge, b2).get(), merge, c2);
+        assertTopoOrder(findMissing(b2, c2).get(), b2, b1);
+        assertTopoOrder(findMissing(c2, merge).get());
+        assertTopoOrder(findMissing(merge, merge).get());
+    }
+
+    @Test
+    public void testFindMissingCommitsChildrenFirst() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = RevObjectTestSupport.hashString("c2");
+        ObjectId c3 = RevObjectTestSupport.hashString("c3");
+        database.put(c3, Arrays.asList(c2));
+        database.put(c2, Arrays.asList(c1));
+        database.put(c1, Arrays.asList(root));
+        database.put(root, Collections.emptyList());
+
+        Optional<List<ObjectId>> missing = findMissing(c3);
+        Assume.assumeTrue("findMissingCommits not supported", missing.isPresent());
+        assertTopoOrder(missing.get(), c3, c2, c1, root);
+        assertTopoOrder(findMissing(c3, c1).get(), c3, c2);
+    }
+
+    @Test
+    public void testFindMissingCommitsDeepened() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = RevObjectTestSupport.hashString("c2");
+        // shallow history, c1 is known only as c2's parent
+        database.put(c2, Arrays.asList(c1));
+
+        Optional<List<ObjectId>> missing = findMissing(c2);
+        Assume.assumeTrue("findMissingCommits not supported", missing.isPresent());
+        assertTopoOrder(missing.get(), c2, c1);
+
+        // deepen the history, c1's reachability info shall be recomputed
+        database.put(c1, Arrays.asList(root));
+        database.put(root, Collections.emptyList());
+        assertTopoOrder(findMissing(c2).get(), c2, c1, root);
+        assertTopoOrder(findMissing(c2, root).get(), c2, c1);
+    }
+
+    @Test
+    public void testFindMissingCommitsUnknownCommit() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        database.put(root, Collections.emptyList());
+        ObjectId unknown = RevObjectTestSupport.hashString("unknown");
+        assertFalse(findMissing(unknown).isPresent());
+        assertFalse(findMissing(root, unknown).isPresent());
+
+        database.truncate();
+        assertFalse(findMissing(root).isPresent());
+    }
+
+    @Test
+    public void testCountMissingCommits() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = RevObjectTestSupport.hashString("c2");
+        ObjectId b1 = RevObjectTestSupport.hashString("b1");
+        database.put(root, Collections.emptyList());
+        database.put(c1, Arrays.asList(root));
+        database.put(c2, Arrays.asList(c1));
+        database.put(b1, Arrays.asList(root));
+
+        OptionalInt ahead = database.countMissingCommits(Collections.singleton(c2),
+                Collections.singleton(b1));
+        Assume.assumeTrue("countMissingCommits not supported", ahead.isPresent());
+        assertEquals(2, ahead.getAsInt());
+        assertEquals(1,
+                database.countMissingCommits(Collections.singleton(b1), Collections.singleton(c2))
+                        .getAsInt());
+        assertEquals(3, database
+                .countMissingCommits(Collections.singleton(c2), Collections.emptySet()).getAsInt());
+        assertFalse(database.countMissingCommits(
+                Collections.singleton(RevObjectTestSupport.hashString("unknown")),
+                Collections.singleton(c2)).isPresent());
+    }
+
+    @Test
+    public void testFindMergeBases() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = RevObjectTestSupport.hashString("c2");
+        ObjectId b1 = RevObjectTestSupport.hashString("b1");
+        ObjectId b2 = RevObjectTestSupport.hashString("b2");
+        ObjectId merge = RevObjectTestSupport.hashString("merge");
+        ObjectId orphan = RevObjectTestSupport.hashString("orphan");
+        database.put(root, Collections.emptyList());
+        database.put(c1, Arrays.asList(root));
+        database.put(c2, Arrays.asList(c1));
+        database.put(b1, Arrays.asList(c1));
+        database.put(b2, Arrays.asList(b1));
+        database.put(merge, Arrays.asList(c2, b2));
+        database.put(orphan, Collections.emptyList());
+
+        Optional<List<ObjectId>> mergeBases = database.findMergeBases(c2, b2);
+        Assume.assumeTrue("findMergeBases not supported", mergeBases.isPresent());
+        assertEquals(Arrays.asList(c1), mergeBases.get());
+        assertEquals(Arrays.asList(b2), database.findMergeBases(merge, b2).get());
+        assertEquals(Arrays.asList(root), database.findMergeBases(root, merge).get());
+        assertEquals(Collections.emptyList(), database.findMergeBases(orphan, merge).get());
+        assertFalse(database.findMergeBases(RevObjectTestSupport.hashString("unknown"), merge)
+                .isPresent());
+
+        // criss-cross merge, both c2 and b2 are merge bases of x1 and x2
+        ObjectId x1 = RevObjectTestSupport.hashString("x1");
+        ObjectId x2 = RevObjectTestSupport.hashString("x2");
+        database.put(x1, Arrays.asList(c2, b2));
+        database.put(x2, Arrays.asList(b2, c2));
+        assertEquals(new HashSet<>(Arrays.asList(c2, b2)),
+                new HashSet<>(database.findMergeBases(x1, x2).get()));
+    }
+
+    @Test
+    public void testGetParentsBatch() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = RevObjectTestSupport.hashString("c2");
+        ObjectId unknown = RevObjectTestSupport.hashString("unknown");
+        database.put(root, Collections.emptyList());
+        database.put(c1, Arrays.asList(root));
+        database.put(c2, Arrays.asList(c1, root));
+
+        Map<ObjectId, List<ObjectId>> parents = database
+                .getParents(Arrays.asList(c2, unknown, root, c1));
+        assertEquals(Arrays.asList(c2, unknown, root, c1), new ArrayList<>(parents.keySet()));
+        assertEquals(Arrays.asList(c1, root), parents.get(c2));
+        assertEquals(Arrays.asList(root), parents.get(c1));
+        assertEquals(Collections.emptyList(), parents.get(root));
+        assertEquals(Collections.emptyList(), parents.get(unknown));
+    }
+
+    /**
+     * A long history with frequent merges of short branches, where every commit is reachable
+     * through many paths of different lengths
+     */
+    @Test
+    public void testDepthMergeLadder() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        database.put(root, Collections.emptyList());
+        ObjectId[] main = new ObjectId[201];
+        main[0] = root;
+        for (int i = 1; i <= 200; i++) {
+            main[i] = RevObjectTestSupport.hashString("main" + i);
+            if (i % 10 == 0) {
+                ObjectId side = RevObjectTestSupport.hashString("side" + i);
+                database.put(side, Arrays.asList(main[i - 10]));
+                database.put(main[i], Arrays.asList(main[i - 1], side));
+            } else {
+                database.put(main[i], Arrays.asList(main[i - 1]));
+            }
+        }
+        assertEquals(0, database.getDepth(root));
+        assertEquals(5, database.getDepth(main[5]));
+        assertEquals(2, database.getDepth(main[10]));
+        assertEquals(4, database.getDepth(main[20]));
+        assertEquals(43, database.getDepth(main[195]));
+        assertEquals(40, database.getDepth(main[200]));
+    }
+
+    @Test
+    public void testGeneration() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = RevObjectTestSupport.hashString("c2");
+        ObjectId b1 = RevObjectTestSupport.hashString("b1");
+        ObjectId merge = RevObjectTestSupport.hashString("merge");
+        database.put(root, Collections.emptyList());
+        database.put(c1, Arrays.asList(root));
+        database.put(c2, Arrays.asList(c1));
+        database.put(b1, Arrays.asList(root));
+        database.put(merge, Arrays.asList(c2, b1));
+
+        OptionalInt generation = database.getGeneration(root);
+        Assume.assumeTrue("generation numbers not supported", generation.isPresent());
+        assertEquals(1, generation.getAsInt());
+        assertEquals(2, database.getGeneration(c1).getAsInt());
+        assertEquals(3, database.getGeneration(c2).getAsInt());
+        assertEquals(2, database.getGeneration(b1).getAsInt());
+        assertEquals(4, database.getGeneration(merge).getAsInt());
+        // depth is the shortest path to a root commit
+        assertEquals(2, database.getDepth(merge));
+
+        assertFalse(database.getGeneration(RevObjectTestSupport.hashString("unknown")).isPresent());
+        database.truncate();
+        assertFalse(database.getGeneration(root).isPresent());
+    }
+
+    @Test
+    public void testGenerationDeepened() {
+        ObjectId root = RevObjectTestSupport.hashString("root");
+        ObjectId c1 = RevObjectTestSupport.hashString("c1");
+        ObjectId c2 = RevObjectTestSupport.hashString("c2");
+        ObjectId c3 = RevObjectTestSupport.hashString("c3");
+        // shallow history, c1 is known only as c2's parent
+        database.put(c3, Arrays.asList(c2));
+        database.put(c2, Arrays.asList(c1));
+
+        OptionalInt generation = database.getGeneration(c3);
+        Assume.assumeTrue("generation numbers not supported", generation.isPresent());
+        assertEquals(3, generation.getAsInt());
+        assertEquals(2, database.getDepth(c3));
+
+        // deepen the history, generation numbers shall be recomputed
+        database.put(c1, Arrays.asList(root));
+        database.put(root, Collections.emptyList());
+        assertEquals(4, database.getGeneration(c3).getAsInt());
+        assertEquals(3, database.getDepth(c3));
+        assertEquals(Arrays.asList(c2), database.getParents(c3));
+        assertEquals(Arrays.asList(root), database.getParents(c1));
+    }
+
+    private Optional<List<ObjectId>> findMissing(ObjectId want, ObjectId... have) {
+        return database.findMissingCommits(Collections.singleton(want),
+                new HashSet<>(Arrays.asList(have)));
+    }
+
+    private void assertTopoOrder(List<ObjectId> actual, ObjectId... expected) {
+        assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(actual));
+        for (int i = 0; i < actual.size(); i++) {
+            for (ObjectId parent : database.getParents(actual.get(i))) {
+                int parentIndex = actual.indexOf(parent);
+                assertTrue(parentIndex == -1 || parentIndex > i);
+            }
+        }
+    }
+
     @Test
     public void testGetChildren() {
         ObjectId rootId = RevObjectTestSupport.hashString("root");
@@ -369,6 +623,38 @@ public abstract class GraphDatabaseTest {
         assertFalse(node.isSparse());
     }
 
+    @Test
+    public void testGetProperty() {
+        ObjectId nodeId = RevObjectTestSupport.hashString("node");
+        assertEquals(Optional.empty(), database.getProperty(nodeId, "prop"));
+
+        database.put(nodeId, Collections.emptyList());
+        assertEquals(Optional.empty(), database.getProperty(nodeId, "prop"));
+
+        database.setProperty(nodeId, "prop", "value1");
+        assertEquals(Optional.of("value1"), database.getProperty(nodeId, "prop"));
+
+        database.setProperty(nodeId, "prop", "value2");
+        assertEquals(Optional.of("value2"), database.getProperty(nodeId, "prop"));
+        assertEquals(Optional.empty(), database.getProperty(nodeId, "other"));
+    }
+
+    @Test
+    public void testChangedPaths() {
+        ObjectId nodeId = RevObjectTestSupport.hashString("node");
+        database.put(nodeId, Collections.emptyList());
+        assertEquals(Optional.empty(), database.getChangedPaths(nodeId));
+
+        assertTrue(database.putChangedPaths(nodeId, new byte[] { 1, 2, 3 }));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, database.getChangedPaths(nodeId).get());
+        assertTrue(database.putChangedPaths(nodeId, new byte[] { 4 }));
+        assertArrayEquals(new byte[] { 4 }, database.getChangedPaths(nodeId).get());
+
+        database.truncate();
+        database.put(nodeId, Collections.emptyList());
+        assertEquals(Optional.empty(), database.getChangedPaths(nodeId));
+    }
+
     @Test
     public void testPutConcurrency() throws InterruptedException, ExecutionException {
         final int threadCount = 4;
@@ -0,0 +1,87 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+
+public class ObjectIdSetTest {
+
+    private ObjectIdSet set = new ObjectIdSet();
+
+    @Test
+    public void testEmpty() {
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.contains(ObjectId.NULL));
+        assertFalse(set.contains(RevObjectTestSupport.hashString("1")));
+    }
+
+    @Test
+    public void testNullId() {
+        assertTrue(set.add(ObjectId.NULL));
+        assertFalse(set.add(ObjectId.NULL));
+        assertTrue(set.contains(ObjectId.NULL));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testAddContains() {
+        final int count = 100_000;
+        Set<ObjectId> expected = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            ObjectId id = RevObjectTestSupport.hashString(String.valueOf(i));
+            assertTrue(set.add(id));
+            expected.add(id);
+        }
+        assertEquals(count, set.size());
+        for (ObjectId id : expected) {
+            assertTrue(set.contains(id));
+            assertFalse(set.add(id));
+        }
+        assertEquals(count, set.size());
+        for (int i = count; i < 2 * count; i++) {
+            assertFalse(set.contains(RevObjectTestSupport.hashString(String.valueOf(i))));
+        }
+        assertTrue(set.sizeInBytes() >= count * ObjectId.NUM_BYTES);
+    }
+
+    @Test
+    public void testSameSegment() {
+        // all ids share the first byte and hence the segment, forcing rehashes and collisions
+        for (int i = 0; i < 10_000; i++) {
+            ObjectId id = ObjectId.create(0x01000000 | (i % 3), i, i % 7);
+            assertTrue(set.add(id));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(set.contains(ObjectId.create(0x01000000 | (i % 3), i, i % 7)));
+        }
+        assertFalse(set.contains(ObjectId.create(0x01000000, 10_001, 0)));
+    }
+
+    @Test
+    public void testClear() {
+        set.add(ObjectId.NULL);
+        set.add(RevObjectTestSupport.hashString("1"));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(ObjectId.NULL));
+        assertFalse(set.contains(RevObjectTestSupport.hashString("1")));
+        assertEquals(0, set.sizeInBytes());
+    }
+}
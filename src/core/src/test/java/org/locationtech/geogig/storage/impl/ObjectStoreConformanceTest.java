@@ -207,6 +207,29 @@ public abstract class ObjectStoreConformanceTest {
         assertEquals(2, listener.notFound());
     }
 
+    @Test
+    public void testGetAllIds() {
+        List<RevObject> objs = Arrays.asList(feature(0, null, "some value"),
+                feature(1, "value", Integer.valueOf(111)), feature(2, (Object) null));
+        db.putAll(objs.iterator());
+        Set<ObjectId> expected = objs.stream().map(RevObject::getId).collect(Collectors.toSet());
+
+        Set<ObjectId> actual = new HashSet<>();
+        try (AutoCloseableIterator<ObjectId> it = db.getAllIds()) {
+            // objects added after the call may or may not be returned, but never the other way
+            // around
+            db.put(feature(3, "added after"));
+            it.forEachRemaining(actual::add);
+        }
+        // some backends share storage among repositories, hence not asserting equality
+        assertTrue(actual.containsAll(expected));
+
+        db.deleteAll(expected.iterator());
+        try (AutoCloseableIterator<ObjectId> it = db.getAllIds()) {
+            it.forEachRemaining(id -> assertFalse(expected.contains(id)));
+        }
+    }
+
     @Test
     public void testExists() {
 
@@ -0,0 +1,103 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ReachabilityBitmapTest {
+
+    @Test
+    public void testEmpty() {
+        ReachabilityBitmap empty = ReachabilityBitmap.EMPTY;
+        assertTrue(empty.isEmpty());
+        assertEquals(0, empty.cardinality());
+        assertFalse(empty.contains(0));
+        assertEquals(empty, ReachabilityBitmap.fromByteArray(empty.toByteArray()));
+    }
+
+    @Test
+    public void testWithMergesAdjacentRuns() {
+        ReachabilityBitmap bitmap = ReachabilityBitmap.EMPTY.with(0).with(1).with(2).with(5);
+        assertEquals(2, bitmap.runCount());
+        assertEquals(4, bitmap.cardinality());
+        assertTrue(bitmap.contains(2));
+        assertFalse(bitmap.contains(3));
+        assertTrue(bitmap.contains(5));
+
+        bitmap = bitmap.with(4).with(3);
+        assertEquals(1, bitmap.runCount());
+        assertEquals("[0..5]", bitmap.toString());
+    }
+
+    @Test
+    public void testAndNot() {
+        ReachabilityBitmap a = range(0, 10).or(range(20, 30));
+        ReachabilityBitmap b = range(5, 25);
+        assertEquals(range(0, 5).or(range(25, 30)), a.andNot(b));
+        assertEquals(range(10, 20), b.andNot(a));
+        assertTrue(a.andNot(a).isEmpty());
+        assertSame(a, a.andNot(ReachabilityBitmap.EMPTY));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(1);
+        for (int iteration = 0; iteration < 100; iteration++) {
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            ReachabilityBitmap a = randomBitmap(random, expectedA);
+            ReachabilityBitmap b = randomBitmap(random, expectedB);
+
+            BitSet or = (BitSet) expectedA.clone();
+            or.or(expectedB);
+            assertBitmap(or, a.or(b));
+
+            BitSet andNot = (BitSet) expectedA.clone();
+            andNot.andNot(expectedB);
+            assertBitmap(andNot, a.andNot(b));
+
+            assertEquals(a, ReachabilityBitmap.fromByteArray(a.toByteArray()));
+        }
+    }
+
+    private ReachabilityBitmap range(int start, int end) {
+        ReachabilityBitmap bitmap = ReachabilityBitmap.EMPTY;
+        for (int i = start; i < end; i++) {
+            bitmap = bitmap.with(i);
+        }
+        return bitmap;
+    }
+
+    private ReachabilityBitmap randomBitmap(Random random, BitSet expected) {
+        ReachabilityBitmap bitmap = ReachabilityBitmap.EMPTY;
+        final int size = random.nextInt(200);
+        for (int i = 0; i < size; i++) {
+            int position = random.nextInt(500);
+            expected.set(position);
+            bitmap = bitmap.with(position);
+        }
+        return bitmap;
+    }
+
+    private void assertBitmap(BitSet expected, ReachabilityBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        BitSet positions = new BitSet();
+        actual.forEach(positions::set);
+        assertEquals(expected, positions);
+    }
+}
@@ -19,6 +19,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -687,6 +688,45 @@ public abstract class RevObjectSerializerConformanceTest {
         }
     }
 
+    @Test
+    public void testReadByteBuffer() throws IOException {
+        List<RevObject> objects = Arrays.asList(//
+                testCommit.build(), //
+                tree1_leaves, //
+                tree3_buckets, //
+                tree6_spatial_buckets//
+        );
+        for (RevObject expected : objects) {
+            final byte[] serialized = write(expected);
+            final int padding = 7;
+
+            // heap buffer whose remaining bytes don't start at the backing array's offset 0
+            byte[] padded = new byte[padding + serialized.length + padding];
+            System.arraycopy(serialized, 0, padded, padding, serialized.length);
+            ByteBuffer heap = ByteBuffer.wrap(padded, padding, serialized.length);
+            assertReadByteBuffer(expected, heap.slice());
+            assertReadByteBuffer(expected, heap);
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(padding + serialized.length);
+            direct.position(padding);
+            direct.put(serialized);
+            direct.position(padding);
+            assertReadByteBuffer(expected, direct);
+        }
+    }
+
+    private void assertReadByteBuffer(RevObject expected, ByteBuffer buffer) throws IOException {
+        final int position = buffer.position();
+        final int limit = buffer.limit();
+        RevObject actual = serializer.read(expected.getId(), buffer);
+        assertEquals(position, buffer.position());
+        assertEquals(limit, buffer.limit());
+        assertEquals(expected, actual);
+        assertEqualsFully(expected, actual);
+        // and the read object can be written back
+        assertEquals(expected, read(expected.getId(), write(actual)));
+    }
+
     public @Test void testTag() throws IOException {
         RevPerson tagger = RevPerson.builder().build("Gabriel Roldan", "gabe@example.com", 12345678,
                 -3);
@@ -732,6 +772,9 @@ public abstract class RevObjectSerializerConformanceTest {
         RevObject obj2 = serializer.read(id, bytes, 0, bytes.length);
         assertEquals(obj, obj2);
         assertEqualsFully(obj, obj2);
+        RevObject obj3 = serializer.read(id, ByteBuffer.wrap(bytes));
+        assertEquals(obj, obj3);
+        assertEqualsFully(obj, obj3);
         return obj;
     }
 
@@ -0,0 +1,165 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.test.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.plumbing.BuildChangedPathsOp;
+import org.locationtech.geogig.plumbing.ChangedPathsFilter;
+import org.locationtech.geogig.plumbing.RebuildGraphOp;
+import org.locationtech.geogig.plumbing.UpdateRef;
+import org.locationtech.geogig.porcelain.BranchCreateOp;
+import org.locationtech.geogig.porcelain.CheckoutOp;
+import org.locationtech.geogig.porcelain.LogOp;
+import org.locationtech.geogig.porcelain.MergeOp;
+import org.locationtech.geogig.storage.GraphDatabase;
+
+public class BuildChangedPathsOpTest extends RepositoryTestCase {
+
+    private GraphDatabase graph;
+
+    private RevCommit c1, c2, c3;
+
+    protected @Override void setUpInternal() throws Exception {
+        graph = repo.context().graphDatabase();
+        insertAndAdd(points1);
+        c1 = commit("points1");
+        insertAndAdd(points2);
+        c2 = commit("points2");
+        insertAndAdd(lines1);
+        c3 = commit("lines1");
+    }
+
+    private ChangedPathsFilter filter(RevCommit commit) {
+        return ChangedPathsFilter.load(graph, commit.getId()).get();
+    }
+
+    private void truncateGraph() {
+        graph.truncate();
+        repo.command(RebuildGraphOp.class).call();
+        assertFalse(ChangedPathsFilter.load(graph, c3.getId()).isPresent());
+    }
+
+    public @Test void testFiltersBuiltOnCommit() {
+        ChangedPathsFilter f1 = filter(c1);
+        assertTrue(f1.mightContain(pointsName));
+        assertTrue(f1.mightContain(NodeRef.appendChild(pointsName, idP1)));
+
+        ChangedPathsFilter f2 = filter(c2);
+        assertTrue(f2.mightContain(pointsName));
+        assertTrue(f2.mightContain(NodeRef.appendChild(pointsName, idP2)));
+        assertFalse(f2.mightContain(NodeRef.appendChild(pointsName, idP1)));
+        assertFalse(f2.mightContain(linesName));
+
+        ChangedPathsFilter f3 = filter(c3);
+        assertTrue(f3.mightContain(linesName));
+        assertTrue(f3.mightContain(NodeRef.appendChild(linesName, idL1)));
+        assertFalse(f3.mightContain(pointsName));
+    }
+
+    public @Test void testMergeCommitFilter() throws Exception {
+        repo.command(BranchCreateOp.class).setName("branch1").setAutoCheckout(true).call();
+        insertAndAdd(points3);
+        RevCommit branchCommit = commit("points3");
+        repo.command(CheckoutOp.class).setSource("master").call();
+        insertAndAdd(lines2);
+        commit("lines2");
+        RevCommit merge = repo.command(MergeOp.class).addCommit(branchCommit.getId()).call()
+                .getMergeCommit();
+        assertEquals(2, merge.getParentIds().size());
+
+        // changes against either parent are in the filter
+        ChangedPathsFilter filter = filter(merge);
+        assertTrue(filter.mightContain(NodeRef.appendChild(pointsName, idP3)));
+        assertTrue(filter.mightContain(NodeRef.appendChild(linesName, idL2)));
+        assertFalse(filter.mightContain(NodeRef.appendChild(pointsName, idP1)));
+    }
+
+    public @Test void testBackfill() {
+        final String path = NodeRef.appendChild(pointsName, idP2);
+        List<RevCommit> expected = toList(repo.command(LogOp.class).addPath(path).call());
+        assertEquals(List.of(c2), expected);
+
+        truncateGraph();
+        assertEquals(expected, toList(repo.command(LogOp.class).addPath(path).call()));
+
+        int built = repo.command(BuildChangedPathsOp.class).call();
+        assertEquals(3, built);
+        assertTrue(filter(c1).mightContain(pointsName));
+        assertEquals(expected, toList(repo.command(LogOp.class).addPath(path).call()));
+
+        assertEquals(0, repo.command(BuildChangedPathsOp.class).call().intValue());
+        assertEquals(3, repo.command(BuildChangedPathsOp.class).setForce(true).call().intValue());
+    }
+
+    public @Test void testFiltersOnlyBuiltForLocalBranches() {
+        truncateGraph();
+        repo.command(UpdateRef.class).setName(Ref.REMOTES_PREFIX + "origin/master")
+                .setNewValue(c3.getId()).setReason("test").call();
+        repo.command(UpdateRef.class).setName(Ref.TAGS_PREFIX + "v1").setNewValue(c3.getId())
+                .setReason("test").call();
+        assertFalse(ChangedPathsFilter.load(graph, c3.getId()).isPresent());
+
+        repo.command(UpdateRef.class).setName(Ref.HEADS_PREFIX + "other").setNewValue(c3.getId())
+                .setReason("test").call();
+        assertTrue(ChangedPathsFilter.load(graph, c3.getId()).isPresent());
+    }
+
+    public @Test void testLimit() {
+        truncateGraph();
+        int built = repo.command(BuildChangedPathsOp.class).addTip(c3.getId()).setLimit(2).call();
+        assertEquals(2, built);
+        assertTrue(ChangedPathsFilter.load(graph, c3.getId()).isPresent());
+        assertTrue(ChangedPathsFilter.load(graph, c2.getId()).isPresent());
+        assertFalse(ChangedPathsFilter.load(graph, c1.getId()).isPresent());
+
+        // incremental walk stops at the commits that already have a filter
+        built = repo.command(BuildChangedPathsOp.class).addTip(c3.getId()).setLimit(2).call();
+        assertEquals(0, built);
+
+        assertEquals(1, repo.command(BuildChangedPathsOp.class).call().intValue());
+        assertTrue(ChangedPathsFilter.load(graph, c1.getId()).isPresent());
+    }
+
+    public @Test void testEncodeDecode() {
+        Set<String> paths = Set.of("roads", "roads/1", "roads/2");
+        ChangedPathsFilter filter = ChangedPathsFilter.of(paths);
+        assertFalse(filter.isAllPaths());
+        ChangedPathsFilter decoded = ChangedPathsFilter.decode(filter.encode()).get();
+        paths.forEach(p -> assertTrue(decoded.mightContain(p)));
+        assertFalse(decoded.mightContain("roads/3"));
+        assertFalse(decoded.mightContainAny(List.of("buildings", "roads/3")));
+        assertTrue(decoded.mightContainAny(List.of("buildings", "roads/1")));
+
+        assertFalse(ChangedPathsFilter.decode(new byte[] { 0, 1 }).isPresent());
+        assertFalse(ChangedPathsFilter.decode(new byte[] { 1, 2 }).isPresent());
+    }
+
+    public @Test void testTooManyPaths() {
+        Set<String> paths = IntStream.rangeClosed(0, ChangedPathsFilter.MAX_PATHS)
+                .mapToObj(i -> "roads/" + i).collect(Collectors.toCollection(HashSet::new));
+        ChangedPathsFilter filter = ChangedPathsFilter.of(paths);
+        assertTrue(filter.isAllPaths());
+        assertTrue(filter.mightContain("any/path"));
+        assertTrue(ChangedPathsFilter.decode(filter.encode()).get().isAllPaths());
+    }
+}
@@ -0,0 +1,151 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.test.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.locationtech.geogig.feature.Feature;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.porcelain.BranchCreateOp;
+import org.locationtech.geogig.porcelain.BranchDeleteOp;
+import org.locationtech.geogig.porcelain.CheckoutOp;
+import org.locationtech.geogig.porcelain.GarbageCollectOp;
+import org.locationtech.geogig.porcelain.GarbageCollectOp.Result;
+import org.locationtech.geogig.porcelain.LogOp;
+import org.locationtech.geogig.porcelain.ResetOp;
+import org.locationtech.geogig.porcelain.ResetOp.ResetMode;
+import org.locationtech.geogig.storage.ObjectDatabase;
+import org.locationtech.geogig.transaction.GeogigTransaction;
+import org.locationtech.geogig.transaction.TransactionBegin;
+
+public class GarbageCollectOpTest extends RepositoryTestCase {
+
+    private ObjectDatabase odb;
+
+    protected @Override void setUpInternal() throws Exception {
+        odb = repo.context().objectDatabase();
+    }
+
+    @Test
+    public void testEmptyRepository() {
+        Result result = repo.command(GarbageCollectOp.class).call();
+        assertNotNull(result);
+        assertEquals(0, result.objects().unreachable());
+        assertEquals(0, result.objects().deleted());
+        assertEquals(0, result.index().unreachable());
+    }
+
+    @Test
+    public void testNothingToCollect() throws Exception {
+        List<RevCommit> commits = populate(true, points1, points2, lines1);
+        Result result = repo.command(GarbageCollectOp.class).call();
+        assertEquals(0, result.objects().unreachable());
+        assertEquals(0, result.objects().deleted());
+        assertTrue(result.objects().reachable() > commits.size());
+        assertFullyReachable(commits);
+    }
+
+    @Test
+    public void testUnreachableStagedChanges() throws Exception {
+        List<RevCommit> commits = populate(true, points1, points2);
+        ObjectId unreachableFeature = insertAndAdd(points1_modified);
+        assertTrue(odb.exists(unreachableFeature));
+
+        repo.command(ResetOp.class).setMode(ResetMode.HARD).call();
+
+        Result result = repo.command(GarbageCollectOp.class).dryRun(true).call();
+        assertTrue(result.dryRun());
+        final long unreachable = result.objects().unreachable();
+        assertTrue(unreachable > 0);
+        assertEquals(0, result.objects().deleted());
+        assertTrue(odb.exists(unreachableFeature));
+
+        result = repo.command(GarbageCollectOp.class).batchSize(1).call();
+        assertFalse(result.dryRun());
+        assertEquals(unreachable, result.objects().unreachable());
+        assertEquals(unreachable, result.objects().deleted());
+        assertFalse(odb.exists(unreachableFeature));
+        assertFullyReachable(commits);
+
+        result = repo.command(GarbageCollectOp.class).call();
+        assertEquals(0, result.objects().unreachable());
+    }
+
+    @Test
+    public void testDeletedBranch() throws Exception {
+        populate(true, points1);
+        repo.command(BranchCreateOp.class).setName("branch1").call();
+        repo.command(CheckoutOp.class).setSource("branch1").call();
+        List<RevCommit> branchCommits = populate(true, points2, points3);
+        repo.command(CheckoutOp.class).setSource("master").call();
+
+        Result result = repo.command(GarbageCollectOp.class).call();
+        assertEquals(0, result.objects().deleted());
+
+        repo.command(BranchDeleteOp.class).setName("branch1").call();
+        result = repo.command(GarbageCollectOp.class).call();
+        assertTrue(result.objects().deleted() > 0);
+        for (RevCommit c : branchCommits) {
+            assertFalse(odb.exists(c.getId()));
+        }
+        assertFalse(odb.exists(featureId(points2)));
+        assertTrue(odb.exists(featureId(points1)));
+        assertFullyReachable(repo.command(LogOp.class).call());
+    }
+
+    @Test
+    public void testTransactionRefsAreRoots() throws Exception {
+        List<RevCommit> commits = populate(true, points1);
+        GeogigTransaction tx = repo.command(TransactionBegin.class).call();
+        ObjectId txFeature = insertAndAdd(tx, points2);
+        RevCommit txCommit = commit(tx, "tx commit");
+
+        Result result = repo.command(GarbageCollectOp.class).call();
+        assertEquals(0, result.objects().deleted());
+        assertTrue(odb.exists(txFeature));
+        assertTrue(odb.exists(txCommit.getId()));
+        assertFullyReachable(commits);
+
+        tx.abort();
+        result = repo.command(GarbageCollectOp.class).call();
+        assertTrue(result.objects().deleted() > 0);
+        assertFalse(odb.exists(txFeature));
+        assertFalse(odb.exists(txCommit.getId()));
+        assertFullyReachable(commits);
+    }
+
+    private ObjectId featureId(Feature f) {
+        return featureInfo(f).getFeature().getId();
+    }
+
+    private void assertFullyReachable(List<RevCommit> commits) {
+        assertFullyReachable(commits.iterator());
+    }
+
+    private void assertFullyReachable(Iterator<RevCommit> commits) {
+        commits.forEachRemaining(c -> {
+            assertTrue(odb.exists(c.getId()));
+            RevTree tree = odb.getTree(c.getTreeId());
+            tree.forEachTree(n -> assertTrue(odb.exists(n.getObjectId())));
+            // trees are small enough to hold no buckets in these tests
+            tree.forEachTree(n -> odb.getTree(n.getObjectId())
+                    .forEachFeature(f -> assertTrue(odb.exists(f.getObjectId()))));
+        });
+    }
+}
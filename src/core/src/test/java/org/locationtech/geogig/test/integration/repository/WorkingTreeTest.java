@@ -16,6 +16,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.locationtech.geogig.model.NodeRef.appendChild;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -159,6 +160,97 @@ public class WorkingTreeTest extends RepositoryTestCase {
 
     }
 
+    @Test
+    public void testInsertParallel() throws Exception {
+        final List<Feature> features = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            features.add(feature(pointsType, "p" + i, "s" + i, i, "POINT(" + i + " " + i + ")"));
+            features.add(feature(linesType, "l" + i, "s" + i, i,
+                    "LINESTRING(" + i + " " + i + ", 0 0)"));
+        }
+        // make sure the feature types exist
+        featureInfo(points1);
+        featureInfo(lines1);
+
+        final ObjectId sequential = workTree.insert(features.iterator(), this::featureInfo, 1,
+                new DefaultProgressListener());
+
+        workTree.updateWorkHead(RevTree.EMPTY_TREE_ID, "reset");
+        assertTrue(workTree.getTree().isEmpty());
+
+        final ObjectId parallel = workTree.insert(features.iterator(), this::featureInfo, 4,
+                new DefaultProgressListener());
+        assertEquals(sequential, parallel);
+        assertEquals(5000, workTree.getTree().size());
+        for (Feature f : features.subList(0, 10)) {
+            FeatureInfo fi = featureInfo(f);
+            assertEquals(fi.getFeature().getId(),
+                    workTree.findUnstaged(fi.getPath()).get().getObjectId());
+        }
+    }
+
+    @Test
+    public void testInsertIngest() throws Exception {
+        final List<Feature> features = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            features.add(feature(pointsType, "p" + i, "s" + i, i, "POINT(" + i + " " + i + ")"));
+        }
+        featureInfo(points1);
+
+        final ObjectId inserted = workTree.insert(features.iterator(), this::featureInfo, 2,
+                new DefaultProgressListener());
+        workTree.updateWorkHead(RevTree.EMPTY_TREE_ID, "reset");
+
+        final ObjectId ingested = workTree.insert(features.iterator(), this::featureInfo, 2, true,
+                new DefaultProgressListener());
+        assertEquals(inserted, ingested);
+        for (Feature f : features.subList(0, 10)) {
+            FeatureInfo fi = featureInfo(f);
+            assertTrue(repo.context().objectDatabase().exists(fi.getFeature().getId()));
+        }
+    }
+
+    @Test
+    public void testInsertParallelIncludingFeatureToDelete() throws Exception {
+        insert(points1, points2);
+        List<Feature> featureList = new ArrayList<>();
+        featureList.add(new FeatureToDelete(idP1, pointsType));
+        featureList.add(points3);
+        featureList.add(new FeatureToDelete(idL1, linesType));
+
+        workTree.insert(featureList.iterator(), f -> {
+            String path = appendChild(f.getType().getName().getLocalPart(), f.getId());
+            return f instanceof FeatureToDelete ? FeatureInfo.delete(path) : featureInfo(f);
+        }, 2, new DefaultProgressListener());
+
+        assertFalse(workTree.findUnstaged(appendChild(pointsName, idP1)).isPresent());
+        assertTrue(workTree.findUnstaged(appendChild(pointsName, idP2)).isPresent());
+        assertTrue(workTree.findUnstaged(appendChild(pointsName, idP3)).isPresent());
+        assertFalse(workTree.findUnstaged(appendChild(linesName, idL1)).isPresent());
+    }
+
+    @Test
+    public void testInsertParallelFailure() throws Exception {
+        insert(points1);
+        final ObjectId workHead = workTree.getTree().getId();
+        final List<Feature> features = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            features.add(feature(pointsType, "p" + i, "s" + i, i, "POINT(" + i + " " + i + ")"));
+        }
+        try {
+            workTree.insert(features.iterator(), f -> {
+                if (f.getId().equals("p3000")) {
+                    throw new IllegalStateException("expected");
+                }
+                return featureInfo(f);
+            }, 4, new DefaultProgressListener());
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("expected", e.getMessage());
+        }
+        assertEquals(workHead, workTree.getTree().getId());
+    }
+
     @Test
     public void testDeleteSingle() throws Exception {
         List<Feature> featureList = new LinkedList<Feature>();
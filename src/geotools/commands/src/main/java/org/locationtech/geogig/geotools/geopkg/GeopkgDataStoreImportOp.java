@@ -97,7 +97,7 @@ public class GeopkgDataStoreImportOp extends DataStoreImportOp<RevCommit> {
         final ImportOp importOp = context.command(ImportOp.class);
         return importOp.setDataStore(dataStore).setTable(table).setAll(all).setOverwrite(!add)
                 .setAdaptToDefaultFeatureType(!forceFeatureType).setAlter(alter)
-                .setDestinationPath(dest).setFidAttribute(fidAttribute);
+                .setDestinationPath(dest).setFidAttribute(fidAttribute).setIngest(ingest);
     }
 
     private ForwardingFeatureIteratorProvider getFeatureIteratorTransformer(
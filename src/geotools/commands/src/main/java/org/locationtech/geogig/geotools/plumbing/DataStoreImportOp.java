@@ -77,6 +77,8 @@ public abstract class DataStoreImportOp<T> extends AbstractGeoGigOp<T> {
     @Nullable
     protected String fidAttribute;
 
+    protected boolean ingest = false;
+
     /**
      * Set the source {@link DataStore DataStore}, from which features should be imported.
      *
@@ -318,6 +320,22 @@ public abstract class DataStoreImportOp<T> extends AbstractGeoGigOp<T> {
         return this;
     }
 
+    /**
+     * Sets whether to save the imported features through a bulk load session of the object
+     * database, meant for large initial loads. The default is false.
+     *
+     * @param ingest True if the features should be bulk loaded, false to use the regular write
+     *        path of the object database.
+     *
+     * @return A reference to this operation.
+     *
+     * @see ImportOp#setIngest(boolean)
+     */
+    public DataStoreImportOp<T> setIngest(boolean ingest) {
+        this.ingest = ingest;
+        return this;
+    }
+
     protected @Override T _call() {
         SymRef originalHead = null;
         if (root != null) {
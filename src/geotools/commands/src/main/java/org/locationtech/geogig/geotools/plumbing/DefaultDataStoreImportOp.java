@@ -59,7 +59,7 @@ public class DefaultDataStoreImportOp extends DataStoreImportOp<RevCommit> {
         final ImportOp importOp = context.command(ImportOp.class);
         return importOp.setDataStore(dataStore).setTable(table).setAll(all).setOverwrite(!add)
                 .setAdaptToDefaultFeatureType(!forceFeatureType).setAlter(alter)
-                .setDestinationPath(dest).setFidAttribute(fidAttribute);
+                .setDestinationPath(dest).setFidAttribute(fidAttribute).setIngest(ingest);
     }
 
 }
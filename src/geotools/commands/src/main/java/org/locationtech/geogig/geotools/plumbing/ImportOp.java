@@ -67,6 +67,7 @@ import org.locationtech.geogig.repository.FeatureInfo;
 import org.locationtech.geogig.repository.ProgressListener;
 import org.locationtech.geogig.repository.WorkingTree;
 import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
+import org.locationtech.geogig.storage.ObjectDatabase;
 import org.locationtech.jts.geom.CoordinateSequenceFactory;
 import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
 import org.opengis.feature.Feature;
@@ -148,6 +149,18 @@ public class ImportOp extends AbstractGeoGigOp<RevTree> {
 
     private Filter filter = Filter.INCLUDE;
 
+    /**
+     * Number of threads to build, save, and index the imported features, {@code 0} meaning as many
+     * as available processors
+     */
+    private int parallelism = 0;
+
+    /**
+     * Whether to save the imported features through a bulk load session instead of the regular
+     * write path of the object database
+     */
+    private boolean ingest;
+
     /**
      * Executes the import operation using the parameters that have been specified. Features will be
      * added to the working tree, and a new working tree will be constructed. Either {@code all} or
@@ -549,8 +562,7 @@ public class ImportOp extends AbstractGeoGigOp<RevTree> {
                 }
             };
 
-            Iterator<FeatureInfo> infos = Iterators.transform(features, fn::apply);
-            workTree.insert(infos, taskProgress);
+            workTree.insert(features, fn::apply, parallelism, ingest, taskProgress);
         } catch (Exception e) {
             LOG.warn("Unable to insert into " + treePath, e);
             throw new GeoToolsOpException(e, StatusCode.UNABLE_TO_INSERT);
@@ -747,4 +759,35 @@ public class ImportOp extends AbstractGeoGigOp<RevTree> {
         this.filter = filter;
         return this;
     }
+
+    /**
+     * Sets the number of threads used to build, save, and index the imported features. The source
+     * features are always read from the calling thread.
+     * 
+     * @param parallelism the number of worker threads, {@code 0} (the default) meaning as many as
+     *        available processors, and {@code 1} meaning to do all the work on the calling thread
+     * @return {@code this}
+     */
+    public ImportOp setParallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism >= 0, "parallelism must be >= 0: %s",
+                parallelism);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets whether to save the imported features through a {@link ObjectDatabase#bulkIngest() bulk
+     * load session}, which storage backends may implement more efficiently than their regular write
+     * path (e.g. the RocksDB backend writes sorted SST files and ingests them directly), at the cost
+     * of the features becoming visible only once each feature type import finishes. Meant for large
+     * initial loads, the resulting repository is the same either way.
+     * 
+     * @param ingest whether to use a bulk load session to save the features, defaults to
+     *        {@code false}
+     * @return {@code this}
+     */
+    public ImportOp setIngest(boolean ingest) {
+        this.ingest = ingest;
+        return this;
+    }
 }
@@ -0,0 +1,172 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.geotools.data;
+
+import static org.locationtech.geogig.base.Preconditions.checkArgument;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.repository.DefaultProgressListener;
+import org.locationtech.geogig.repository.FeatureInfo;
+import org.locationtech.geogig.repository.WorkingTree;
+import org.opengis.feature.simple.SimpleFeature;
+
+import com.google.common.collect.Iterators;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Buffers the feature inserts, updates, and deletes performed through a
+ * {@link GeoGigFeatureWriter}, to apply them to the {@link WorkingTree} in batches instead of
+ * updating the feature type tree and root tree once per feature.
+ * <p>
+ * Only the latest edit to each feature is kept. Once {@code maxSize} edits are buffered they're
+ * applied to the target working tree, which when in a {@link GeogigTransactionState transaction}
+ * is the transaction's own working tree, so it acts as the spill storage for the edits that
+ * didn't fit in memory until the transaction is committed or rolled back.
+ * <p>
+ * The edits still in memory are not visible to the working tree, so feature reads in the same
+ * transaction shall either {@link #flush(WorkingTree) flush} the buffer or overlay the
+ * {@link #getEdits(String) pending edits} on top of the working tree contents.
+ *
+ * @since 2.0
+ */
+@Slf4j
+class FeatureWriteBuffer {
+
+    /**
+     * System property to set the maximum number of edits kept in memory per transaction
+     */
+    public static final String MAX_SIZE_PROPERTY = "geogig.datastore.writeBufferSize";
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final int maxSize;
+
+    // feature type tree path -> feature id -> latest edit
+    private final Map<String, Map<String, Edit>> edits = new LinkedHashMap<>();
+
+    private int size;
+
+    /**
+     * A buffered edit, either an insert or update of a feature, or a delete if
+     * {@link #getFeatureInfo() featureInfo} is {@code null}
+     */
+    @Value
+    static class Edit {
+
+        private @Nullable FeatureInfo featureInfo;
+
+        /**
+         * The feature as given to the writer, for reads to overlay it, {@code null} for deletes
+         */
+        private @Nullable SimpleFeature feature;
+
+        public boolean isDelete() {
+            return featureInfo == null;
+        }
+    }
+
+    public FeatureWriteBuffer() {
+        this(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+    }
+
+    public FeatureWriteBuffer(int maxSize) {
+        checkArgument(maxSize > 0, "maxSize shall be > 0");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Buffers the insert or update of a feature, flushing the buffer to {@code target} if full
+     */
+    public synchronized void insert(@NonNull WorkingTree target, @NonNull String treePath,
+            @NonNull FeatureInfo featureInfo, @NonNull SimpleFeature feature) {
+        put(target, treePath, feature.getID(), new Edit(featureInfo, feature));
+    }
+
+    /**
+     * Buffers the delete of a feature, flushing the buffer to {@code target} if full
+     */
+    public synchronized void delete(@NonNull WorkingTree target, @NonNull String treePath,
+            @NonNull String featureId) {
+        put(target, treePath, featureId, new Edit(null, null));
+    }
+
+    private void put(WorkingTree target, String treePath, String featureId, Edit edit) {
+        Map<String, Edit> typeEdits = edits.computeIfAbsent(treePath, p -> new LinkedHashMap<>());
+        if (null == typeEdits.put(featureId, edit)) {
+            ++size;
+        }
+        if (size >= maxSize) {
+            flush(target);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized boolean hasEdits(@NonNull String treePath) {
+        return edits.containsKey(treePath);
+    }
+
+    /**
+     * @return a snapshot of the pending edits for the given feature type tree, keyed by feature
+     *         id, in the order they were first made
+     */
+    public synchronized Map<String, Edit> getEdits(@NonNull String treePath) {
+        Map<String, Edit> typeEdits = edits.get(treePath);
+        return typeEdits == null ? Collections.emptyMap() : new LinkedHashMap<>(typeEdits);
+    }
+
+    /**
+     * Applies all the pending edits to {@code target}, with a single batch insert and a single
+     * batch delete per feature type tree, and clears the buffer
+     */
+    public synchronized void flush(@NonNull WorkingTree target) {
+        if (size == 0) {
+            return;
+        }
+        log.debug("Applying {} buffered edits to the working tree", size);
+        for (Map.Entry<String, Map<String, Edit>> e : edits.entrySet()) {
+            final String treePath = e.getKey();
+            final Map<String, Edit> typeEdits = e.getValue();
+
+            Iterator<FeatureInfo> inserts = typeEdits.values().stream()
+                    .filter(edit -> !edit.isDelete()).map(Edit::getFeatureInfo).iterator();
+            if (inserts.hasNext()) {
+                target.insert(inserts, DefaultProgressListener.NULL);
+            }
+            Iterator<String> deletes = Iterators.transform(
+                    Iterators.filter(typeEdits.entrySet().iterator(),
+                            edit -> edit.getValue().isDelete()),
+                    edit -> NodeRef.appendChild(treePath, edit.getKey()));
+            if (deletes.hasNext()) {
+                target.delete(deletes, DefaultProgressListener.NULL);
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Discards all the pending edits
+     */
+    public synchronized void clear() {
+        edits.clear();
+        size = 0;
+    }
+}
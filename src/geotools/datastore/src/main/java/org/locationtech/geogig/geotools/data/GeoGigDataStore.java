@@ -16,6 +16,7 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -34,10 +35,13 @@ import org.locationtech.geogig.geotools.adapt.GT;
 import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.model.RevObject;
 import org.locationtech.geogig.model.RevObject.TYPE;
 import org.locationtech.geogig.model.SymRef;
 import org.locationtech.geogig.plumbing.FindFeatureTypeTrees;
 import org.locationtech.geogig.plumbing.RefParse;
+import org.locationtech.geogig.plumbing.ResolveTreeish;
+import org.locationtech.geogig.plumbing.RevObjectParse;
 import org.locationtech.geogig.plumbing.RevParse;
 import org.locationtech.geogig.porcelain.AddOp;
 import org.locationtech.geogig.porcelain.CheckoutOp;
@@ -47,6 +51,7 @@ import org.locationtech.geogig.porcelain.index.Index;
 import org.locationtech.geogig.porcelain.index.UpdateIndexOp;
 import org.locationtech.geogig.repository.Context;
 import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
 import org.locationtech.geogig.repository.Repository;
 import org.locationtech.geogig.repository.WorkingTree;
 import org.locationtech.geogig.storage.IndexDatabase;
@@ -102,6 +107,11 @@ public class GeoGigDataStore extends ContentDataStore implements DataStore {
 
     private boolean closeOnDispose = true;
 
+    /**
+     * Metadata cached for the root tree the head last resolved to, for auto-commit requests
+     */
+    private final AtomicReference<RootTreeMetadata> rootTreeMetadata = new AtomicReference<>();
+
     public GeoGigDataStore(@NonNull Repository repository) {
         super();
         this.repository = repository;
@@ -256,10 +266,25 @@ public class GeoGigDataStore extends ContentDataStore implements DataStore {
 
     public NodeRef findTypeRef(@NonNull Name typeName, @Nullable Transaction tx)
             throws NoSuchElementException {
+        return findTypeRef(typeName, tx, getRootTreeMetadata(tx));
+    }
+
+    /**
+     * Same as {@link #findTypeRef(Name, Transaction)}, but using the root tree metadata the caller
+     * already {@link #getRootTreeMetadata(Transaction) resolved} for the request, instead of
+     * resolving the head again
+     */
+    NodeRef findTypeRef(@NonNull Name typeName, @Nullable Transaction tx,
+            @Nullable RootTreeMetadata metadata) throws NoSuchElementException {
 
         final String localName = typeName.getLocalPart();
-        List<NodeRef> typeRefs = findTypeRefs(tx);
-        NodeRef typeRef = findTypeRef(typeRefs, localName);
+        NodeRef typeRef;
+        if (metadata == null) {
+            List<NodeRef> typeRefs = findTypeRefs(tx);
+            typeRef = findTypeRef(typeRefs, localName);
+        } else {
+            typeRef = metadata.getTypeRef(localName).orElse(null);
+        }
         if (typeRef == null) {
             throw new NoSuchElementException(
                     String.format("No tree ref matched the name: %s", localName));
@@ -285,6 +310,10 @@ public class GeoGigDataStore extends ContentDataStore implements DataStore {
 
     private List<NodeRef> findTypeRefs(@Nullable Transaction tx) {
 
+        final RootTreeMetadata metadata = getRootTreeMetadata(tx);
+        if (metadata != null) {
+            return metadata.getTypeRefs();
+        }
         final String rootRef = getRootRef(tx);
 
         Context commandLocator = resolveContext(tx);
@@ -304,6 +333,62 @@ public class GeoGigDataStore extends ContentDataStore implements DataStore {
         return rootRef;
     }
 
+    /**
+     * Returns the cached metadata of the root tree the {@link #getOrFigureOutHead() head} resolves
+     * to, replacing it if the head moved since the last call.
+     * <p>
+     * Only auto-commit requests are served from the cache, since the root tree of a transaction's
+     * working tree changes with every edit.
+     * <p>
+     * Each call resolves the head, so callers shall call it once per request and pass the result
+     * down.
+     * 
+     * @return the root tree metadata, or {@code null} if {@code tx} is a transaction or the head
+     *         can't be resolved
+     */
+    @Nullable
+    RootTreeMetadata getRootTreeMetadata(@Nullable Transaction tx) {
+        if (null != tx && !Transaction.AUTO_COMMIT.equals(tx)) {
+            return null;
+        }
+        final Context context = resolveContext(null);
+        final String headSpec = getOrFigureOutHead();
+        if (headSpec == null) {
+            return null;
+        }
+        final Ref head = resolveHead(context, headSpec);
+        if (head == null) {
+            return null;
+        }
+        final RootTreeMetadata current = rootTreeMetadata.get();
+        if (current != null && current.getHead().equals(head)) {
+            return current;
+        }
+        final ObjectId rootTreeId = context.command(ResolveTreeish.class)
+                .setTreeish(head.getObjectId()).call().orElse(null);
+        if (rootTreeId == null) {
+            return null;
+        }
+        final RootTreeMetadata metadata;
+        if (current != null && current.getRootTreeId().equals(rootTreeId)) {
+            metadata = current.withHead(head);
+        } else {
+            metadata = RootTreeMetadata.load(context, head, rootTreeId);
+        }
+        rootTreeMetadata.set(metadata);
+        return metadata;
+    }
+
+    private @Nullable Ref resolveHead(Context context, String headSpec) {
+        Ref ref = context.command(RefParse.class).setName(headSpec).call().orElse(null);
+        if (ref != null) {
+            return ref.peel();
+        }
+        RevObject root = context.command(RevObjectParse.class).setRefSpec(headSpec).call()
+                .orElse(null);
+        return root == null ? null : new Ref(root.getType().toString(), root.getId());
+    }
+
     public GeogigFeatureStore getFeatureStore(String typeName) throws IOException {
         return (GeogigFeatureStore) getFeatureSource(typeName);
     }
@@ -456,7 +541,12 @@ public class GeoGigDataStore extends ContentDataStore implements DataStore {
     public Optional<ObjectId> createOrUpdateIndex(String layerName, String... extraAttributes) {
 
         String head = getOrFigureOutHead();
-        return createOrUpdateIndex(this.repository, head, layerName, extraAttributes);
+        try {
+            return createOrUpdateIndex(this.repository, head, layerName, extraAttributes);
+        } finally {
+            // the cached index infos and index trees are outdated
+            rootTreeMetadata.set(null);
+        }
     }
 
     public static Optional<ObjectId> createOrUpdateIndex(Repository repository,
@@ -492,6 +582,10 @@ public class GeoGigDataStore extends ContentDataStore implements DataStore {
 
         Context context = repository.context();
         for (IndexInfo indexInfo : indexInfos) {
+            if (IndexType.QUADTREE != indexInfo.getIndexType()) {
+                // attribute indexes are created explicitly, only manage the spatial index here
+                continue;
+            }
             // get any existing attributes that are already part of the index
             final Set<String> materializedAttributeNames = IndexInfo
                     .getMaterializedAttributeNames(indexInfo);
@@ -519,6 +613,8 @@ public class GeoGigDataStore extends ContentDataStore implements DataStore {
                     .setExtraAttributes(indexAttributes)
                     // set the layer/path
                     .setTreeRefSpec(treeRefSpec)
+                    // and the indexed attribute, in case there are other indexes for the layer
+                    .setAttributeName(indexInfo.getAttributeName())
                     // index the histroy as well
                     .setIndexHistory(true).call();
             return Optional.of(index.info().getId());
@@ -12,6 +12,7 @@ package org.locationtech.geogig.geotools.data;
 import java.io.IOException;
 import java.util.NoSuchElementException;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.FeatureWriter;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
@@ -28,7 +29,12 @@ import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 
 /**
- *
+ * {@link FeatureWriter} that {@link FeatureWriteBuffer buffers} the inserts, updates, and deletes
+ * to apply them to the {@link WorkingTree} in batches.
+ * <p>
+ * Inside a transaction the buffer is the {@link GeogigTransactionState#getWriteBuffer()
+ * transaction's}, flushed when the transaction is committed or a read requires it, otherwise the
+ * writer uses its own buffer and flushes it when {@link #close() closed}.
  */
 class GeoGigFeatureWriter implements FeatureWriter<SimpleFeatureType, SimpleFeature> {
 
@@ -44,25 +50,42 @@ class GeoGigFeatureWriter implements FeatureWriter<SimpleFeatureType, SimpleFeat
 
     private final FeatureType featureType;
 
+    private final FeatureWriteBuffer buffer;
+
+    // whether the buffer is owned by this writer and hence shall be flushed on close
+    private final boolean flushOnClose;
+
     private GeoGigFeatureWriter(final FeatureReader<SimpleFeatureType, SimpleFeature> reader,
-            final NodeRef typeRef, final WorkingTree workingTree) {
+            final NodeRef typeRef, final WorkingTree workingTree,
+            final @Nullable FeatureWriteBuffer transactionBuffer) {
         this.reader = reader;
         this.typePath = typeRef.path();
         this.featureTypeId = typeRef.metadataId();
         this.workingTree = workingTree;
         this.featureType = GT.adapt(reader.getFeatureType());
+        this.flushOnClose = transactionBuffer == null;
+        this.buffer = flushOnClose ? new FeatureWriteBuffer() : transactionBuffer;
     }
 
+    /**
+     * @param transactionBuffer the transaction's write buffer, or {@code null} if not in a
+     *        transaction
+     */
     public static GeoGigFeatureWriter create(
             final FeatureReader<SimpleFeatureType, SimpleFeature> reader, final NodeRef typeRef,
-            final WorkingTree workingTree) {
-        return new GeoGigFeatureWriter(reader, typeRef, workingTree);
+            final WorkingTree workingTree, @Nullable FeatureWriteBuffer transactionBuffer) {
+        return new GeoGigFeatureWriter(reader, typeRef, workingTree, transactionBuffer);
     }
 
+    /**
+     * @param transactionBuffer the transaction's write buffer, or {@code null} if not in a
+     *        transaction
+     */
     public static GeoGigFeatureWriter createAppendable(
             FeatureReader<SimpleFeatureType, SimpleFeature> reader, NodeRef typeRef,
-            WorkingTree workingTree) {
-        return new GeoGigFeatureWriter(new InfiniteFeatureReader(reader), typeRef, workingTree);
+            WorkingTree workingTree, @Nullable FeatureWriteBuffer transactionBuffer) {
+        return new GeoGigFeatureWriter(new InfiniteFeatureReader(reader), typeRef, workingTree,
+                transactionBuffer);
     }
 
     public @Override SimpleFeatureType getFeatureType() {
@@ -80,9 +103,8 @@ class GeoGigFeatureWriter implements FeatureWriter<SimpleFeatureType, SimpleFeat
 
     public @Override void remove() throws IOException {
         Preconditions.checkState(last != null, "next() hasn't been called");
-        String path = typePath;
         String featureId = last.getID();
-        workingTree.delete(path, featureId);
+        buffer.delete(workingTree, typePath, featureId);
     }
 
     public @Override void write() throws IOException {
@@ -92,11 +114,15 @@ class GeoGigFeatureWriter implements FeatureWriter<SimpleFeatureType, SimpleFeat
         RevFeature feature = RevFeature.builder().build(lastF);
         String path = NodeRef.appendChild(parentTreePath, last.getID());
         FeatureInfo fi = FeatureInfo.insert(feature, featureTypeId, path);
-        workingTree.insert(fi);
+        // keep a copy for reads to overlay it, the writer's feature may be reused
+        SimpleFeature copy = SimpleFeatureBuilder.copy(last);
+        buffer.insert(workingTree, parentTreePath, fi, copy);
     }
 
     public @Override void close() throws IOException {
-        //
+        if (flushOnClose) {
+            buffer.flush(workingTree);
+        }
     }
 
     private static final class InfiniteFeatureReader
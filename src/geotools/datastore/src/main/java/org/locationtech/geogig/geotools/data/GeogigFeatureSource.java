@@ -14,6 +14,7 @@ import static org.locationtech.geogig.base.Preconditions.checkArgument;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -35,7 +36,9 @@ import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.util.factory.Hints;
 import org.locationtech.geogig.base.Preconditions;
 import org.locationtech.geogig.geotools.adapt.GT;
+import org.locationtech.geogig.geotools.data.FeatureWriteBuffer.Edit;
 import org.locationtech.geogig.geotools.data.reader.FeatureReaderBuilder;
+import org.locationtech.geogig.geotools.data.reader.FeatureReaderBuilder.Aggregates;
 import org.locationtech.geogig.geotools.data.reader.WalkInfo;
 import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.ObjectId;
@@ -103,8 +106,12 @@ public class GeogigFeatureSource extends ContentFeatureSource {
         return true;
     }
 
+    /**
+     * @return {@code true}, features are sorted by their non geometry attributes before fetching
+     *         them, the natural order being the order of the feature tree
+     */
     protected @Override boolean canSort() {
-        return false;
+        return true;
     }
 
     /**
@@ -176,6 +183,7 @@ public class GeogigFeatureSource extends ContentFeatureSource {
     }
 
     protected @Override ReferencedEnvelope getBoundsInternal(Query query) throws IOException {
+        flushPendingEdits();
         final Filter filter = (Filter) query.getFilter().accept(new SimplifyingFilterVisitor(),
                 null);
         final CoordinateReferenceSystem crs = getSchema().getCoordinateReferenceSystem();
@@ -192,6 +200,13 @@ public class GeogigFeatureSource extends ContentFeatureSource {
         query = new Query(query);
         query.setPropertyNames(Query.NO_NAMES);
 
+        if (query.getStartIndex() == null && query.isMaxFeaturesUnlimited()) {
+            Optional<Aggregates> aggregates = aggregate(query);
+            if (aggregates.isPresent()) {
+                return aggregates.get().getBounds();
+            }
+        }
+
         ReferencedEnvelope bounds = new ReferencedEnvelope(crs);
         try (FeatureReader<SimpleFeatureType, SimpleFeature> features = getNativeReader(query,
                 false)) {
@@ -204,6 +219,7 @@ public class GeogigFeatureSource extends ContentFeatureSource {
     }
 
     protected @Override int getCountInternal(Query query) throws IOException {
+        flushPendingEdits();
         final Filter filter = (Filter) query.getFilter().accept(new SimplifyingFilterVisitor(),
                 null);
         if (Filter.EXCLUDE.equals(filter)) {
@@ -231,6 +247,11 @@ public class GeogigFeatureSource extends ContentFeatureSource {
         query.setPropertyNames(Query.NO_NAMES);
         query.setSortBy(null);
 
+        Optional<Aggregates> aggregates = aggregate(query);
+        if (aggregates.isPresent()) {
+            return (int) aggregates.get().getCount();
+        }
+
         int count = 0;
         try (FeatureReader<SimpleFeatureType, SimpleFeature> features = getNativeReader(query,
                 false)) {
@@ -245,8 +266,28 @@ public class GeogigFeatureSource extends ContentFeatureSource {
     protected @Override FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(
             final Query query) throws IOException {
 
+        // edits pending in the transaction's write buffer can only be overlaid on a plain query,
+        // otherwise apply them to the working tree before querying it
+        final Optional<GeogigTransactionState> txState = getTransactionState();
+        final String typeTreePath = getTypeTreePath();
+        final boolean overlay;
+        if (txState.isPresent() && txState.get().getWriteBuffer().hasEdits(typeTreePath)) {
+            SortBy[] sortBy = query.getSortBy();
+            overlay = (sortBy == null || sortBy.length == 0) && query.getStartIndex() == null
+                    && query.isMaxFeaturesUnlimited();
+            if (!overlay) {
+                txState.get().flushWriteBuffer();
+            }
+        } else {
+            overlay = false;
+        }
+
         FeatureReader<SimpleFeatureType, SimpleFeature> featureReader;
         featureReader = getNativeReader(query, true);
+        if (overlay) {
+            Map<String, Edit> edits = txState.get().getWriteBuffer().getEdits(typeTreePath);
+            featureReader = new PendingEditsFeatureReader(featureReader, edits, query.getFilter());
+        }
 
         // do retyping to satisfy the Query's requested set of properties in the requested order
         final SimpleFeatureType resultSchema = featureReader.getFeatureType();
@@ -280,9 +321,19 @@ public class GeogigFeatureSource extends ContentFeatureSource {
     }
 
     public @VisibleForTesting @Override boolean handleVisitor(Query query, FeatureVisitor visitor) {
+        flushPendingEdits();
         return visitorHandler.handle(visitor, query, this);
     }
 
+    /**
+     * @return the count and bounds of the features matching the query, if they can be computed out
+     *         of the feature tree or index nodes alone
+     * @see FeatureReaderBuilder#aggregate()
+     */
+    private Optional<Aggregates> aggregate(final Query query) {
+        return createReaderBuilder(query).aggregate();
+    }
+
     /**
      * @return a FeatureReader that can fully satisfy the Query's filter and who'se output schema
      *         contains the subset of properties requested by the query's
@@ -293,6 +344,19 @@ public class GeogigFeatureSource extends ContentFeatureSource {
     private FeatureReader<SimpleFeatureType, SimpleFeature> getNativeReader(final Query query,
             final boolean retypeIfNeeded) throws IOException {
 
+        FeatureReaderBuilder builder = createReaderBuilder(query);
+        FeatureReader<SimpleFeatureType, SimpleFeature> featureReader = builder//
+                .retypeIfNeeded(retypeIfNeeded)//
+                .build();
+
+        if (query.getHints().containsKey(GeogigFeatureSource.WALK_INFO_KEY)) {
+            WALK_INFO.set(builder.getBuiltWalkInfo());
+        }
+        return featureReader;
+
+    }
+
+    private FeatureReaderBuilder createReaderBuilder(final Query query) {
         final Context context = getCommandLocator();
 
         final Hints hints = query.getHints();
@@ -312,15 +376,15 @@ public class GeogigFeatureSource extends ContentFeatureSource {
 
         final Filter filter = query.getFilter();
 
-        final RevFeatureType nativeType = getNativeType();
-        final NodeRef typeRef = this.getTypeRef();
-
-        FeatureReaderBuilder builder = FeatureReaderBuilder.builder(context, nativeType, typeRef);
+        final @Nullable RootTreeMetadata metadata = getRootTreeMetadata();
+        final RevFeatureType nativeType = getNativeType(metadata);
+        final NodeRef typeRef = this.getTypeRef(metadata);
 
-        FeatureReader<SimpleFeatureType, SimpleFeature> featureReader = builder//
+        final FeatureReaderBuilder builder = FeatureReaderBuilder
+                .builder(context, nativeType, typeRef)//
                 .targetSchema(getSchema())//
                 .filter(filter)//
-                .headRef(getRootRef())//
+                .metadata(metadata)//
                 // .oldHeadRef(oldRoot())//
                 // .changeType(changeType())//
                 .geometryFactory(geometryFactory)//
@@ -330,21 +394,19 @@ public class GeogigFeatureSource extends ContentFeatureSource {
                 .limit(limit)//
                 .propertyNames(propertyNames)//
                 .screenMap(screenMap)//
-                .sortBy(sortBy)//
-                .retypeIfNeeded(retypeIfNeeded)//
-                .build();
-
-        if (query.getHints().containsKey(GeogigFeatureSource.WALK_INFO_KEY)) {
-            WALK_INFO.set(builder.getBuiltWalkInfo());
+                .sortBy(sortBy);
+        if (metadata == null) {
+            builder.headRef(getRootRef());
         }
-        return featureReader;
-
+        return builder;
     }
 
     protected @Override SimpleFeatureType buildFeatureType() throws IOException {
 
-        RevFeatureType nativeType = getNativeType();
-        SimpleFeatureType featureType = GT.adapt(nativeType.type());
+        RootTreeMetadata metadata = getRootTreeMetadata();
+        RevFeatureType nativeType = getNativeType(metadata);
+        SimpleFeatureType featureType = metadata == null ? GT.adapt(nativeType.type())
+                : metadata.getFeatureType(nativeType);
 
         final org.opengis.feature.type.Name name = featureType.getName();
         final org.opengis.feature.type.Name assignedName = getEntry().getName();
@@ -364,11 +426,23 @@ public class GeogigFeatureSource extends ContentFeatureSource {
     }
 
     RevFeatureType getNativeType() {
+        GeogigContentState state = (GeogigContentState) getEntry().getState(getTransaction());
+        RevFeatureType nativeType = state.getNativeType();
+        if (nativeType == null) {
+            nativeType = getNativeType(getRootTreeMetadata());
+        }
+        return nativeType;
+    }
+
+    /**
+     * @param metadata the root tree metadata already resolved for the current request, if any
+     */
+    RevFeatureType getNativeType(@Nullable RootTreeMetadata metadata) {
 
         GeogigContentState state = (GeogigContentState) getEntry().getState(getTransaction());
         RevFeatureType nativeType = state.getNativeType();
         if (nativeType == null) {
-            final NodeRef typeRef = getTypeRef();
+            final NodeRef typeRef = getTypeRef(metadata);
             final ObjectId metadataId = typeRef.metadataId();
 
             Context context = getCommandLocator();
@@ -388,16 +462,28 @@ public class GeogigFeatureSource extends ContentFeatureSource {
      * @return
      */
     public NodeRef getTypeRef() {
+        return getTypeRef(getRootTreeMetadata());
+    }
+
+    /**
+     * @param metadata the root tree metadata already resolved for the current request, if any
+     */
+    NodeRef getTypeRef(@Nullable RootTreeMetadata metadata) {
         GeoGigDataStore dataStore = getDataStore();
         org.opengis.feature.type.Name name = getName();
         Transaction transaction = getTransaction();
-        return dataStore.findTypeRef(name, transaction);
+        return dataStore.findTypeRef(name, transaction, metadata);
     }
 
     /**
      * @return
      */
     RevTree getTypeTree() {
+        final RootTreeMetadata metadata = getRootTreeMetadata();
+        if (metadata != null) {
+            NodeRef typeRef = getTypeRef(metadata);
+            return getCommandLocator().objectDatabase().getTree(typeRef.getObjectId());
+        }
         String refSpec = getRootRef() + ":" + getTypeTreePath();
         Context commandLocator = getCommandLocator();
         Optional<RevTree> ref = commandLocator.command(RevObjectParse.class).setRefSpec(refSpec)
@@ -412,6 +498,35 @@ public class GeogigFeatureSource extends ContentFeatureSource {
         return dataStore.getRootRef(transaction);
     }
 
+    /**
+     * @return the cached metadata of the data store's root tree, or {@code null} if not in
+     *         auto-commit mode
+     */
+    @Nullable
+    RootTreeMetadata getRootTreeMetadata() {
+        return getDataStore().getRootTreeMetadata(getTransaction());
+    }
+
+    /**
+     * @return the state of the current transaction, if not in auto-commit mode
+     */
+    Optional<GeogigTransactionState> getTransactionState() {
+        Transaction transaction = getTransaction();
+        if (transaction == null || Transaction.AUTO_COMMIT.equals(transaction)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((GeogigTransactionState) transaction
+                .getState(GeogigTransactionState.class));
+    }
+
+    /**
+     * Applies the edits pending in the current transaction's write buffer, if any, to the
+     * transaction's working tree
+     */
+    void flushPendingEdits() {
+        getTransactionState().ifPresent(GeogigTransactionState::flushWriteBuffer);
+    }
+
     /**
      * @return
      */
@@ -212,12 +212,14 @@ public class GeogigFeatureStore extends ContentFeatureStore {
 
         final NodeRef typeRef = delegate.getTypeRef();
         WorkingTree wtree = getFeatureSource().getWorkingTree();
+        FeatureWriteBuffer buffer = delegate.getTransactionState()
+                .map(GeogigTransactionState::getWriteBuffer).orElse(null);
 
         GeoGigFeatureWriter writer;
         if ((flags | WRITER_ADD) == WRITER_ADD) {
-            writer = GeoGigFeatureWriter.createAppendable(features, typeRef, wtree);
+            writer = GeoGigFeatureWriter.createAppendable(features, typeRef, wtree, buffer);
         } else {
-            writer = GeoGigFeatureWriter.create(features, typeRef, wtree);
+            writer = GeoGigFeatureWriter.create(features, typeRef, wtree, buffer);
         }
         return writer;
     }
@@ -228,6 +230,8 @@ public class GeogigFeatureStore extends ContentFeatureStore {
 
         // Preconditions.checkState(getDataStore().isAllowTransactions(),
         // "Transactions not supported; head is not a local branch");
+        // keep the order of edits with the ones pending in the transaction's write buffer
+        delegate.flushPendingEdits();
         final WorkingTree workingTree = delegate.getWorkingTree();
 
         ProgressListener listener = new DefaultProgressListener();
@@ -343,6 +347,7 @@ public class GeogigFeatureStore extends ContentFeatureStore {
         Preconditions.checkState(getDataStore().isAllowTransactions(),
                 "Transactions not supported; head is not a local branch");
 
+        delegate.flushPendingEdits();
         final WorkingTree workingTree = delegate.getWorkingTree();
         final FeatureType nativeSchema = delegate.getNativeType().type();
         final NodeRef typeRef = delegate.getTypeRef();
@@ -412,6 +417,7 @@ public class GeogigFeatureStore extends ContentFeatureStore {
     public @Override void removeFeatures(Filter filter) throws IOException {
         Preconditions.checkState(getDataStore().isAllowTransactions(),
                 "Transactions not supported; head is not a local branch");
+        delegate.flushPendingEdits();
         final WorkingTree workingTree = delegate.getWorkingTree();
         final String typeTreePath = delegate.getTypeTreePath();
         filter = (Filter) filter.accept(new SimplifyingFilterVisitor(), null);
@@ -155,7 +155,8 @@ class GeogigFeatureVisitorHandler {
     private @Nullable NavigableSet<Object> getUniqueValues(String propertyName, Filter filter,
             GeogigFeatureSource source) {
 
-        final NodeRef typeRef = source.getTypeRef();
+        final @Nullable RootTreeMetadata metadata = source.getRootTreeMetadata();
+        final NodeRef typeRef = source.getTypeRef(metadata);
         final Key key = Key.of(typeRef, propertyName);
         if (Filter.INCLUDE.equals(filter)) {
             NavigableSet<Object> cached = uniqueValuesCache.getIfPresent(key);
@@ -165,14 +166,17 @@ class GeogigFeatureVisitorHandler {
         }
 
         final Context context = source.getCommandLocator();
-        final RevFeatureType nativeType = source.getNativeType();
+        final RevFeatureType nativeType = source.getNativeType(metadata);
 
         final FeatureReaderBuilder builder;
         builder = FeatureReaderBuilder.builder(context, nativeType, typeRef);
+        if (metadata == null) {
+            builder.headRef(source.getRootRef());
+        }
         WalkInfo walkInfo = builder//
                 .targetSchema(source.getSchema())//
                 .filter(filter)//
-                .headRef(source.getRootRef())//
+                .metadata(metadata)//
                 .propertyNames(propertyName)//
                 .retypeIfNeeded(false)// don't force retyping, we don't need to return the schema
                                       // matching Query properties
@@ -49,6 +49,8 @@ class GeogigTransactionState implements State {
 
     private Transaction tx;
 
+    private final FeatureWriteBuffer writeBuffer = new FeatureWriteBuffer();
+
     /**
      * @param entry
      */
@@ -60,6 +62,24 @@ class GeogigTransactionState implements State {
         return Optional.ofNullable(this.geogigTx);
     }
 
+    /**
+     * @return the buffer for the edits made through {@link GeoGigFeatureWriter}s in this
+     *         transaction that haven't been applied to the transaction's working tree yet
+     */
+    FeatureWriteBuffer getWriteBuffer() {
+        return writeBuffer;
+    }
+
+    /**
+     * Applies the {@link #getWriteBuffer() buffered edits} to the transaction's working tree, for
+     * it to reflect all the edits made in this transaction
+     */
+    void flushWriteBuffer() {
+        if (this.geogigTx != null) {
+            writeBuffer.flush(this.geogigTx.workingTree());
+        }
+    }
+
     public @Override void setTransaction(@Nullable final Transaction transaction) {
         Preconditions.checkArgument(!Transaction.AUTO_COMMIT.equals(transaction));
 
@@ -68,6 +88,7 @@ class GeogigTransactionState implements State {
                     "New transaction set without closing old transaction first.");
         }
         this.tx = transaction;
+        writeBuffer.clear();
 
         if (transaction == null) {
             // Transaction.removeState has been called (during
@@ -109,6 +130,7 @@ class GeogigTransactionState implements State {
         final String author = fullName.isPresent() ? fullName.get() : txUserName.orElse(null);
         String commitMessage = getTransactionProperty(VERSIONING_COMMIT_MESSAGE).orElse(null);
 
+        flushWriteBuffer();
         this.geogigTx.command(AddOp.class).call();
         try {
             CommitOp commitOp = this.geogigTx.command(CommitOp.class);
@@ -189,6 +211,7 @@ class GeogigTransactionState implements State {
 
     public @Override void rollback() throws IOException {
         Preconditions.checkState(this.geogigTx != null);
+        writeBuffer.clear();
         this.geogigTx.abort();
         this.geogigTx = null;
     }
@@ -0,0 +1,109 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.geotools.data;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.geotools.data.FeatureReader;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.locationtech.geogig.geotools.data.FeatureWriteBuffer.Edit;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+
+import com.google.common.collect.Iterators;
+
+import lombok.NonNull;
+
+/**
+ * Overlays the {@link FeatureWriteBuffer pending edits} of a transaction on top of the features
+ * read from the transaction's working tree: features with a pending edit are skipped, and the
+ * pending inserts and updates that match the query filter are returned after the working tree
+ * ones.
+ * <p>
+ * Hence it's only suitable for queries with no sorting, offset, or limit.
+ *
+ * @since 2.0
+ */
+class PendingEditsFeatureReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+    private final FeatureReader<SimpleFeatureType, SimpleFeature> delegate;
+
+    private final Map<String, Edit> edits;
+
+    private final Filter filter;
+
+    private final SimpleFeatureType featureType;
+
+    private Iterator<SimpleFeature> pending;
+
+    private SimpleFeature next;
+
+    /**
+     * @param delegate the reader for the working tree features matching {@code filter}
+     * @param edits a snapshot of the pending edits keyed by feature id
+     * @param filter the query filter to evaluate on the pending inserts and updates
+     */
+    public PendingEditsFeatureReader(
+            @NonNull FeatureReader<SimpleFeatureType, SimpleFeature> delegate,
+            @NonNull Map<String, Edit> edits, @NonNull Filter filter) {
+        this.delegate = delegate;
+        this.edits = edits;
+        this.filter = filter;
+        this.featureType = delegate.getFeatureType();
+    }
+
+    public @Override SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    public @Override boolean hasNext() throws IOException {
+        if (next == null) {
+            next = computeNext();
+        }
+        return next != null;
+    }
+
+    public @Override SimpleFeature next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SimpleFeature feature = next;
+        next = null;
+        return feature;
+    }
+
+    private SimpleFeature computeNext() throws IOException {
+        if (pending == null) {
+            while (delegate.hasNext()) {
+                SimpleFeature feature = delegate.next();
+                if (!edits.containsKey(feature.getID())) {
+                    return feature;
+                }
+            }
+            Iterator<SimpleFeature> upserts = Iterators.transform(edits.values().iterator(),
+                    Edit::getFeature);
+            pending = Iterators.filter(upserts, f -> f != null && filter.evaluate(f));
+        }
+        if (pending.hasNext()) {
+            SimpleFeature feature = pending.next();
+            // the working tree reader may return only a subset of the attributes
+            return SimpleFeatureBuilder.retype(feature, featureType);
+        }
+        return null;
+    }
+
+    public @Override void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,151 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.geotools.data;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.locationtech.geogig.geotools.adapt.GT;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.model.RevFeatureType;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.plumbing.FindFeatureTypeTrees;
+import org.locationtech.geogig.repository.Context;
+import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.storage.IndexDatabase;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Cache of the metadata a {@link GeoGigDataStore} resolves out of the root tree its head points
+ * to: the feature type tree refs, and as they're requested, the {@link SimpleFeatureType}s adapted
+ * from the native feature types, the {@link IndexInfo index infos} of each feature type tree, and
+ * the index trees resolved for each feature type tree.
+ * <p>
+ * Since all of it is immutable for a given root tree, the data store keeps using the same instance
+ * for as long as its head resolves to the same root tree id, and replaces it as soon as the head
+ * moves, saving the resolution of the head commit, root tree, feature type trees, feature types,
+ * and index trees on every request. Index infos are the exception, as they can change for the same
+ * root tree; the data store discards the cache when creating or updating an index, but indexes
+ * created by other means are only noticed once the head moves.
+ * <p>
+ * Only index trees that were found are cached, since a missing index tree may be being built in
+ * the background.
+ *
+ * @since 2.0
+ */
+public final class RootTreeMetadata {
+
+    /**
+     * The resolved head ref, pointing to the commit or tree whose root tree this cache is for
+     */
+    private final @Getter Ref head;
+
+    private final @Getter ObjectId rootTreeId;
+
+    // type tree local name -> type tree ref, in FindFeatureTypeTrees order
+    private final Map<String, NodeRef> typeRefs;
+
+    // feature type id -> adapted feature type
+    private final ConcurrentMap<ObjectId, SimpleFeatureType> featureTypes;
+
+    // type tree path -> index infos
+    private final ConcurrentMap<String, List<IndexInfo>> indexInfos;
+
+    // [index info id, canonical tree id] -> index tree id
+    private final ConcurrentMap<List<ObjectId>, ObjectId> indexTrees;
+
+    private RootTreeMetadata(Ref head, ObjectId rootTreeId, Map<String, NodeRef> typeRefs,
+            ConcurrentMap<ObjectId, SimpleFeatureType> featureTypes,
+            ConcurrentMap<String, List<IndexInfo>> indexInfos,
+            ConcurrentMap<List<ObjectId>, ObjectId> indexTrees) {
+        this.head = head;
+        this.rootTreeId = rootTreeId;
+        this.typeRefs = typeRefs;
+        this.featureTypes = featureTypes;
+        this.indexInfos = indexInfos;
+        this.indexTrees = indexTrees;
+    }
+
+    /**
+     * Resolves the feature type trees of the given root tree
+     */
+    static RootTreeMetadata load(@NonNull Context context, @NonNull Ref head,
+            @NonNull ObjectId rootTreeId) {
+        RevTree rootTree = context.objectDatabase().getTree(rootTreeId);
+        List<NodeRef> refs = context.command(FindFeatureTypeTrees.class).setRootTree(rootTree)
+                .call();
+        Map<String, NodeRef> typeRefs = new LinkedHashMap<>();
+        for (NodeRef ref : refs) {
+            typeRefs.putIfAbsent(NodeRef.nodeFromPath(ref.path()), ref);
+        }
+        return new RootTreeMetadata(head, rootTreeId, Collections.unmodifiableMap(typeRefs),
+                new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @return a cache for a different head that resolves to the same root tree, sharing this
+     *         cache's contents
+     */
+    RootTreeMetadata withHead(@NonNull Ref head) {
+        return new RootTreeMetadata(head, rootTreeId, typeRefs, featureTypes, indexInfos,
+                indexTrees);
+    }
+
+    public List<NodeRef> getTypeRefs() {
+        return List.copyOf(typeRefs.values());
+    }
+
+    public Optional<NodeRef> getTypeRef(@NonNull String localName) {
+        return Optional.ofNullable(typeRefs.get(localName));
+    }
+
+    /**
+     * @return the GeoTools feature type adapted from {@code nativeType}
+     */
+    public SimpleFeatureType getFeatureType(@NonNull RevFeatureType nativeType) {
+        return featureTypes.computeIfAbsent(nativeType.getId(), id -> GT.adapt(nativeType.type()));
+    }
+
+    public List<IndexInfo> getIndexInfos(@NonNull IndexDatabase db, @NonNull String treePath) {
+        return indexInfos.computeIfAbsent(treePath, path -> List.copyOf(db.getIndexInfos(path)));
+    }
+
+    public Optional<IndexInfo> getIndexInfo(@NonNull IndexDatabase db, @NonNull String treePath,
+            @NonNull String attributeName) {
+        return getIndexInfos(db, treePath).stream()
+                .filter(info -> attributeName.equals(info.getAttributeName())).findFirst();
+    }
+
+    /**
+     * @see IndexDatabase#resolveIndexedTree(IndexInfo, ObjectId)
+     */
+    public Optional<ObjectId> resolveIndexedTree(@NonNull IndexDatabase db,
+            @NonNull IndexInfo index, @NonNull ObjectId canonicalTreeId) {
+        final List<ObjectId> key = List.of(index.getId(), canonicalTreeId);
+        ObjectId indexTree = indexTrees.get(key);
+        if (indexTree == null) {
+            indexTree = db.resolveIndexedTree(index, canonicalTreeId).orElse(null);
+            if (indexTree != null) {
+                indexTrees.put(key, indexTree);
+            }
+        }
+        return Optional.ofNullable(indexTree);
+    }
+}
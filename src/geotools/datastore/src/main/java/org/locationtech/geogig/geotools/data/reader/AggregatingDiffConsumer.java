@@ -0,0 +1,95 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.geotools.data.reader;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.Bounded;
+import org.locationtech.geogig.model.Bucket;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk;
+import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk.BucketIndex;
+import org.locationtech.geogig.storage.ObjectStore;
+import org.locationtech.jts.geom.Envelope;
+
+import lombok.NonNull;
+
+/**
+ * Accumulates the count and bounds of the features reported by a tree walk, short-circuiting the
+ * buckets whose bounds are fully contained in a given envelope, whose features are then accounted
+ * for using their {@link RevTree#size() size} and bounds without traversing them.
+ * <p>
+ * Meant to wrap the consumer of a {@link PreOrderDiffWalk} of a quad-tree index, whose buckets
+ * only contain features with non empty bounds, when the query filter is a plain bounding box
+ * filter, so that all the features in a contained bucket are known to match it.
+ * <p>
+ * The features that are not short-circuited are passed down to the delegate consumer, and it's up
+ * to the caller to {@link #add(NodeRef) add} them if they pass all the filters.
+ */
+class AggregatingDiffConsumer extends PreOrderDiffWalk.ForwardingConsumer {
+
+    private final @Nullable Envelope containedIn;
+
+    private final ObjectStore source;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final Envelope bounds = new Envelope();
+
+    /**
+     * @param containedIn the envelope buckets shall be contained in to be short-circuited,
+     *        {@code null} to visit all the features
+     * @param source where to get the bucket trees from
+     */
+    AggregatingDiffConsumer(@Nullable Envelope containedIn, @NonNull ObjectStore source) {
+        this.containedIn = containedIn;
+        this.source = source;
+    }
+
+    public @Override boolean bucket(NodeRef leftParent, NodeRef rightParent,
+            BucketIndex bucketIndex, @Nullable Bucket left, @Nullable Bucket right) {
+        if (containedIn != null && left == null && right != null) {
+            Envelope bucketBounds = right.bounds().orElse(null);
+            if (bucketBounds != null && containedIn.contains(bucketBounds)) {
+                RevTree bucketTree = source.getTree(right.getObjectId());
+                count.addAndGet(bucketTree.size());
+                expand(right);
+                return false;
+            }
+        }
+        return super.bucket(leftParent, rightParent, bucketIndex, left, right);
+    }
+
+    /**
+     * Accounts for a feature that passed all the filters
+     */
+    public void add(@NonNull NodeRef feature) {
+        count.incrementAndGet();
+        expand(feature);
+    }
+
+    private void expand(Bounded bounded) {
+        synchronized (bounds) {
+            bounded.expand(bounds);
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public Envelope getBounds() {
+        synchronized (bounds) {
+            return new Envelope(bounds);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.geotools.data.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.geotools.filter.function.InFunction;
+import org.geotools.util.Converters;
+import org.locationtech.geogig.plumbing.diff.AttributeIndexFilteringDiffConsumer.KeyRange;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+
+import lombok.NonNull;
+
+/**
+ * Extracts the ranges of values of an attribute a {@link Filter} can match, as
+ * {@link KeyRange key ranges} to prune the traversal of an {@link IndexType#ATTRIBUTE attribute
+ * index} tree.
+ * <p>
+ * Equality, range, {@code IS NULL} and {@code IN} filters on the attribute are supported, as well
+ * as {@link Or} filters whose children are all supported, and {@link And} filters where at least
+ * one child is supported. Any other filter can't be resolved to a set of ranges, meaning the index
+ * is not useful for it and the query shall fall back to a scan.
+ * <p>
+ * The extracted ranges are a relaxed version of the filter, so the filter shall still be evaluated
+ * on the nodes or features the index returns.
+ */
+final class AttributeIndexRanges {
+
+    private final String attributeName;
+
+    private final Class<?> binding;
+
+    private AttributeIndexRanges(String attributeName, Class<?> binding) {
+        this.attributeName = attributeName;
+        this.binding = binding;
+    }
+
+    /**
+     * @param filter the query filter, in native CRS and with {@code IN} filters replaced by
+     *        {@link InReplacingFilterVisitor}
+     * @param attributeName the indexed attribute
+     * @param binding the indexed attribute's value type, to convert the filter literals to
+     * @return the key ranges {@code filter} may match, or empty if the attribute index can't be
+     *         used to evaluate it
+     */
+    public static Optional<List<KeyRange>> extract(@NonNull Filter filter,
+            @NonNull String attributeName, @NonNull Class<?> binding) {
+        return Optional.ofNullable(new AttributeIndexRanges(attributeName, binding).visit(filter));
+    }
+
+    private @Nullable List<KeyRange> visit(Filter filter) {
+        if (filter instanceof Or) {
+            List<KeyRange> ranges = new ArrayList<>();
+            for (Filter child : ((Or) filter).getChildren()) {
+                List<KeyRange> childRanges = visit(child);
+                if (childRanges == null) {
+                    return null;
+                }
+                ranges.addAll(childRanges);
+            }
+            return ranges.isEmpty() ? null : ranges;
+        }
+        if (filter instanceof And) {
+            // all children must match, any supported one narrows down the result
+            List<KeyRange> best = null;
+            for (Filter child : ((And) filter).getChildren()) {
+                List<KeyRange> childRanges = visit(child);
+                if (childRanges != null && (best == null || childRanges.size() < best.size())) {
+                    best = childRanges;
+                }
+            }
+            return best;
+        }
+        if (filter instanceof PropertyIsNull) {
+            Expression expression = ((PropertyIsNull) filter).getExpression();
+            return isAttribute(expression) ? List.of(KeyRange.equalTo(null)) : null;
+        }
+        if (filter instanceof PropertyIsBetween) {
+            PropertyIsBetween between = (PropertyIsBetween) filter;
+            if (!isAttribute(between.getExpression())) {
+                return null;
+            }
+            Object lower = value(between.getLowerBoundary());
+            Object upper = value(between.getUpperBoundary());
+            return lower == null || upper == null ? null
+                    : List.of(KeyRange.between(lower, upper));
+        }
+        if (filter instanceof PropertyIsEqualTo) {
+            return visit((PropertyIsEqualTo) filter);
+        }
+        if (filter instanceof BinaryComparisonOperator) {
+            return visit((BinaryComparisonOperator) filter);
+        }
+        return null;
+    }
+
+    private @Nullable List<KeyRange> visit(PropertyIsEqualTo filter) {
+        Expression e1 = filter.getExpression1();
+        Expression e2 = filter.getExpression2();
+        if (isInFunction(e1) && isTrue(e2)) {
+            return visitIn((Function) e1);
+        }
+        if (isInFunction(e2) && isTrue(e1)) {
+            return visitIn((Function) e2);
+        }
+        if (!filter.isMatchingCase() && CharSequence.class.isAssignableFrom(binding)) {
+            return null;
+        }
+        Object value = isAttribute(e1) ? value(e2) : (isAttribute(e2) ? value(e1) : null);
+        return value == null ? null : List.of(KeyRange.equalTo(value));
+    }
+
+    private @Nullable List<KeyRange> visitIn(Function in) {
+        List<Expression> params = in.getParameters();
+        if (params.isEmpty() || !isAttribute(params.get(0))) {
+            return null;
+        }
+        List<KeyRange> ranges = new ArrayList<>();
+        for (Expression param : params.subList(1, params.size())) {
+            Object value = value(param);
+            if (value == null) {
+                return null;
+            }
+            ranges.add(KeyRange.equalTo(value));
+        }
+        return ranges.isEmpty() ? null : ranges;
+    }
+
+    private @Nullable List<KeyRange> visit(BinaryComparisonOperator filter) {
+        final boolean greater = filter instanceof PropertyIsGreaterThan
+                || filter instanceof PropertyIsGreaterThanOrEqualTo;
+        final boolean less = filter instanceof PropertyIsLessThan
+                || filter instanceof PropertyIsLessThanOrEqualTo;
+        if (!(greater || less)
+                || (!filter.isMatchingCase() && CharSequence.class.isAssignableFrom(binding))) {
+            return null;
+        }
+        final Expression e1 = filter.getExpression1();
+        final Expression e2 = filter.getExpression2();
+        final boolean lowerBound;
+        final Object value;
+        if (isAttribute(e1)) {
+            // attribute > value
+            lowerBound = greater;
+            value = value(e2);
+        } else if (isAttribute(e2)) {
+            // value > attribute
+            lowerBound = less;
+            value = value(e1);
+        } else {
+            return null;
+        }
+        if (value == null) {
+            return null;
+        }
+        // key ranges are always inclusive since keys are not unique
+        KeyRange range = lowerBound ? KeyRange.between(value, null)
+                : KeyRange.between(null, value);
+        return List.of(range);
+    }
+
+    private boolean isAttribute(Expression e) {
+        return e instanceof PropertyName
+                && attributeName.equals(((PropertyName) e).getPropertyName());
+    }
+
+    private boolean isInFunction(Expression e) {
+        return e instanceof Function
+                && new InFunction().getName().equalsIgnoreCase(((Function) e).getName());
+    }
+
+    private boolean isTrue(Expression e) {
+        return e instanceof Literal && Boolean.TRUE.equals(value(e, Boolean.class));
+    }
+
+    /**
+     * @return the literal value converted to the attribute binding, or {@code null} if not a
+     *         literal or it can't be converted
+     */
+    private @Nullable Object value(Expression e) {
+        return value(e, binding);
+    }
+
+    private @Nullable Object value(Expression e, Class<?> target) {
+        if (!(e instanceof Literal)) {
+            return null;
+        }
+        Object value = ((Literal) e).getValue();
+        return value == null ? null : Converters.convert(value, target);
+    }
+}
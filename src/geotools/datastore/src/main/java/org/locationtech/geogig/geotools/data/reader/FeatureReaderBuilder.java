@@ -17,7 +17,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -44,8 +43,10 @@ import org.locationtech.geogig.base.Preconditions;
 import org.locationtech.geogig.data.retrieve.BulkFeatureRetriever;
 import org.locationtech.geogig.feature.Feature;
 import org.locationtech.geogig.feature.Name;
+import org.locationtech.geogig.feature.PropertyDescriptor;
 import org.locationtech.geogig.geotools.adapt.GT;
 import org.locationtech.geogig.geotools.data.GeoGigDataStore.ChangeType;
+import org.locationtech.geogig.geotools.data.RootTreeMetadata;
 import org.locationtech.geogig.model.Bounded;
 import org.locationtech.geogig.model.CanonicalNodeOrder;
 import org.locationtech.geogig.model.DiffEntry;
@@ -56,15 +57,17 @@ import org.locationtech.geogig.model.Ref;
 import org.locationtech.geogig.model.RevFeatureType;
 import org.locationtech.geogig.model.RevObject;
 import org.locationtech.geogig.model.RevTree;
-import org.locationtech.geogig.model.impl.QuadTreeBuilder;
 import org.locationtech.geogig.plumbing.DiffTree;
 import org.locationtech.geogig.plumbing.FindTreeChild;
 import org.locationtech.geogig.plumbing.RefParse;
 import org.locationtech.geogig.plumbing.ResolveTreeish;
 import org.locationtech.geogig.plumbing.RevObjectParse;
+import org.locationtech.geogig.plumbing.diff.AttributeIndexFilteringDiffConsumer.KeyRange;
 import org.locationtech.geogig.porcelain.index.Index;
+import org.locationtech.geogig.porcelain.index.IndexUtils;
 import org.locationtech.geogig.repository.Context;
 import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
 import org.locationtech.geogig.repository.impl.SpatialOps;
 import org.locationtech.geogig.storage.AutoCloseableIterator;
 import org.locationtech.geogig.storage.IndexDatabase;
@@ -83,6 +86,7 @@ import org.opengis.filter.Id;
 import org.opengis.filter.identity.FeatureId;
 import org.opengis.filter.identity.Identifier;
 import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
 import org.opengis.filter.spatial.BBOX;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
@@ -90,6 +94,7 @@ import com.google.common.collect.Iterators;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -108,6 +113,9 @@ public class FeatureReaderBuilder {
     // CommonFactoryFinder.getFilterFactory2
     private static final FilterFactory2 filterFactory = CommonFactoryFinder.getFilterFactory2();
 
+    // number of features to fetch at once when they have to be returned in a given order
+    private static final int FETCH_BATCH_SIZE = 1_000;
+
     private final Context leftRepo, rightRepo;
 
     /**
@@ -118,7 +126,7 @@ public class FeatureReaderBuilder {
     /**
      * The absolute GeoGig native type, coming from {@link #nativeType}
      */
-    private final SimpleFeatureType nativeSchema;
+    private @Nullable SimpleFeatureType nativeSchema;
 
     /**
      * The set of attribute names from {@link #nativeSchema}
@@ -164,16 +172,17 @@ public class FeatureReaderBuilder {
 
     private boolean screenMapReplaceGeometryWithPx = true;
 
+    private @Nullable RootTreeMetadata metadata;
+
     FeatureReaderBuilder(Context leftRepo, Context rightRepo, RevFeatureType nativeType,
             NodeRef typeRef) {
         this.leftRepo = leftRepo;
         this.rightRepo = rightRepo;
         this.nativeType = nativeType;
-        this.nativeSchema = GT.adapt(nativeType.type());
         this.typeRef = typeRef;
 
-        this.nativeSchemaAttributeNames = nativeSchema.getAttributeDescriptors().stream()
-                .map(AttributeDescriptor::getLocalName)
+        this.nativeSchemaAttributeNames = nativeType.type().getDescriptors().stream()
+                .map(PropertyDescriptor::getLocalName)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
@@ -219,6 +228,24 @@ public class FeatureReaderBuilder {
         return this;
     }
 
+    /**
+     * Provides the cached metadata of the root tree to read from, to avoid resolving the head ref,
+     * feature type tree, native schema, index infos, and index trees out of the repository on each
+     * build. The {@link #headRef(String)} is not used when provided.
+     * <p>
+     * Only applies to builders reading from a single repository, and ignored if
+     * {@link #oldHeadRef(String)} is provided, in which case {@link #headRef(String)} must be set.
+     */
+    public FeatureReaderBuilder metadata(@Nullable RootTreeMetadata metadata) {
+        Preconditions.checkArgument(metadata == null || leftRepo == rightRepo,
+                "root tree metadata is only supported for single repository builders");
+        this.metadata = metadata;
+        if (metadata != null) {
+            this.nativeSchema = metadata.getFeatureType(nativeType);
+        }
+        return this;
+    }
+
     /**
      * @param propertyNames which property names to include as the output schema, {@code null} means
      *        all properties
@@ -294,14 +321,23 @@ public class FeatureReaderBuilder {
         NodeOrdering diffNodeOrdering = CanonicalNodeOrder.INSTANCE;
         ReferencedEnvelope boundsPreFilter = null;
         {
-            final String nativeTypeName = nativeSchema.getTypeName();
+            final String nativeTypeName = nativeSchema().getTypeName();
             final Optional<NodeRef> oldCanonicalTree;
-            final Optional<NodeRef> newCanonicalTree;
+            Optional<NodeRef> newCanonicalTree;
             info.leftRef = resolveRef(oldHeadRef, leftRepo);
-            info.rightRef = resolveRef(headRef, rightRepo);
-
             oldCanonicalTree = resolveCanonicalTree(info.leftRef, nativeTypeName, leftRepo);
-            newCanonicalTree = resolveCanonicalTree(info.rightRef, nativeTypeName, rightRepo);
+            if (useMetadata()) {
+                info.rightRef = Optional.of(metadata.getHead());
+                newCanonicalTree = metadata.getTypeRef(NodeRef.nodeFromPath(nativeTypeName))
+                        .filter(r -> r.path().equals(nativeTypeName));
+                if (!newCanonicalTree.isPresent()) {
+                    newCanonicalTree = resolveCanonicalTree(info.rightRef, nativeTypeName,
+                            rightRepo);
+                }
+            } else {
+                info.rightRef = resolveRef(headRef, rightRepo);
+                newCanonicalTree = resolveCanonicalTree(info.rightRef, nativeTypeName, rightRepo);
+            }
             oldFeatureTypeTree = oldCanonicalTree.map(r -> r.getObjectId()).orElse(EMPTY_TREE_ID);
             newFeatureTypeTree = newCanonicalTree.map(r -> r.getObjectId()).orElse(EMPTY_TREE_ID);
 
@@ -329,12 +365,12 @@ public class FeatureReaderBuilder {
                 rightSource = rightRepo.indexDatabase();
                 IndexInfo indexInfo = leftIndex.info();
 
-                Envelope maxBounds = IndexInfo.getMaxBounds(indexInfo);
-                if (maxBounds == null) {
-                    maxBounds = IndexInfo.getMaxBounds(indexInfo);
+                diffNodeOrdering = IndexUtils.resolveNodeOrdering(indexInfo);
+                if (IndexType.ATTRIBUTE == indexInfo.getIndexType()) {
+                    info.indexKeyRanges = resolveKeyRanges(info.nativeFilter,
+                            indexInfo.getAttributeName()).orElse(null);
+                    info.indexedAttribute = indexInfo.getAttributeName();
                 }
-                Objects.requireNonNull(maxBounds);
-                diffNodeOrdering = QuadTreeBuilder.nodeOrdering(maxBounds);
                 info.diffUsesIndex = true;
                 info.materializedIndexProperties = resolveMaterializedProperties(indexInfo);
             }
@@ -357,6 +393,10 @@ public class FeatureReaderBuilder {
         // this is strange and needs to be revisited.
         final boolean preserveIterationOrder = shallPreserveIterationOrder();
         Predicate<Bounded> indexPreFilter = createIndexPreFilter(info);
+        // don't set an always true filter, the walk can then tell no feature is filtered out
+        if (indexPreFilter == PreFilter.INCLUDE) {
+            indexPreFilter = null;
+        }
         info.diffOp.setDefaultMetadataId(featureTypeId) //
                 .setPreserveIterationOrder(preserveIterationOrder)//
                 .setPathFilter(createFidFilter(info.nativeFilter)) //
@@ -365,6 +405,8 @@ public class FeatureReaderBuilder {
                 // geotools feature model, settings the DiffWalk bounds filter helps in avoiding a
                 // lot of those more expensive checks
                 .setBoundsFilter(boundsPreFilter) //
+                // prunes the attribute index buckets out of the filter's value ranges
+                .setIndexKeyRanges(info.indexedAttribute, info.indexKeyRanges) //
                 .setChangeTypeFilter(resolveChangeType()) //
                 .setOldTree(oldFeatureTypeTree) //
                 .setNewTree(newFeatureTypeTree) //
@@ -383,8 +425,9 @@ public class FeatureReaderBuilder {
 
         // TODO: resolve based on filter, in case the feature type has more than one geometry
         // attribute
-        final @Nullable GeometryDescriptor geometryAttribute = nativeSchema.getGeometryDescriptor();
-        final String typeName = nativeSchema.getTypeName();
+        final @Nullable GeometryDescriptor geometryAttribute = nativeSchema()
+                .getGeometryDescriptor();
+        final String typeName = nativeSchema().getTypeName();
         final boolean ignoreIndexVmArg = Boolean.getBoolean("geogig.ignoreindex");
         if (ignoreIndexVmArg) {
             log.info("Ignoring index lookup for {} as indicated by -Dgeogig.ignoreindex=true",
@@ -393,23 +436,100 @@ public class FeatureReaderBuilder {
 
         // if native filter is a simple "fid filter" then force ignoring the index for a faster
         // look-up (looking up for a fid in the canonical tree is much faster)
-        final boolean ignoreIndex = ignoreIndexVmArg || geometryAttribute == null
-                || this.ignoreIndex || nativeFilter instanceof Id;
-        indexes = ignoreIndex ? NO_INDEX
-                : resolveIndex(oldCanonicalTreeId, newCanonicalTreeId, typeName,
-                        geometryAttribute.getLocalName());
+        final boolean ignoreIndex = ignoreIndexVmArg || this.ignoreIndex
+                || nativeFilter instanceof Id;
+        if (ignoreIndex) {
+            return NO_INDEX;
+        }
+        // an attribute index the filter can be resolved to value ranges for is preferred over
+        // the spatial index, otherwise the query would be a full scan of the layer
+        indexes = resolveAttributeIndex(oldCanonicalTreeId, newCanonicalTreeId, typeName,
+                nativeFilter);
+        // next, an attribute index that returns the features in the requested order, unless the
+        // spatial index can narrow down the features to sort
+        if (indexes == NO_INDEX && !hasSpatialFilter(nativeFilter)) {
+            indexes = resolveSortIndex(oldCanonicalTreeId, newCanonicalTreeId, typeName);
+        }
+        if (indexes == NO_INDEX && geometryAttribute != null) {
+            indexes = resolveIndex(oldCanonicalTreeId, newCanonicalTreeId, typeName,
+                    geometryAttribute.getLocalName());
+        }
         return indexes;
     }
 
+    private Optional<Index>[] resolveAttributeIndex(final ObjectId oldCanonicalTreeId,
+            final ObjectId newCanonicalTreeId, final String typeName, final Filter nativeFilter) {
+        if (Filter.INCLUDE.equals(nativeFilter)) {
+            return NO_INDEX;
+        }
+        final IndexDatabase db = leftRepo.indexDatabase();
+        List<IndexInfo> indexInfos = useMetadata() ? metadata.getIndexInfos(db, typeName)
+                : db.getIndexInfos(typeName);
+        for (IndexInfo indexInfo : indexInfos) {
+            if (IndexType.ATTRIBUTE == indexInfo.getIndexType()
+                    && resolveKeyRanges(nativeFilter, indexInfo.getAttributeName()).isPresent()) {
+                Optional<Index>[] indexes = resolveIndex(oldCanonicalTreeId, newCanonicalTreeId,
+                        typeName, indexInfo.getAttributeName());
+                if (indexes != NO_INDEX) {
+                    return indexes;
+                }
+            }
+        }
+        return NO_INDEX;
+    }
+
+    /**
+     * @return the attribute index for the primary {@link #sortBy(SortBy...) sort} attribute, if
+     *         the sort order is ascending, since the index returns the features sorted by it
+     */
+    private Optional<Index>[] resolveSortIndex(final ObjectId oldCanonicalTreeId,
+            final ObjectId newCanonicalTreeId, final String typeName) {
+        if (sortBy == null || sortBy.length == 0 || sortBy[0].getPropertyName() == null
+                || !SortOrder.ASCENDING.equals(sortBy[0].getSortOrder())) {
+            return NO_INDEX;
+        }
+        final String attributeName = sortBy[0].getPropertyName().getPropertyName();
+        Optional<IndexInfo> indexInfo = getIndexInfo(leftRepo.indexDatabase(), typeName,
+                attributeName);
+        if (indexInfo.isPresent() && IndexType.ATTRIBUTE == indexInfo.get().getIndexType()) {
+            return resolveIndex(oldCanonicalTreeId, newCanonicalTreeId, typeName, attributeName);
+        }
+        return NO_INDEX;
+    }
+
+    private Optional<List<KeyRange>> resolveKeyRanges(Filter nativeFilter, String attributeName) {
+        AttributeDescriptor descriptor = nativeSchema().getDescriptor(attributeName);
+        if (descriptor == null) {
+            return Optional.empty();
+        }
+        Class<?> binding = descriptor.getType().getBinding();
+        return AttributeIndexRanges.extract(nativeFilter, attributeName, binding);
+    }
+
     public FeatureReader<SimpleFeatureType, SimpleFeature> build() {
         WalkInfo info = buildTreeWalk();
 
+        // a canonical tree walk already returns the features in natural order
+        final boolean sort = FeatureRefSorter.isSortRequired(sortBy, !info.diffUsesIndex);
+
+        // let the tree walk seek to the offset, skipping whole buckets when possible
+        final boolean seek = info.filterIsFullySupportedByIndex && !sort && offset != null;
+        if (seek) {
+            info.diffOp.setOffset(Long.valueOf(offset.longValue()));
+        }
+
         AutoCloseableIterator<DiffEntry> diffs = info.diffOp.call();
 
         AutoCloseableIterator<NodeRef> featureRefs = toFeatureRefs(diffs, changeType);
 
+        if (sort) {
+            featureRefs = sort(info, featureRefs);
+        }
+
         // post-processing
-        if (info.filterIsFullySupportedByIndex) {
+        if (seek) {
+            featureRefs = applyLimit(featureRefs);
+        } else if (info.filterIsFullySupportedByIndex) {
             featureRefs = applyOffsetAndLimit(featureRefs);
         }
 
@@ -433,16 +553,22 @@ public class FeatureReaderBuilder {
             BulkFeatureRetriever retriever;
             retriever = new BulkFeatureRetriever(leftFeatureSource, rightFeatureSource);
             Name typeNameOverride;
-            if (simpleNames(nativeSchema).equals(simpleNames(info.fullSchema))) {
+            if (simpleNames(nativeSchema()).equals(simpleNames(info.fullSchema))) {
                 resultSchema = info.fullSchema;
                 typeNameOverride = GT.adapt(info.fullSchema.getName());
             } else {
-                resultSchema = nativeSchema;
+                resultSchema = nativeSchema();
                 typeNameOverride = null;
             }
             // using fullSchema here will build "normal" full-attribute lazy features
-            AutoCloseableIterator<Feature> gigFeatures = retriever.getGeoToolsFeatures(featureRefs,
-                    nativeType, typeNameOverride, geometryFactory);
+            AutoCloseableIterator<Feature> gigFeatures;
+            if (sort) {
+                gigFeatures = retriever.getGeoToolsFeaturesInOrder(featureRefs, nativeType,
+                        typeNameOverride, geometryFactory, FETCH_BATCH_SIZE);
+            } else {
+                gigFeatures = retriever.getGeoToolsFeatures(featureRefs, nativeType,
+                        typeNameOverride, geometryFactory);
+            }
 
             features = AutoCloseableIterator.transform(gigFeatures,
                     gf -> GT.adapt(resultSchema, gf));
@@ -486,10 +612,106 @@ public class FeatureReaderBuilder {
         return featureReader;
     }
 
+    /**
+     * Sorts the feature refs before fetching the features. If the filter is fully supported by the
+     * tree walk, no feature can be discarded after sorting, so only the first {@code offset +
+     * limit} features need to be sorted
+     */
+    private AutoCloseableIterator<NodeRef> sort(WalkInfo info,
+            AutoCloseableIterator<NodeRef> featureRefs) {
+        Long topN = null;
+        if (info.filterIsFullySupportedByIndex && limit != null) {
+            topN = Long.valueOf(limit.longValue() + (offset == null ? 0 : offset.longValue()));
+        }
+        String indexOrder = info.diffUsesIndex ? info.indexedAttribute : null;
+        return new FeatureRefSorter(sortBy, nativeSchema(), info.materializedIndexProperties,
+                rightRepo.objectDatabase())//
+                        .indexOrder(indexOrder)//
+                        .limit(topN)//
+                        .sort(featureRefs);
+    }
+
+    /**
+     * The number of features matching the query and their bounds, as computed by
+     * {@link FeatureReaderBuilder#aggregate()}
+     */
+    public static @Value class Aggregates {
+        private long count;
+
+        private ReferencedEnvelope bounds;
+    }
+
+    /**
+     * Computes the number of features matching the query and their bounds out of the feature tree
+     * or index nodes, without fetching a single {@code RevFeature}.
+     * <p>
+     * This is only possible if the filter is fully supported by the tree nodes (i.e. it only
+     * evaluates the geometry bounds and the attributes materialized in the index). Additionally, if
+     * the filter is a plain bounding box filter and a quad-tree index is used, the buckets fully
+     * contained in the bounding box are accounted for by their size and bounds, without traversing
+     * them.
+     * <p>
+     * {@link #offset(Integer) offset} and {@link #limit(Integer) limit} are applied to the count,
+     * but the bounds are the ones of all the matching features.
+     *
+     * @return the aggregates, or empty if they can't be computed out of the tree nodes alone, in
+     *         which case the caller shall fall back to {@link #build() reading} the features
+     */
+    public Optional<Aggregates> aggregate() {
+        if (oldHeadRef != null || screenMap != null) {
+            return Optional.empty();
+        }
+        final WalkInfo info = buildTreeWalk();
+        if (!info.filterIsFullySupportedByIndex) {
+            return Optional.empty();
+        }
+        final boolean quadTree = info.diffUsesIndex
+                && IndexType.QUADTREE == info.rightIndex.get().info().getIndexType();
+        final @Nullable Envelope containedIn = quadTree ? resolveBoundingBox(info.preFilter)
+                : null;
+        final ObjectStore source = info.diffUsesIndex ? rightRepo.indexDatabase()
+                : rightRepo.objectDatabase();
+
+        AggregatingDiffConsumer aggregator = new AggregatingDiffConsumer(containedIn, source);
+        info.diffOp.setConsumerWrapper(aggregator);
+        try (AutoCloseableIterator<NodeRef> refs = toFeatureRefs(info.diffOp.call(), changeType)) {
+            refs.forEachRemaining(aggregator::add);
+        }
+
+        long count = aggregator.getCount();
+        if (offset != null) {
+            count = Math.max(0, count - offset.intValue());
+        }
+        if (limit != null) {
+            count = Math.min(count, limit.intValue());
+        }
+        CoordinateReferenceSystem nativeCrs = info.fullSchema.getCoordinateReferenceSystem();
+        ReferencedEnvelope bounds = new ReferencedEnvelope(aggregator.getBounds(), nativeCrs);
+        return Optional.of(new Aggregates(count, bounds));
+    }
+
+    /**
+     * @return the bounding box {@code preFilter} is equivalent to, if it's a {@link BBOX} filter or
+     *         a conjunction of them, {@code null} otherwise
+     */
+    private @Nullable Envelope resolveBoundingBox(Filter preFilter) {
+        List<Filter> filters = preFilter instanceof And ? ((And) preFilter).getChildren()
+                : List.of(preFilter);
+        Envelope bbox = null;
+        for (Filter f : filters) {
+            if (!(f instanceof BBOX)) {
+                return null;
+            }
+            Envelope env = ReferencedEnvelope.reference(((BBOX) f).getBounds());
+            bbox = bbox == null ? new Envelope(env) : bbox.intersection(env);
+        }
+        return bbox;
+    }
+
     public SimpleFeatureType resolveFullSchema() {
         SimpleFeatureType targetSchema = this.targetSchema;
         if (targetSchema == null) {
-            targetSchema = this.nativeSchema;
+            targetSchema = nativeSchema();
         }
         return targetSchema;
     }
@@ -574,10 +796,14 @@ public class FeatureReaderBuilder {
 
     private <T> AutoCloseableIterator<T> applyOffsetAndLimit(AutoCloseableIterator<T> iterator) {
         Integer offset = this.offset;
-        Integer limit = this.limit;
         if (offset != null) {
             Iterators.advance(iterator, offset.intValue());
         }
+        return applyLimit(iterator);
+    }
+
+    private <T> AutoCloseableIterator<T> applyLimit(AutoCloseableIterator<T> iterator) {
+        Integer limit = this.limit;
         if (limit != null) {
             iterator = AutoCloseableIterator.limit(iterator, limit.intValue());
         }
@@ -616,7 +842,7 @@ public class FeatureReaderBuilder {
      */
     private Optional<Index> resolveIndex(final ObjectId oldCanonical, final String treeName,
             final String attributeName, final IndexDatabase db) {
-        IndexInfo info = db.getIndexInfo(treeName, attributeName).orElse(null);
+        IndexInfo info = getIndexInfo(db, treeName, attributeName).orElse(null);
         Optional<Index> index = Optional.empty();
         if (info != null) {
             index = resolveIndex(oldCanonical, info, db);
@@ -624,6 +850,31 @@ public class FeatureReaderBuilder {
         return index;
     }
 
+    /**
+     * @return the native schema adapted from {@link #nativeType}, unless provided by the
+     *         {@link #metadata(RootTreeMetadata) root tree metadata}
+     */
+    private SimpleFeatureType nativeSchema() {
+        if (nativeSchema == null) {
+            nativeSchema = GT.adapt(nativeType.type());
+        }
+        return nativeSchema;
+    }
+
+    private Optional<IndexInfo> getIndexInfo(IndexDatabase db, String treeName,
+            String attributeName) {
+        return useMetadata() ? metadata.getIndexInfo(db, treeName, attributeName)
+                : db.getIndexInfo(treeName, attributeName);
+    }
+
+    /**
+     * Whether to use the cached {@link #metadata(RootTreeMetadata) root tree metadata}, only
+     * applicable if not diffing two versions of the feature type tree
+     */
+    private boolean useMetadata() {
+        return metadata != null && oldHeadRef == null;
+    }
+
     private Optional<Ref> resolveRef(@Nullable String head, Context repo) {
         Ref ref = null;
         if (head != null) {
@@ -663,7 +914,9 @@ public class FeatureReaderBuilder {
         if (EMPTY_TREE_ID.equals(canonicalTreeId)) {
             index = new Index(indexInfo, EMPTY_TREE_ID, db);
         } else {
-            ObjectId indexedTree = db.resolveIndexedTree(indexInfo, canonicalTreeId).orElse(null);
+            ObjectId indexedTree = (useMetadata()
+                    ? metadata.resolveIndexedTree(db, indexInfo, canonicalTreeId)
+                    : db.resolveIndexedTree(indexInfo, canonicalTreeId)).orElse(null);
             if (indexedTree != null) {
                 index = new Index(indexInfo, indexedTree, db);
             }
@@ -734,11 +987,11 @@ public class FeatureReaderBuilder {
 
     private Filter resolveNativeFilter() {
         Filter nativeFilter = this.filter;
-        nativeFilter = SimplifyingFilterVisitor.simplify(nativeFilter, nativeSchema);
+        nativeFilter = SimplifyingFilterVisitor.simplify(nativeFilter, nativeSchema());
         nativeFilter = reprojectFilter(nativeFilter);
 
-        if (this.nativeSchema.getGeometryDescriptor() != null) {
-            String defaultGeometryPName = this.nativeSchema.getGeometryDescriptor().getName()
+        if (nativeSchema().getGeometryDescriptor() != null) {
+            String defaultGeometryPName = nativeSchema().getGeometryDescriptor().getName()
                     .getLocalPart();
             RenamePropertyFilterVisitor renameBoundsVisitor = new RenamePropertyFilterVisitor(
                     "@bounds", defaultGeometryPName);
@@ -754,7 +1007,7 @@ public class FeatureReaderBuilder {
     private Filter reprojectFilter(Filter filter) {
         if (hasSpatialFilter(filter)) {
             ReprojectingFilterVisitor visitor;
-            visitor = new ReprojectingFilterVisitor(filterFactory, nativeSchema);
+            visitor = new ReprojectingFilterVisitor(filterFactory, nativeSchema());
             filter = (Filter) filter.accept(visitor, null);
         }
         return filter;
@@ -905,7 +1158,7 @@ public class FeatureReaderBuilder {
             if (PrePostFilterSplitter.BOUNDS_META_PROPERTY.equals(attName)) {
                 continue;
             }
-            AttributeDescriptor descriptor = this.nativeSchema.getDescriptor(attName);
+            AttributeDescriptor descriptor = nativeSchema().getDescriptor(attName);
             if (!(descriptor instanceof GeometryDescriptor)) {
                 return false;
             }
@@ -0,0 +1,357 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.geotools.data.reader;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.data.retrieve.BulkFeatureRetriever;
+import org.locationtech.geogig.model.CanonicalNodeOrder;
+import org.locationtech.geogig.model.FieldType;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.internal.AttributeIndexKey;
+import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.ObjectInfo;
+import org.locationtech.geogig.storage.ObjectStore;
+import org.locationtech.geogig.storage.datastream.DataStreamValueSerializerV1;
+import org.locationtech.geogig.storage.datastream.FormatCommonV1;
+import org.locationtech.geogig.storage.impl.ExternalMergeSort;
+import org.locationtech.geogig.storage.impl.PersistedIterable.Serializer;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Sorts the feature refs returned by a tree walk as mandated by a query's {@link SortBy sort
+ * order}, before the features are fetched, so that at most a bounded number of sort keys are held
+ * in memory regardless of the number of features.
+ * <p>
+ * The sort key of each feature is resolved out of its node when the attribute is materialized in
+ * the index being walked, or otherwise by fetching the {@link RevFeature}s in batches. The feature
+ * refs are then sorted by an {@link ExternalMergeSort}, or, if the walk already returns them in the
+ * order of the primary sort attribute (i.e. it walks an attribute index for that attribute in
+ * ascending order, and the attribute is a string, number, date or boolean, whose index keys sort
+ * like the values), only the runs of refs sharing the same {@link AttributeIndexKey index key} are
+ * sorted, streaming the results as the walk progresses.
+ * <p>
+ * The {@link SortBy#NATURAL_ORDER natural order} is the {@link CanonicalNodeOrder canonical order}
+ * of the feature nodes, which is the order of a canonical tree walk, and ties are broken by it so
+ * the order of the results is deterministic as required for paging.
+ */
+class FeatureRefSorter {
+
+    private static final DataStreamValueSerializerV1 VALUE_SERIALIZER = DataStreamValueSerializerV1.INSTANCE;
+
+    private static final int FETCH_BATCH_SIZE = 1_000;
+
+    private final SortBy[] sortBy;
+
+    private final SimpleFeatureType nativeSchema;
+
+    private final Set<String> materializedProperties;
+
+    private final ObjectStore featureSource;
+
+    private final Comparator<SortKey> comparator;
+
+    private @Nullable String indexOrder;
+
+    private @Nullable Long limit;
+
+    private int maxInMemory = ExternalMergeSort.DEFAULT_MAX_IN_MEMORY;
+
+    /**
+     * @param sortBy the sort order, all the properties shall be {@link #checkSortable sortable}
+     * @param nativeSchema the feature type the features adhere to
+     * @param materializedProperties the attributes that can be resolved out of the feature nodes
+     * @param featureSource where to fetch the features from to resolve the non materialized sort
+     *        attributes
+     */
+    FeatureRefSorter(@NonNull SortBy[] sortBy, @NonNull SimpleFeatureType nativeSchema,
+            @NonNull Set<String> materializedProperties, @NonNull ObjectStore featureSource) {
+        checkSortable(sortBy, nativeSchema);
+        this.sortBy = sortBy.clone();
+        this.nativeSchema = nativeSchema;
+        this.materializedProperties = materializedProperties;
+        this.featureSource = featureSource;
+        this.comparator = buildComparator(sortBy);
+    }
+
+    /**
+     * @return whether features need to be sorted to satisfy {@code sortBy}, given the feature refs
+     *         come in {@link CanonicalNodeOrder canonical order} or not. {@link SortBy#REVERSE_ORDER}
+     *         always requires sorting.
+     */
+    static boolean isSortRequired(@Nullable SortBy[] sortBy, boolean canonicalOrder) {
+        if (sortBy == null || sortBy.length == 0) {
+            return false;
+        }
+        final SortBy primary = sortBy[0];
+        return !(canonicalOrder && isNaturalOrder(primary)
+                && SortOrder.ASCENDING.equals(primary.getSortOrder()));
+    }
+
+    /**
+     * @throws IllegalArgumentException if any of the sort properties is not an attribute of
+     *         {@code schema} with a {@link Comparable} binding (e.g. a geometry attribute)
+     */
+    static void checkSortable(@NonNull SortBy[] sortBy, @NonNull SimpleFeatureType schema) {
+        for (SortBy sb : sortBy) {
+            if (isNaturalOrder(sb)) {
+                continue;
+            }
+            String name = sb.getPropertyName().getPropertyName();
+            AttributeDescriptor descriptor = schema.getDescriptor(name);
+            if (descriptor == null) {
+                throw new IllegalArgumentException(String
+                        .format("Sort property %s does not exist in %s", name, schema.getName()));
+            }
+            Class<?> binding = descriptor.getType().getBinding();
+            if (!Comparable.class.isAssignableFrom(binding)) {
+                throw new IllegalArgumentException(String.format(
+                        "Can't sort by %s, %s values are not comparable", name,
+                        binding.getSimpleName()));
+            }
+        }
+    }
+
+    private static boolean isNaturalOrder(SortBy sortBy) {
+        return sortBy.getPropertyName() == null;
+    }
+
+    /**
+     * @param attribute if not {@code null}, the attribute the feature refs come sorted by, in
+     *        {@link AttributeIndexKey index key} order
+     */
+    FeatureRefSorter indexOrder(@Nullable String attribute) {
+        this.indexOrder = attribute;
+        return this;
+    }
+
+    /**
+     * @param limit if not {@code null}, only the first {@code limit} features in sort order are
+     *        needed
+     */
+    FeatureRefSorter limit(@Nullable Long limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    FeatureRefSorter maxInMemory(int maxInMemory) {
+        this.maxInMemory = maxInMemory;
+        return this;
+    }
+
+    /**
+     * Sorts {@code refs}, the returned iterator must be closed to release the temporary files the
+     * sort may have created, which also closes {@code refs}.
+     */
+    AutoCloseableIterator<NodeRef> sort(@NonNull AutoCloseableIterator<NodeRef> refs) {
+        AutoCloseableIterator<SortKey> keys = resolveKeys(refs);
+        AutoCloseableIterator<SortKey> sorted;
+        if (isIndexOrder()) {
+            sorted = new RunsSortingIterator(keys);
+        } else {
+            try {
+                sorted = newSort().sort(keys);
+            } finally {
+                keys.close();
+            }
+        }
+        return AutoCloseableIterator.transform(sorted, SortKey::getRef);
+    }
+
+    /**
+     * Whether the refs come sorted by the primary sort attribute, so that only the runs of equal
+     * index keys need sorting. That requires the index key order to match the values'
+     * {@link Comparable#compareTo compareTo} order, which only holds for the types
+     * {@link AttributeIndexKey} encodes by value, not for those keyed by their {@code toString()}
+     * representation (e.g. {@link java.util.UUID}).
+     */
+    private boolean isIndexOrder() {
+        SortBy primary = sortBy[0];
+        if (indexOrder == null || isNaturalOrder(primary)
+                || !SortOrder.ASCENDING.equals(primary.getSortOrder())
+                || !indexOrder.equals(primary.getPropertyName().getPropertyName())) {
+            return false;
+        }
+        AttributeDescriptor descriptor = nativeSchema.getDescriptor(indexOrder);
+        return descriptor != null && hasIndexKeyOrder(descriptor.getType().getBinding());
+    }
+
+    private static boolean hasIndexKeyOrder(Class<?> binding) {
+        return String.class.equals(binding) || Number.class.isAssignableFrom(binding)
+                || Date.class.isAssignableFrom(binding) || Boolean.class.equals(binding);
+    }
+
+    private ExternalMergeSort<SortKey> newSort() {
+        return new ExternalMergeSort<>(comparator, new SortKeySerializer(sortBy.length))
+                .maxInMemory(maxInMemory).limit(limit);
+    }
+
+    private AutoCloseableIterator<SortKey> resolveKeys(AutoCloseableIterator<NodeRef> refs) {
+        boolean needsFeatures = false;
+        for (SortBy sb : sortBy) {
+            if (!isNaturalOrder(sb) && !materializedProperties
+                    .contains(sb.getPropertyName().getPropertyName())) {
+                needsFeatures = true;
+            }
+        }
+        if (!needsFeatures) {
+            return AutoCloseableIterator.transform(refs, ref -> new SortKey(ref,
+                    resolveValues(name -> IndexInfo.getMaterializedAttribute(name, ref.getNode()))));
+        }
+        BulkFeatureRetriever retriever = new BulkFeatureRetriever(featureSource);
+        AutoCloseableIterator<ObjectInfo<RevFeature>> features = retriever
+                .getGeoGIGFeaturesInOrder(refs, FETCH_BATCH_SIZE);
+        return AutoCloseableIterator.transform(features, info -> {
+            RevFeature feature = info.object();
+            return new SortKey(info.ref(), resolveValues(
+                    name -> feature.get(nativeSchema.indexOf(name)).orElse(null)));
+        });
+    }
+
+    private Object[] resolveValues(Function<String, Object> valueResolver) {
+        Object[] values = new Object[sortBy.length];
+        for (int i = 0; i < sortBy.length; i++) {
+            SortBy sb = sortBy[i];
+            if (!isNaturalOrder(sb)) {
+                values[i] = valueResolver.apply(sb.getPropertyName().getPropertyName());
+            }
+        }
+        return values;
+    }
+
+    private static Comparator<SortKey> buildComparator(SortBy[] sortBy) {
+        final Comparator<SortKey> naturalOrder = Comparator.comparing(k -> k.getRef().getNode(),
+                CanonicalNodeOrder.INSTANCE);
+        Comparator<SortKey> comparator = null;
+        for (int i = 0; i < sortBy.length; i++) {
+            final int index = i;
+            Comparator<SortKey> c = isNaturalOrder(sortBy[i]) ? naturalOrder
+                    : (k1, k2) -> compareValues(k1.getValues()[index], k2.getValues()[index]);
+            if (SortOrder.DESCENDING.equals(sortBy[i].getSortOrder())) {
+                c = c.reversed();
+            }
+            comparator = comparator == null ? c : comparator.thenComparing(c);
+        }
+        return comparator.thenComparing(naturalOrder);
+    }
+
+    /**
+     * Compares two attribute values, {@code null} values first as in an attribute index
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(@Nullable Object v1, @Nullable Object v2) {
+        if (v1 == null || v2 == null) {
+            return v1 == null ? (v2 == null ? 0 : -1) : 1;
+        }
+        if (v1 instanceof Number && v2 instanceof Number && !v1.getClass().equals(v2.getClass())) {
+            return Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
+        }
+        return ((Comparable) v1).compareTo(v2);
+    }
+
+    private static @Value class SortKey {
+        private NodeRef ref;
+
+        private Object[] values;
+    }
+
+    @RequiredArgsConstructor
+    private static class SortKeySerializer implements Serializer<SortKey> {
+
+        private final int numValues;
+
+        public @Override void write(DataOutputStream out, SortKey key) throws IOException {
+            FormatCommonV1.writeNodeRef(key.getRef(), out);
+            for (Object value : key.getValues()) {
+                FieldType type = FieldType.forValue(value);
+                out.writeByte(type.getTag());
+                VALUE_SERIALIZER.encode(type, value, out);
+            }
+        }
+
+        public @Override SortKey read(DataInputStream in) throws IOException {
+            NodeRef ref = FormatCommonV1.readNodeRef(in);
+            Object[] values = new Object[numValues];
+            for (int i = 0; i < numValues; i++) {
+                FieldType type = FieldType.valueOf(in.readUnsignedByte());
+                values[i] = VALUE_SERIALIZER.decode(type, in);
+            }
+            return new SortKey(ref, values);
+        }
+    }
+
+    /**
+     * Sorts the runs of consecutive keys that share the same {@link AttributeIndexKey index key}
+     * for the primary sort attribute, given the keys come in index key order, one run at a time.
+     */
+    private class RunsSortingIterator extends AbstractIterator<SortKey>
+            implements AutoCloseableIterator<SortKey> {
+
+        private final AutoCloseableIterator<SortKey> keys;
+
+        private final PeekingIterator<SortKey> source;
+
+        private AutoCloseableIterator<SortKey> run = AutoCloseableIterator.emptyIterator();
+
+        RunsSortingIterator(AutoCloseableIterator<SortKey> keys) {
+            this.keys = keys;
+            this.source = Iterators.peekingIterator(keys);
+        }
+
+        protected @Override SortKey computeNext() {
+            while (!run.hasNext()) {
+                run.close();
+                if (!source.hasNext()) {
+                    return endOfData();
+                }
+                final String indexKey = indexKey(source.peek());
+                Iterator<SortKey> sameKey = new AbstractIterator<SortKey>() {
+                    protected @Override SortKey computeNext() {
+                        return source.hasNext() && indexKey.equals(indexKey(source.peek()))
+                                ? source.next()
+                                : endOfData();
+                    }
+                };
+                run = newSort().sort(sameKey);
+            }
+            return run.next();
+        }
+
+        private String indexKey(SortKey key) {
+            return AttributeIndexKey.of(key.getValues()[0]);
+        }
+
+        public @Override void close() {
+            run.close();
+            keys.close();
+        }
+    }
+}
@@ -10,6 +10,7 @@
 package org.locationtech.geogig.geotools.data.reader;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -17,6 +18,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.Ref;
 import org.locationtech.geogig.plumbing.DiffTree;
+import org.locationtech.geogig.plumbing.diff.AttributeIndexFilteringDiffConsumer.KeyRange;
 import org.locationtech.geogig.porcelain.index.Index;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.Filter;
@@ -48,6 +50,12 @@ public class WalkInfo {
 
     public boolean diffUsesIndex;
 
+    // the attribute of the attribute index used by the diff, if any
+    public @Nullable String indexedAttribute;
+
+    // value ranges to prune the attribute index traversal with, null for a full scan
+    public @Nullable List<KeyRange> indexKeyRanges;
+
     public DiffTree diffOp;
 
     public ScreenMapPredicate screenMapFilter;
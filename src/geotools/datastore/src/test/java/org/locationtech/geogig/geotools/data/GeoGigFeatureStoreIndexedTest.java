@@ -345,6 +345,40 @@ public class GeoGigFeatureStoreIndexedTest extends GeoGigFeatureStoreTest {
         // IndexTestSupport.verifyIndex(geogig, indexTreeId, canonicalTreeId, extraAttributes);
     }
 
+    public @Test void testIndexAssistedCountAndBounds() throws Exception {
+        final NodeRef layerNode = IndexTestSupport.createWorldPointsLayer(repo);
+        final String typeName = layerNode.getNode().getName();
+        add();
+        commit("created layer " + typeName);
+        createIndex(layerNode, "x");
+
+        final SimpleFeatureStore store = (SimpleFeatureStore) dataStore
+                .getFeatureSource(typeName);
+        final Filter fullyContained = ff.bbox("geom", -180, -90, 180, 90, "EPSG:4326");
+        final Filter partial = ff.bbox("geom", -12.5, -12.5, 33, 21, "EPSG:4326");
+        final Filter materialized = ff.and(partial,
+                ff.greater(ff.property("x"), ff.literal(0)));
+        for (Filter filter : List.of(fullyContained, partial, materialized)) {
+            List<SimpleFeature> expected = DataUtilities.list(store.getFeatures(filter));
+            Envelope expectedBounds = new Envelope();
+            expected.forEach(f -> expectedBounds
+                    .expandToInclude(((Geometry) f.getDefaultGeometry()).getEnvelopeInternal()));
+
+            Query query = new Query(typeName, filter);
+            assertTrue(expected.size() > 0);
+            assertEquals(expected.size(), store.getCount(query));
+            Envelope bounds = store.getBounds(query);
+            assertEquals(expectedBounds.getMinX(), bounds.getMinX(), 1e-5);
+            assertEquals(expectedBounds.getMinY(), bounds.getMinY(), 1e-5);
+            assertEquals(expectedBounds.getMaxX(), bounds.getMaxX(), 1e-5);
+            assertEquals(expectedBounds.getMaxY(), bounds.getMaxY(), 1e-5);
+
+            query.setStartIndex(2);
+            query.setMaxFeatures(5);
+            assertEquals(Math.min(5, expected.size() - 2), store.getCount(query));
+        }
+    }
+
     public static NodeRef createOddLayer(String typeName, Repository repository) {
         String typeSpec = "geom:Point:srid=4326,x:Double,y:Double,xystr:String";
         SimpleFeatureType type;
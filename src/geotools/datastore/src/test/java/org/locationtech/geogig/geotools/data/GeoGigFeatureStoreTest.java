@@ -27,6 +27,8 @@ import java.util.stream.Collectors;
 
 import org.geotools.data.DataUtilities;
 import org.geotools.data.DefaultTransaction;
+import org.geotools.data.FeatureWriter;
+import org.geotools.data.Query;
 import org.geotools.data.Transaction;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.factory.CommonFactoryFinder;
@@ -50,6 +52,7 @@ import org.locationtech.jts.geom.Geometry;
 import org.opengis.feature.IllegalAttributeException;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory2;
 import org.opengis.filter.Id;
 import org.opengis.filter.identity.FeatureId;
@@ -123,6 +126,48 @@ public class GeoGigFeatureStoreTest extends RepositoryTestCase {
         }
     }
 
+    @Test
+    public void testFeatureWriterBuffersEditsInTransaction() throws Exception {
+        Transaction tx = new DefaultTransaction();
+        points.setTransaction(tx);
+        final GeogigTransactionState state;
+        state = (GeogigTransactionState) tx.getState(GeogigTransactionState.class);
+        try {
+            try (FeatureWriter<SimpleFeatureType, SimpleFeature> writer = dataStore
+                    .getFeatureWriterAppend(pointsName, tx)) {
+                for (SimpleFeature f : collection(points1, points2, points3).toArray(
+                        new SimpleFeature[0])) {
+                    writer.next().setAttributes(f.getAttributes());
+                    writer.write();
+                }
+            }
+            // not applied to the transaction's working tree, but seen through the pending edits
+            assertFalse(state.getWriteBuffer().isEmpty());
+            assertEquals(3, DataUtilities.list(points.getFeatures()).size());
+            assertEquals(0, dataStore.getFeatureSource(pointsName).getFeatures().size());
+
+            // counting applies them
+            assertEquals(3, points.getCount(Query.ALL));
+            assertTrue(state.getWriteBuffer().isEmpty());
+
+            try (FeatureWriter<SimpleFeatureType, SimpleFeature> writer = dataStore
+                    .getFeatureWriter(pointsName, Filter.INCLUDE, tx)) {
+                writer.next();
+                writer.remove();
+            }
+            assertEquals(2, DataUtilities.list(points.getFeatures()).size());
+
+            tx.commit();
+
+            assertEquals(2, dataStore.getFeatureSource(pointsName).getFeatures().size());
+        } catch (Exception e) {
+            tx.rollback();
+            throw e;
+        } finally {
+            tx.close();
+        }
+    }
+
     @Test
     public void testAddFeaturesOnASeparateBranch() throws Exception {
         final String branchName = "addtest";
@@ -0,0 +1,126 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.geotools.data.reader;
+
+import static org.geotools.filter.text.ecql.ECQL.toFilter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.geotools.factory.CommonFactoryFinder;
+import org.junit.Test;
+import org.locationtech.geogig.plumbing.diff.AttributeIndexFilteringDiffConsumer.KeyRange;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class AttributeIndexRangesTest {
+
+    private final FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
+
+    private Optional<List<KeyRange>> extract(Filter filter) {
+        return AttributeIndexRanges.extract(filter, "ip", Integer.class);
+    }
+
+    private void assertRanges(Filter filter, KeyRange... expected) {
+        Optional<List<KeyRange>> ranges = extract(filter);
+        assertTrue("expected key ranges for " + filter, ranges.isPresent());
+        assertEquals(List.of(expected), ranges.get());
+    }
+
+    private void assertNotSupported(Filter filter) {
+        assertFalse("expected no key ranges for " + filter, extract(filter).isPresent());
+    }
+
+    public @Test void testEqualTo() throws Exception {
+        assertRanges(toFilter("ip = 1000"), KeyRange.equalTo(1000));
+        assertRanges(toFilter("1000 = ip"), KeyRange.equalTo(1000));
+    }
+
+    public @Test void testEqualToConvertsLiteralToBinding() throws Exception {
+        assertRanges(toFilter("ip = '1000'"), KeyRange.equalTo(Integer.valueOf(1000)));
+    }
+
+    public @Test void testEqualToOtherAttribute() throws Exception {
+        assertNotSupported(toFilter("sp = 1000"));
+        assertNotSupported(toFilter("ip = sp"));
+    }
+
+    public @Test void testEqualToCaseInsensitiveString() {
+        Filter filter = ff.equal(ff.property("sp"), ff.literal("a"), false);
+        assertFalse(AttributeIndexRanges.extract(filter, "sp", String.class).isPresent());
+
+        filter = ff.equal(ff.property("sp"), ff.literal("a"), true);
+        assertEquals(Optional.of(List.of(KeyRange.equalTo("a"))),
+                AttributeIndexRanges.extract(filter, "sp", String.class));
+    }
+
+    public @Test void testComparisons() throws Exception {
+        assertRanges(toFilter("ip > 1000"), KeyRange.between(1000, null));
+        assertRanges(toFilter("ip >= 1000"), KeyRange.between(1000, null));
+        assertRanges(toFilter("ip < 1000"), KeyRange.between(null, 1000));
+        assertRanges(toFilter("ip <= 1000"), KeyRange.between(null, 1000));
+    }
+
+    public @Test void testComparisonsLiteralFirst() throws Exception {
+        assertRanges(toFilter("1000 > ip"), KeyRange.between(null, 1000));
+        assertRanges(toFilter("1000 <= ip"), KeyRange.between(1000, null));
+    }
+
+    public @Test void testBetween() throws Exception {
+        assertRanges(toFilter("ip BETWEEN 1000 AND 2000"), KeyRange.between(1000, 2000));
+        assertNotSupported(ff.between(ff.property("ip"), ff.literal(1000), ff.property("ip")));
+    }
+
+    public @Test void testIsNull() throws Exception {
+        assertRanges(toFilter("ip IS NULL"), KeyRange.equalTo(null));
+        assertNotSupported(toFilter("sp IS NULL"));
+    }
+
+    public @Test void testIn() throws Exception {
+        Filter filter = (Filter) toFilter("ip = 1 OR ip = 2 OR ip = 3")
+                .accept(new InReplacingFilterVisitor(), null);
+        assertRanges(filter, KeyRange.equalTo(1), KeyRange.equalTo(2), KeyRange.equalTo(3));
+    }
+
+    public @Test void testOr() throws Exception {
+        assertRanges(toFilter("ip < 10 OR ip > 100"), KeyRange.between(null, 10),
+                KeyRange.between(100, null));
+    }
+
+    public @Test void testOrWithUnsupportedChild() throws Exception {
+        assertNotSupported(toFilter("ip < 10 OR sp = 'a'"));
+    }
+
+    public @Test void testAnd() throws Exception {
+        assertRanges(toFilter("ip > 10 AND sp = 'a'"), KeyRange.between(10, null));
+        assertNotSupported(toFilter("sp = 'a' AND sp = 'b'"));
+    }
+
+    public @Test void testAndPicksNarrowestChild() throws Exception {
+        Filter filter = (Filter) toFilter("(ip = 1 OR ip = 2) AND ip = 3")
+                .accept(new InReplacingFilterVisitor(), null);
+        assertRanges(filter, KeyRange.equalTo(3));
+    }
+
+    public @Test void testNotSupported() throws Exception {
+        assertNotSupported(Filter.INCLUDE);
+        assertNotSupported(toFilter("ip <> 1000"));
+        assertNotSupported(toFilter("NOT ip = 1000"));
+        assertNotSupported(toFilter("ip + 1 = 1000"));
+        assertNotSupported(toFilter("BBOX(pp, 0, 0, 1, 1)"));
+    }
+
+    public @Test void testLiteralNotConvertible() throws Exception {
+        assertNotSupported(toFilter("ip = 'not a number'"));
+    }
+}
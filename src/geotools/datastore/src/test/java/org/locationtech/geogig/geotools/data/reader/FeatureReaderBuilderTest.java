@@ -24,7 +24,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +53,7 @@ import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevFeatureType;
 import org.locationtech.geogig.plumbing.DiffTree;
+import org.locationtech.geogig.porcelain.index.CreateAttributeIndex;
 import org.locationtech.geogig.porcelain.index.CreateQuadTree;
 import org.locationtech.geogig.porcelain.index.Index;
 import org.locationtech.geogig.repository.Context;
@@ -69,6 +72,7 @@ import org.opengis.filter.PropertyIsEqualTo;
 import org.opengis.filter.PropertyIsNotEqualTo;
 import org.opengis.filter.identity.FeatureId;
 import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
 
 import com.google.common.collect.Iterators;
 
@@ -354,6 +358,96 @@ public class FeatureReaderBuilderTest extends RepositoryTestCase {
         verifyUsesIndex(index);
     }
 
+    public @Test void testFilterUsesAttributeIndex() throws Exception {
+        createIndex();
+        Index index = repo.command(CreateAttributeIndex.class).setTreeRefSpec(pointsName)
+                .setAttributeName("ip").call();
+        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
+        Query query = new Query();
+        query.setFilter(ff.greaterOrEqual(ff.property("ip"), ff.literal(2000)));
+        verifyFeatures(query, points2, points3);
+        verifyUsesIndex(index);
+    }
+
+    public @Test void testFilterUsesAttributeIndexForSupportedAndChild() throws Exception {
+        Index index = repo.command(CreateAttributeIndex.class).setTreeRefSpec(pointsName)
+                .setAttributeName("ip").call();
+        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
+        Filter unsupported = ff.notEqual(ff.property("sp"), ff.literal("StringProp1_2"));
+        Filter supported = ff.lessOrEqual(ff.property("ip"), ff.literal(2000));
+        Query query = new Query();
+        query.setFilter(ff.and(unsupported, supported));
+        verifyFeatures(query, points1);
+        verifyUsesIndex(index);
+    }
+
+    public @Test void testFilterNotConvertibleToAttributeIndexRanges() throws Exception {
+        repo.command(CreateAttributeIndex.class).setTreeRefSpec(pointsName)
+                .setAttributeName("ip").call();
+        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
+        Query query = new Query();
+        query.setFilter(ff.notEqual(ff.property("ip"), ff.literal(2000)));
+        verifyFeatures(query, points1, points3);
+        NodeRef typeRef = context.workingTree().getFeatureTypeTrees().get(0);
+        verify(difftree).setNewTree(eq(typeRef.getObjectId()));
+    }
+
+    public @Test void testSortBy() throws Exception {
+        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
+        Query query = new Query();
+        query.setSortBy(new SortBy[] { ff.sort("ip", SortOrder.DESCENDING) });
+        assertEquals(List.of(idP3, idP2, idP1), getFeatureIds(query));
+
+        query.setStartIndex(1);
+        query.setMaxFeatures(1);
+        assertEquals(List.of(idP2), getFeatureIds(query));
+    }
+
+    public @Test void testSortByReverseOrder() throws Exception {
+        Query query = new Query();
+        query.setSortBy(new SortBy[] { SortBy.NATURAL_ORDER });
+        List<String> naturalOrder = getFeatureIds(query);
+        assertEquals(3, naturalOrder.size());
+
+        List<String> expected = new ArrayList<>(naturalOrder);
+        Collections.reverse(expected);
+        query.setSortBy(new SortBy[] { SortBy.REVERSE_ORDER });
+        assertEquals(expected, getFeatureIds(query));
+    }
+
+    public @Test void testSortByIndexedAttribute() throws Exception {
+        Index index = repo.command(CreateAttributeIndex.class).setTreeRefSpec(pointsName)
+                .setAttributeName("sp").call();
+        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
+        Query query = new Query();
+        query.setSortBy(new SortBy[] { ff.sort("sp", SortOrder.ASCENDING) });
+        query.setMaxFeatures(2);
+        assertEquals(List.of(idP1, idP2), getFeatureIds(query));
+        verifyUsesIndex(index);
+    }
+
+    public @Test void testSortByGeometryNotSupported() {
+        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
+        Query query = new Query();
+        query.setSortBy(new SortBy[] { ff.sort("pp", SortOrder.ASCENDING) });
+        try {
+            getReader(query);
+            fail("Expected IAE");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("not comparable"));
+        }
+    }
+
+    private List<String> getFeatureIds(Query query) throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> features = getReader(query)) {
+            while (features.hasNext()) {
+                ids.add(features.next().getID());
+            }
+        }
+        return ids;
+    }
+
     public @Test void testDiffTreeIteratorIsClosedOnError() throws IOException {
         RuntimeException expected = new RuntimeException();
         AutoCloseableIterator<DiffEntry> mockIt = mock(AutoCloseableIterator.class);
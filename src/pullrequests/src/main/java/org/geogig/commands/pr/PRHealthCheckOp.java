@@ -12,9 +12,14 @@ package org.geogig.commands.pr;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static org.locationtech.geogig.base.Preconditions.checkState;
 
-import java.util.Iterator;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -23,18 +28,15 @@ import org.locationtech.geogig.di.CanRunDuringConflict;
 import org.locationtech.geogig.model.DiffEntry;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.Ref;
-import org.locationtech.geogig.model.RevCommit;
 import org.locationtech.geogig.plumbing.FindChangedTrees;
 import org.locationtech.geogig.plumbing.merge.ConflictsCountOp;
 import org.locationtech.geogig.porcelain.BranchResolveOp;
-import org.locationtech.geogig.porcelain.LogOp;
 import org.locationtech.geogig.repository.Context;
 import org.locationtech.geogig.repository.ProgressListener;
 import org.locationtech.geogig.repository.Repository;
+import org.locationtech.geogig.storage.GraphDatabase;
 import org.locationtech.geogig.transaction.GeogigTransaction;
 
-import com.google.common.collect.Iterators;
-
 import lombok.NonNull;
 
 /**
@@ -154,11 +156,46 @@ public @CanRunDuringConflict class PRHealthCheckOp extends PRCommand<PRStatus> {
         }
 
         return CompletableFuture.supplyAsync(() -> {
-            Iterator<RevCommit> missingCommits = context.command(LogOp.class)
-                    .setUntil(newTip.getObjectId()).setSince(oldTip.getObjectId()).call();
-            int commitsBehind = Iterators.size(missingCommits);
-            return commitsBehind;
+            final GraphDatabase graph = context.graphDatabase();
+            final ObjectId want = newTip.getObjectId();
+            final ObjectId have = oldTip.getObjectId();
+            // let the graph database count them by itself if it can, e.g. with a server side query
+            // or reachability bitmaps, otherwise walk the graph to compute the same set difference
+            OptionalInt count = graph.countMissingCommits(Collections.singleton(want),
+                    Collections.singleton(have));
+            if (count.isPresent()) {
+                return count.getAsInt();
+            }
+            return countMissingCommits(graph, want, have);
         });
     }
 
+    /**
+     * Counts the commits reachable from {@code want} and not reachable from {@code have} by walking
+     * the commit graph, the same set difference {@link GraphDatabase#countMissingCommits} computes,
+     * merged commits included.
+     */
+    static int countMissingCommits(GraphDatabase graph, ObjectId want, ObjectId have) {
+        final Set<ObjectId> excluded = ancestors(graph, have, Collections.emptySet());
+        return ancestors(graph, want, excluded).size();
+    }
+
+    /**
+     * @return {@code commit} and its ancestors, not going past the {@code excluded} ones
+     */
+    private static Set<ObjectId> ancestors(GraphDatabase graph, ObjectId commit,
+            Set<ObjectId> excluded) {
+        final Set<ObjectId> visited = new HashSet<>();
+        final Deque<ObjectId> queue = new ArrayDeque<>();
+        queue.add(commit);
+        while (!queue.isEmpty()) {
+            ObjectId id = queue.removeFirst();
+            if (id.isNull() || excluded.contains(id) || !visited.add(id)) {
+                continue;
+            }
+            queue.addAll(graph.getParents(id));
+        }
+        return visited;
+    }
+
 }
@@ -14,9 +14,12 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.locationtech.geogig.model.impl.RevObjectTestSupport.hashString;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -36,6 +39,7 @@ import org.locationtech.geogig.porcelain.ResetOp.ResetMode;
 import org.locationtech.geogig.remotes.FetchOp;
 import org.locationtech.geogig.repository.Context;
 import org.locationtech.geogig.repository.Remote;
+import org.locationtech.geogig.storage.memory.HeapGraphDatabase;
 import org.locationtech.geogig.test.TestData;
 import org.locationtech.geogig.transaction.GeogigTransaction;
 
@@ -191,6 +195,29 @@ public class PRHealthCheckOpTest {
         assertEquals(0, status.getNumConflicts());
     }
 
+    public @Test void countMissingCommitsGraphWalkIncludesMergedCommits() {
+        HeapGraphDatabase graph = new HeapGraphDatabase();
+        graph.open();
+        ObjectId root = hashString("root");
+        ObjectId c1 = hashString("c1");
+        ObjectId have = hashString("have");
+        ObjectId side = hashString("side");
+        ObjectId merge = hashString("merge");
+        ObjectId want = hashString("want");
+        graph.put(root, List.of());
+        graph.put(c1, List.of(root));
+        graph.put(have, List.of(c1));
+        graph.put(side, List.of(root));
+        graph.put(merge, List.of(have, side));
+        graph.put(want, List.of(merge));
+
+        // same result as the graph database's set difference
+        assertEquals(OptionalInt.of(3), graph.countMissingCommits(Set.of(want), Set.of(have)));
+        assertEquals(3, PRHealthCheckOp.countMissingCommits(graph, want, have));
+        assertEquals(0, PRHealthCheckOp.countMissingCommits(graph, have, want));
+        assertEquals(1, PRHealthCheckOp.countMissingCommits(graph, side, have));
+    }
+
     public @Test void healthCheckWithConflicts() {
         // fake PRPrepareOp
         fakeUpToDate();
@@ -15,6 +15,7 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -41,6 +42,8 @@ import org.locationtech.geogig.remotes.internal.LocalRemoteRepo;
 import org.locationtech.geogig.repository.ProgressListener;
 import org.locationtech.geogig.repository.Remote;
 import org.locationtech.geogig.repository.Repository;
+import org.locationtech.geogig.repository.RepositoryFinder;
+import org.locationtech.geogig.repository.RepositoryResolver;
 import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
 
 import com.google.common.base.Throwables;
@@ -66,7 +69,10 @@ import com.google.common.collect.Iterables;
  * <li>Configure the repository to be cloned a remote in the new repository (see
  * {@link RemoteAddOp}), named {@code origin} by default, a different name can be assigned through
  * {@link #setRemoteName};
- * <li>Get all the contents and remote refs from the remote to the clone (see {@link FetchOp});
+ * <li>Get all the contents and remote refs from the remote to the clone (see {@link FetchOp}). If
+ * the remote is a full repository in the same host and its storage backend supports it, the whole
+ * databases are copied first (see {@link RepositoryResolver#cloneDatabases}), so that the fetch
+ * finds no missing objects;
  * <li>Finally, for each remote ref created by {@link FetchOp} that represents a branch, create a
  * new local branch ref in the cloned repo (e.g. create a {@code refs/heads/master} matching
  * {@code refs/remotes/origin/master}, and so on);
@@ -118,10 +124,16 @@ public class CloneOp extends AbstractGeoGigOp<Repository> {
                 }
                 final Integer depth = this.depth.orElseGet(() -> remoteRepo.getDepth().orElse(0));
                 setDepth(cloneRepo, depth);
+                final boolean databasesCloned = remoteRepo instanceof LocalRemoteRepo
+                        && depth.intValue() == 0 && cloneDatabases(cloneRepo, remote,
+                                ((LocalRemoteRepo) remoteRepo).getRemoteRepository());
+                // if the databases were cloned there are no missing objects and fetch only sets up
+                // the remote refs and tags
                 localRemoteRefs = fetchRemoteData(cloneRepo, remote, depth, fetchIndexes);
                 headRef = remoteRepo.headRef();
 
-                if (this.cloneIndexes && remoteRepo instanceof LocalRemoteRepo) {
+                if (this.cloneIndexes && remoteRepo instanceof LocalRemoteRepo
+                        && !databasesCloned) {
                     Repository localRemote = ((LocalRemoteRepo) remoteRepo).getRemoteRepository();
                     localRemote.context().indexDatabase()
                             .copyIndexesTo(cloneRepo.context().indexDatabase());
@@ -271,6 +283,32 @@ public class CloneOp extends AbstractGeoGigOp<Repository> {
         return refs;
     }
 
+    /**
+     * Takes the storage backend's fast path, if any, to copy the whole object, commit graph, and
+     * (if {@link #setCloneIndexes cloning indexes}) index databases of a repository in the same
+     * host to the clone (e.g. hard linking the database files), instead of transferring its objects
+     * one by one.
+     * <p>
+     * Only applies to full clones into an empty repository, since the copy is physical and includes
+     * all the objects in the source repository, reachable or not.
+     * 
+     * @return {@code true} if the databases were copied
+     */
+    private boolean cloneDatabases(Repository clone, Remote remote, Repository source) {
+        if (clone.isSparse() || singleBranch || remote.isMapped()
+                || source.getDepth().isPresent()) {
+            return false;
+        }
+        // a newly created repository has an unborn master branch and nothing else
+        List<Ref> refs = clone.context().refDatabase().getAll(Ref.REFS_PREFIX);
+        if (refs.stream().anyMatch(r -> !r.getObjectId().isNull())) {
+            return false;
+        }
+        final URI sourceURI = source.getLocation();
+        final RepositoryResolver resolver = RepositoryFinder.INSTANCE.lookup(clone.getLocation());
+        return resolver.cloneDatabases(sourceURI, clone, cloneIndexes);
+    }
+
     private void setDepth(Repository clone, int depth) {
         if (depth > 0) {
             String name = Repository.DEPTH_CONFIG_KEY;
@@ -11,6 +11,7 @@ package org.locationtech.geogig.remotes.internal;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Stack;
 
@@ -80,6 +81,11 @@ public abstract class AbstractMappedRemoteRepo implements IRemoteRepo {
             return source.getParents(commitId);
         }
 
+        protected @Override Map<ObjectId, List<ObjectId>> getParentsInternal(
+                List<ObjectId> commitIds) {
+            return source.getParents(commitIds);
+        }
+
         protected @Override boolean existsInDestination(ObjectId commitId) {
             return destination.context().graphDatabase().exists(commitId);
         }
@@ -109,6 +115,11 @@ public abstract class AbstractMappedRemoteRepo implements IRemoteRepo {
             return source.context().graphDatabase().getParents(commitId);
         }
 
+        protected @Override Map<ObjectId, List<ObjectId>> getParentsInternal(
+                List<ObjectId> commitIds) {
+            return source.context().graphDatabase().getParents(commitIds);
+        }
+
         protected @Override boolean existsInDestination(ObjectId commitId) {
             // If the commit has not been mapped, it hasn't been pushed to the remote yet
             return !source.context().graphDatabase().getMapping(commitId).equals(ObjectId.NULL);
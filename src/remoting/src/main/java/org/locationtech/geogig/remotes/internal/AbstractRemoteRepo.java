@@ -10,6 +10,7 @@
 package org.locationtech.geogig.remotes.internal;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.locationtech.geogig.dsl.Geogig;
@@ -76,6 +77,11 @@ public abstract class AbstractRemoteRepo implements IRemoteRepo {
             return source.getParents(commitId);
         }
 
+        protected @Override Map<ObjectId, List<ObjectId>> getParentsInternal(
+                List<ObjectId> commitIds) {
+            return source.getParents(commitIds);
+        }
+
         protected @Override boolean existsInDestination(ObjectId commitId) {
             return destination.objectExists(commitId);
         }
@@ -126,6 +132,11 @@ public abstract class AbstractRemoteRepo implements IRemoteRepo {
             return source.getParents(commitId);
         }
 
+        protected @Override Map<ObjectId, List<ObjectId>> getParentsInternal(
+                List<ObjectId> commitIds) {
+            return source.getParents(commitIds);
+        }
+
         protected @Override boolean existsInDestination(ObjectId commitId) {
             return destination.objectExists(commitId);
         }
@@ -159,6 +170,11 @@ public abstract class AbstractRemoteRepo implements IRemoteRepo {
             return source.getParents(commitId);
         }
 
+        protected @Override Map<ObjectId, List<ObjectId>> getParentsInternal(
+                List<ObjectId> commitIds) {
+            return source.getParents(commitIds);
+        }
+
         protected @Override boolean existsInDestination(ObjectId commitId) {
             return destination.objectExists(commitId);
         }
@@ -9,9 +9,12 @@
  */
 package org.locationtech.geogig.remotes.internal;
 
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Stack;
 
@@ -23,6 +26,12 @@ import org.locationtech.geogig.model.ObjectId;
  */
 public abstract class CommitTraverser {
 
+    /**
+     * Maximum number of commits whose parents are fetched at once, see
+     * {@link #getParentsInternal(List)}
+     */
+    static final int PARENTS_BATCH_SIZE = 100;
+
     private Queue<CommitNode> commitQueue;
 
     public Stack<ObjectId> commits;
@@ -179,11 +188,26 @@ public abstract class CommitTraverser {
         }
     }
 
+    /**
+     * Gets the parents of the given commit, prefetching the parents of the queued commits that have
+     * not been fetched yet, to save round trips to the source
+     */
     private List<ObjectId> getParents(ObjectId commitId) {
         List<ObjectId> parents = commitParents.get(commitId);
         if (parents == null) {
-            parents = getParentsInternal(commitId);
-            commitParents.put(commitId, parents);
+            List<ObjectId> batch = new ArrayList<>();
+            batch.add(commitId);
+            for (CommitNode queued : commitQueue) {
+                if (batch.size() == PARENTS_BATCH_SIZE) {
+                    break;
+                }
+                ObjectId id = queued.getObjectId();
+                if (!commitParents.containsKey(id) && !id.equals(commitId)) {
+                    batch.add(id);
+                }
+            }
+            commitParents.putAll(getParentsInternal(batch));
+            parents = commitParents.get(commitId);
         }
         return parents;
     }
@@ -196,6 +220,22 @@ public abstract class CommitTraverser {
      */
     protected abstract List<ObjectId> getParentsInternal(ObjectId commitId);
 
+    /**
+     * Gets the parents of several commits at once, subclasses shall override to fetch them in a
+     * single call to the source if it supports it. Defaults to calling
+     * {@link #getParentsInternal(ObjectId)} for each commit.
+     * 
+     * @param commitIds the ids of the commits whose parents need to be retrieved
+     * @return the list of parents of each commit
+     */
+    protected Map<ObjectId, List<ObjectId>> getParentsInternal(List<ObjectId> commitIds) {
+        Map<ObjectId, List<ObjectId>> parents = new LinkedHashMap<>();
+        for (ObjectId id : commitIds) {
+            parents.put(id, getParentsInternal(id));
+        }
+        return parents;
+    }
+
     /**
      * Determines if the given commitId exists in the destination.
      * 
@@ -10,10 +10,14 @@
 package org.locationtech.geogig.remotes.internal;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.ServiceLoader.Provider;
 import java.util.stream.Collectors;
 
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.repository.Hints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,14 +44,29 @@ public interface DeduplicationService {
     Deduplicator createDeduplicator();
 
     public static Deduplicator create() {
+        return create(null);
+    }
+
+    /**
+     * Creates a {@link Deduplicator} using the {@link DeduplicationService} given by the
+     * {@link Hints#DEDUPLICATOR} hint, if present, or the first one found through the SPI lookup
+     * otherwise, defaulting to {@link HeapDeduplicationService}.
+     */
+    public static Deduplicator create(@Nullable Hints hints) {
         final Logger LOG = LoggerFactory.getLogger(DeduplicationService.class);
         ServiceLoader<DeduplicationService> loader = ServiceLoader.load(DeduplicationService.class,
                 DeduplicationService.class.getClassLoader());
         List<DeduplicationService> services = loader.stream().map(Provider::get)
                 .collect(Collectors.toList());
 
+        final Optional<String> requested = Optional.ofNullable(hints)
+                .flatMap(h -> h.get(Hints.DEDUPLICATOR)).map(String::valueOf);
+
         DeduplicationService service;
-        if (services.isEmpty()) {
+        if (requested.isPresent()) {
+            service = lookup(requested.get(), services);
+            LOG.debug("Using deduplicator service: {}", service.getClass().getName());
+        } else if (services.isEmpty()) {
             service = new HeapDeduplicationService();
         } else {
             service = services.get(0);
@@ -61,4 +80,23 @@ public interface DeduplicationService {
         return service.createDeduplicator();
     }
 
+    private static DeduplicationService lookup(String className,
+            List<DeduplicationService> services) {
+        Optional<DeduplicationService> service = services.stream()
+                .filter(s -> s.getClass().getName().equals(className)).findFirst();
+        if (service.isPresent()) {
+            return service.get();
+        }
+        try {
+            Class<?> clazz = Class.forName(className, true,
+                    DeduplicationService.class.getClassLoader());
+            Preconditions.checkArgument(DeduplicationService.class.isAssignableFrom(clazz),
+                    "%s is not a %s", className, DeduplicationService.class.getSimpleName());
+            return (DeduplicationService) clazz.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(
+                    "Unable to create deduplication service " + className, e);
+        }
+    }
+
 }
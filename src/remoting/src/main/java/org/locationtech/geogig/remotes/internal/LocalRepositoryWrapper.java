@@ -10,6 +10,7 @@
 package org.locationtech.geogig.remotes.internal;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.locationtech.geogig.model.ObjectId;
@@ -51,6 +52,10 @@ class LocalRepositoryWrapper implements RepositoryWrapper {
         return localRepository.context().graphDatabase().getParents(commitId);
     }
 
+    public @Override Map<ObjectId, List<ObjectId>> getParents(List<ObjectId> commitIds) {
+        return localRepository.context().graphDatabase().getParents(commitIds);
+    }
+
     /**
      * Gets the depth of the given commit.
      * 
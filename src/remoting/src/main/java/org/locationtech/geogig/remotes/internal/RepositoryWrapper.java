@@ -9,7 +9,9 @@
  */
 package org.locationtech.geogig.remotes.internal;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.locationtech.geogig.model.ObjectId;
@@ -35,6 +37,21 @@ public interface RepositoryWrapper {
      */
     public List<ObjectId> getParents(ObjectId commitId);
 
+    /**
+     * Gets the parents of several commits at once.
+     * 
+     * @param commitIds the ids of the commits whose parents to retrieve
+     * @return the list of parent ids of each commit
+     * @since 2.0
+     */
+    public default Map<ObjectId, List<ObjectId>> getParents(List<ObjectId> commitIds) {
+        Map<ObjectId, List<ObjectId>> parents = new LinkedHashMap<>();
+        for (ObjectId id : commitIds) {
+            parents.put(id, getParents(id));
+        }
+        return parents;
+    }
+
     /**
      * Gets the depth of the given commit.
      * 
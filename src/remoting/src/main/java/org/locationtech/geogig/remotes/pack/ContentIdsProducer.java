@@ -5,7 +5,6 @@ import static org.locationtech.geogig.model.RevTree.EMPTY_TREE_ID;
 
 import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 
@@ -16,14 +15,13 @@ import org.locationtech.geogig.model.NodeOrdering;
 import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevTree;
-import org.locationtech.geogig.model.impl.QuadTreeBuilder;
 import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk;
 import org.locationtech.geogig.plumbing.diff.PreOrderDiffWalk.BucketIndex;
+import org.locationtech.geogig.porcelain.index.IndexUtils;
 import org.locationtech.geogig.remotes.internal.Deduplicator;
 import org.locationtech.geogig.repository.IndexInfo;
 import org.locationtech.geogig.storage.IndexDatabase;
 import org.locationtech.geogig.storage.ObjectStore;
-import org.locationtech.jts.geom.Envelope;
 
 import lombok.NonNull;
 
@@ -41,9 +39,7 @@ class ContentIdsProducer implements java.util.function.Consumer<ObjectId>, Runna
             @NonNull IndexDatabase sourceStore, @NonNull List<ObjectId[]> treeIds,
             @NonNull Deduplicator deduplicator, @NonNull ObjectReporter objectReport) {
 
-        Envelope maxBounds = IndexInfo.getMaxBounds(indexInfo);
-        Objects.requireNonNull(maxBounds);
-        NodeOrdering diffNodeOrdering = QuadTreeBuilder.nodeOrdering(maxBounds);
+        NodeOrdering diffNodeOrdering = IndexUtils.resolveNodeOrdering(indexInfo);
 
         boolean reportFeatures = false;
         ContentIdsProducer producer = new ContentIdsProducer(sourceStore, treeIds, deduplicator,
@@ -77,7 +77,7 @@ class PackImpl implements Pack {
         List<RefDiff> appliedDiffs = new ArrayList<>();
         List<RefRequest> reqs = new ArrayList<>(missingCommits.keySet());
 
-        Deduplicator deduplicator = DeduplicationService.create();
+        Deduplicator deduplicator = DeduplicationService.create(source.context().hints());
         try {
             for (RefRequest req : reqs) {
                 RefDiff changedRef = applyToPreOrder(target, req, deduplicator, progress);
@@ -94,7 +94,7 @@ class PackImpl implements Pack {
         // process indexes
         if (!missingIndexes.isEmpty()) {
             reqs = new ArrayList<>(missingIndexes.keySet());
-            deduplicator = DeduplicationService.create();
+            deduplicator = DeduplicationService.create(source.context().hints());
             try {
                 for (RefRequest req : reqs) {
                     applyIndex(target, req, deduplicator, progress);
@@ -17,10 +17,12 @@ import static org.locationtech.geogig.base.Preconditions.checkState;
 import static org.locationtech.geogig.storage.BulkOpListener.NOOP_LISTENER;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -188,11 +190,7 @@ public class PreparePackOp extends AbstractGeoGigOp<Pack> {
                     }
                 }
 
-                branchCommits = local.command(LogOp.class)//
-                        .setTopoOrder(true)//
-                        .setUntil(wantCommit)//
-                        .setSince(haveCommit.isNull() ? null : haveCommit)//
-                        .call();
+                branchCommits = resolveMissingCommits(local, wantCommit, haveCommit);
             }
             int count = 0;
             while (branchCommits.hasNext()) {
@@ -213,6 +211,34 @@ public class PreparePackOp extends AbstractGeoGigOp<Pack> {
         progress.setProgressIndicator(oldIndicator);
     }
 
+    /**
+     * Resolves the commits reachable from {@code wantCommit} and not from {@code haveCommit} in
+     * reverse topological order, using the graph database reachability information if available,
+     * and falling back to walking the history otherwise.
+     */
+    private Iterator<RevCommit> resolveMissingCommits(Repository local, ObjectId wantCommit,
+            ObjectId haveCommit) {
+
+        final Set<ObjectId> have = haveCommit.isNull() ? Collections.emptySet()
+                : Collections.singleton(haveCommit);
+        Optional<List<ObjectId>> missing = local.context().graphDatabase()
+                .findMissingCommits(Collections.singleton(wantCommit), have);
+        if (missing.isPresent()) {
+            final List<ObjectId> ids = missing.get();
+            Map<ObjectId, RevCommit> commits = new HashMap<>();
+            local.context().objectDatabase().getAll(ids, NOOP_LISTENER, RevCommit.class)
+                    .forEachRemaining(c -> commits.put(c.getId(), c));
+            if (commits.size() == ids.size()) {
+                return ids.stream().map(commits::get).iterator();
+            }
+        }
+        return local.command(LogOp.class)//
+                .setTopoOrder(true)//
+                .setUntil(wantCommit)//
+                .setSince(haveCommit.isNull() ? null : haveCommit)//
+                .call();
+    }
+
     private Map<String, IndexInfo> indexInfosByFeatureTreeName;
 
     private void addIndexes(PackBuilder builder, Repository local, RevCommit commit) {
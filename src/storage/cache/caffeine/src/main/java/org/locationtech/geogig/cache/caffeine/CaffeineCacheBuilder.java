@@ -9,6 +9,9 @@
  */
 package org.locationtech.geogig.cache.caffeine;
 
+import java.nio.file.Path;
+
+import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.storage.cache.SharedCache;
 import org.locationtech.geogig.storage.cache.SharedCacheBuilder;
 
@@ -16,6 +19,10 @@ public class CaffeineCacheBuilder implements SharedCacheBuilder {
 
     private long maxSizeBytes;
 
+    private long offHeapMaxSizeBytes;
+
+    private @Nullable Path offHeapDirectory;
+
     public @Override int getPriority() {
         return 0;
     }
@@ -24,8 +31,20 @@ public class CaffeineCacheBuilder implements SharedCacheBuilder {
         this.maxSizeBytes = maxSizeBytes;
     }
 
+    public @Override void setOffHeapMaxSizeBytes(long maxSizeBytes) {
+        this.offHeapMaxSizeBytes = maxSizeBytes;
+    }
+
+    public @Override void setOffHeapDirectory(@Nullable Path directory) {
+        this.offHeapDirectory = directory;
+    }
+
     public @Override SharedCache build() {
-        return new CaffeineSharedCache(maxSizeBytes);
+        OffHeapCacheTier offHeapTier = null;
+        if (offHeapMaxSizeBytes > 0L) {
+            offHeapTier = new OffHeapCacheTier(offHeapMaxSizeBytes, offHeapDirectory);
+        }
+        return new CaffeineSharedCache(maxSizeBytes, offHeapTier);
     }
 
 }
@@ -12,7 +12,6 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.flatbuffers.FlatBuffersRevObjectSerializer;
 import org.locationtech.geogig.model.RevObject;
-import org.locationtech.geogig.model.RevTree;
 import org.locationtech.geogig.storage.RevObjectSerializer;
 import org.locationtech.geogig.storage.cache.CacheIdentifier;
 import org.locationtech.geogig.storage.cache.CacheKey;
@@ -27,6 +26,11 @@ import com.github.benmanes.caffeine.cache.Weigher;
 import com.google.common.annotations.VisibleForTesting;
 
 /**
+ * {@link SharedCache} that keeps encoded objects in an on-heap Caffeine cache, and optionally the
+ * ones evicted from it in an {@link OffHeapCacheTier off-heap tier}.
+ * <p>
+ * Objects evicted from the on-heap tier due to size restrictions are demoted to the off-heap tier,
+ * and objects found in the off-heap tier are promoted back to the on-heap tier.
  * 
  * @since 1.4
  */
@@ -43,7 +47,7 @@ public class CaffeineSharedCache implements SharedCache {
      */
     private static class SizeTracker implements RemovalListener<CacheKey, byte[]> {
 
-        private static Weigher<CacheKey, byte[]> WEIGHER = new Weigher<CacheKey, byte[]>() {
+        private static final Weigher<CacheKey, byte[]> WEIGHER = new Weigher<CacheKey, byte[]>() {
 
             static final int ESTIMATED_KEY_SIZE = 32;
 
@@ -81,13 +85,25 @@ public class CaffeineSharedCache implements SharedCache {
 
     private long maxCacheSizeBytes;
 
+    private final @Nullable OffHeapCacheTier offHeapTier;
+
     CaffeineSharedCache() {
         this.byteCache = Caffeine.newBuilder().maximumSize(0).build();
         this.sizeTracker = new SizeTracker();
+        this.offHeapTier = null;
     }
 
     public CaffeineSharedCache(final long maxCacheSizeBytes) {
+        this(maxCacheSizeBytes, null);
+    }
+
+    /**
+     * @param offHeapTier the second level cache tier for the objects evicted from the heap, or
+     *        {@code null}
+     */
+    CaffeineSharedCache(final long maxCacheSizeBytes, @Nullable OffHeapCacheTier offHeapTier) {
         this.maxCacheSizeBytes = maxCacheSizeBytes;
+        this.offHeapTier = offHeapTier;
         checkArgument(maxCacheSizeBytes >= 0, "Cache size can't be < 0, 0 meaning no cache at all");
 
         int initialCapacityCount = 1_000_000;
@@ -99,25 +115,42 @@ public class CaffeineSharedCache implements SharedCache {
         cacheBuilder.recordStats();
         sizeTracker = new SizeTracker();
         cacheBuilder.removalListener(sizeTracker);
+        if (offHeapTier != null) {
+            // demote the entries evicted due to size restrictions, the eviction listener is called
+            // synchronously during eviction, unlike the removal listener
+            cacheBuilder.evictionListener((CacheKey key, byte[] value, RemovalCause cause) -> {
+                if (cause == RemovalCause.SIZE) {
+                    offHeapTier.put(key, value);
+                }
+            });
+        }
         this.byteCache = cacheBuilder.build();
     }
 
     CaffeineSharedCache(Cache<CacheKey, byte[]> byteCache, SizeTracker sizeTracker) {
         this.byteCache = byteCache;
         this.sizeTracker = sizeTracker;
+        this.offHeapTier = null;
     }
 
     public @Override boolean contains(CacheKey id) {
-        return byteCache.asMap().containsKey(id);
+        return byteCache.asMap().containsKey(id)
+                || (offHeapTier != null && offHeapTier.contains(id));
     }
 
     public @Override void invalidateAll() {
         byteCache.invalidateAll();
         byteCache.cleanUp();
+        if (offHeapTier != null) {
+            offHeapTier.invalidateAll();
+        }
     }
 
     public @Override void invalidateAll(CacheIdentifier prefix) {
         invalidateAll(prefix, byteCache.asMap());
+        if (offHeapTier != null) {
+            offHeapTier.invalidateAll(prefix);
+        }
     }
 
     private void invalidateAll(CacheIdentifier prefix, ConcurrentMap<CacheKey, ?> map) {
@@ -130,24 +163,34 @@ public class CaffeineSharedCache implements SharedCache {
 
     public @Override void dispose() {
         invalidateAll();
+        if (offHeapTier != null) {
+            offHeapTier.close();
+        }
     }
 
     public @Override void invalidate(CacheKey id) {
         byteCache.invalidate(id);
+        if (offHeapTier != null) {
+            offHeapTier.invalidate(id);
+        }
     }
 
     /**
-     * Returns the cached {@link RevObject}, if present in either the L1 or L2 cache, or
+     * Returns the cached {@link RevObject}, if present in either the on-heap or off-heap tier, or
      * {@code null} otherwise.
      * <p>
-     * As {@link RevTree}s are frequently requested and tend to be slower to parse, cache miss to
-     * the L1 cache that resulted in a cache hit to the L2 cache, and where the resulting object is
-     * a {@code RevTree}, will result in the tree being added back to the L1 cache.
+     * Objects found in the off-heap tier are added back to the on-heap tier.
      */
     public @Override @Nullable RevObject getIfPresent(CacheKey key) {
         // call cache.getIfPresent instead of map.get() or the cache stats don't record the
         // hits/misses
         byte[] val = byteCache.getIfPresent(key);
+        if (val == null && offHeapTier != null) {
+            val = offHeapTier.get(key);
+            if (val != null && null == byteCache.asMap().putIfAbsent(key, val)) {
+                sizeTracker.inserted(key, val);
+            }
+        }
         if (val != null) {
             return decode(key, val);
         }
@@ -202,8 +245,9 @@ public class CaffeineSharedCache implements SharedCache {
         long size = byteCache.estimatedSize();
         long bytes = sizeTracker.size.get();
         long avg = size == 0 ? 0 : bytes / size;
-        return String.format("Size: %,d, bytes: %,d, avg: %,d bytes/entry, %s", size, bytes, avg,
-                byteCache.stats());
+        String heap = String.format("Size: %,d, bytes: %,d, avg: %,d bytes/entry, %s", size, bytes,
+                avg, byteCache.stats());
+        return offHeapTier == null ? heap : heap + ". " + offHeapTier;
     }
 
     public @Override long sizeBytes() {
@@ -214,6 +258,18 @@ public class CaffeineSharedCache implements SharedCache {
         return byteCache.estimatedSize();
     }
 
+    public @Override long offHeapSizeBytes() {
+        return offHeapTier == null ? 0L : offHeapTier.sizeBytes();
+    }
+
+    public @Override long offHeapObjectCount() {
+        return offHeapTier == null ? 0L : offHeapTier.objectCount();
+    }
+
+    public @Override CacheStats getOffHeapStats() {
+        return offHeapTier == null ? SharedCache.super.getOffHeapStats() : offHeapTier.getStats();
+    }
+
     public @Override CacheStats getStats() {
         final com.github.benmanes.caffeine.cache.stats.CacheStats stats = byteCache.stats();
         return new CacheStats() {
@@ -0,0 +1,359 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.cache.caffeine;
+
+import static org.locationtech.geogig.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.storage.cache.CacheIdentifier;
+import org.locationtech.geogig.storage.cache.CacheKey;
+import org.locationtech.geogig.storage.cache.CacheStats;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A second level cache tier for {@link CaffeineSharedCache} that keeps the encoded objects evicted
+ * from the on-heap tier outside the Java heap.
+ * <p>
+ * The tier's capacity is split in fixed size slabs that are filled sequentially, log style. When
+ * the last slab is full the oldest one is recycled, evicting all its entries at once. Slabs are
+ * either direct {@link ByteBuffer}s (bounded by the JVM's {@code -XX:MaxDirectMemorySize}), or
+ * regions of a memory mapped file in a local directory, so the operating system can page them out
+ * to disk instead of competing for RAM with the heap.
+ * <p>
+ * Only the key to slab address index lives on the heap. Invalidated entries are removed from the
+ * index but their space is only reclaimed when their slab is recycled.
+ *
+ * @since 2.0
+ */
+@Slf4j
+class OffHeapCacheTier implements AutoCloseable {
+
+    static final int MAX_SLAB_SIZE = 64 * 1024 * 1024;
+
+    static final int MIN_SLAB_SIZE = 64 * 1024;
+
+    private static final int MIN_SLABS = 8;
+
+    private static class Slab {
+        final int slot;
+
+        final int capacity;
+
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        final List<CacheKey> keys = new ArrayList<>();
+
+        @Nullable
+        ByteBuffer buffer;
+
+        int writeOffset;
+
+        Slab(int slot, int capacity) {
+            this.slot = slot;
+            this.capacity = capacity;
+        }
+
+        int remaining() {
+            return capacity - writeOffset;
+        }
+    }
+
+    private final long maxSizeBytes;
+
+    private final int slabSize;
+
+    private final Slab[] slabs;
+
+    private final ConcurrentMap<CacheKey, Long> index = new ConcurrentHashMap<>();
+
+    private final @Nullable Path file;
+
+    private final @Nullable FileChannel channel;
+
+    private int current;
+
+    private boolean closed;
+
+    private final AtomicLong sizeBytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSizeBytes the tier's capacity
+     * @param directory if provided, the slabs are mapped from a temporary file in this directory
+     *        instead of being allocated as direct buffers
+     */
+    public OffHeapCacheTier(final long maxSizeBytes, @Nullable Path directory) {
+        checkArgument(maxSizeBytes >= MIN_SLABS * MIN_SLAB_SIZE,
+                "Off-heap cache size must be at least %s bytes, got %s", MIN_SLABS * MIN_SLAB_SIZE,
+                maxSizeBytes);
+        this.maxSizeBytes = maxSizeBytes;
+        this.slabSize = (int) Math.max(MIN_SLAB_SIZE,
+                Math.min(MAX_SLAB_SIZE, maxSizeBytes / MIN_SLABS));
+        final int slabCount = (int) (maxSizeBytes / slabSize);
+        this.slabs = new Slab[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            slabs[i] = new Slab(i, slabSize);
+        }
+        if (directory == null) {
+            this.file = null;
+            this.channel = null;
+        } else {
+            try {
+                Files.createDirectories(directory);
+                this.file = Files.createTempFile(directory, "geogig-cache-", ".slabs");
+                this.file.toFile().deleteOnExit();
+                this.channel = FileChannel.open(file, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(
+                        "Unable to create off-heap cache file in " + directory, e);
+            }
+        }
+        log.info("Created off-heap cache tier of {} slabs of {} bytes{}", slabCount, slabSize,
+                file == null ? "" : " mapped from " + file);
+    }
+
+    public long maxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public @Nullable Path file() {
+        return file;
+    }
+
+    public boolean contains(@NonNull CacheKey key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * @return the encoded object for {@code key}, or {@code null} if not present
+     */
+    public @Nullable byte[] get(@NonNull CacheKey key) {
+        final Long address = index.get(key);
+        if (address != null) {
+            final Slab slab = slabs[slot(address)];
+            final Lock lock = slab.lock.readLock();
+            lock.lock();
+            try {
+                // the slab may have been recycled since the index lookup
+                if (address.equals(index.get(key))) {
+                    ByteBuffer buffer = slab.buffer.duplicate();
+                    buffer.position(offset(address));
+                    byte[] value = new byte[buffer.getInt()];
+                    buffer.get(value);
+                    hits.increment();
+                    return value;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Adds the encoded object to this tier if not already present
+     *
+     * @return {@code true} if added, {@code false} if already present or too big to fit in a slab
+     */
+    public boolean put(@NonNull CacheKey key, @NonNull byte[] value) {
+        final int recordSize = Integer.BYTES + value.length;
+        if (recordSize > slabSize || index.containsKey(key)) {
+            return false;
+        }
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            Slab slab = slabs[current];
+            if (slab.remaining() < recordSize) {
+                current = (current + 1) % slabs.length;
+                slab = slabs[current];
+                recycle(slab);
+            }
+            ByteBuffer buffer = buffer(slab).duplicate();
+            final int offset = slab.writeOffset;
+            buffer.position(offset);
+            buffer.putInt(value.length);
+            buffer.put(value);
+            slab.writeOffset += recordSize;
+            slab.keys.add(key);
+            sizeBytes.addAndGet(recordSize);
+            return null == index.putIfAbsent(key, address(slab.slot, offset));
+        }
+    }
+
+    public void invalidate(@NonNull CacheKey key) {
+        index.remove(key);
+    }
+
+    public void invalidateAll(@NonNull CacheIdentifier prefix) {
+        final int expectedPrefix = prefix.prefix();
+        index.keySet().removeIf(k -> k.prefix() == expectedPrefix);
+    }
+
+    public synchronized void invalidateAll() {
+        index.clear();
+        for (Slab slab : slabs) {
+            Lock lock = slab.lock.writeLock();
+            lock.lock();
+            try {
+                slab.keys.clear();
+                slab.writeOffset = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+        sizeBytes.set(0);
+        current = 0;
+    }
+
+    /**
+     * @return number of objects in this tier
+     */
+    public long objectCount() {
+        return index.size();
+    }
+
+    /**
+     * @return the number of bytes used in the slabs, including the ones of invalidated entries
+     *         whose slab has not been recycled yet
+     */
+    public long sizeBytes() {
+        return sizeBytes.get();
+    }
+
+    public CacheStats getStats() {
+        final long hitCount = hits.sum();
+        final long missCount = misses.sum();
+        final long evictionCount = evictions.sum();
+        final long requestCount = hitCount + missCount;
+        return new CacheStats() {
+            public @Override long hitCount() {
+                return hitCount;
+            }
+
+            public @Override double hitRate() {
+                return requestCount == 0 ? 1D : (double) hitCount / requestCount;
+            }
+
+            public @Override long missCount() {
+                return missCount;
+            }
+
+            public @Override double missRate() {
+                return requestCount == 0 ? 0D : (double) missCount / requestCount;
+            }
+
+            public @Override long evictionCount() {
+                return evictionCount;
+            }
+        };
+    }
+
+    public @Override synchronized void close() {
+        closed = true;
+        invalidateAll();
+        for (Slab slab : slabs) {
+            slab.buffer = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Error closing off-heap cache file {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Evicts all the entries in the slab and resets it for writing, must be called while holding
+     * the monitor lock
+     */
+    private void recycle(Slab slab) {
+        final Lock lock = slab.lock.writeLock();
+        lock.lock();
+        try {
+            for (int i = 0, offset = 0; i < slab.keys.size(); i++) {
+                CacheKey key = slab.keys.get(i);
+                int recordSize = Integer.BYTES + slab.buffer.getInt(offset);
+                if (index.remove(key, address(slab.slot, offset))) {
+                    evictions.increment();
+                }
+                offset += recordSize;
+            }
+            sizeBytes.addAndGet(-slab.writeOffset);
+            slab.keys.clear();
+            slab.writeOffset = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ByteBuffer buffer(Slab slab) {
+        if (slab.buffer == null) {
+            if (channel == null) {
+                slab.buffer = ByteBuffer.allocateDirect(slab.capacity);
+            } else {
+                try {
+                    slab.buffer = channel.map(MapMode.READ_WRITE, (long) slab.slot * slabSize,
+                            slab.capacity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return slab.buffer;
+    }
+
+    private static long address(int slot, int offset) {
+        return ((long) slot << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    public @Override String toString() {
+        return String.format("Off-heap tier: size: %,d, bytes: %,d/%,d", objectCount(), sizeBytes(),
+                maxSizeBytes);
+    }
+}
@@ -0,0 +1,140 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.cache.caffeine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.storage.cache.CacheIdentifier;
+import org.locationtech.geogig.storage.cache.CacheKey;
+import org.locationtech.geogig.storage.cache.CacheStats;
+
+public class OffHeapCacheTierTest {
+
+    private static final long CAPACITY = 8 * OffHeapCacheTier.MIN_SLAB_SIZE;
+
+    public @Rule TemporaryFolder tmp = new TemporaryFolder();
+
+    private CacheIdentifier repo1 = new CacheIdentifier(1), repo2 = new CacheIdentifier(2);
+
+    private OffHeapCacheTier tier;
+
+    public @After void after() {
+        if (tier != null) {
+            tier.close();
+        }
+    }
+
+    private CacheKey key(CacheIdentifier prefix, int i) {
+        return prefix.create(RevObjectTestSupport.hashString("obj-" + i));
+    }
+
+    private byte[] value(int i, int size) {
+        byte[] value = new byte[size];
+        for (int b = 0; b < size; b++) {
+            value[b] = (byte) (i + b);
+        }
+        return value;
+    }
+
+    public @Test void testPrecondition() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new OffHeapCacheTier(CAPACITY - 1, null));
+    }
+
+    public @Test void testPutGet() {
+        tier = new OffHeapCacheTier(CAPACITY, null);
+        CacheKey key = key(repo1, 1);
+        assertNull(tier.get(key));
+        assertTrue(tier.put(key, value(1, 100)));
+        assertFalse(tier.put(key, value(1, 100)));
+        assertArrayEquals(value(1, 100), tier.get(key));
+        assertNull(tier.get(key(repo2, 1)));
+
+        assertEquals(1, tier.objectCount());
+        assertEquals(104, tier.sizeBytes());
+        CacheStats stats = tier.getStats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(0, stats.evictionCount());
+    }
+
+    public @Test void testTooBig() {
+        tier = new OffHeapCacheTier(CAPACITY, null);
+        assertFalse(tier.put(key(repo1, 1), new byte[OffHeapCacheTier.MIN_SLAB_SIZE]));
+        assertEquals(0, tier.objectCount());
+    }
+
+    public @Test void testEviction() {
+        tier = new OffHeapCacheTier(CAPACITY, null);
+        final int valueSize = 1020;
+        final int count = 2 * (int) (CAPACITY / (valueSize + 4));
+        for (int i = 0; i < count; i++) {
+            assertTrue(tier.put(key(repo1, i), value(i, valueSize)));
+        }
+        assertTrue(tier.objectCount() < count);
+        assertTrue(tier.sizeBytes() <= CAPACITY);
+        assertEquals(count - tier.objectCount(), tier.getStats().evictionCount());
+        assertNull(tier.get(key(repo1, 0)));
+        for (int i = count - (int) tier.objectCount(); i < count; i++) {
+            assertArrayEquals(value(i, valueSize), tier.get(key(repo1, i)));
+        }
+    }
+
+    public @Test void testInvalidate() {
+        tier = new OffHeapCacheTier(CAPACITY, null);
+        for (int i = 0; i < 100; i++) {
+            tier.put(key(repo1, i), value(i, 10));
+            tier.put(key(repo2, i), value(i, 10));
+        }
+        tier.invalidate(key(repo1, 0));
+        assertNull(tier.get(key(repo1, 0)));
+
+        tier.invalidateAll(repo2);
+        assertEquals(99, tier.objectCount());
+        for (int i = 0; i < 100; i++) {
+            assertNull(tier.get(key(repo2, i)));
+        }
+        assertNotNull(tier.get(key(repo1, 1)));
+
+        tier.invalidateAll();
+        assertEquals(0, tier.objectCount());
+        assertEquals(0, tier.sizeBytes());
+        assertNull(tier.get(key(repo1, 1)));
+    }
+
+    public @Test void testFileBacked() throws Exception {
+        Path dir = tmp.getRoot().toPath().resolve("cache");
+        tier = new OffHeapCacheTier(CAPACITY, dir);
+        final Path file = tier.file();
+        assertNotNull(file);
+        assertTrue(Files.exists(file));
+        for (int i = 0; i < 2_000; i++) {
+            tier.put(key(repo1, i), value(i, 500));
+        }
+        assertArrayEquals(value(1_999, 500), tier.get(key(repo1, 1_999)));
+        tier.close();
+        tier = null;
+        assertFalse(Files.exists(file));
+    }
+}
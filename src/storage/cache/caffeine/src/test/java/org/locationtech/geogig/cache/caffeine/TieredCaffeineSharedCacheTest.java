@@ -0,0 +1,71 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.cache.caffeine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.locationtech.geogig.model.RevObject;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.storage.ObjectStore;
+import org.locationtech.geogig.storage.cache.CacheIdentifier;
+import org.locationtech.geogig.storage.cache.SharedCache;
+import org.locationtech.geogig.storage.cache.SharedCacheTest;
+import org.locationtech.geogig.storage.memory.HeapObjectStore;
+
+public class TieredCaffeineSharedCacheTest extends SharedCacheTest {
+
+    private static final long OFF_HEAP_SIZE = 16 * 1024 * 1024;
+
+    protected @Override SharedCache createCache(int l1Capacity, long maxCacheSizeBytes) {
+        return new CaffeineSharedCache(maxCacheSizeBytes,
+                new OffHeapCacheTier(OFF_HEAP_SIZE, null));
+    }
+
+    public @Test void testEvictedObjectsDemotedToOffHeapTier() {
+        final CacheIdentifier repo1 = new CacheIdentifier(1), repo2 = new CacheIdentifier(2);
+        final ObjectStore store = new HeapObjectStore();
+        store.open();
+        List<RevObject> objects = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            objects.add(RevObjectTestSupport.INSTANCE.createFeaturesTree(store, "f", i % 50 + 1));
+        }
+        store.close();
+
+        CaffeineSharedCache cache = (CaffeineSharedCache) createCache(0, 16 * 1024);
+        try {
+            objects.forEach(o -> cache.put(repo1.create(o.getId()), o));
+            objects.forEach(o -> cache.put(repo2.create(o.getId()), o));
+            cache.byteCache.cleanUp();
+            assertTrue(cache.objectCount() < 2 * objects.size());
+            assertTrue(cache.offHeapObjectCount() > 0);
+
+            objects.forEach(o -> assertEquals(o, cache.getIfPresent(repo1.create(o.getId()))));
+            assertTrue(cache.getOffHeapStats().hitCount() > 0);
+            assertEquals(0, cache.getOffHeapStats().evictionCount());
+
+            cache.invalidateAll(repo2);
+            objects.forEach(o -> assertNull(cache.getIfPresent(repo2.create(o.getId()))));
+            objects.forEach(o -> assertNotNull(cache.getIfPresent(repo1.create(o.getId()))));
+
+            cache.invalidateAll();
+            assertEquals(0, cache.offHeapObjectCount());
+            objects.forEach(o -> assertNull(cache.getIfPresent(repo1.create(o.getId()))));
+        } finally {
+            cache.dispose();
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import org.locationtech.geogig.base.Preconditions;
@@ -67,7 +68,7 @@ public class FlatBuffersRevObjectSerializer implements RevObjectSerializer {
         int off, len = dataBuffer.remaining();
         if (dataBuffer.hasArray()) {
             array = dataBuffer.array();
-            off = dataBuffer.position();
+            off = dataBuffer.arrayOffset() + dataBuffer.position();
         } else {
             off = 0;
             array = new byte[len];
@@ -114,15 +115,33 @@ public class FlatBuffersRevObjectSerializer implements RevObjectSerializer {
         return flatBuffers.decode(id, data, offset + padding, length - padding);
     }
 
+    /**
+     * Wraps the {@code data} buffer in place, the returned object being a lazy view over the
+     * buffer's remaining bytes
+     */
+    public @Override RevObject read(ObjectId id, @NonNull ByteBuffer data) throws IOException {
+        // do not change the argument's position or byte order
+        ByteBuffer dataBuffer = data.slice();
+        if (isLengthPrefixed()) {
+            dataBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            int size = dataBuffer.getInt(0);
+            Preconditions.checkArgument(size == dataBuffer.remaining() - Integer.BYTES);
+            dataBuffer.position(Integer.BYTES);
+            dataBuffer = dataBuffer.slice();
+        }
+        Preconditions.checkArgument(dataBuffer.hasRemaining());
+        return flatBuffers.decode(id, dataBuffer);
+    }
+
     public byte[] encode(@NonNull RevObject obj) {
         if (obj instanceof FBRevObject) {
             ByteBuffer dataBuffer = ((FBRevObject<?>) obj).getTable().getByteBuffer();
             if (dataBuffer.hasArray()) {
                 byte[] array = dataBuffer.array();
-                if (array.length == dataBuffer.remaining()) {
-                    return array;
-                } else if (dataBuffer.position() == 0) {
-                    return Arrays.copyOf(array, dataBuffer.remaining());
+                final int offset = dataBuffer.arrayOffset() + dataBuffer.position();
+                if (offset == 0) {
+                    return array.length == dataBuffer.remaining() ? array
+                            : Arrays.copyOf(array, dataBuffer.remaining());
                 }
             } else {
                 byte[] array = new byte[dataBuffer.remaining()];
@@ -14,6 +14,7 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 import org.locationtech.geogig.base.Preconditions;
 import org.locationtech.geogig.dsl.Geogig;
@@ -90,6 +91,18 @@ public class PGRepositoryResolver implements RepositoryResolver {
         }
     }
 
+    /**
+     * All the repositories in the same database share the objects and index objects tables.
+     */
+    public @Override List<URI> listRepositoriesSharingObjects(@NonNull URI repoURI) {
+        final String repoName = getName(repoURI);
+        final URI rootURI = getRootURI(repoURI);
+        return listRepoNamesUnderRootURI(rootURI).stream()//
+                .filter(name -> !name.equals(repoName))//
+                .map(name -> buildRepoURI(rootURI, name))//
+                .collect(Collectors.toList());
+    }
+
     public @Override void initialize(URI repoURI) throws IllegalArgumentException {
         Environment config = parseRequireRepositorySet(repoURI);
         PGStorage.createNewRepo(config);
@@ -69,6 +69,12 @@ public class Environment implements Cloneable {
 
     public static final String KEY_PUTALL_BATCH_SIZE = "postgres.putAllBatchSize";
 
+    /**
+     * Boolean config key to make {@code putAll} bulk load objects through the {@code COPY} protocol
+     * instead of batched {@code INSERT} statements, defaults to {@code false}
+     */
+    public static final String KEY_PUTALL_COPY = "postgres.putAllCopy";
+
     public static final String KEY_ODB_BYTE_CACHE_MAX_SIZE = "postgres.bytecache.maxSize";
 
     public static final String KEY_ODB_BYTE_CACHE_CONCURRENCY_LEVEL = "postgres.bytecache.concurrencyLevel";
@@ -9,11 +9,14 @@
  */
 package org.locationtech.geogig.storage.postgresql.config;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
 import org.locationtech.geogig.base.Preconditions;
 
+import com.google.common.hash.Hashing;
+
 import lombok.NonNull;
 
 public class TableNames implements Cloneable {
@@ -22,6 +25,12 @@ public class TableNames implements Cloneable {
 
     public static final String DEFAULT_TABLE_PREFIX = "geogig_";
 
+    /**
+     * Maximum length of a PostgreSQL identifier, {@code NAMEDATALEN - 1}, longer channel names are
+     * rejected by {@code pg_notify()}
+     */
+    public static final int MAX_IDENTIFIER_LENGTH = 63;
+
     private final String schema;
 
     private final String prefix;
@@ -59,6 +68,18 @@ public class TableNames implements Cloneable {
         return new StringBuilder(schema).append('.').append(prefix).append(name).toString();
     }
 
+    /**
+     * @return the name of the {@code LISTEN/NOTIFY} channel for changes to the mutable metadata of
+     *         the repositories in this schema and table prefix. It's derived from a hash of them
+     *         rather than the names themselves, for it to fit in PostgreSQL's
+     *         {@link #MAX_IDENTIFIER_LENGTH identifier length limit} regardless of their length
+     * @see org.locationtech.geogig.storage.postgresql.v9.PGMetadataCache
+     */
+    public String metadataChannel() {
+        String hash = Hashing.sha256().hashString(name(""), StandardCharsets.UTF_8).toString();
+        return "geogig_metadata_" + hash.substring(0, 16);
+    }
+
     public String refs() {
         return name("ref");
     }
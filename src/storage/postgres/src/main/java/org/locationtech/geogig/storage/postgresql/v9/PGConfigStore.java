@@ -37,6 +37,7 @@ import org.locationtech.geogig.storage.ConfigException.StatusCode;
 import org.locationtech.geogig.storage.ConfigStore;
 import org.locationtech.geogig.storage.postgresql.config.Environment;
 import org.locationtech.geogig.storage.postgresql.config.Version;
+import org.locationtech.geogig.storage.postgresql.v9.PGMetadataCache.Kind;
 import org.locationtech.geogig.storage.text.Marshallers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,11 +72,14 @@ public class PGConfigStore extends AbstractStore implements ConfigStore {
 
     private IntSupplier repositoryIdSupplier;
 
+    private PGMetadataCache cache;
+
     public PGConfigStore(@NonNull Environment environment,
             @NonNull IntSupplier repositoryIdSupplier) {
         super(false);
         this.env = environment;
         this.repositoryIdSupplier = repositoryIdSupplier;
+        this.cache = PGMetadataCache.acquire(environment);
     }
 
     private int repositoryId() {
@@ -186,6 +190,17 @@ public class PGConfigStore extends AbstractStore implements ConfigStore {
     protected String get(final Entry entry, final int repositoryPK) {
         checkArgument(!Strings.isNullOrEmpty(entry.section), "Section name required");
         checkArgument(!Strings.isNullOrEmpty(entry.key), "Key required");
+        final PGMetadataCache cache = this.cache;
+        if (cache == null) {
+            return query(entry, repositoryPK);
+        }
+        Optional<String> value = cache.get(Kind.CONFIG, repositoryPK, entry,
+                () -> Optional.ofNullable(query(entry, repositoryPK)));
+        return value.orElse(null);
+    }
+
+    @Nullable
+    private String query(final Entry entry, final int repositoryPK) {
 
         final String sql = format(
                 "SELECT value FROM %s WHERE repository = ? AND section = ? AND key = ?",
@@ -341,6 +356,7 @@ public class PGConfigStore extends AbstractStore implements ConfigStore {
 
                 ps.executeBatch();
             }
+            PGMetadataCache.notify(cx, env, Kind.CONFIG, repositoryPK);
             try {
                 cx.commit();
             } catch (SQLException e) {
@@ -350,6 +366,15 @@ public class PGConfigStore extends AbstractStore implements ConfigStore {
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            invalidate(repositoryPK);
+        }
+    }
+
+    private void invalidate(final int repositoryPK) {
+        final PGMetadataCache cache = this.cache;
+        if (cache != null) {
+            cache.invalidate(Kind.CONFIG, repositoryPK);
         }
     }
 
@@ -369,8 +394,11 @@ public class PGConfigStore extends AbstractStore implements ConfigStore {
     private void remove(final Entry entry, final int repositoryPK) {
         try (Connection cx = env.getConnection()) {
             doRemove(entry, cx, repositoryPK);
+            PGMetadataCache.notify(cx, env, Kind.CONFIG, repositoryPK);
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            invalidate(repositoryPK);
         }
     }
 
@@ -406,12 +434,17 @@ public class PGConfigStore extends AbstractStore implements ConfigStore {
                     throw new ConfigException(StatusCode.MISSING_SECTION);
                 }
             }
+            PGMetadataCache.notify(cx, env, Kind.CONFIG, repositoryId);
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            invalidate(repositoryId);
         }
     }
 
     public @Override void close() {
+        PGMetadataCache.release(cache);
+        cache = null;
         super.close();
         env.close();
     }
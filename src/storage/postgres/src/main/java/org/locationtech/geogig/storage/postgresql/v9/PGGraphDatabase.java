@@ -17,14 +17,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Queue;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -46,6 +54,8 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import lombok.NonNull;
 
@@ -56,6 +66,21 @@ import lombok.NonNull;
 public class PGGraphDatabase extends AbstractStore implements GraphDatabase {
     static Logger LOG = LoggerFactory.getLogger(PGGraphDatabase.class);
 
+    /**
+     * Maximum number of commit ids per query on batch operations
+     */
+    private static final int QUERY_BATCH_SIZE = 1_000;
+
+    /**
+     * The {@link ObjectId#NULL} parent edge of commits with no parents
+     */
+    private static final String NULL_ID = "CAST(ROW(0,0,0) AS OBJECTID)";
+
+    /**
+     * Property the base64 encoded changed paths filters are stored as
+     */
+    private static final String CHANGED_PATHS_PROPERTY = "changed-paths";
+
     private final String EDGES;
 
     private final String PROPS;
@@ -355,34 +380,318 @@ public class PGGraphDatabase extends AbstractStore implements GraphDatabase {
         return mapped;
     }
 
+    /**
+     * Computes the depth as the shortest distance from the commit to any of its ancestors that have
+     * no parents, fetching the ancestors' parent edges with a single recursive query and walking
+     * them breadth first in memory.
+     * <p>
+     * The recursion is over the ancestor ids alone, so each ancestor is visited once regardless of
+     * how many paths lead to it through merge commits.
+     */
     public @Override int getDepth(ObjectId commitId) {
-        int depth = 0;
+        final PGId node = PGId.valueOf(commitId);
+        final String sql = "WITH RECURSIVE\n"//
+                + ancestryQuery("ancestry", "SELECT CAST(ROW(?,?,?) AS OBJECTID)") + "\n"//
+                + "SELECT ((a.nid).h1), ((a.nid).h2), ((a.nid).h3), ((e.dst).h1), ((e.dst).h2), ((e.dst).h3)"
+                + " FROM ancestry a LEFT JOIN " + EDGES + " e ON e.src = a.nid";
 
-        Queue<PGId> q = new LinkedList<>();
+        // ancestor -> its parents
+        final Map<ObjectId, List<ObjectId>> ancestry = new HashMap<>();
         try (Connection cx = env.getConnection()) {
-            Iterables.addAll(q, outgoing(PGId.valueOf(commitId), cx));
-
-            List<PGId> next = new ArrayList<>();
-            while (!q.isEmpty()) {
-                depth++;
-                while (!q.isEmpty()) {
-                    PGId n = q.poll();
-                    List<PGId> parents = outgoing(n, cx);
-                    if (parents.size() == 0) {
-                        return depth;
+            try (PreparedStatement ps = cx.prepareStatement(log(sql, LOG, node))) {
+                node.setArgs(ps, 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ObjectId commit = PGId.valueOf(rs, 1).toObjectId();
+                        List<ObjectId> parents = ancestry.computeIfAbsent(commit,
+                                c -> new ArrayList<>(2));
+                        PGId parent = PGId.valueOf(rs, 4);
+                        if (!parent.isNull()) {
+                            parents.add(parent.toObjectId());
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        Set<ObjectId> visited = new HashSet<>();
+        List<ObjectId> level = Collections.singletonList(commitId);
+        for (int depth = 0; !level.isEmpty(); depth++) {
+            List<ObjectId> next = new ArrayList<>();
+            for (ObjectId commit : level) {
+                List<ObjectId> parents = ancestry.getOrDefault(commit, Collections.emptyList());
+                if (parents.isEmpty()) {
+                    return depth;
+                }
+                for (ObjectId parent : parents) {
+                    if (visited.add(parent)) {
+                        next.add(parent);
                     }
+                }
+            }
+            level = next;
+        }
+        return 0;
+    }
+
+    /**
+     * Fetches the parents of up to {@link #QUERY_BATCH_SIZE} commits per query.
+     */
+    public @Override Map<ObjectId, List<ObjectId>> getParents(Iterable<ObjectId> commitIds) {
+        final Map<ObjectId, List<ObjectId>> parents = new LinkedHashMap<>();
+        for (ObjectId id : commitIds) {
+            parents.putIfAbsent(id, new ArrayList<>(2));
+        }
+        final String sqlFormat = "SELECT ((src).h1), ((src).h2), ((src).h3), ((dst).h1), ((dst).h2), ((dst).h3)"
+                + " FROM %s WHERE src IN (%s) ORDER BY dstindex";
+
+        try (Connection cx = env.getConnection()) {
+            for (List<ObjectId> batch : Iterables.partition(parents.keySet(), QUERY_BATCH_SIZE)) {
+                final List<PGId> nodes = Lists.transform(batch, PGId::valueOf);
+                final String sql = format(sqlFormat, EDGES, idList(nodes.size()));
+                try (PreparedStatement ps = cx.prepareStatement(log(sql, LOG, nodes))) {
+                    setArgs(ps, 1, nodes);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            PGId dst = PGId.valueOf(rs, 4);
+                            if (!dst.isNull()) {
+                                ObjectId src = PGId.valueOf(rs, 1).toObjectId();
+                                parents.get(src).add(dst.toObjectId());
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return parents;
+    }
+
+    /**
+     * Computes the missing commits with a single recursive query over the edges table, and sorts
+     * them in reverse topological order using their parent edges returned by the same query.
+     * 
+     * @return the missing commits, or {@link Optional#empty() empty} if any of the argument commits
+     *         is not in the graph
+     */
+    public @Override Optional<List<ObjectId>> findMissingCommits(@NonNull Set<ObjectId> want,
+            @NonNull Set<ObjectId> have) {
+        if (want.isEmpty()) {
+            return Optional.of(Collections.emptyList());
+        }
+        final List<PGId> wantNodes = Lists.transform(new ArrayList<>(want), PGId::valueOf);
+        final List<PGId> haveNodes = Lists.transform(new ArrayList<>(have), PGId::valueOf);
+        final String sql = missingCommitsQuery(wantNodes.size(), haveNodes.size())//
+                + "SELECT ((m.nid).h1), ((m.nid).h2), ((m.nid).h3), ((e.dst).h1), ((e.dst).h2), ((e.dst).h3)"
+                + " FROM missing m LEFT JOIN " + EDGES + " e ON e.src = m.nid";
+
+        // missing commit -> its parents that are also missing
+        final Map<ObjectId, List<ObjectId>> missing = new LinkedHashMap<>();
+        try (Connection cx = env.getConnection()) {
+            if (!allExist(Iterables.concat(wantNodes, haveNodes), cx)) {
+                return Optional.empty();
+            }
+            try (PreparedStatement ps = cx.prepareStatement(log(sql, LOG, want, have))) {
+                setArgs(ps, setArgs(ps, 1, wantNodes), haveNodes);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ObjectId commit = PGId.valueOf(rs, 1).toObjectId();
+                        List<ObjectId> parents = missing.computeIfAbsent(commit,
+                                c -> new ArrayList<>(2));
+                        PGId parent = PGId.valueOf(rs, 4);
+                        if (!parent.isNull()) {
+                            parents.add(parent.toObjectId());
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return Optional.of(sortChildrenFirst(missing));
+    }
+
+    /**
+     * Counts the missing commits with a single recursive query, without transferring them
+     * 
+     * @return the number of missing commits, or {@link OptionalInt#empty() empty} if any of the
+     *         argument commits is not in the graph
+     */
+    public @Override OptionalInt countMissingCommits(@NonNull Set<ObjectId> want,
+            @NonNull Set<ObjectId> have) {
+        if (want.isEmpty()) {
+            return OptionalInt.of(0);
+        }
+        final List<PGId> wantNodes = Lists.transform(new ArrayList<>(want), PGId::valueOf);
+        final List<PGId> haveNodes = Lists.transform(new ArrayList<>(have), PGId::valueOf);
+        final String sql = missingCommitsQuery(wantNodes.size(), haveNodes.size())
+                + "SELECT COUNT(*) FROM missing";
 
-                    Iterables.addAll(next, parents);
+        try (Connection cx = env.getConnection()) {
+            if (!allExist(Iterables.concat(wantNodes, haveNodes), cx)) {
+                return OptionalInt.empty();
+            }
+            try (PreparedStatement ps = cx.prepareStatement(log(sql, LOG, want, have))) {
+                setArgs(ps, setArgs(ps, 1, wantNodes), haveNodes);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return OptionalInt.of(rs.getInt(1));
                 }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-                q.addAll(next);
-                next.clear();
+    /**
+     * Computes the merge bases with a single recursive query, as the common ancestors of both
+     * commits that are not ancestors of another common ancestor.
+     * 
+     * @return the merge bases in no particular order, as allowed by
+     *         {@link GraphDatabase#findMergeBases}, or {@link Optional#empty() empty} if any of the
+     *         argument commits is not in the graph
+     */
+    public @Override Optional<List<ObjectId>> findMergeBases(@NonNull ObjectId left,
+            @NonNull ObjectId right) {
+        final PGId leftNode = PGId.valueOf(left);
+        final PGId rightNode = PGId.valueOf(right);
+        final String sql = "WITH RECURSIVE\n"//
+                + ancestryQuery("left_anc", "SELECT CAST(ROW(?,?,?) AS OBJECTID)") + ",\n"//
+                + ancestryQuery("right_anc", "SELECT CAST(ROW(?,?,?) AS OBJECTID)") + ",\n"//
+                + "common(nid) AS (SELECT nid FROM left_anc INTERSECT SELECT nid FROM right_anc),\n"//
+                + ancestryQuery("common_anc", format(
+                        "SELECT e.dst FROM common c JOIN %s e ON e.src = c.nid WHERE e.dst <> %s",
+                        EDGES, NULL_ID))
+                + "\n"//
+                + "SELECT ((c.nid).h1), ((c.nid).h2), ((c.nid).h3) FROM common c"
+                + " WHERE NOT EXISTS (SELECT 1 FROM common_anc a WHERE a.nid = c.nid)";
+
+        final List<ObjectId> mergeBases = new ArrayList<>(1);
+        try (Connection cx = env.getConnection()) {
+            if (!allExist(Arrays.asList(leftNode, rightNode), cx)) {
+                return Optional.empty();
+            }
+            try (PreparedStatement ps = cx.prepareStatement(log(sql, LOG, leftNode, rightNode))) {
+                leftNode.setArgs(ps, 1);
+                rightNode.setArgs(ps, 4);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        mergeBases.add(PGId.valueOf(rs, 1).toObjectId());
+                    }
+                }
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        return Optional.of(mergeBases);
+    }
+
+    /**
+     * Builds the {@code WITH RECURSIVE} clause of a query that defines the {@code missing(nid)}
+     * relation as the commits reachable from the {@code wantCount} first id arguments and not
+     * reachable from the {@code haveCount} following id arguments
+     */
+    private String missingCommitsQuery(int wantCount, int haveCount) {
+        StringBuilder sql = new StringBuilder("WITH RECURSIVE\n");
+        sql.append(ancestryQuery("want_anc", idValues(wantCount)));
+        if (haveCount == 0) {
+            sql.append(",\nmissing(nid) AS (SELECT nid FROM want_anc)\n");
+        } else {
+            sql.append(",\n").append(ancestryQuery("have_anc", idValues(haveCount)));
+            sql.append(
+                    ",\nmissing(nid) AS (SELECT nid FROM want_anc EXCEPT SELECT nid FROM have_anc)\n");
+        }
+        return sql.toString();
+    }
 
-        return depth;
+    /**
+     * @return a recursive common table expression named {@code name} with a single {@code nid}
+     *         column containing the results of the {@code start} query and all their ancestors
+     */
+    private String ancestryQuery(String name, String start) {
+        return format("%s(nid) AS (\n"//
+                + " %s\n"//
+                + " UNION\n"//
+                + " SELECT e.dst FROM %s a JOIN %s e ON e.src = a.nid WHERE e.dst <> %s\n"//
+                + ")", name, start, name, EDGES, NULL_ID);
+    }
+
+    /**
+     * @return whether all the given nodes are either the source or destination of an edge
+     */
+    private boolean allExist(Iterable<PGId> nodes, Connection cx) throws SQLException {
+        final List<PGId> unique = new ArrayList<>(Sets.newLinkedHashSet(nodes));
+        if (unique.isEmpty()) {
+            return true;
+        }
+        final String sql = format(
+                "SELECT COUNT(*) FROM (%s) ids WHERE EXISTS ("
+                        + " SELECT 1 FROM %s e WHERE e.src = ids.nid OR e.dst = ids.nid )",
+                idValues(unique.size()), EDGES);
+        try (PreparedStatement ps = cx.prepareStatement(log(sql, LOG, unique))) {
+            setArgs(ps, 1, unique);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1) == unique.size();
+            }
+        }
+    }
+
+    /**
+     * @param parents the commits to sort, mapped to their parents, where parents not present as
+     *        keys are ignored
+     * @return the commits in reverse topological order (children before parents)
+     */
+    private static List<ObjectId> sortChildrenFirst(Map<ObjectId, List<ObjectId>> parents) {
+        final Map<ObjectId, Integer> childCount = new HashMap<>();
+        parents.values().forEach(ps -> ps.forEach(p -> childCount.merge(p, 1, Integer::sum)));
+
+        final List<ObjectId> sorted = new ArrayList<>(parents.size());
+        final Deque<ObjectId> tips = new ArrayDeque<>();
+        parents.keySet().stream().filter(c -> !childCount.containsKey(c)).forEach(tips::add);
+        while (!tips.isEmpty()) {
+            ObjectId commit = tips.poll();
+            sorted.add(commit);
+            for (ObjectId parent : parents.get(commit)) {
+                if (parents.containsKey(parent)
+                        && 0 == childCount.merge(parent, -1, Integer::sum)) {
+                    tips.add(parent);
+                }
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * @return a comma separated list of {@code count} object id placeholders
+     */
+    private static String idList(int count) {
+        return String.join(", ", Collections.nCopies(count, "CAST(ROW(?,?,?) AS OBJECTID)"));
+    }
+
+    /**
+     * @return a query returning {@code count} object id placeholders as a single {@code nid} column
+     */
+    private static String idValues(int count) {
+        String values = String.join(", ",
+                Collections.nCopies(count, "(CAST(ROW(?,?,?) AS OBJECTID))"));
+        return format("SELECT nid FROM (VALUES %s) AS ids(nid)", values);
+    }
+
+    /**
+     * Sets the arguments of the {@link #idList} or {@link #idValues} placeholders starting at
+     * {@code index}, and returns the index of the next argument
+     */
+    private static int setArgs(PreparedStatement ps, int index, List<PGId> nodes)
+            throws SQLException {
+        for (PGId node : nodes) {
+            node.setArgs(ps, index);
+            index += 3;
+        }
+        return index;
     }
 
     /**
@@ -443,6 +752,22 @@ public class PGGraphDatabase extends AbstractStore implements GraphDatabase {
         }
     }
 
+    public @Override Optional<String> getProperty(ObjectId commitId, String propertyName) {
+        return Optional.ofNullable(property(PGId.valueOf(commitId), propertyName, dataSource));
+    }
+
+    /**
+     * Stores the filter in the properties table, which graph traversals don't read
+     */
+    public @Override boolean putChangedPaths(@NonNull ObjectId commitId, @NonNull byte[] filter) {
+        setProperty(commitId, CHANGED_PATHS_PROPERTY, Base64.getEncoder().encodeToString(filter));
+        return true;
+    }
+
+    public @Override Optional<byte[]> getChangedPaths(@NonNull ObjectId commitId) {
+        return getProperty(commitId, CHANGED_PATHS_PROPERTY).map(Base64.getDecoder()::decode);
+    }
+
     public @Override GraphNode getNode(ObjectId id) {
         return new PGGraphNode(id);
     }
@@ -25,6 +25,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -44,6 +45,7 @@ import org.locationtech.geogig.storage.postgresql.config.ConnectionConfig;
 import org.locationtech.geogig.storage.postgresql.config.Environment;
 import org.locationtech.geogig.storage.postgresql.config.PGId;
 import org.locationtech.geogig.storage.postgresql.config.Version;
+import org.locationtech.geogig.storage.postgresql.v9.PGMetadataCache.Kind;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,6 +62,8 @@ public class PGIndexDatabase extends PGObjectStore implements IndexDatabase {
 
     private final ValueSerializer valueEncoder = DataStreamValueSerializerV2.INSTANCE;
 
+    private PGMetadataCache metadataCache;
+
     public PGIndexDatabase(final ConfigDatabase configdb, final Environment env) {
         super(configdb, env);
     }
@@ -70,8 +74,27 @@ public class PGIndexDatabase extends PGObjectStore implements IndexDatabase {
     }
 
     public @Override void open() {
+        if (isOpen()) {
+            return;
+        }
         super.open();
         repositoryId = env.getRepositoryId();
+        metadataCache = PGMetadataCache.acquire(env);
+    }
+
+    public @Override void close() {
+        if (isOpen()) {
+            PGMetadataCache.release(metadataCache);
+            metadataCache = null;
+        }
+        super.close();
+    }
+
+    private void invalidateIndexMappings() {
+        final PGMetadataCache cache = this.metadataCache;
+        if (cache != null) {
+            cache.invalidate(Kind.INDEX, repositoryId);
+        }
     }
 
     protected @Override String objectsTable() {
@@ -335,6 +358,7 @@ public class PGIndexDatabase extends PGObjectStore implements IndexDatabase {
                 ps.setInt(2, pgIndexId.hash1());
                 pgIndexId.setArgs(ps, 3);
                 ps.executeUpdate();
+                PGMetadataCache.notify(cx, env, Kind.INDEX, repositoryId);
                 cx.commit();
             } catch (SQLException e) {
                 cx.rollback();
@@ -343,6 +367,8 @@ public class PGIndexDatabase extends PGObjectStore implements IndexDatabase {
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            invalidateIndexMappings();
         }
     }
 
@@ -378,6 +404,7 @@ public class PGIndexDatabase extends PGObjectStore implements IndexDatabase {
                     pgIndexedTreeId.setArgs(ps, 8);
                     ps.executeUpdate();
                 }
+                PGMetadataCache.notify(cx, env, Kind.INDEX, repositoryId);
                 cx.commit();
             } catch (SQLException e) {
                 cx.rollback();
@@ -386,10 +413,28 @@ public class PGIndexDatabase extends PGObjectStore implements IndexDatabase {
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            invalidateIndexMappings();
         }
     }
 
+    /**
+     * Index tree mappings are cached if the {@link PGMetadataCache} is enabled. Only existing
+     * mappings are cached, since a missing one is likely to be created soon by the indexing of the
+     * tree.
+     */
     public @Override Optional<ObjectId> resolveIndexedTree(IndexInfo index, ObjectId treeId) {
+        final PGMetadataCache cache = this.metadataCache;
+        if (cache == null) {
+            return queryIndexedTree(index, treeId);
+        }
+        final List<ObjectId> key = Arrays.asList(index.getId(), treeId);
+        ObjectId indexedTree = cache.get(Kind.INDEX, repositoryId, key,
+                () -> queryIndexedTree(index, treeId).orElse(null));
+        return Optional.ofNullable(indexedTree);
+    }
+
+    private Optional<ObjectId> queryIndexedTree(IndexInfo index, ObjectId treeId) {
         final PGId pgIndexId = PGId.valueOf(index.getId());
         final PGId pgTreeId = PGId.valueOf(treeId);
         final String sql = format(
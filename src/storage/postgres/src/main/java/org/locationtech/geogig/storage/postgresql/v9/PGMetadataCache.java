@@ -0,0 +1,332 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.postgresql.v9;
+
+import static org.locationtech.geogig.storage.postgresql.config.PGStorage.log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.storage.impl.ConnectionManager;
+import org.locationtech.geogig.storage.postgresql.config.ConnectionConfig;
+import org.locationtech.geogig.storage.postgresql.config.Environment;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional cache for the mutable repository metadata stored in a PostgreSQL database (refs, config
+ * properties, and index tree mappings), shared by all the repositories in the same database schema
+ * and table prefix.
+ * <p>
+ * Since several processes may be working against the same database, writers shall call
+ * {@link #notify(Connection, Environment, Kind, int)} inside the transaction that changes any of
+ * these, which issues a {@code NOTIFY} that PostgreSQL delivers to all listening connections once
+ * the transaction is committed. Each cache instance {@code LISTEN}s on a dedicated connection, and
+ * drops all the entries of the notified kind and repository upon notification.
+ * <p>
+ * If the notification connection is lost, or a change is made by a process that doesn't send
+ * notifications, cached entries are still expired after {@code maxStaleness} seconds, hence that's
+ * the upper bound for how stale a cached value can be. All entries are discarded when the
+ * notification connection is re-established, as notifications may have been missed meanwhile.
+ * <p>
+ * The cache is disabled unless the {@code geogig.postgres.metadataCache.maxStaleness} system
+ * property is set to a positive number of seconds, in which case {@link #acquire(Environment)}
+ * returns a shared instance instead of {@code null}. Note the notification connection is taken from
+ * the database connection pool for as long as the cache is in use.
+ *
+ * @since 2.0
+ */
+@Slf4j
+public class PGMetadataCache {
+
+    /**
+     * System property to enable the cache, establishing the maximum number of seconds a cached
+     * value can be stale if notifications are not received
+     */
+    public static final String MAX_STALENESS_PROPERTY = "geogig.postgres.metadataCache.maxStaleness";
+
+    /**
+     * Maximum number of cached entries of each {@link Kind}
+     */
+    private static final int MAX_SIZE = 10_000;
+
+    /**
+     * Maximum time to block waiting for notifications, after which the listener checks whether the
+     * cache was closed
+     */
+    private static final int WAIT_TIMEOUT_MILLIS = 1_000;
+
+    /**
+     * Time to wait before trying to re-establish a lost notification connection
+     */
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private static final Manager MANAGER = new Manager();
+
+    /**
+     * The kinds of metadata that can be cached and notified about
+     */
+    public static enum Kind {
+        REF, CONFIG, INDEX
+    }
+
+    private static @Value class Address {
+        private ConnectionConfig connectionConfig;
+
+        private String channel;
+
+        private @EqualsAndHashCode.Exclude DataSource dataSource;
+
+        private @EqualsAndHashCode.Exclude long maxStalenessSeconds;
+    }
+
+    private static @Value class Key {
+        private int repository;
+
+        private Object key;
+    }
+
+    private final Address address;
+
+    private final Map<Kind, Cache<Key, Object>> caches = new EnumMap<>(Kind.class);
+
+    /**
+     * Per kind counter increased on each invalidation, for loaders not to cache values read before
+     * an invalidation
+     */
+    private final Map<Kind, AtomicLong> generations = new EnumMap<>(Kind.class);
+
+    private final Thread listener;
+
+    private volatile boolean closed;
+
+    /**
+     * Released once the listener is connected and has discarded the entries cached before, replaced
+     * when the connection is lost
+     */
+    private volatile CountDownLatch listening = new CountDownLatch(1);
+
+    private PGMetadataCache(Address address) {
+        this.address = address;
+        for (Kind kind : Kind.values()) {
+            caches.put(kind, CacheBuilder.newBuilder()//
+                    .maximumSize(MAX_SIZE)//
+                    .expireAfterWrite(address.getMaxStalenessSeconds(), TimeUnit.SECONDS)//
+                    .build());
+            generations.put(kind, new AtomicLong());
+        }
+        this.listener = new Thread(this::listen,
+                "geogig-pg-metadata-listener-" + address.getChannel());
+        this.listener.setDaemon(true);
+        this.listener.start();
+    }
+
+    /**
+     * @return the cache shared by the repositories in the same database schema and table prefix as
+     *         {@code env}, or {@code null} if the cache is not {@link #MAX_STALENESS_PROPERTY
+     *         enabled}; a non null result shall be {@link #release(PGMetadataCache) released} once
+     *         no longer needed
+     */
+    public static @Nullable PGMetadataCache acquire(@NonNull Environment env) {
+        final long maxStaleness = Long.getLong(MAX_STALENESS_PROPERTY, 0L);
+        if (maxStaleness <= 0) {
+            return null;
+        }
+        final String channel = env.getTables().metadataChannel();
+        return MANAGER.acquire(
+                new Address(env.getConnectionConfig(), channel, env.getDataSource(), maxStaleness));
+    }
+
+    public static void release(@Nullable PGMetadataCache cache) {
+        if (cache != null) {
+            MANAGER.release(cache);
+        }
+    }
+
+    /**
+     * Sends a notification that the metadata of the given kind changed for a repository, to be
+     * called inside the transaction that changes it, as it's delivered when the transaction is
+     * committed, or immediately if {@code cx} is in auto-commit mode.
+     * <p>
+     * Notifications are sent regardless of whether the cache is enabled in this process, for other
+     * processes to be notified, since whether any other session is listening can't be told without
+     * a more expensive query than the notification itself.
+     */
+    public static void notify(@NonNull Connection cx, @NonNull Environment env, @NonNull Kind kind,
+            int repository) throws SQLException {
+        final String channel = env.getTables().metadataChannel();
+        final String payload = kind + " " + repository;
+        final String sql = "SELECT pg_notify(?, ?)";
+        try (PreparedStatement ps = cx.prepareStatement(log(sql, log, channel, payload))) {
+            ps.setString(1, channel);
+            ps.setString(2, payload);
+            try (ResultSet rs = ps.executeQuery()) {
+                // pg_notify returns void
+            }
+        }
+    }
+
+    /**
+     * Returns the cached value for the given key, or calls {@code loader} and caches its result if
+     * not present
+     *
+     * @param loader the function to query the database for the value; {@code null} results are
+     *        returned but not cached, use {@code Optional} to cache missing values
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable <T> T get(@NonNull Kind kind, int repository, @NonNull Object key,
+            @NonNull Supplier<T> loader) {
+        final Cache<Key, Object> cache = caches.get(kind);
+        final Key cacheKey = new Key(repository, key);
+        Object value = cache.getIfPresent(cacheKey);
+        if (value == null) {
+            final AtomicLong generation = generations.get(kind);
+            final long loadGeneration = generation.get();
+            value = loader.get();
+            if (value != null) {
+                synchronized (generation) {
+                    if (loadGeneration == generation.get()) {
+                        cache.put(cacheKey, value);
+                    }
+                }
+            }
+        }
+        return (T) value;
+    }
+
+    /**
+     * Drops the cached entries of the given kind for the given repository, to be called by this
+     * process' writers after committing, without waiting for the notification to arrive
+     */
+    public void invalidate(@NonNull Kind kind, int repository) {
+        final AtomicLong generation = generations.get(kind);
+        synchronized (generation) {
+            generation.incrementAndGet();
+            caches.get(kind).asMap().keySet().removeIf(k -> k.getRepository() == repository);
+        }
+    }
+
+    /**
+     * Waits for the notification listener to be connected, after which no entry is discarded but
+     * for a notification or expiry
+     *
+     * @return {@code true} if connected, {@code false} if the timeout elapsed first
+     */
+    @VisibleForTesting
+    boolean awaitListening(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        return listening.await(timeout, unit);
+    }
+
+    @VisibleForTesting
+    void invalidateAll() {
+        for (Kind kind : Kind.values()) {
+            final AtomicLong generation = generations.get(kind);
+            synchronized (generation) {
+                generation.incrementAndGet();
+                caches.get(kind).invalidateAll();
+            }
+        }
+    }
+
+    private void close() {
+        closed = true;
+        listener.interrupt();
+        invalidateAll();
+    }
+
+    private void listen() {
+        final String listen = "LISTEN \"" + address.getChannel() + "\"";
+        while (!closed) {
+            try (Connection cx = address.getDataSource().getConnection()) {
+                cx.setAutoCommit(true);
+                try (Statement st = cx.createStatement()) {
+                    st.execute(log(listen, log));
+                }
+                // notifications may have been missed while not listening
+                invalidateAll();
+                listening.countDown();
+                final PGConnection pgConnection = cx.unwrap(PGConnection.class);
+                while (!closed) {
+                    // blocks until notifications arrive or the timeout elapses, without querying
+                    PGNotification[] notifications = pgConnection
+                            .getNotifications(WAIT_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                if (listening.getCount() == 0) {
+                    listening = new CountDownLatch(1);
+                }
+                log.warn(
+                        "Lost metadata change notifications on {}, cached values may be stale"
+                                + " for up to {} seconds until reconnected: {}",
+                        address.getChannel(), address.getMaxStalenessSeconds(), e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        log.debug("Received metadata change notification '{}' on {}", payload,
+                address.getChannel());
+        try {
+            int separator = payload.indexOf(' ');
+            Kind kind = Kind.valueOf(payload.substring(0, separator));
+            int repository = Integer.parseInt(payload.substring(separator + 1));
+            invalidate(kind, repository);
+        } catch (RuntimeException e) {
+            log.warn("Unrecognized metadata change notification '{}', clearing the cache", payload);
+            invalidateAll();
+        }
+    }
+
+    private static class Manager extends ConnectionManager<Address, PGMetadataCache> {
+
+        protected @Override PGMetadataCache connect(Address address) {
+            return new PGMetadataCache(address);
+        }
+
+        protected @Override void disconnect(PGMetadataCache cache) {
+            cache.close();
+        }
+    }
+}
@@ -18,6 +18,7 @@ import static org.locationtech.geogig.base.Preconditions.checkArgument;
 import static org.locationtech.geogig.base.Preconditions.checkState;
 import static org.locationtech.geogig.storage.postgresql.config.Environment.KEY_GETALL_BATCH_SIZE;
 import static org.locationtech.geogig.storage.postgresql.config.Environment.KEY_PUTALL_BATCH_SIZE;
+import static org.locationtech.geogig.storage.postgresql.config.Environment.KEY_PUTALL_COPY;
 import static org.locationtech.geogig.storage.postgresql.config.Environment.KEY_THREADPOOL_SIZE;
 import static org.locationtech.geogig.storage.postgresql.config.PGStorage.log;
 import static org.locationtech.geogig.storage.postgresql.config.PGStorage.rollbackAndRethrow;
@@ -35,6 +36,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
@@ -96,6 +98,12 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
 
     private static final int DEFAULT_PUT_ALL_PARTITION_SIZE = 100;
 
+    /**
+     * Default partition size when {@link Environment#KEY_PUTALL_COPY} is enabled, each partition is
+     * sent with a single {@code COPY} command so it pays off to make them larger
+     */
+    private static final int DEFAULT_PUT_ALL_COPY_PARTITION_SIZE = 10_000;
+
     private static final int DEFAULT_GET_ALL_PARTITION_SIZE = 10_000;
 
     private static final ObjectStoreSharedResources SHARED_RESOURCES = new ObjectStoreSharedResources();
@@ -112,6 +120,8 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
 
     private int putAllBatchSize = DEFAULT_PUT_ALL_PARTITION_SIZE;
 
+    private boolean putAllCopy;
+
     private SharedResourceReference resources;
 
     public PGObjectStore(final @NonNull ConfigDatabase configdb, final @NonNull Environment env) {
@@ -127,6 +137,7 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
         }
         Optional<Integer> getAllFetchSize = configdb.get(KEY_GETALL_BATCH_SIZE, Integer.class);
         Optional<Integer> putAllBatchSize = configdb.get(KEY_PUTALL_BATCH_SIZE, Integer.class);
+        Optional<Boolean> putAllCopy = configdb.get(KEY_PUTALL_COPY, Boolean.class);
         Optional<Integer> tpoolSize = configdb.getGlobal(KEY_THREADPOOL_SIZE, Integer.class);
         if (getAllFetchSize.isPresent()) {
             Integer fetchSize = getAllFetchSize.get();
@@ -142,6 +153,10 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
                     batchSize);
             this.putAllBatchSize = batchSize;
         }
+        this.putAllCopy = putAllCopy.orElse(Boolean.FALSE).booleanValue();
+        if (this.putAllCopy && !putAllBatchSize.isPresent()) {
+            this.putAllBatchSize = DEFAULT_PUT_ALL_COPY_PARTITION_SIZE;
+        }
         int threadPoolSize;
         if (tpoolSize.isPresent()) {
             Integer poolSize = tpoolSize.get();
@@ -197,6 +212,11 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
         this.putAllBatchSize = size;
     }
 
+    @VisibleForTesting
+    void setPutAllCopy(boolean copy) {
+        this.putAllCopy = copy;
+    }
+
     protected String objectsTable() {
         return env.getTables().objects();
     }
@@ -513,7 +533,7 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
             return null;
         }
 
-        RevObject obj = encoder.read(id, bytes, 0, bytes.length);
+        RevObject obj = encoder.decode(id, bytes);
         sharedCache.put(obj);
         return obj;
     }
@@ -624,7 +644,8 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
                 Map<EncodedObject, Boolean> insertResults = Collections.emptyMap();
                 cx.setAutoCommit(false);
                 try {
-                    insertResults = doInsert(cx, batch);
+                    insertResults = objectStore.putAllCopy ? doCopy(cx, batch)
+                            : doInsert(cx, batch);
                     if (isAborted()) {
                         cx.rollback();
                     } else {
@@ -647,6 +668,14 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
             return null;
         }
 
+        private Map<EncodedObject, Boolean> doCopy(Connection cx, List<EncodedObject> partition)
+                throws Exception {
+            PGObjectStoreCopyInsert copy = new PGObjectStoreCopyInsert(
+                    o -> objectStore.tableNameForType(o.type(), PGId.valueOf(o.id())),
+                    this::isAborted);
+            return copy.insert(cx, partition);
+        }
+
         private Map<EncodedObject, Boolean> doInsert(Connection cx, List<EncodedObject> partition)
                 throws Exception {
 
@@ -862,6 +891,94 @@ public class PGObjectStore extends AbstractStore implements ObjectStore {
         }
     }
 
+    /**
+     * Streams the ids out of the objects table through a server side cursor (i.e. auto-commit off
+     * and a fetch size set), so the ids are read as of the query's snapshot and never fully loaded
+     * in memory.
+     * <p>
+     * Note the objects tables are shared by all the repositories in the same database, hence the
+     * returned ids are not limited to the ones reachable by this repository.
+     */
+    public @Override AutoCloseableIterator<ObjectId> getAllIds() {
+        checkState(isOpen(), "Database is closed");
+        env.checkRepositoryExists();
+
+        final String sql = format("SELECT ((id).h1), ((id).h2), ((id).h3) FROM %s", objectsTable());
+        final Connection cx = env.getConnection();
+        final PreparedStatement ps;
+        final ResultSet rs;
+        try {
+            cx.setAutoCommit(false);
+            ps = cx.prepareStatement(log(sql, LOG));
+            ps.setFetchSize(getAllBatchSize);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            try {
+                cx.close();
+            } catch (SQLException closeEx) {
+                e.addSuppressed(closeEx);
+            }
+            throw new RuntimeException(e);
+        }
+
+        return new AutoCloseableIterator<ObjectId>() {
+
+            private ObjectId next;
+
+            private boolean closed;
+
+            public @Override boolean hasNext() {
+                if (closed) {
+                    return false;
+                }
+                if (next == null) {
+                    try {
+                        if (rs.next()) {
+                            next = PGId.valueOf(rs.getInt(1), rs.getLong(2), rs.getLong(3))
+                                    .toObjectId();
+                        } else {
+                            close();
+                        }
+                    } catch (SQLException e) {
+                        close();
+                        throw new RuntimeException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            public @Override ObjectId next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ObjectId curr = next;
+                next = null;
+                return curr;
+            }
+
+            public @Override void close() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    rs.close();
+                    ps.close();
+                    cx.rollback();
+                    cx.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LOG.warn("Error closing getAllIds cursor", e);
+                } finally {
+                    try {
+                        cx.close();
+                    } catch (SQLException e) {
+                        LOG.warn("Error closing connection", e);
+                    }
+                }
+            }
+        };
+    }
+
     long notifyDeleted(int[] deleted, List<ObjectId> ids, BulkOpListener listener) {
         long count = 0;
         for (int i = 0; i < deleted.length; i++) {
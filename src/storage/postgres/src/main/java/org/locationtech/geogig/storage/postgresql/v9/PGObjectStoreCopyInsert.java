@@ -0,0 +1,215 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.postgresql.v9;
+
+import static java.lang.String.format;
+import static org.locationtech.geogig.storage.postgresql.config.PGStorage.log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.storage.postgresql.config.PGId;
+import org.locationtech.geogig.storage.postgresql.v9.PGObjectStore.EncodedObject;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.NonNull;
+
+/**
+ * Bulk inserts a batch of encoded objects using the {@code COPY ... FROM STDIN (FORMAT binary)}
+ * protocol, as an alternative to batched {@code INSERT} statements when importing large amounts of
+ * objects.
+ * <p>
+ * The objects are streamed to a temporary staging table (dropped at commit) with a single
+ * {@code COPY} command, and then merged into their target tables with one {@code INSERT ... SELECT}
+ * per target table, skipping the objects that already exist in the target table. The objects tables
+ * have no unique constraint (duplicates are ignored through a conditional
+ * {@code DO INSTEAD NOTHING} rule), so {@code ON CONFLICT DO NOTHING} is not an option, and a
+ * conditional rule precludes {@code INSERT ... RETURNING}, hence the objects that already exist are
+ * queried right before the merge, in the same transaction, in order to report which objects were
+ * inserted and which ones were found.
+ * <p>
+ * Must be called with auto-commit disabled, the caller is responsible of committing or rolling back
+ * the transaction.
+ */
+class PGObjectStoreCopyInsert {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PGObjectStoreCopyInsert.class);
+
+    static final String STAGING_TABLE = "geogig_objects_copy_tmp";
+
+    private static final String STAGING_TABLE_DDL = format(
+            "CREATE TEMPORARY TABLE %s (tbl INTEGER, h1 INTEGER, h2 BIGINT, h3 BIGINT, object BYTEA) ON COMMIT DROP",
+            STAGING_TABLE);
+
+    private static final String COPY_SQL = format(
+            "COPY %s (tbl, h1, h2, h3, object) FROM STDIN (FORMAT binary)", STAGING_TABLE);
+
+    /**
+     * Signature, flags field, and header extension length of the binary copy format
+     */
+    private static final byte[] BINARY_HEADER = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF,
+            '\r', '\n', 0, /* flags */0, 0, 0, 0, /* extension length */0, 0, 0, 0 };
+
+    private static final short NUM_FIELDS = 5;
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final Function<EncodedObject, String> tableResolver;
+
+    private final BooleanSupplier aborted;
+
+    PGObjectStoreCopyInsert(@NonNull Function<EncodedObject, String> tableResolver,
+            @NonNull BooleanSupplier aborted) {
+        this.tableResolver = tableResolver;
+        this.aborted = aborted;
+    }
+
+    /**
+     * @return a map of object to whether it was inserted ({@code true}) or already existed
+     *         ({@code false}), or {@code null} if aborted
+     */
+    Map<EncodedObject, Boolean> insert(final Connection cx, final List<EncodedObject> batch)
+            throws SQLException, IOException {
+        Preconditions.checkArgument(!cx.getAutoCommit(), "auto commit shall be disabled");
+
+        final List<String> tables = new ArrayList<>();
+        final Map<String, Integer> tableIndexes = new HashMap<>();
+        for (EncodedObject o : batch) {
+            tableIndexes.computeIfAbsent(tableResolver.apply(o), t -> {
+                tables.add(t);
+                return tables.size() - 1;
+            });
+        }
+
+        try (Statement st = cx.createStatement()) {
+            st.execute(log(STAGING_TABLE_DDL, LOG));
+        }
+        if (!copy(cx, batch, tableIndexes)) {
+            return null;
+        }
+
+        final Set<ObjectId> existing = new HashSet<>();
+        for (int tableIndex = 0; tableIndex < tables.size(); tableIndex++) {
+            if (aborted.getAsBoolean()) {
+                return null;
+            }
+            final String tableName = tables.get(tableIndex);
+            queryExisting(cx, tableName, tableIndex, existing);
+            merge(cx, tableName, tableIndex);
+        }
+
+        Map<EncodedObject, Boolean> insertResults = new HashMap<>();
+        for (EncodedObject o : batch) {
+            insertResults.put(o, Boolean.valueOf(!existing.contains(o.id())));
+        }
+        return insertResults;
+    }
+
+    private boolean copy(Connection cx, List<EncodedObject> batch, Map<String, Integer> tables)
+            throws SQLException, IOException {
+
+        final CopyManager copyManager = cx.unwrap(PGConnection.class).getCopyAPI();
+        final CopyIn copyIn = copyManager.copyIn(log(COPY_SQL, LOG));
+        boolean completed = false;
+        try {
+            ByteArrayOutputStream buff = new ByteArrayOutputStream(FLUSH_THRESHOLD + 1024);
+            DataOutputStream out = new DataOutputStream(buff);
+            out.write(BINARY_HEADER);
+            for (EncodedObject o : batch) {
+                if (aborted.getAsBoolean()) {
+                    return false;
+                }
+                final PGId pgid = PGId.valueOf(o.id());
+                final byte[] serialized = o.serialized();
+                out.writeShort(NUM_FIELDS);
+                out.writeInt(Integer.BYTES);
+                out.writeInt(tables.get(tableResolver.apply(o)).intValue());
+                out.writeInt(Integer.BYTES);
+                out.writeInt(pgid.hash1());
+                out.writeInt(Long.BYTES);
+                out.writeLong(pgid.hash2());
+                out.writeInt(Long.BYTES);
+                out.writeLong(pgid.hash3());
+                out.writeInt(serialized.length);
+                out.write(serialized);
+                if (buff.size() >= FLUSH_THRESHOLD) {
+                    flush(buff, copyIn);
+                }
+            }
+            // file trailer
+            out.writeShort(-1);
+            flush(buff, copyIn);
+            long rows = copyIn.endCopy();
+            completed = true;
+            LOG.trace("Copied {} objects to staging table", rows);
+            return true;
+        } finally {
+            if (!completed && copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private void flush(ByteArrayOutputStream buff, CopyIn copyIn) throws SQLException {
+        byte[] bytes = buff.toByteArray();
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buff.reset();
+    }
+
+    private void queryExisting(Connection cx, String tableName, int tableIndex,
+            Set<ObjectId> target) throws SQLException {
+
+        final String sql = format("SELECT s.h1, s.h2, s.h3 FROM %s s WHERE s.tbl = ? AND EXISTS "
+                + "(SELECT 1 FROM %s t WHERE ((t.id).h1) = s.h1 AND t.id = CAST(ROW(s.h1, s.h2, s.h3) AS OBJECTID))",
+                STAGING_TABLE, tableName);
+
+        try (PreparedStatement ps = cx.prepareStatement(log(sql, LOG, tableIndex))) {
+            ps.setInt(1, tableIndex);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    target.add(PGId.valueOf(rs, 1).toObjectId());
+                }
+            }
+        }
+    }
+
+    private void merge(Connection cx, String tableName, int tableIndex) throws SQLException {
+        final String sql = format("INSERT INTO %s (id, object)"
+                + " SELECT DISTINCT ON (s.h1, s.h2, s.h3) CAST(ROW(s.h1, s.h2, s.h3) AS OBJECTID), s.object"
+                + " FROM %s s WHERE s.tbl = ? AND NOT EXISTS "
+                + "(SELECT 1 FROM %s t WHERE ((t.id).h1) = s.h1 AND t.id = CAST(ROW(s.h1, s.h2, s.h3) AS OBJECTID))",
+                tableName, STAGING_TABLE, tableName);
+
+        try (PreparedStatement ps = cx.prepareStatement(log(sql, LOG, tableIndex))) {
+            ps.setInt(1, tableIndex);
+            ps.executeUpdate();
+        }
+    }
+}
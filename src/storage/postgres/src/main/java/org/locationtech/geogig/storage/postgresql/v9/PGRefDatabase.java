@@ -30,6 +30,7 @@ import org.locationtech.geogig.storage.AbstractStore;
 import org.locationtech.geogig.storage.RefChange;
 import org.locationtech.geogig.storage.RefDatabase;
 import org.locationtech.geogig.storage.postgresql.config.Environment;
+import org.locationtech.geogig.storage.postgresql.v9.PGMetadataCache.Kind;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +50,8 @@ public class PGRefDatabase extends AbstractStore implements RefDatabase {
 
     private final PGRefDatabaseWorker worker;
 
+    private PGMetadataCache cache;
+
     public PGRefDatabase(Environment env) throws URISyntaxException {
         super(env.isReadOnly());
         Preconditions.checkState(env.isRepositoryNameSet());
@@ -62,10 +65,17 @@ public class PGRefDatabase extends AbstractStore implements RefDatabase {
     }
 
     public @Override void open() {
+        if (!isOpen()) {
+            cache = PGMetadataCache.acquire(env);
+        }
         super.open();
     }
 
     public @Override void close() {
+        if (isOpen()) {
+            PGMetadataCache.release(cache);
+            cache = null;
+        }
         super.close();
         env.close();
     }
@@ -138,7 +148,7 @@ public class PGRefDatabase extends AbstractStore implements RefDatabase {
 
     public @Override @NonNull RefChange put(@NonNull Ref ref) {
         checkWritable();
-        return runInTransaction(conn -> worker.put(conn, ref));
+        return write(conn -> worker.put(conn, ref));
     }
 
     public @Override @NonNull RefChange putRef(@NonNull String name, @NonNull ObjectId value) {
@@ -157,12 +167,17 @@ public class PGRefDatabase extends AbstractStore implements RefDatabase {
     public @Override @NonNull List<RefChange> putAll(@NonNull Iterable<Ref> refs) {
         checkWritable();
         List<Ref> list = refs instanceof List ? (List<Ref>) refs : Lists.newArrayList(refs);
-        return runInTransaction(c -> worker.putAll(c, list));
+        return write(c -> worker.putAll(c, list));
     }
 
     public @Override Optional<Ref> get(@NonNull String name) {
         checkOpen();
-        return run(conn -> worker.get(conn, name));
+        final PGMetadataCache cache = this.cache;
+        if (cache == null) {
+            return run(conn -> worker.get(conn, name));
+        }
+        return cache.get(Kind.REF, env.getRepositoryId(), name,
+                () -> run(conn -> worker.get(conn, name)));
     }
 
     public @Override @NonNull RefChange delete(@NonNull Ref ref) {
@@ -178,17 +193,17 @@ public class PGRefDatabase extends AbstractStore implements RefDatabase {
 
     public @Override @NonNull List<RefChange> delete(@NonNull Iterable<String> refNames) {
         checkWritable();
-        return runInTransaction(conn -> worker.deleteByName(conn, refNames));
+        return write(conn -> worker.deleteByName(conn, refNames));
     }
 
     public @Override @NonNull List<Ref> deleteAll() {
         checkWritable();
-        return runInTransaction(c -> worker.deleteByPrefix(c, Arrays.asList("")));
+        return write(c -> worker.deleteByPrefix(c, Arrays.asList("")));
     }
 
     public @Override List<Ref> deleteAll(@NonNull String namespace) {
         checkWritable();
-        return runInTransaction(c -> worker.deleteByPrefix(c, Arrays.asList(namespace)));
+        return write(c -> worker.deleteByPrefix(c, Arrays.asList(namespace)));
     }
 
     public @Override List<Ref> getAll() {
@@ -223,6 +238,26 @@ public class PGRefDatabase extends AbstractStore implements RefDatabase {
         return result;
     }
 
+    /**
+     * Runs {@code cmd} in a transaction that also notifies other processes that the refs changed,
+     * and invalidates this process' cached refs once committed
+     */
+    private <T> T write(Command<T> cmd) {
+        final int repositoryId = env.getRepositoryId();
+        try {
+            return runInTransaction(conn -> {
+                T result = cmd.run(conn);
+                PGMetadataCache.notify(conn, env, Kind.REF, repositoryId);
+                return result;
+            });
+        } finally {
+            final PGMetadataCache cache = this.cache;
+            if (cache != null) {
+                cache.invalidate(Kind.REF, repositoryId);
+            }
+        }
+    }
+
     private <T> T runInTransaction(Command<T> cmd) {
         T result;
         try (Connection conn = env.getConnection()) {
@@ -0,0 +1,39 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.postgresql.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+public class TableNamesTest {
+
+    @Test
+    public void testMetadataChannelIsBounded() {
+        String longSchema = Strings.repeat("s", TableNames.MAX_IDENTIFIER_LENGTH);
+        String longPrefix = Strings.repeat("p", TableNames.MAX_IDENTIFIER_LENGTH);
+        String channel = new TableNames(longSchema, longPrefix).metadataChannel();
+        assertTrue(channel, channel.length() <= TableNames.MAX_IDENTIFIER_LENGTH);
+    }
+
+    @Test
+    public void testMetadataChannelPerSchemaAndPrefix() {
+        assertEquals(new TableNames("public", "geogig_").metadataChannel(),
+                new TableNames().metadataChannel());
+        assertNotEquals(new TableNames("public", "geogig_").metadataChannel(),
+                new TableNames("other", "geogig_").metadataChannel());
+        assertNotEquals(new TableNames("public", "geogig_").metadataChannel(),
+                new TableNames("public", "other_").metadataChannel());
+    }
+}
@@ -0,0 +1,65 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.storage.postgresql.v9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.locationtech.geogig.model.RevObject;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.storage.BulkOpListener;
+import org.locationtech.geogig.storage.BulkOpListener.CountingListener;
+import org.locationtech.geogig.storage.postgresql.config.Environment;
+
+/**
+ * Runs the {@link PGObjectStoreConformanceIT} tests with {@link Environment#KEY_PUTALL_COPY}
+ * enabled
+ */
+public class PGObjectStoreCopyConformanceIT extends PGObjectStoreConformanceIT {
+
+    protected @Override PGObjectStore createOpen() throws IOException {
+        PGObjectStore db = super.createOpen();
+        db.close();
+        configdb.put(Environment.KEY_PUTALL_COPY, true);
+        db = new PGObjectStore(configdb, testConfig.getEnvironment());
+        db.open();
+        return db;
+    }
+
+    @Test
+    public void testPutAllCopyReportsFoundAndInserted() {
+        List<RevObject> objects = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            objects.add(RevObjectTestSupport.feature(i, null, "value " + i));
+        }
+        objects.addAll(RevObjectTestSupport.createCommits(10));
+
+        CountingListener listener = BulkOpListener.newCountingListener();
+        db.putAll(objects.subList(0, 500).iterator(), listener);
+        assertEquals(500, listener.inserted());
+        assertEquals(0, listener.found());
+
+        listener = BulkOpListener.newCountingListener();
+        ((PGObjectStore) db).setPutAllBatchSize(100);
+        db.putAll(objects.iterator(), listener);
+        assertEquals(objects.size() - 500, listener.inserted());
+        assertEquals(500, listener.found());
+
+        for (RevObject o : objects) {
+            assertTrue(db.exists(o.getId()));
+            assertEquals(o, db.get(o.getId()));
+        }
+    }
+}
@@ -9,23 +9,30 @@
  */
 package org.locationtech.geogig.storage.postgresql.v9;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.sql.Connection;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.Ref;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
 import org.locationtech.geogig.repository.Platform;
 import org.locationtech.geogig.storage.RefDatabase;
 import org.locationtech.geogig.storage.postgresql.config.Environment;
 import org.locationtech.geogig.storage.postgresql.config.PGStorage;
 import org.locationtech.geogig.storage.postgresql.config.PGTemporaryTestConfig;
 import org.locationtech.geogig.storage.postgresql.config.PGTestDataSourceProvider;
+import org.locationtech.geogig.storage.postgresql.v9.PGMetadataCache.Kind;
 import org.locationtech.geogig.test.integration.repository.RefDatabaseTest;
 
 public class PGRefDatabaseIT extends RefDatabaseTest {
@@ -138,4 +145,44 @@ public class PGRefDatabaseIT extends RefDatabaseTest {
 
     }
 
+    @Test
+    public void testMetadataCacheInvalidatedByNotification() throws Exception {
+        System.setProperty(PGMetadataCache.MAX_STALENESS_PROPERTY, "60");
+        PGRefDatabase cachingRefDb = new PGRefDatabase(mainEnvironment);
+        PGMetadataCache cache = null;
+        try {
+            cachingRefDb.open();
+            // the listener discards all cached entries when it connects, wait for it not to
+            // invalidate the stale value below
+            cache = PGMetadataCache.acquire(mainEnvironment);
+            assertTrue(cache.awaitListening(10, TimeUnit.SECONDS));
+            final String name = "refs/heads/cached";
+            final ObjectId v1 = RevObjectTestSupport.hashString("v1");
+            final ObjectId v2 = RevObjectTestSupport.hashString("v2");
+            cachingRefDb.putRef(name, v1);
+            assertEquals(v1, cachingRefDb.get(name).get().getObjectId());
+
+            // change the ref behind the cache's back, as another process would do
+            final int repositoryId = mainEnvironment.getRepositoryId();
+            try (Connection cx = mainEnvironment.getConnection()) {
+                cx.setAutoCommit(false);
+                new PGRefDatabaseWorker(mainEnvironment).put(cx, new Ref(name, v2));
+                cx.commit();
+                cx.setAutoCommit(true);
+                assertEquals(v1, cachingRefDb.get(name).get().getObjectId());
+
+                PGMetadataCache.notify(cx, mainEnvironment, Kind.REF, repositoryId);
+            }
+            final long timeout = System.currentTimeMillis() + 10_000;
+            while (!v2.equals(cachingRefDb.get(name).get().getObjectId())
+                    && System.currentTimeMillis() < timeout) {
+                Thread.sleep(50);
+            }
+            assertEquals(v2, cachingRefDb.get(name).get().getObjectId());
+        } finally {
+            System.clearProperty(PGMetadataCache.MAX_STALENESS_PROPERTY);
+            PGMetadataCache.release(cache);
+            cachingRefDb.close();
+        }
+    }
 }
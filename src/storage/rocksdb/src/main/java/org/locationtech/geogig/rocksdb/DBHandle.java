@@ -9,14 +9,19 @@
  */
 package org.locationtech.geogig.rocksdb;
 
+import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.base.Preconditions;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
@@ -43,6 +48,14 @@ class DBHandle {
 
     private Map<String, ColumnFamilyHandle> extraColumns;
 
+    private final Map<String, AutoCloseable> attachments = new ConcurrentHashMap<>();
+
+    /**
+     * Native objects the database was opened with (e.g. column family options and block caches), to
+     * be closed after the database
+     */
+    private final List<AutoCloseable> resources;
+
     /**
      * A reference to the RocksDB instance. This needs to be closed after it's used to free up the
      * reference.
@@ -67,12 +80,14 @@ class DBHandle {
     }
 
     public DBHandle(final DBConfig config, final org.rocksdb.DBOptions options, final RocksDB db,
-            @Nullable ColumnFamilyHandle metadata, Map<String, ColumnFamilyHandle> extraColumns) {
+            @Nullable ColumnFamilyHandle metadata, Map<String, ColumnFamilyHandle> extraColumns,
+            List<AutoCloseable> resources) {
         this.config = config;
         this.options = options;
         this.db = db;
         this.metadata = metadata;
         this.extraColumns = extraColumns;
+        this.resources = resources;
     }
 
     public synchronized void close() {
@@ -87,10 +102,13 @@ class DBHandle {
             } catch (InterruptedException e) {
             }
         }
+        attachments.values().forEach(this::close);
+        attachments.clear();
         close(metadata);
         extraColumns.values().forEach((c) -> close(c));
         close(options);
         close(db);
+        resources.forEach(this::close);
     }
 
     /**
@@ -148,4 +166,30 @@ class DBHandle {
         return extraColumns.get(columnFamilyName);
     }
 
+    /**
+     * Returns the object attached to this handle under the given key, creating it with
+     * {@code factory} if it doesn't exist yet. Attachments are shared by all the users of the
+     * handle (i.e. all the stores open on the same database), and closed when the handle is closed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends AutoCloseable> T getAttachment(@NonNull String key,
+            @NonNull Function<DBHandle, T> factory) {
+        Preconditions.checkState(!closed, "db is closed");
+        return (T) attachments.computeIfAbsent(key, k -> factory.apply(this));
+    }
+
+    /**
+     * Creates a consistent snapshot of the whole database (all column families) at
+     * {@code directory}, which must not exist, hard linking the immutable table files when
+     * {@code directory} is on the same file system as the database, and copying them otherwise
+     */
+    public void checkpoint(@NonNull File directory) {
+        try (RocksDBReference dbRef = getReference();
+                Checkpoint checkpoint = Checkpoint.create(dbRef.db())) {
+            checkpoint.createCheckpoint(directory.getAbsolutePath());
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
 }
@@ -15,11 +15,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.model.RevObject.TYPE;
 import org.locationtech.geogig.storage.impl.ConnectionManager;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.BloomFilter;
@@ -65,6 +67,7 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
                 .setAllowMmapReads(safeToUseMMappedFiles)//
                 .setAllowMmapWrites(safeToUseMMappedFiles)//
                 .setBytesPerSync(64 * 1024 * 1024);
+        RocksdbResources.INSTANCE.configure(dbOptions);
 
         RocksDB db;
         final String path = dbconfig.getDbPath();
@@ -89,11 +92,12 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
         @Nullable
         ColumnFamilyHandle metadata = null;
         Map<String, ColumnFamilyHandle> extraColumns = new HashMap<>();
+        final ColumnFamilyOptionsFactory optionsFactory = new ColumnFamilyOptionsFactory();
         try {
             List<ColumnFamilyDescriptor> colDescriptors = new ArrayList<>();
             for (String name : colFamilyNames) {
                 byte[] colFamilyName = name.getBytes(StandardCharsets.UTF_8);
-                ColumnFamilyOptions colFamilyOptions = newColFamilyOptions();
+                ColumnFamilyOptions colFamilyOptions = optionsFactory.create(name);
                 colDescriptors.add(new ColumnFamilyDescriptor(colFamilyName, colFamilyOptions));
             }
 
@@ -112,13 +116,14 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
                         extraColumns.put(name, handle);
                     }
                 }
-                dbHandle = new DBHandle(dbconfig, dbOptions, db, metadata, extraColumns);
+                dbHandle = new DBHandle(dbconfig, dbOptions, db, metadata, extraColumns,
+                        optionsFactory.resources);
             } else {
                 if (!dbExists) {
-                    colDescriptors.add(newColDescriptor("default"));
+                    colDescriptors.add(newColDescriptor("default", optionsFactory));
                     for (String name : dbconfig.getColumnFamilyNames()) {
                         if (colFamilyNames.indexOf(name) > -1) {
-                            colDescriptors.add(newColDescriptor(name));
+                            colDescriptors.add(newColDescriptor(name, optionsFactory));
                         }
                     }
                 }
@@ -128,7 +133,7 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
                 if (metadataExists) {
                     metadata = colFamiliesTarget.get(colFamilyNames.indexOf("metadata"));
                 } else {
-                    ColumnFamilyDescriptor mdd = newColDescriptor("metadata");
+                    ColumnFamilyDescriptor mdd = newColDescriptor("metadata", optionsFactory);
                     metadata = db.createColumnFamily(mdd);
                 }
                 // This usually happens only when creating a database -
@@ -149,7 +154,7 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
                     ColumnFamilyDescriptor colDescriptor;
                     ColumnFamilyHandle colHandle;
                     if (colFamilyNames.indexOf(name) == -1) {
-                        colDescriptor = newColDescriptor(name);
+                        colDescriptor = newColDescriptor(name, optionsFactory);
                         colHandle = db.createColumnFamily(colDescriptor);
                     } else {
                         int colIndex = colFamilyNames.indexOf(name);
@@ -158,7 +163,8 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
                     extraColumns.put(name, colHandle);
                 }
 
-                dbHandle = new DBHandle(dbconfig, dbOptions, db, metadata, extraColumns);
+                dbHandle = new DBHandle(dbconfig, dbOptions, db, metadata, extraColumns,
+                        optionsFactory.resources);
 
                 // save default metadata
                 if (!dbExists) {
@@ -166,6 +172,7 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
                     defaultMetadata.forEach((k, v) -> dbHandle.setMetadata(k, v));
                 }
             }
+            RocksdbResources.INSTANCE.register(dbHandle);
             return dbHandle;
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -173,20 +180,22 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
 
     }
 
-    private ColumnFamilyDescriptor newColDescriptor(String name) {
-        ColumnFamilyOptions options = newColFamilyOptions();
+    private ColumnFamilyDescriptor newColDescriptor(String name,
+            ColumnFamilyOptionsFactory optionsFactory) {
+        ColumnFamilyOptions options = optionsFactory.create(name);
         ColumnFamilyDescriptor descriptor = new ColumnFamilyDescriptor(
                 name.getBytes(StandardCharsets.UTF_8), options);
         return descriptor;
     }
 
-    private ColumnFamilyOptions newColFamilyOptions() {
+    private static ColumnFamilyOptions newColFamilyOptions() {
         ColumnFamilyOptions colFamilyOptions = new ColumnFamilyOptions();
 
         // enable bloom filter to speed up RocksDB.get() calls
         BlockBasedTableConfig tableFormatConfig = new BlockBasedTableConfig();
         BloomFilter bloomFilter = new BloomFilter();
         tableFormatConfig.setFilterPolicy(bloomFilter);
+        tableFormatConfig.setBlockCache(RocksdbResources.INSTANCE.sharedCache());
         colFamilyOptions.setTableFormatConfig(tableFormatConfig);
 
         // cause the Windows jar doesn't come with
@@ -195,8 +204,31 @@ class RocksConnectionManager extends ConnectionManager<DBConfig, DBHandle> {
         return colFamilyOptions;
     }
 
+    /**
+     * Creates the options for the column families of a database, using the per object type options
+     * of {@link TypedColumnFamilies} for the typed column families, and keeps track of the native
+     * objects created, to be closed once the database is closed. The block caches are shared by all
+     * the databases and owned by {@link RocksdbResources}
+     */
+    private static class ColumnFamilyOptionsFactory {
+
+        final List<AutoCloseable> resources = new ArrayList<>();
+
+        ColumnFamilyOptions create(String columnFamilyName) {
+            Optional<TYPE> type = TypedColumnFamilies.typeOf(columnFamilyName);
+            if (type.isPresent()) {
+                return TypedColumnFamilies.options(type.get(), RocksdbResources.INSTANCE::cache,
+                        resources);
+            }
+            ColumnFamilyOptions options = newColFamilyOptions();
+            resources.add(options);
+            return options;
+        }
+    }
+
     protected @Override void disconnect(DBHandle connection) {
         LOG.debug("closing {}", connection.config);
+        RocksdbResources.INSTANCE.unregister(connection);
         connection.close();
     }
 
@@ -0,0 +1,384 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevObject;
+import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.rocksdb.DBHandle.RocksDBReference;
+import org.locationtech.geogig.rocksdb.RocksdbObjectStore.EncodedObject;
+import org.locationtech.geogig.storage.BulkIngest;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link BulkIngest} implementation for {@link RocksdbObjectStore} that bypasses the RocksDB write
+ * path (WAL, memtables, flushes, and the compactions that rewrite the data several times) by
+ * creating the SST files directly and attaching them to the database with
+ * {@code ingestExternalFile}.
+ * <p>
+ * The objects added with {@link #putAll} are encoded and buffered in memory until the buffer
+ * reaches {@link #runSize} bytes, at which point it's sorted by {@link ObjectId} and spilled to a
+ * temporary "run" file. On {@link #ingest()}, the runs are merged, dropping duplicate objects, and
+ * written with one {@link SstFileWriter} per {@link TypedColumnFamilies column family}, rolling
+ * over to a new file every {@link #SST_FILE_SIZE} bytes. Since each writer gets its share of the
+ * globally sorted stream of objects, the files are sorted as {@code SstFileWriter} requires, and
+ * the files of a column family don't overlap with each other.
+ * <p>
+ * The SST files are created with the same options as the column family they're ingested into, and
+ * contain the same keys and values {@link RocksdbObjectStore#putAll putAll} would write, so the
+ * resulting database has the same contents regardless of how the objects got in. It is most
+ * effective on empty databases, where the files get ingested straight into the bottommost level and
+ * never rewritten; otherwise RocksDB places them at the lowest level they don't overlap with, and
+ * compacts them as usual.
+ * <p>
+ * The temporary files are created in a sibling directory of the database, so that the SST files can
+ * be hard linked into the database instead of copied, and are deleted on {@link #close()}.
+ *
+ * @since 2.0
+ */
+@Slf4j
+final class RocksdbBulkIngest implements BulkIngest {
+
+    /**
+     * Default size in bytes of the encoded objects to buffer in memory before spilling a sorted run
+     * to disk
+     */
+    static final long DEFAULT_RUN_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Approximate size of the SST files created
+     */
+    static final long SST_FILE_SIZE = 256L * 1024 * 1024;
+
+    private static final Comparator<EncodedObject> BY_ID = Comparator.comparing(o -> o.id);
+
+    private final RocksdbObjectStore store;
+
+    private final DBHandle dbhandle;
+
+    private final File dbDirectory;
+
+    private final long runSize;
+
+    private List<EncodedObject> buffer = new ArrayList<>();
+
+    private long bufferSize;
+
+    private final List<File> runs = new ArrayList<>();
+
+    private @Nullable Path tempDirectory;
+
+    private boolean ingested, closed;
+
+    RocksdbBulkIngest(@NonNull RocksdbObjectStore store, @NonNull DBHandle dbhandle,
+            @NonNull File dbDirectory, long runSize) {
+        Preconditions.checkArgument(runSize > 0, "runSize shall be > 0: %s", runSize);
+        this.store = store;
+        this.dbhandle = dbhandle;
+        this.dbDirectory = dbDirectory;
+        this.runSize = runSize;
+    }
+
+    public @Override synchronized void putAll(@NonNull Iterator<? extends RevObject> objects) {
+        checkActive();
+        List<RevObject> batch = new ArrayList<>(RocksdbObjectStore.BULK_BATCH_SIZE);
+        while (objects.hasNext()) {
+            batch.clear();
+            Iterators.addAll(batch, Iterators.limit(objects, RocksdbObjectStore.BULK_BATCH_SIZE));
+            // encodes on several threads
+            List<EncodedObject> encoded = batch.parallelStream().map(store::encode)
+                    .collect(Collectors.toList());
+            for (EncodedObject o : encoded) {
+                buffer.add(o);
+                bufferSize += ObjectId.NUM_BYTES + o.serialform.length;
+            }
+            if (bufferSize >= runSize) {
+                spill();
+            }
+        }
+    }
+
+    public @Override synchronized long ingest() {
+        checkActive();
+        final Stopwatch sw = Stopwatch.createStarted();
+        final List<RunReader> readers = new ArrayList<>();
+        final Iterator<EncodedObject> sorted;
+        if (runs.isEmpty()) {
+            buffer.sort(BY_ID);
+            sorted = buffer.iterator();
+        } else {
+            if (!buffer.isEmpty()) {
+                spill();
+            }
+            runs.forEach(run -> readers.add(new RunReader(run)));
+            sorted = Iterators.mergeSorted(readers, BY_ID);
+        }
+
+        final TypedColumnFamilies.Layout layout = TypedColumnFamilies.of(dbhandle).layout();
+        final Map<ColumnFamilyHandle, SstWriter> writers = new LinkedHashMap<>();
+        long count = 0;
+        try (EnvOptions envOptions = new EnvOptions()) {
+            try {
+                final PeekingIterator<EncodedObject> objects = Iterators.peekingIterator(sorted);
+                while (objects.hasNext()) {
+                    final EncodedObject object = objects.next();
+                    // duplicates are adjacent on the sorted stream, keep the first one
+                    while (objects.hasNext() && objects.peek().id.equals(object.id)) {
+                        objects.next();
+                    }
+                    ColumnFamilyHandle column = layout.writeColumn(object.type);
+                    SstWriter writer = writers.get(column);
+                    if (writer == null) {
+                        writer = new SstWriter(column, envOptions);
+                        writers.put(column, writer);
+                    }
+                    writer.put(object);
+                    count++;
+                }
+                for (SstWriter writer : writers.values()) {
+                    writer.finish();
+                }
+            } finally {
+                readers.forEach(RunReader::close);
+                writers.values().forEach(SstWriter::close);
+            }
+            try (RocksDBReference dbRef = dbhandle.getReference();
+                    IngestExternalFileOptions options = new IngestExternalFileOptions()) {
+                options.setMoveFiles(true);
+                for (SstWriter writer : writers.values()) {
+                    if (!writer.files.isEmpty()) {
+                        dbRef.db().ingestExternalFile(writer.column, writer.files, options);
+                    }
+                }
+            }
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        } finally {
+            ingested = true;
+            buffer = new ArrayList<>();
+            bufferSize = 0;
+        }
+        log.debug("Ingested {} objects from {} sorted runs in {}", count, runs.size(), sw.stop());
+        return count;
+    }
+
+    public @Override synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer = null;
+        if (tempDirectory != null) {
+            try (Stream<Path> files = Files.walk(tempDirectory)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            } catch (IOException e) {
+                log.warn("Error deleting bulk ingest temporary directory {}", tempDirectory, e);
+            }
+        }
+    }
+
+    private void checkActive() {
+        Preconditions.checkState(!closed, "bulk ingest is closed");
+        Preconditions.checkState(!ingested, "bulk ingest already ingested");
+    }
+
+    private Path tempDirectory() throws IOException {
+        if (tempDirectory == null) {
+            Path parent = dbDirectory.getAbsoluteFile().getParentFile().toPath();
+            tempDirectory = Files.createTempDirectory(parent, dbDirectory.getName() + ".ingest");
+        }
+        return tempDirectory;
+    }
+
+    /**
+     * Sorts the buffered objects and writes them to a new run file, dropping duplicates
+     */
+    private void spill() {
+        buffer.sort(BY_ID);
+        try {
+            File run = Files.createTempFile(tempDirectory(), "run", ".bin").toFile();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(run.toPath()), 64 * 1024))) {
+                ObjectId last = null;
+                for (EncodedObject o : buffer) {
+                    if (o.id.equals(last)) {
+                        continue;
+                    }
+                    out.writeByte(o.type.value());
+                    out.write(o.id.getRawValue());
+                    out.writeInt(o.serialform.length);
+                    out.write(o.serialform);
+                    last = o.id;
+                }
+            }
+            runs.add(run);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+        bufferSize = 0;
+    }
+
+    /**
+     * Reads back the objects of a sorted run file
+     */
+    private static class RunReader implements Iterator<EncodedObject>, AutoCloseable {
+
+        private final DataInputStream in;
+
+        private @Nullable EncodedObject next;
+
+        RunReader(File run) {
+            try {
+                this.in = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(run.toPath()), 64 * 1024));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public @Override boolean hasNext() {
+            if (next == null) {
+                next = read();
+            }
+            return next != null;
+        }
+
+        public @Override EncodedObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            EncodedObject curr = next;
+            next = null;
+            return curr;
+        }
+
+        private @Nullable EncodedObject read() {
+            try {
+                final int type = in.read();
+                if (type == -1) {
+                    return null;
+                }
+                byte[] id = new byte[ObjectId.NUM_BYTES];
+                in.readFully(id);
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                return new EncodedObject(ObjectId.create(id), TYPE.valueOf(type), data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public @Override void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                log.warn("Error closing bulk ingest run file", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the objects of a column family to SST files, created with the same options as the
+     * column family
+     */
+    private class SstWriter implements AutoCloseable {
+
+        final ColumnFamilyHandle column;
+
+        final List<String> files = new ArrayList<>();
+
+        private final EnvOptions envOptions;
+
+        private final Options options;
+
+        private @Nullable SstFileWriter writer;
+
+        private long fileSize;
+
+        SstWriter(ColumnFamilyHandle column, EnvOptions envOptions) throws RocksDBException {
+            this.column = column;
+            this.envOptions = envOptions;
+            ColumnFamilyDescriptor descriptor = column.getDescriptor();
+            try (ColumnFamilyOptions columnOptions = descriptor.getOptions()) {
+                this.options = new Options(dbhandle.options, columnOptions);
+            }
+        }
+
+        void put(EncodedObject object) throws RocksDBException {
+            if (writer == null || fileSize >= SST_FILE_SIZE) {
+                finish();
+                String file;
+                try {
+                    file = Files.createTempFile(tempDirectory(), "ingest", ".sst").toString();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                writer = new SstFileWriter(envOptions, options);
+                writer.open(file);
+                files.add(file);
+                fileSize = 0;
+            }
+            writer.put(object.id.getRawValue(), object.serialform);
+            fileSize += ObjectId.NUM_BYTES + object.serialform.length;
+        }
+
+        void finish() throws RocksDBException {
+            if (writer != null) {
+                writer.finish();
+                writer.close();
+                writer = null;
+            }
+        }
+
+        public @Override void close() {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            options.close();
+        }
+    }
+}
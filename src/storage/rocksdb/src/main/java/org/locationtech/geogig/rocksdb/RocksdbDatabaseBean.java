@@ -0,0 +1,61 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import javax.management.MXBean;
+
+/**
+ * Interface for monitoring the resource utilization of a single open RocksDB database, registered
+ * as an {@link MXBean} while the database is open.
+ * <p>
+ * The values are aggregated over all the column families of the database, and are {@code -1} if
+ * they can't be obtained (e.g. because the database is being closed).
+ * 
+ * @see RocksdbResourcesBean
+ * @since 2.0
+ */
+@MXBean
+public interface RocksdbDatabaseBean {
+
+    /**
+     * @return the database directory
+     */
+    String getPath();
+
+    boolean isReadOnly();
+
+    /**
+     * @return the memory used by the database memtables in bytes, charged to the shared write
+     *         buffer budget
+     */
+    long getMemTablesSize();
+
+    /**
+     * @return the estimated memory used to read the database files in bytes (e.g. the index and
+     *         filter blocks not held in the block cache)
+     */
+    long getTableReadersMemory();
+
+    /**
+     * @return the estimated number of keys in the database
+     */
+    long getEstimatedNumKeys();
+
+    /**
+     * @return the estimated size of the live data in bytes
+     */
+    long getEstimatedLiveDataSize();
+
+    /**
+     * @return the estimated number of bytes compaction needs to rewrite to get all levels down to
+     *         their target size
+     */
+    long getPendingCompactionBytes();
+}
@@ -14,6 +14,7 @@ import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,7 +22,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.locationtech.geogig.base.Preconditions;
@@ -31,6 +36,11 @@ import org.locationtech.geogig.rocksdb.DBHandle.RocksDBReference;
 import org.locationtech.geogig.storage.AbstractStore;
 import org.locationtech.geogig.storage.GraphDatabase;
 import org.locationtech.geogig.storage.datastream.Varint;
+import org.locationtech.geogig.storage.decorator.ForwardingGraphDatabase;
+import org.locationtech.geogig.storage.impl.CommitGraph;
+import org.locationtech.geogig.storage.impl.ReachabilityBitmap;
+import org.locationtech.geogig.storage.impl.ReachabilityIndex;
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
@@ -46,6 +56,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
 
 import lombok.NonNull;
 
@@ -57,8 +68,43 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
 
     private final File dbdir;
 
+    private static final String REACHABILITY_COLUMN = "reachability";
+
+    private static final String REACHABILITY_POSITIONS_COLUMN = "reachabilityPositions";
+
+    private static final String CHANGED_PATHS_COLUMN = "changedPaths";
+
     private DBHandle dbhandle;
 
+    /**
+     * {@code null} if the database is open read-only and the reachability columns don't exist
+     */
+    private @Nullable ReachabilityIndex reachability;
+
+    /**
+     * Changed paths filters keyed by commit id, kept out of the node entries so graph traversals
+     * don't decode them; {@code null} if the database is open read-only and the column doesn't
+     * exist
+     */
+    private @Nullable ColumnFamilyHandle changedPaths;
+
+    static final String COMMIT_GRAPH_FILE = "commit-graph";
+
+    /**
+     * Memory mapped commit graph shared by all the graph databases open on the same
+     * {@link DBHandle}, {@code null} if the database is open read-only
+     */
+    private @Nullable CommitGraph commitGraph;
+
+    /**
+     * View of this database that bypasses the commit graph, used to maintain it
+     */
+    private final GraphDatabase storedGraph = new ForwardingGraphDatabase(this) {
+        public @Override List<ObjectId> getParents(ObjectId commitId) {
+            return getStoredParents(commitId);
+        }
+    };
+
     public RocksdbGraphDatabase(@NonNull File dbdir, boolean readOnly) {
         super(readOnly);
         this.dbdir = dbdir;
@@ -67,8 +113,22 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
     public @Override synchronized void open() {
         if (!isOpen()) {
             String dbpath = dbdir.getAbsolutePath();
-            DBConfig opts = new DBConfig(dbpath, isReadOnly());
+            DBConfig opts = new DBConfig(dbpath, isReadOnly(), Collections.emptyMap(), Set
+                    .of(REACHABILITY_COLUMN, REACHABILITY_POSITIONS_COLUMN, CHANGED_PATHS_COLUMN));
             this.dbhandle = RocksConnectionManager.INSTANCE.acquire(opts);
+            ColumnFamilyHandle entries = dbhandle.getColumnFamily(REACHABILITY_COLUMN);
+            ColumnFamilyHandle positions = dbhandle.getColumnFamily(REACHABILITY_POSITIONS_COLUMN);
+            if (entries == null || positions == null) {
+                LOG.debug("Reachability index not available on read-only graph database {}",
+                        dbpath);
+                this.reachability = null;
+            } else {
+                ReachabilityStorage storage = new ReachabilityStorage(entries, positions);
+                this.reachability = new ReachabilityIndex(this, storage, isReadOnly());
+            }
+            this.changedPaths = dbhandle.getColumnFamily(CHANGED_PATHS_COLUMN);
+            this.commitGraph = isReadOnly() ? null
+                    : dbhandle.getAttachment(COMMIT_GRAPH_FILE, this::openCommitGraph);
             super.open();
         }
     }
@@ -78,6 +138,19 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
             super.close();
             RocksConnectionManager.INSTANCE.release(dbhandle);
             this.dbhandle = null;
+            this.reachability = null;
+            this.changedPaths = null;
+            this.commitGraph = null;
+        }
+    }
+
+    private @Nullable CommitGraph openCommitGraph(DBHandle handle) {
+        File file = new File(dbdir, COMMIT_GRAPH_FILE);
+        try {
+            return CommitGraph.open(file);
+        } catch (IOException e) {
+            LOG.warn("Unable to open commit graph file {}, generation numbers disabled", file, e);
+            return null;
         }
     }
 
@@ -94,6 +167,17 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
     }
 
     public @Override List<ObjectId> getParents(ObjectId commitId) throws IllegalArgumentException {
+        final CommitGraph commitGraph = this.commitGraph;
+        if (commitGraph != null) {
+            Optional<CommitGraph.Commit> commit = commitGraph.get(commitId);
+            if (commit.isPresent()) {
+                return new ArrayList<>(commit.get().getParents());
+            }
+        }
+        return getStoredParents(commitId);
+    }
+
+    private List<ObjectId> getStoredParents(ObjectId commitId) {
         NodeData node = getNodeInternal(commitId, false);
         if (node != null) {
             return new ArrayList<>(node.outgoing);
@@ -117,6 +201,10 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
 
             boolean updated = put(dbRef, commitId, parentIds, batch);
             dbRef.db().write(wo, batch);
+            if (updated) {
+                updateReachability(Collections.singletonList(commitId));
+                updateCommitGraph(Collections.singletonList(commitId));
+            }
             return updated;
         } catch (RocksDBException e) {
             throw new RuntimeException(e);
@@ -132,7 +220,7 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
      *           {@link WriteBatchWithIndex#getFromBatchAndDB getFromBatchAndDB}
      */
     public void putAll(Iterable<RevCommit> commits) {
-        int count = 0;
+        List<ObjectId> updated = new ArrayList<>();
         final Stopwatch sw = LOG.isTraceEnabled() ? Stopwatch.createStarted() : null;
         try (WriteBatchWithIndex batch = new WriteBatchWithIndex(); //
                 RocksDBReference dbRef = dbhandle.getReference();
@@ -141,16 +229,55 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
             for (RevCommit c : commits) {
                 ObjectId commitId = c.getId();
                 List<ObjectId> parentIds = c.getParentIds();
-                put(dbRef, commitId, parentIds, batch);
-                count++;
+                if (put(dbRef, commitId, parentIds, batch)) {
+                    updated.add(commitId);
+                }
             }
             dbRef.db().write(wo, batch);
         } catch (RocksDBException e) {
             throw new RuntimeException(e);
         }
         if (LOG.isTraceEnabled()) {
-            LOG.trace(String.format("Inserted %,d graph mappings in %s", count, sw.stop()));
+            LOG.trace(
+                    String.format("Inserted %,d graph mappings in %s", updated.size(), sw.stop()));
+        }
+        updateReachability(updated);
+        updateCommitGraph(updated);
+    }
+
+    private void updateCommitGraph(List<ObjectId> commits) {
+        final CommitGraph commitGraph = this.commitGraph;
+        if (commitGraph != null) {
+            commits.forEach(c -> commitGraph.update(storedGraph, c));
+        }
+    }
+
+    public @Override OptionalInt getGeneration(@NonNull ObjectId commitId) {
+        final CommitGraph commitGraph = this.commitGraph;
+        if (commitGraph != null) {
+            Optional<CommitGraph.Commit> commit = commitGraph.resolve(storedGraph, commitId,
+                    isReadOnly());
+            if (commit.isPresent()) {
+                return OptionalInt.of(commit.get().getGeneration());
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    private void updateReachability(List<ObjectId> commits) {
+        final ReachabilityIndex index = this.reachability;
+        if (index != null) {
+            commits.forEach(index::update);
+        }
+    }
+
+    public @Override Optional<List<ObjectId>> findMissingCommits(@NonNull Set<ObjectId> want,
+            @NonNull Set<ObjectId> have) {
+        final ReachabilityIndex index = this.reachability;
+        if (index == null) {
+            return Optional.empty();
         }
+        return index.findMissingCommits(want, have);
     }
 
     private boolean put(RocksDBReference dbref, ObjectId commitId, List<ObjectId> parentIds,
@@ -208,6 +335,14 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
     }
 
     public @Override int getDepth(ObjectId commitId) {
+        final CommitGraph commitGraph = this.commitGraph;
+        if (commitGraph != null) {
+            Optional<CommitGraph.Commit> commit = commitGraph.resolve(storedGraph, commitId,
+                    isReadOnly());
+            if (commit.isPresent()) {
+                return commit.get().getDepth();
+            }
+        }
         int depth = 0;
 
         try (RocksDBReference dbRef = dbhandle.getReference()) {
@@ -248,6 +383,38 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
         }
     }
 
+    public @Override Optional<String> getProperty(ObjectId commitId, String propertyName) {
+        NodeData node = getNodeInternal(commitId, false);
+        return node == null ? Optional.empty()
+                : Optional.ofNullable(node.properties.get(propertyName));
+    }
+
+    public @Override boolean putChangedPaths(@NonNull ObjectId commitId, @NonNull byte[] filter) {
+        final ColumnFamilyHandle column = this.changedPaths;
+        if (column == null) {
+            return false;
+        }
+        Preconditions.checkArgument(exists(commitId), "Graph Object does not exist: %s", commitId);
+        try (RocksDBReference dbRef = dbhandle.getReference()) {
+            dbRef.db().put(column, commitId.getRawValue(), filter);
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+        return true;
+    }
+
+    public @Override Optional<byte[]> getChangedPaths(@NonNull ObjectId commitId) {
+        final ColumnFamilyHandle column = this.changedPaths;
+        if (column == null) {
+            return Optional.empty();
+        }
+        try (RocksDBReference dbRef = dbhandle.getReference()) {
+            return Optional.ofNullable(dbRef.db().get(column, commitId.getRawValue()));
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public @Override GraphNode getNode(ObjectId id) {
         return new RocksGraphNode(getNodeInternal(id, true));
     }
@@ -263,12 +430,25 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
                         batch.delete(it.key());
                         it.next();
                     }
+                    if (changedPaths != null) {
+                        try (RocksIterator cit = dbRef.db().newIterator(changedPaths)) {
+                            for (cit.seekToFirst(); cit.isValid(); cit.next()) {
+                                batch.delete(changedPaths, cit.key());
+                            }
+                        }
+                    }
                     dbRef.db().write(wo, batch);
                 }
             } catch (RocksDBException e) {
                 throw new RuntimeException(e);
             }
         }
+        if (reachability != null) {
+            reachability.clear();
+        }
+        if (commitGraph != null) {
+            commitGraph.clear();
+        }
     }
 
     @Nullable
@@ -317,6 +497,108 @@ public class RocksdbGraphDatabase extends AbstractStore implements GraphDatabase
         }
     }
 
+    /**
+     * {@link ReachabilityIndex.Storage} that keeps the commit to reachability entry mappings on one
+     * column family and the position to commit id mappings on another one, keyed by the big-endian
+     * position so that the last key is the highest position.
+     */
+    private class ReachabilityStorage implements ReachabilityIndex.Storage {
+
+        private final ColumnFamilyHandle entries;
+
+        private final ColumnFamilyHandle positions;
+
+        private final AtomicInteger nextPosition;
+
+        ReachabilityStorage(ColumnFamilyHandle entries, ColumnFamilyHandle positions) {
+            this.entries = entries;
+            this.positions = positions;
+            this.nextPosition = new AtomicInteger(lastPosition() + 1);
+        }
+
+        private int lastPosition() {
+            try (RocksDBReference dbRef = dbhandle.getReference();
+                    RocksIterator it = dbRef.db().newIterator(positions)) {
+                it.seekToLast();
+                return it.isValid() ? Ints.fromByteArray(it.key()) : -1;
+            }
+        }
+
+        public @Override Optional<ReachabilityIndex.Entry> get(ObjectId commitId) {
+            byte[] value;
+            try (RocksDBReference dbRef = dbhandle.getReference()) {
+                value = dbRef.db().get(entries, commitId.getRawValue());
+            } catch (RocksDBException e) {
+                throw new RuntimeException(e);
+            }
+            if (value == null) {
+                return Optional.empty();
+            }
+            int position = Ints.fromBytes(value[0], value[1], value[2], value[3]);
+            ReachabilityBitmap bitmap = ReachabilityBitmap
+                    .fromByteArray(Arrays.copyOfRange(value, Integer.BYTES, value.length));
+            return Optional.of(new ReachabilityIndex.Entry(position, bitmap));
+        }
+
+        public @Override void put(ObjectId commitId, ReachabilityIndex.Entry entry) {
+            final byte[] position = Ints.toByteArray(entry.getPosition());
+            final byte[] bitmap = entry.getBitmap().toByteArray();
+            final byte[] value = new byte[Integer.BYTES + bitmap.length];
+            System.arraycopy(position, 0, value, 0, Integer.BYTES);
+            System.arraycopy(bitmap, 0, value, Integer.BYTES, bitmap.length);
+            final byte[] key = commitId.getRawValue();
+            try (RocksDBReference dbRef = dbhandle.getReference();
+                    WriteBatch batch = new WriteBatch();
+                    WriteOptions wo = new WriteOptions()) {
+                batch.put(entries, key, value);
+                batch.put(positions, position, key);
+                dbRef.db().write(wo, batch);
+            } catch (RocksDBException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public @Override void remove(ObjectId commitId) {
+            try (RocksDBReference dbRef = dbhandle.getReference()) {
+                dbRef.db().delete(entries, commitId.getRawValue());
+            } catch (RocksDBException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public @Override Optional<ObjectId> getCommit(int position) {
+            byte[] value;
+            try (RocksDBReference dbRef = dbhandle.getReference()) {
+                value = dbRef.db().get(positions, Ints.toByteArray(position));
+            } catch (RocksDBException e) {
+                throw new RuntimeException(e);
+            }
+            return Optional.ofNullable(value).map(ObjectId::create);
+        }
+
+        public @Override int nextPosition() {
+            return nextPosition.getAndIncrement();
+        }
+
+        public @Override void clear() {
+            try (RocksDBReference dbRef = dbhandle.getReference();
+                    WriteOptions wo = new WriteOptions();
+                    WriteBatch batch = new WriteBatch()) {
+                for (ColumnFamilyHandle column : List.of(entries, positions)) {
+                    try (RocksIterator it = dbRef.db().newIterator(column)) {
+                        for (it.seekToFirst(); it.isValid(); it.next()) {
+                            batch.delete(column, it.key());
+                        }
+                    }
+                }
+                dbRef.db().write(wo, batch);
+            } catch (RocksDBException e) {
+                throw new RuntimeException(e);
+            }
+            nextPosition.set(0);
+        }
+    }
+
     private class RocksGraphNode extends GraphNode {
         NodeData node;
 
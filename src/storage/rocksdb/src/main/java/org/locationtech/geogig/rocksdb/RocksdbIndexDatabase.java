@@ -40,9 +40,9 @@ import lombok.NonNull;
 
 /**
  * 
- * @implNote this class uses the rocksdb "default" column family to store the {@link RevTree}s (as
- *           provided by its superclass), and the "indexMetadata" column family to store
- *           {@link IndexInfo}s.
+ * @implNote this class uses the rocksdb "trees" column family (or "default" for databases created
+ *           before the typed storage layout) to store the {@link RevTree}s (as provided by its
+ *           superclass), and the "indexMetadata" column family to store {@link IndexInfo}s.
  */
 public class RocksdbIndexDatabase extends RocksdbObjectStore implements IndexDatabase {
 
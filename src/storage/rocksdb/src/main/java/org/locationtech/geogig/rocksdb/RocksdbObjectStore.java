@@ -20,8 +20,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +33,8 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -38,8 +44,10 @@ import org.locationtech.geogig.model.NodeRef;
 import org.locationtech.geogig.model.ObjectId;
 import org.locationtech.geogig.model.RevObject;
 import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.repository.ProgressListener;
 import org.locationtech.geogig.rocksdb.DBHandle.RocksDBReference;
 import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.BulkIngest;
 import org.locationtech.geogig.storage.BulkOpListener;
 import org.locationtech.geogig.storage.ObjectInfo;
 import org.locationtech.geogig.storage.ObjectStore;
@@ -47,10 +55,12 @@ import org.locationtech.geogig.storage.RevObjectSerializer;
 import org.locationtech.geogig.storage.datastream.DataStreamRevObjectSerializerV2;
 import org.locationtech.geogig.storage.format.lzf.RevObjectSerializerLZF;
 import org.locationtech.geogig.storage.impl.AbstractObjectStore;
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Snapshot;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
@@ -70,8 +80,31 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
 
     protected DBHandle dbhandle;
 
+    /**
+     * Number of objects per {@link WriteBatch} on {@link #putAll}, and per {@code multiGet} call on
+     * {@link #getAll}
+     */
+    static final int BULK_BATCH_SIZE = 1000;
+
     private ReadOptions bulkReadOptions;
 
+    /**
+     * Write options for {@link #putAll}, do not sync the WAL on each batch. It's synced once at the
+     * end of the bulk operation instead
+     */
+    private WriteOptions bulkWriteOptions;
+
+    /**
+     * The column families of the database, and its current storage layout
+     */
+    private TypedColumnFamilies columns;
+
+    /**
+     * Whether to create the database with the {@link TypedColumnFamilies typed} layout if it
+     * doesn't exist, only to be set to {@code false} to test the legacy layout
+     */
+    boolean createTypedLayout = true;
+
     public RocksdbObjectStore(@NonNull File dbdir, boolean readOnly) {
         super(RocksdbSerializationProxy.INSTANCE, readOnly);
         this.dbDirectory = dbdir;
@@ -85,16 +118,25 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
         if (isOpen()) {
             return;
         }
-        Map<String, String> defaultMetadata = Map.of("version", RocksdbRepositoryResolver.VERSION,
-                "serializer", "proxy");
+        Map<String, String> defaultMetadata = new HashMap<>();
+        defaultMetadata.put("version", RocksdbRepositoryResolver.VERSION);
+        defaultMetadata.put("serializer", "proxy");
+        if (createTypedLayout) {
+            defaultMetadata.put(TypedColumnFamilies.LAYOUT_KEY, TypedColumnFamilies.LAYOUT_TYPED);
+        }
+        Set<String> allColumnFamilyNames = new HashSet<>(columnFamilyNames);
+        allColumnFamilyNames.addAll(TypedColumnFamilies.columnFamilyNames());
 
         DBConfig address = new DBConfig(dbDirectory.getAbsolutePath(), isReadOnly(),
-                defaultMetadata, columnFamilyNames);
+                defaultMetadata, allColumnFamilyNames);
         this.dbhandle = RocksConnectionManager.INSTANCE.acquire(address);
+        this.columns = TypedColumnFamilies.of(dbhandle);
 
         this.bulkReadOptions = new ReadOptions();
         this.bulkReadOptions.setFillCache(false);
         this.bulkReadOptions.setVerifyChecksums(false);
+        this.bulkWriteOptions = new WriteOptions();
+        this.bulkWriteOptions.setSync(false);
 
         final Optional<String> serializerValue = dbhandle.getMetadata("serializer");
         if (serializerValue.isPresent()) {
@@ -116,19 +158,105 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
             super.close();
             final DBHandle dbhandle = this.dbhandle;
             this.dbhandle = null;
+            this.columns = null;
             this.bulkReadOptions.close();
+            this.bulkWriteOptions.close();
             RocksConnectionManager.INSTANCE.release(dbhandle);
         }
     }
 
+    /**
+     * @return the name of the database storage layout as recorded in its metadata: {@code "typed"}
+     *         if each object type is stored in its own column family, {@code "migrating"} while an
+     *         {@link #upgradeLayout upgrade} to the typed layout is in progress or was interrupted,
+     *         or {@code null} if the database predates the typed layout and all objects are stored
+     *         in the "default" column family
+     */
+    @Nullable
+    String layout() {
+        checkOpen();
+        return columns.layout().name();
+    }
+
+    /**
+     * Migrates a database created before the typed storage layout was introduced, where all objects
+     * are stored in the "default" column family, to the typed layout, where each object type is
+     * stored in its own column family. Does nothing if the database already uses the typed layout.
+     * <p>
+     * The objects are moved in batches, each batch written atomically, and the database remains
+     * fully usable while the migration is in progress, as objects are looked up in both the typed
+     * and the "default" column families until it finishes. If the migration is interrupted or
+     * {@link ProgressListener#cancel() cancelled}, calling this method again resumes it.
+     * 
+     * @return the number of objects moved
+     */
+    public synchronized long upgradeLayout(@NonNull ProgressListener listener) {
+        checkWritable();
+        if (TypedColumnFamilies.LAYOUT_TYPED.equals(columns.layout().name())) {
+            return 0L;
+        }
+        columns.setLayout(TypedColumnFamilies.LAYOUT_MIGRATING);
+        final TypedColumnFamilies.Layout layout = columns.layout();
+        final ColumnFamilyHandle defaultColumn = layout.defaultColumn();
+        long moved = 0;
+        try (RocksDBReference dbRef = dbhandle.getReference();
+                ReadOptions readOptions = new ReadOptions()) {
+            readOptions.setFillCache(false);
+            try (RocksIterator it = dbRef.db().newIterator(defaultColumn, readOptions)) {
+                it.seekToFirst();
+                while (it.isValid() && !listener.isCanceled()) {
+                    try (WriteBatch batch = new WriteBatch()) {
+                        for (int i = 0; i < BULK_BATCH_SIZE && it.isValid(); i++, it.next()) {
+                            final byte[] key = it.key();
+                            final byte[] value = it.value();
+                            final TYPE type = serializer()
+                                    .read(ObjectId.create(key), value, 0, value.length).getType();
+                            batch.put(layout.writeColumn(type), key, value);
+                            batch.delete(defaultColumn, key);
+                            moved++;
+                        }
+                        dbRef.db().write(bulkWriteOptions, batch);
+                    }
+                    listener.setProgress(moved);
+                }
+            }
+            dbRef.db().flushWal(true);
+            if (!listener.isCanceled()) {
+                // get rid of the tombstones left on the default column family
+                dbRef.db().compactRange(defaultColumn);
+                columns.setLayout(TypedColumnFamilies.LAYOUT_TYPED);
+            }
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return moved;
+    }
+
+    /**
+     * Decodes the object to figure out which column family it goes to, prefer
+     * {@link #putInternal(ObjectId, TYPE, byte[])}
+     */
     protected @Override boolean putInternal(ObjectId id, byte[] rawData) {
+        final TYPE type;
+        try {
+            type = serializer().read(id, rawData, 0, rawData.length).getType();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return putInternal(id, type, rawData);
+    }
+
+    protected @Override boolean putInternal(ObjectId id, TYPE type, byte[] rawData) {
         checkWritable();
+        final TypedColumnFamilies.Layout layout = columns.layout();
         boolean exists;
         try (RocksDBReference dbRef = dbhandle.getReference()) {
             byte[] key = id.getRawValue();
-            exists = exists(dbRef, bulkReadOptions, key);
+            exists = exists(dbRef, layout.readColumns(type), key);
             if (!exists) {
-                dbRef.db().put(key, rawData);
+                dbRef.db().put(layout.writeColumn(type), key, rawData);
             }
         } catch (RocksDBException e) {
             throw new RuntimeException(e);
@@ -139,7 +267,7 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
     protected @Override InputStream getRawInternal(ObjectId id, boolean failIfNotFound)
             throws IllegalArgumentException {
 
-        byte[] bytes = getRawInternal(id.getRawValue());
+        byte[] bytes = getRawInternal(id.getRawValue(), null);
 
         if (bytes != null) {
             return new ByteArrayInputStream(bytes);
@@ -150,11 +278,42 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
         return null;
     }
 
+    /**
+     * Overrides to hand the byte array returned by RocksDB to the serializer as is, so that lazy
+     * objects (e.g. FlatBuffers encoded ones) wrap it in place instead of reading it through a
+     * stream
+     */
+    protected @Override ByteBuffer getRawBufferInternal(ObjectId id, boolean failIfNotFound) {
+        return getRawBufferInternal(id, null, failIfNotFound);
+    }
+
+    /**
+     * Looks up the object only in the column family of the hinted type, if given
+     */
+    protected @Override ByteBuffer getRawBufferInternal(ObjectId id, @Nullable TYPE typeHint,
+            boolean failIfNotFound) {
+        byte[] bytes = getRawInternal(id.getRawValue(), typeHint);
+        if (bytes != null) {
+            return ByteBuffer.wrap(bytes);
+        }
+        if (failIfNotFound) {
+            throw new IllegalArgumentException("Object does not exist: " + id);
+        }
+        return null;
+    }
+
     @Nullable
-    private byte[] getRawInternal(byte[] key) throws IllegalArgumentException {
+    private byte[] getRawInternal(byte[] key, @Nullable TYPE typeHint)
+            throws IllegalArgumentException {
         checkOpen();
         try (RocksDBReference dbRef = dbhandle.getReference()) {
-            return dbRef.db().get(key);
+            for (ColumnFamilyHandle column : columns.layout().readColumns(typeHint)) {
+                byte[] value = dbRef.db().get(column, key);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
         } catch (RocksDBException e) {
             throw new RuntimeException(e);
         }
@@ -165,16 +324,29 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
         requireNonNull(id, "argument id is null");
 
         try (RocksDBReference dbRef = dbhandle.getReference()) {
-            return exists(dbRef, bulkReadOptions, id.getRawValue());
+            return exists(dbRef, columns.layout().readColumns(null), id.getRawValue());
         }
     }
 
     private static final byte[] NO_DATA = new byte[0];
 
-    private boolean exists(RocksDBReference dbRef, ReadOptions readOptions, byte[] key) {
+    private boolean exists(RocksDBReference dbRef, List<ColumnFamilyHandle> columns, byte[] key) {
+        return find(dbRef, columns, key) != null;
+    }
+
+    /**
+     * @return the first of {@code columns} that contains {@code key}, or {@code null}
+     */
+    private @Nullable ColumnFamilyHandle find(RocksDBReference dbRef,
+            List<ColumnFamilyHandle> columns, byte[] key) {
         try {
-            int size = dbRef.db().get(key, NO_DATA);
-            return size != RocksDB.NOT_FOUND;
+            for (ColumnFamilyHandle column : columns) {
+                int size = dbRef.db().get(column, key, NO_DATA);
+                if (size != RocksDB.NOT_FOUND) {
+                    return column;
+                }
+            }
+            return null;
         } catch (RocksDBException e) {
             throw new RuntimeException(e);
         }
@@ -185,7 +357,10 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
         checkWritable();
         byte[] key = objectId.getRawValue();
         try (RocksDBReference dbRef = dbhandle.getReference()) {
-            dbRef.db().delete(key);
+            ColumnFamilyHandle column = find(dbRef, columns.layout().readColumns(null), key);
+            if (column != null) {
+                dbRef.db().delete(column, key);
+            }
         } catch (RocksDBException e) {
             throw new RuntimeException(e);
         }
@@ -203,67 +378,134 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
         requireNonNull(type, "type is null");
         checkOpen();
 
+        final @Nullable TYPE typeHint = typeHint(type);
+
         return new AbstractIterator<T>() {
 
-            private Iterator<ObjectId> oids = ids.iterator();
+            private final Iterator<ObjectId> oids = ids.iterator();
 
-            private byte[] keybuff = new byte[ObjectId.NUM_BYTES];
+            private final List<ObjectId> batchIds = new ArrayList<>(BULK_BATCH_SIZE);
 
-            private byte[] valueBuff = new byte[64 * 1024];
+            private final List<byte[]> batchKeys = new ArrayList<>(BULK_BATCH_SIZE);
 
-            private ReadOptions readOps = bulkReadOptions;
+            private List<byte[]> batchValues = Collections.emptyList();
+
+            private int batchIndex;
 
             protected @Override T computeNext() {
-                checkOpen();
-                try (RocksDBReference dbRef = dbhandle.getReference()) {
-                    while (oids.hasNext()) {
-                        ObjectId id = oids.next();
-                        id.getRawValue(keybuff);
-                        final int size = dbRef.db().get(readOps, keybuff, valueBuff);
-                        if (RocksDB.NOT_FOUND == size) {
+                while (true) {
+                    while (batchIndex < batchValues.size()) {
+                        final int i = batchIndex++;
+                        final ObjectId id = batchIds.get(i);
+                        final byte[] value = batchValues.get(i);
+                        if (value == null) {
                             listener.notFound(id);
                             continue;
                         }
-                        if (size > valueBuff.length) {
-                            valueBuff = dbRef.db().get(readOps, keybuff);
-                        }
                         RevObject object;
-                        object = serializer().read(id, valueBuff, 0, size);
+                        try {
+                            object = serializer().read(id, value, 0, value.length);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
                         if (type.isInstance(object)) {
-                            listener.found(id, Integer.valueOf(size));
+                            listener.found(id, Integer.valueOf(value.length));
                             return type.cast(object);
-                        } else {
-                            listener.notFound(id);
                         }
+                        listener.notFound(id);
                     }
-                } catch (Exception e) {
+                    if (!fetchNextBatch()) {
+                        return endOfData();
+                    }
+                }
+            }
+
+            /**
+             * Fetches the next {@link #BULK_BATCH_SIZE} objects with a single {@code multiGet},
+             * with the keys sorted to take advantage of data locality
+             */
+            private boolean fetchNextBatch() {
+                batchIds.clear();
+                batchKeys.clear();
+                batchValues = Collections.emptyList();
+                batchIndex = 0;
+                while (oids.hasNext() && batchIds.size() < BULK_BATCH_SIZE) {
+                    batchIds.add(oids.next());
+                }
+                if (batchIds.isEmpty()) {
+                    return false;
+                }
+                Collections.sort(batchIds);
+                batchIds.forEach(id -> batchKeys.add(id.getRawValue()));
+                checkOpen();
+                try (RocksDBReference dbRef = dbhandle.getReference()) {
+                    batchValues = multiGet(dbRef, batchKeys, i -> typeHint);
+                } catch (RocksDBException e) {
                     throw new RuntimeException(e);
                 }
-                return endOfData();
+                return true;
             }
         };
     }
 
+    /**
+     * Gets the values of all {@code keys}, with a single {@code multiGet} call per column family
+     * lookup round: each key is first looked up in the first of the
+     * {@link TypedColumnFamilies.Layout#readColumns read columns} for its type, then the keys not
+     * found are looked up in their second column family, and so on
+     * 
+     * @param typeHints provides the type of the object at each key index, or {@code null} if
+     *        unknown
+     * @return the value of each key, in the same order as {@code keys}, {@code null} if not found
+     */
+    private List<byte[]> multiGet(RocksDBReference dbRef, List<byte[]> keys,
+            IntFunction<TYPE> typeHints) throws RocksDBException {
+        final TypedColumnFamilies.Layout layout = columns.layout();
+        final int size = keys.size();
+        final List<byte[]> values = new ArrayList<>(Collections.nCopies(size, null));
+        final List<Integer> indexes = new ArrayList<>(size);
+        final List<ColumnFamilyHandle> roundColumns = new ArrayList<>(size);
+        final List<byte[]> roundKeys = new ArrayList<>(size);
+        for (int round = 0;; round++) {
+            indexes.clear();
+            roundColumns.clear();
+            roundKeys.clear();
+            for (int i = 0; i < size; i++) {
+                List<ColumnFamilyHandle> readColumns = layout.readColumns(typeHints.apply(i));
+                if (values.get(i) == null && round < readColumns.size()) {
+                    indexes.add(i);
+                    roundColumns.add(readColumns.get(round));
+                    roundKeys.add(keys.get(i));
+                }
+            }
+            if (indexes.isEmpty()) {
+                return values;
+            }
+            List<byte[]> roundValues = dbRef.db().multiGetAsList(bulkReadOptions, roundColumns,
+                    roundKeys);
+            for (int i = 0; i < indexes.size(); i++) {
+                values.set(indexes.get(i), roundValues.get(i));
+            }
+        }
+    }
+
     public @Override void deleteAll(Iterator<ObjectId> ids, BulkOpListener listener) {
         requireNonNull(ids, "argument objectId is null");
         requireNonNull(listener, "argument listener is null");
         checkWritable();
 
-        final boolean checkExists = !BulkOpListener.NOOP_LISTENER.equals(listener);
-
-        byte[] keybuff = new byte[ObjectId.NUM_BYTES];
+        final List<ColumnFamilyHandle> readColumns = columns.layout().readColumns(null);
 
-        try (RocksDBReference dbRef = dbhandle.getReference(); ReadOptions ro = new ReadOptions()) {
-            ro.setFillCache(false);
-            ro.setVerifyChecksums(false);
+        try (RocksDBReference dbRef = dbhandle.getReference()) {
             try (WriteOptions writeOps = new WriteOptions(); //
                     WriteBatch batch = new WriteBatch()) {
                 writeOps.setSync(true);
                 while (ids.hasNext()) {
                     ObjectId id = ids.next();
-                    id.getRawValue(keybuff);
-                    if (!checkExists || exists(dbRef, ro, keybuff)) {
-                        batch.delete(keybuff);
+                    byte[] key = id.getRawValue();
+                    ColumnFamilyHandle column = find(dbRef, readColumns, key);
+                    if (column != null) {
+                        batch.delete(column, key);
                         listener.deleted(id);
                     } else {
                         listener.notFound(id);
@@ -276,26 +518,89 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
         }
     }
 
+    /**
+     * Iterates over the keys of the objects column families as of a database snapshot taken when
+     * this method is called, hence objects inserted afterwards are not reported.
+     */
+    public @Override AutoCloseableIterator<ObjectId> getAllIds() {
+        checkOpen();
+        final List<ColumnFamilyHandle> readColumns = columns.layout().readColumns(null);
+        final RocksDBReference dbRef = dbhandle.getReference();
+        final Snapshot snapshot = dbRef.db().getSnapshot();
+        final ReadOptions readOptions = new ReadOptions();
+        readOptions.setFillCache(false);
+        readOptions.setVerifyChecksums(false);
+        readOptions.setSnapshot(snapshot);
+        final List<RocksIterator> iterators = new ArrayList<>(readColumns.size());
+        readColumns.forEach(column -> iterators.add(dbRef.db().newIterator(column, readOptions)));
+        iterators.forEach(RocksIterator::seekToFirst);
+
+        return new AutoCloseableIterator<ObjectId>() {
+
+            private boolean closed;
+
+            private int current;
+
+            public @Override boolean hasNext() {
+                if (closed) {
+                    return false;
+                }
+                while (current < iterators.size() && !iterators.get(current).isValid()) {
+                    current++;
+                }
+                return current < iterators.size();
+            }
+
+            public @Override ObjectId next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                RocksIterator it = iterators.get(current);
+                ObjectId id = ObjectId.create(it.key());
+                it.next();
+                return id;
+            }
+
+            public @Override void close() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                iterators.forEach(RocksIterator::close);
+                readOptions.close();
+                dbRef.db().releaseSnapshot(snapshot);
+                dbRef.close();
+            }
+        };
+    }
+
     protected @Override List<ObjectId> lookUpInternal(byte[] idprefix) {
         checkOpen();
         List<ObjectId> matches = new ArrayList<>(2);
         try (RocksDBReference dbRef = dbhandle.getReference()) {
-            try (RocksIterator it = dbRef.db().newIterator()) {
-                it.seek(idprefix);
-                while (it.isValid()) {
-                    byte[] key = it.key();
-                    for (int i = 0; i < idprefix.length; i++) {
-                        if (idprefix[i] != key[i]) {
-                            return matches;
-                        }
+            for (ColumnFamilyHandle column : columns.layout().readColumns(null)) {
+                lookUp(dbRef, column, idprefix, matches);
+            }
+        }
+        return matches;
+    }
+
+    private void lookUp(RocksDBReference dbRef, ColumnFamilyHandle column, byte[] idprefix,
+            List<ObjectId> matches) {
+        try (RocksIterator it = dbRef.db().newIterator(column)) {
+            it.seek(idprefix);
+            while (it.isValid()) {
+                byte[] key = it.key();
+                for (int i = 0; i < idprefix.length; i++) {
+                    if (idprefix[i] != key[i]) {
+                        return;
                     }
-                    ObjectId id = ObjectId.create(key);
-                    matches.add(id);
-                    it.next();
                 }
+                ObjectId id = ObjectId.create(key);
+                matches.add(id);
+                it.next();
             }
         }
-        return matches;
     }
 
     protected static class EncodedObject {
@@ -313,28 +618,15 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
     }
 
     /**
-     * Creates a parallel stream out of {@code objects}, filtering out before encoding through
-     * {@link #exists} if {@code checkExists == true}
+     * Creates a sequential stream out of {@code objects}, to be consumed by
+     * {@link #putAll(Stream, BulkOpListener)} in batches of {@link #BULK_BATCH_SIZE} objects
      */
-    protected Stream<RevObject> toStream(Iterator<? extends RevObject> objects, boolean checkExists,
-            BulkOpListener listener) {
-
+    protected Stream<RevObject> toStream(Iterator<? extends RevObject> objects) {
         final int characteristics = IMMUTABLE | NONNULL | DISTINCT;
-        Stream<RevObject> stream;
-        stream = StreamSupport.stream(spliteratorUnknownSize(objects, characteristics), true);
-        if (checkExists) {
-            stream = stream.filter((o) -> {
-                if (exists(o.getId())) {
-                    listener.found(o.getId(), null);
-                    return false;
-                }
-                return true;
-            });
-        }
-        return stream;
+        return StreamSupport.stream(spliteratorUnknownSize(objects, characteristics), false);
     }
 
-    private EncodedObject encode(RevObject o) {
+    EncodedObject encode(RevObject o) {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
             serializer().write(o, out);
@@ -344,62 +636,100 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
         return new EncodedObject(o.getId(), o.getType(), out.toByteArray());
     }
 
+    /**
+     * Creates a bulk load session that writes the objects directly to SST files and ingests them
+     * into the database, bypassing the WAL, memtables, and most of the compactions.
+     *
+     * @see RocksdbBulkIngest
+     */
+    public @Override BulkIngest bulkIngest() {
+        checkWritable();
+        return new RocksdbBulkIngest(this, dbhandle, dbDirectory,
+                RocksdbBulkIngest.DEFAULT_RUN_SIZE);
+    }
+
     public @Override final void putAll(Iterator<? extends RevObject> objects,
             final BulkOpListener listener) {
         requireNonNull(objects, "objects is null");
         requireNonNull(listener, "listener is null");
         checkWritable();
 
-        final boolean checkExists = !BulkOpListener.NOOP_LISTENER.equals(listener);
-        Stream<RevObject> stream = toStream(objects, checkExists, listener);
+        Stream<RevObject> stream = toStream(objects);
         putAll(stream, listener);
     }
 
+    /**
+     * Inserts the objects in batches of {@link #BULK_BATCH_SIZE}, checking which ones already exist
+     * with a single {@code multiGet} per batch (only if {@code listener} is not the
+     * {@link BulkOpListener#NOOP_LISTENER NOOP_LISTENER}), encoding the missing ones in parallel,
+     * and writing them in a single {@link WriteBatch} without syncing the WAL. The WAL is synced
+     * once all the batches are written.
+     */
     protected void putAll(Stream<RevObject> stream, BulkOpListener listener) {
         final Stopwatch sw = LOG.isTraceEnabled() ? Stopwatch.createStarted() : null;
 
-        final int batchsize = 1000;
-        // encodes on several threads
-        Stream<EncodedObject> encoded = stream.parallel().map(o -> encode(o));
+        final boolean checkExists = !BulkOpListener.NOOP_LISTENER.equals(listener);
 
         int insertCount = 0;
-        final Iterator<EncodedObject> iterator = encoded.iterator();
-        while (iterator.hasNext()) {
-            Iterator<EncodedObject> batch = Iterators.limit(iterator, batchsize);
-            insertCount += insertBatch(batch, listener);
+        final Iterator<RevObject> iterator = stream.iterator();
+        try (RocksDBReference dbRef = dbhandle.getReference()) {
+            try {
+                List<RevObject> batch = new ArrayList<>(BULK_BATCH_SIZE);
+                while (iterator.hasNext()) {
+                    batch.clear();
+                    Iterators.addAll(batch, Iterators.limit(iterator, BULK_BATCH_SIZE));
+                    insertCount += insertBatch(dbRef, batch, checkExists, listener);
+                }
+            } finally {
+                if (insertCount > 0) {
+                    dbRef.db().flushWal(true);
+                }
+            }
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
         }
-        if (LOG.isTraceEnabled())
-
-        {
+        if (LOG.isTraceEnabled()) {
             LOG.trace(String.format("Inserted %,d objects in %s", insertCount, sw.stop()));
         }
     }
 
-    private int insertBatch(Iterator<EncodedObject> objects, BulkOpListener listener) {
+    private int insertBatch(RocksDBReference dbRef, List<RevObject> objects, boolean checkExists,
+            BulkOpListener listener) throws RocksDBException {
 
-        final byte[] keybuff = new byte[ObjectId.NUM_BYTES];
+        final TypedColumnFamilies.Layout layout = columns.layout();
+        List<RevObject> missing = objects;
+        if (checkExists) {
+            List<byte[]> keys = new ArrayList<>(objects.size());
+            objects.forEach(o -> keys.add(o.getId().getRawValue()));
+            List<byte[]> values = multiGet(dbRef, keys, i -> objects.get(i).getType());
+            missing = new ArrayList<>(objects.size());
+            for (int i = 0; i < objects.size(); i++) {
+                RevObject o = objects.get(i);
+                if (values.get(i) == null) {
+                    missing.add(o);
+                } else {
+                    listener.found(o.getId(), null);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        // encodes on several threads
+        List<EncodedObject> encoded = missing.parallelStream().map(this::encode)
+                .collect(Collectors.toList());
 
         Set<ObjectId> insertedIds = new HashSet<>();
-
-        try (RocksDBReference dbRef = dbhandle.getReference();
-                WriteOptions wo = new WriteOptions(); //
-                WriteBatch batch = new WriteBatch()) {
-            wo.setSync(true);
-            while (objects.hasNext()) {
-                EncodedObject object = objects.next();
-                final ObjectId id = object.id;
-                id.getRawValue(keybuff);
-                final byte[] value = object.serialform;
-                batch.put(keybuff, value);
-                insertedIds.add(id);
+        try (WriteBatch batch = new WriteBatch()) {
+            for (EncodedObject object : encoded) {
+                batch.put(layout.writeColumn(object.type), object.id.getRawValue(),
+                        object.serialform);
+                insertedIds.add(object.id);
             }
-
-            dbRef.db().write(wo, batch);
-            // need to notify listener once the objects are actually on the db
-            insertedIds.forEach((id) -> listener.inserted(id, null));
-        } catch (RocksDBException e) {
-            throw new RuntimeException(e);
+            dbRef.db().write(bulkWriteOptions, batch);
         }
+        // need to notify listener once the objects are actually on the db
+        insertedIds.forEach((id) -> listener.inserted(id, null));
         return insertedIds.size();
     }
 
@@ -465,16 +795,26 @@ public class RocksdbObjectStore extends AbstractObjectStore implements ObjectSto
                         final NodeRef ref = noderefs.next();
                         final ObjectId id = ref.getObjectId();
                         id.getRawValue(keybuff);
-                        final int size = dbRef.db().get(readOps, keybuff, valueBuff);
+                        int size = RocksDB.NOT_FOUND;
+                        ColumnFamilyHandle column = null;
+                        for (ColumnFamilyHandle c : columns.layout().readColumns(ref.getType())) {
+                            size = dbRef.db().get(c, readOps, keybuff, valueBuff);
+                            if (RocksDB.NOT_FOUND != size) {
+                                column = c;
+                                break;
+                            }
+                        }
                         if (RocksDB.NOT_FOUND == size) {
                             listener.notFound(id);
                             continue;
                         }
                         if (size > valueBuff.length) {
-                            valueBuff = dbRef.db().get(readOps, keybuff);
+                            valueBuff = dbRef.db().get(column, readOps, keybuff);
                         }
-                        RevObject object = serializer().read(id,
-                                new ByteArrayInputStream(valueBuff));
+                        // valueBuff is reused, hand the serializer a copy of the value it can
+                        // keep a reference to
+                        ByteBuffer value = ByteBuffer.wrap(Arrays.copyOf(valueBuff, size));
+                        RevObject object = serializer().read(id, value);
                         if (type.isInstance(object)) {
                             listener.found(id, Integer.valueOf(size));
                             return ObjectInfo.of(ref, type.cast(object));
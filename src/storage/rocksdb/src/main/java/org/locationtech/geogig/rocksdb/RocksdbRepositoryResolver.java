@@ -10,11 +10,24 @@
 package org.locationtech.geogig.rocksdb;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import org.locationtech.geogig.base.Preconditions;
 import org.locationtech.geogig.repository.Context;
 import org.locationtech.geogig.repository.Hints;
 import org.locationtech.geogig.repository.Platform;
+import org.locationtech.geogig.repository.Repository;
+import org.locationtech.geogig.repository.RepositoryConnectionException;
 import org.locationtech.geogig.repository.impl.FileRepositoryResolver;
 import org.locationtech.geogig.storage.ConfigDatabase;
 import org.locationtech.geogig.storage.ConflictsDatabase;
@@ -25,7 +38,9 @@ import org.locationtech.geogig.storage.fs.FileRefDatabase;
 import org.locationtech.geogig.storage.fs.IniFileConfigDatabase;
 
 import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class RocksdbRepositoryResolver extends FileRepositoryResolver {
 
     /**
@@ -45,14 +60,20 @@ public class RocksdbRepositoryResolver extends FileRepositoryResolver {
         return new IniFileConfigDatabase(platform, hints, rootUri);
     }
 
+    private static final String OBJECTS_DB = "objects.rocksdb";
+
+    private static final String GRAPH_DB = "graph.rocksdb";
+
+    private static final String INDEX_DB = "index.rocksdb";
+
     public @Override ObjectDatabase resolveObjectDatabase(@NonNull URI repoURI, Hints hints) {
-        File dbdir = new File(resolveDotGeogigDirectory(repoURI), "objects.rocksdb");
+        File dbdir = new File(resolveDotGeogigDirectory(repoURI), OBJECTS_DB);
         boolean readOnly = Hints.isRepoReadOnly(hints);
         return new RocksdbObjectDatabase(dbdir, readOnly);
     }
 
     public @Override IndexDatabase resolveIndexDatabase(@NonNull URI repoURI, Hints hints) {
-        File dbdir = new File(resolveDotGeogigDirectory(repoURI), "index.rocksdb");
+        File dbdir = new File(resolveDotGeogigDirectory(repoURI), INDEX_DB);
         boolean readOnly = Hints.isRepoReadOnly(hints);
         return new RocksdbIndexDatabase(dbdir, readOnly);
     }
@@ -68,4 +89,122 @@ public class RocksdbRepositoryResolver extends FileRepositoryResolver {
         dbdir.mkdir();
         return new RocksdbConflictsDatabase(dbdir);
     }
+
+    /**
+     * Creates RocksDB checkpoints of the objects, graph, and optionally index databases of
+     * {@code source} inside {@code target}'s {@code .geogig} directory, and then closes
+     * {@code target}, replaces its databases by the checkpoints, and reopens it. When both
+     * repositories are in the same file system the checkpoints hard link the source database table
+     * files, hence the copy takes time and space proportional to the size of the database logs
+     * rather than to the number of objects.
+     * <p>
+     * The target's blob store, which holds transient state of the repository's own operations, is
+     * preserved.
+     */
+    public @Override boolean cloneDatabases(@NonNull URI source, @NonNull Repository target,
+            boolean includeIndexes) {
+        final URI targetURI = target.getLocation();
+        if (!(canHandle(source) && canHandle(targetURI) && repoExists(source)
+                && repoExists(targetURI))) {
+            return false;
+        }
+        final File sourceDir = resolveDotGeogigDirectory(source);
+        final File targetDir = resolveDotGeogigDirectory(targetURI);
+        Preconditions.checkArgument(
+                !sourceDir.getAbsoluteFile().toPath().normalize()
+                        .equals(targetDir.getAbsoluteFile().toPath().normalize()),
+                "Source and target repositories are the same: %s", source);
+        final List<String> databases = includeIndexes ? List.of(OBJECTS_DB, GRAPH_DB, INDEX_DB)
+                : List.of(OBJECTS_DB, GRAPH_DB);
+        for (String db : databases) {
+            if (!new File(sourceDir, db).isDirectory()) {
+                return false;
+            }
+        }
+        // create all the checkpoints before touching the target, so that a failure creating them
+        // leaves it as it was
+        Map<File, File> checkpoints = new LinkedHashMap<>();
+        try {
+            for (String db : databases) {
+                File checkpoint = new File(targetDir, db + ".checkpoint");
+                deleteRecursively(checkpoint);
+                checkpoints.put(checkpoint, new File(targetDir, db));
+                checkpoint(new File(sourceDir, db), checkpoint);
+            }
+            File commitGraph = new File(new File(sourceDir, GRAPH_DB),
+                    RocksdbGraphDatabase.COMMIT_GRAPH_FILE);
+            if (commitGraph.isFile()) {
+                File graphCheckpoint = new File(targetDir, GRAPH_DB + ".checkpoint");
+                // copied rather than hard linked, the commit graph is updated in place through a
+                // memory mapped file that can't be shared by two repositories
+                Files.copy(commitGraph.toPath(),
+                        new File(graphCheckpoint, commitGraph.getName()).toPath());
+            }
+            final boolean open = target.isOpen();
+            if (open) {
+                target.close();
+            }
+            try {
+                for (Map.Entry<File, File> e : checkpoints.entrySet()) {
+                    replace(e.getValue(), e.getKey());
+                }
+            } finally {
+                if (open) {
+                    target.open();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RepositoryConnectionException e) {
+            throw new IllegalStateException("Unable to reopen " + targetURI, e);
+        } finally {
+            for (File checkpoint : checkpoints.keySet()) {
+                try {
+                    deleteRecursively(checkpoint);
+                } catch (IOException e) {
+                    log.warn("Error deleting database checkpoint {}", checkpoint, e);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void checkpoint(File dbdir, File checkpoint) {
+        DBConfig config = new DBConfig(dbdir.getAbsolutePath(), true);
+        DBHandle dbhandle = RocksConnectionManager.INSTANCE.acquire(config);
+        try {
+            dbhandle.checkpoint(checkpoint);
+        } finally {
+            RocksConnectionManager.INSTANCE.release(dbhandle);
+        }
+    }
+
+    /**
+     * Replaces {@code dbdir} by {@code checkpoint}, moving over any sub directory of {@code dbdir}
+     * (i.e. the object database's blob store), which is not part of the RocksDB database
+     */
+    private void replace(File dbdir, File checkpoint) throws IOException {
+        List<File> subdirs = new ArrayList<>();
+        File[] contents = dbdir.listFiles();
+        if (contents != null) {
+            for (File f : contents) {
+                if (f.isDirectory()) {
+                    subdirs.add(f);
+                }
+            }
+        }
+        for (File subdir : subdirs) {
+            Files.move(subdir.toPath(), new File(checkpoint, subdir.getName()).toPath());
+        }
+        deleteRecursively(dbdir);
+        Files.move(checkpoint.toPath(), dbdir.toPath());
+    }
+
+    private void deleteRecursively(File directory) throws IOException {
+        if (directory.exists()) {
+            try (Stream<Path> files = Files.walk(directory.toPath())) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
 }
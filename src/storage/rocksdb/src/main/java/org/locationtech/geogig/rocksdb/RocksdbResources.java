@@ -0,0 +1,338 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.rocksdb.DBHandle.RocksDBReference;
+import org.rocksdb.Cache;
+import org.rocksdb.DBOptions;
+import org.rocksdb.Env;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Priority;
+import org.rocksdb.RocksDB;
+import org.rocksdb.WriteBufferManager;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the native resources shared by all the RocksDB databases open in the JVM, so that the
+ * memory and threads used by RocksDB are bounded by a fixed budget regardless of how many
+ * repositories are open:
+ * <ul>
+ * <li>A block cache dedicated to {@link TYPE#TREE trees}, with a quarter of the block cache budget
+ * and half of its capacity reserved for high priority (index and filter) blocks, as set up by
+ * {@link TypedColumnFamilies}.
+ * <li>A block cache for all the other column families, with the rest of the block cache budget.
+ * <li>A {@link WriteBufferManager} that caps the memory used by the memtables of all databases,
+ * forcing flushes once the write buffer budget is exceeded. The memtables memory is charged to the
+ * shared block cache, whose capacity is increased by the write buffer budget accordingly.
+ * <li>The default {@link Env}, whose compaction and flush thread pools are sized once for all
+ * databases, with each database allowed to schedule as many background jobs as there are threads.
+ * </ul>
+ * The budgets are resolved at startup as described in {@link RocksdbResourcesBean}, which is
+ * registered as an MXBean along with a {@link RocksdbDatabaseBean} for each open database.
+ * 
+ * @since 2.0
+ */
+@Slf4j
+final class RocksdbResources implements RocksdbResourcesBean {
+
+    private static final ObjectName BEAN_NAME = objectName("org.geogig:type=rocksdb");
+
+    static final RocksdbResources INSTANCE;
+    static {
+        RocksDB.loadLibrary();
+        INSTANCE = new RocksdbResources();
+        register(BEAN_NAME, INSTANCE);
+    }
+
+    /**
+     * Fraction of the block cache budget dedicated to trees
+     */
+    static final double TREE_CACHE_RATIO = 0.25;
+
+    private final long blockCacheCapacity;
+
+    private final long writeBufferCapacity;
+
+    private final int backgroundThreads;
+
+    private final Cache treeCache;
+
+    private final Cache sharedCache;
+
+    private final WriteBufferManager writeBufferManager;
+
+    private final Env env;
+
+    private final Map<DBHandle, DatabaseStats> databases = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    RocksdbResources() {
+        this(resolveSize(GEOGIG_ROCKSDB_BLOCK_CACHE_SIZE, DEFAULT_BLOCK_CACHE_SIZE),
+                resolveSize(GEOGIG_ROCKSDB_WRITE_BUFFER_SIZE, DEFAULT_WRITE_BUFFER_SIZE),
+                resolveThreads());
+    }
+
+    @VisibleForTesting
+    RocksdbResources(long blockCacheCapacity, long writeBufferCapacity, int backgroundThreads) {
+        this.blockCacheCapacity = blockCacheCapacity;
+        this.writeBufferCapacity = writeBufferCapacity;
+        this.backgroundThreads = backgroundThreads;
+
+        final long treeCacheCapacity = (long) (blockCacheCapacity * TREE_CACHE_RATIO);
+        this.treeCache = new LRUCache(treeCacheCapacity, -1, false, 0.5);
+        this.sharedCache = new LRUCache(
+                blockCacheCapacity - treeCacheCapacity + writeBufferCapacity);
+        this.writeBufferManager = new WriteBufferManager(writeBufferCapacity, sharedCache);
+        this.env = Env.getDefault();
+        env.setBackgroundThreads(backgroundThreads, Priority.LOW);
+        env.setBackgroundThreads(Math.max(1, backgroundThreads / 2), Priority.HIGH);
+        log.debug(
+                "RocksDB shared resources: block cache {} bytes, write buffer {} bytes, {} background threads",
+                blockCacheCapacity, writeBufferCapacity, backgroundThreads);
+    }
+
+    /**
+     * Configures the database options to use the shared write buffer manager and background threads
+     */
+    void configure(@NonNull DBOptions options) {
+        options.setEnv(env)//
+                .setWriteBufferManager(writeBufferManager)//
+                .setMaxBackgroundJobs(backgroundThreads + Math.max(1, backgroundThreads / 2));
+    }
+
+    /**
+     * @return the block cache for the column family of the given object type
+     */
+    Cache cache(@NonNull TYPE type) {
+        return TYPE.TREE == type ? treeCache : sharedCache;
+    }
+
+    /**
+     * @return the block cache for the column families not holding {@link TypedColumnFamilies typed}
+     *         objects
+     */
+    Cache sharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * Registers the {@link RocksdbDatabaseBean} of a newly open database
+     */
+    void register(@NonNull DBHandle dbHandle) {
+        DatabaseStats stats = new DatabaseStats(dbHandle);
+        databases.put(dbHandle, stats);
+        register(stats.name, stats);
+    }
+
+    /**
+     * Unregisters the {@link RocksdbDatabaseBean} of a database that's being closed
+     */
+    void unregister(@NonNull DBHandle dbHandle) {
+        DatabaseStats stats = databases.remove(dbHandle);
+        if (stats != null) {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            try {
+                if (mbeanServer.isRegistered(stats.name)) {
+                    mbeanServer.unregisterMBean(stats.name);
+                }
+            } catch (Exception e) {
+                log.warn("Error unregistering MBean {}", stats.name, e);
+            }
+        }
+    }
+
+    private static void register(ObjectName name, Object bean) {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (!mbeanServer.isRegistered(name)) {
+                mbeanServer.registerMBean(bean, name);
+            }
+        } catch (Exception e) {
+            log.warn("Error registering MBean {}", name, e);
+        }
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static @Nullable String argument(String name) {
+        String arg = System.getProperty(name);
+        return isNullOrEmpty(arg) ? System.getenv(name) : arg;
+    }
+
+    private static long resolveSize(String name, long defaultValue) {
+        final String arg = argument(name);
+        if (isNullOrEmpty(arg)) {
+            return defaultValue;
+        }
+        try {
+            long size = parseSize(arg);
+            log.info(String.format("Using RocksDB %s of %,d bytes", name, size));
+            return size;
+        } catch (IllegalArgumentException e) {
+            log.warn("Unable to parse {}={}, using default value {}", name, arg, defaultValue, e);
+            return defaultValue;
+        }
+    }
+
+    private static int resolveThreads() {
+        final int defaultValue = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        final String arg = argument(GEOGIG_ROCKSDB_BACKGROUND_THREADS);
+        if (isNullOrEmpty(arg)) {
+            return defaultValue;
+        }
+        try {
+            int threads = Integer.parseInt(arg.trim());
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+            // log below
+        }
+        log.warn("Invalid {}={}, using default value {}", GEOGIG_ROCKSDB_BACKGROUND_THREADS, arg,
+                defaultValue);
+        return defaultValue;
+    }
+
+    private static final Pattern SIZE_PATTERN = Pattern.compile("\\A([\\d.]+)\\s*([GMKB]?)B?\\z",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Parses a size in {@code <float>[B|K|M|G]} format (e.g. {@code 1024}, {@code 64K},
+     * {@code 1.5G}) to bytes
+     * 
+     * @throws IllegalArgumentException if {@code sizeArg} can't be parsed
+     */
+    static long parseSize(@NonNull String sizeArg) throws IllegalArgumentException {
+        Matcher matcher = SIZE_PATTERN.matcher(sizeArg.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(
+                    "Invalid format (" + sizeArg + "), expected <float>[B|K|M|G]");
+        }
+        final double number = Double.parseDouble(matcher.group(1));
+        final String unit = matcher.group(2).toUpperCase();
+        final int pow = unit.isEmpty() ? 0 : "BKMG".indexOf(unit);
+        return (long) (number * Math.pow(1024, pow));
+    }
+
+    public @Override long getBlockCacheCapacity() {
+        return blockCacheCapacity;
+    }
+
+    public @Override long getBlockCacheUsage() {
+        long writeBufferUsage = Math.min(writeBufferCapacity, getWriteBufferUsage());
+        return treeCache.getUsage() + Math.max(0L, sharedCache.getUsage() - writeBufferUsage);
+    }
+
+    public @Override long getBlockCachePinnedUsage() {
+        return treeCache.getPinnedUsage() + sharedCache.getPinnedUsage();
+    }
+
+    public @Override long getTreeCacheCapacity() {
+        return (long) (blockCacheCapacity * TREE_CACHE_RATIO);
+    }
+
+    public @Override long getTreeCacheUsage() {
+        return treeCache.getUsage();
+    }
+
+    public @Override long getWriteBufferCapacity() {
+        return writeBufferCapacity;
+    }
+
+    public @Override long getWriteBufferUsage() {
+        return sum(DatabaseStats::getMemTablesSize);
+    }
+
+    public @Override int getBackgroundThreads() {
+        return backgroundThreads;
+    }
+
+    public @Override int getOpenDatabases() {
+        return databases.size();
+    }
+
+    private long sum(Function<DatabaseStats, Long> property) {
+        return databases.values().stream().map(property).mapToLong(Long::longValue)
+                .filter(v -> v > 0).sum();
+    }
+
+    private static class DatabaseStats implements RocksdbDatabaseBean {
+
+        private final DBHandle dbHandle;
+
+        final ObjectName name;
+
+        DatabaseStats(DBHandle dbHandle) {
+            this.dbHandle = dbHandle;
+            this.name = objectName(String.format("org.geogig:type=rocksdb,database=%s,readOnly=%s",
+                    ObjectName.quote(dbHandle.config.getDbPath()), dbHandle.config.isReadOnly()));
+        }
+
+        public @Override String getPath() {
+            return dbHandle.config.getDbPath();
+        }
+
+        public @Override boolean isReadOnly() {
+            return dbHandle.config.isReadOnly();
+        }
+
+        public @Override long getMemTablesSize() {
+            return property("rocksdb.cur-size-all-mem-tables");
+        }
+
+        public @Override long getTableReadersMemory() {
+            return property("rocksdb.estimate-table-readers-mem");
+        }
+
+        public @Override long getEstimatedNumKeys() {
+            return property("rocksdb.estimate-num-keys");
+        }
+
+        public @Override long getEstimatedLiveDataSize() {
+            return property("rocksdb.estimate-live-data-size");
+        }
+
+        public @Override long getPendingCompactionBytes() {
+            return property("rocksdb.estimate-pending-compaction-bytes");
+        }
+
+        private long property(String property) {
+            try (RocksDBReference dbRef = dbHandle.getReference()) {
+                return dbRef.db().getAggregatedLongProperty(property);
+            } catch (Exception e) {
+                return -1L;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import javax.management.MXBean;
+
+/**
+ * Interface for monitoring the native resources shared by all the RocksDB databases open in the
+ * JVM.
+ * <p>
+ * All the databases share the same block caches, memtable budget, and background compaction and
+ * flush threads, so that the memory and threads used don't grow with the number of repositories
+ * served. The budgets are set at startup through the System properties or environment variables
+ * named after the constants in this interface, with the System property taking precedence over the
+ * environment variable. Sizes are expressed as {@code <float>[B|K|M|G]}, for example {@code 512M}
+ * or {@code 2G}.
+ * <p>
+ * The shared resources are registered as an {@link MXBean} named {@code org.geogig:type=rocksdb},
+ * and each open database as a {@link RocksdbDatabaseBean} named
+ * {@code org.geogig:type=rocksdb,database=<path>,readOnly=<true|false>}.
+ * 
+ * @since 2.0
+ */
+@MXBean
+public interface RocksdbResourcesBean {
+
+    /**
+     * Name of the System property or environment variable used to set the total capacity of the
+     * block caches, defaults to {@link #DEFAULT_BLOCK_CACHE_SIZE}
+     */
+    final String GEOGIG_ROCKSDB_BLOCK_CACHE_SIZE = "GEOGIG_ROCKSDB_BLOCK_CACHE_SIZE";
+
+    /**
+     * Name of the System property or environment variable used to set the total memory budget for
+     * the memtables of all databases, defaults to {@link #DEFAULT_WRITE_BUFFER_SIZE}
+     */
+    final String GEOGIG_ROCKSDB_WRITE_BUFFER_SIZE = "GEOGIG_ROCKSDB_WRITE_BUFFER_SIZE";
+
+    /**
+     * Name of the System property or environment variable used to set the number of threads for
+     * background compactions, defaults to half the number of available processors, and at least
+     * {@code 2}. Flushes use a separate pool of half as many threads.
+     */
+    final String GEOGIG_ROCKSDB_BACKGROUND_THREADS = "GEOGIG_ROCKSDB_BACKGROUND_THREADS";
+
+    final long DEFAULT_BLOCK_CACHE_SIZE = 512L * 1024 * 1024;
+
+    final long DEFAULT_WRITE_BUFFER_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * @return the total capacity of the block caches in bytes, as given by
+     *         {@link #GEOGIG_ROCKSDB_BLOCK_CACHE_SIZE}
+     */
+    long getBlockCacheCapacity();
+
+    /**
+     * @return the memory used by the block caches in bytes, not including the memtables charged to
+     *         them
+     */
+    long getBlockCacheUsage();
+
+    /**
+     * @return the memory used by the block cache entries that are pinned (in use) in bytes
+     */
+    long getBlockCachePinnedUsage();
+
+    /**
+     * @return the capacity of the block cache dedicated to trees, a fraction of the
+     *         {@link #getBlockCacheCapacity() total capacity}
+     */
+    long getTreeCacheCapacity();
+
+    /**
+     * @return the memory used by the block cache dedicated to trees in bytes
+     */
+    long getTreeCacheUsage();
+
+    /**
+     * @return the memory budget for the memtables of all databases in bytes, as given by
+     *         {@link #GEOGIG_ROCKSDB_WRITE_BUFFER_SIZE}
+     */
+    long getWriteBufferCapacity();
+
+    /**
+     * @return the memory currently used by the memtables of all the open databases, in bytes
+     */
+    long getWriteBufferUsage();
+
+    /**
+     * @return the number of threads for background compactions
+     */
+    int getBackgroundThreads();
+
+    /**
+     * @return the number of currently open databases
+     */
+    int getOpenDatabases();
+}
@@ -0,0 +1,286 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.rocksdb.DBHandle.RocksDBReference;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompressionType;
+
+import lombok.NonNull;
+
+/**
+ * Defines the "typed" storage layout of {@link RocksdbObjectStore}, where each kind of {@link TYPE
+ * RevObject} is stored in its own column family, and the column family options tuned to the access
+ * pattern of each object type.
+ * <p>
+ * The layout of a database is stored under the {@link #LAYOUT_KEY} metadata key. Databases without
+ * it were created before typed layout was introduced and store all objects in the "default" column
+ * family, until they're migrated with {@link RocksdbObjectStore#upgradeLayout}. While a migration
+ * is in progress (or if it was interrupted), the layout is {@link #LAYOUT_MIGRATING} and objects
+ * are looked up in both the typed column families and the "default" one.
+ * <p>
+ * Per type tuning:
+ * <ul>
+ * <li>{@link TYPE#TREE trees} are the most frequently read objects, and a cache miss on a tree
+ * stalls whole tree traversals. They get a dedicated block cache (shared by all the databases, see
+ * {@link RocksdbResources}) so that feature reads don't evict them, their index and filter blocks
+ * are cached with high priority and pinned for L0 files, and have small blocks and no compression
+ * for cheap point lookups.
+ * <li>{@link TYPE#FEATURE features} are the bulk of the data and mostly read once per traversal.
+ * They use larger, LZ4 compressed blocks, and share the block cache of the other types.
+ * <li>{@link TYPE#COMMIT commits}, {@link TYPE#FEATURETYPE feature types}, and {@link TYPE#TAG
+ * tags} are small and few, and use small uncompressed blocks.
+ * </ul>
+ * All of them use a full Bloom filter, as most lookups by id are point lookups, and misses are
+ * common when an object is searched for without a type hint.
+ * <p>
+ * An instance of this class is {@link DBHandle#getAttachment attached} to each objects database
+ * handle, and holds its current {@link Layout}, so that all the stores open on the same database
+ * see a layout change as soon as it happens.
+ *
+ * @since 2.0
+ */
+final class TypedColumnFamilies implements AutoCloseable {
+
+    /**
+     * Metadata key for the storage layout of the database
+     */
+    static final String LAYOUT_KEY = "layout";
+
+    /**
+     * Layout value for databases where each object type is stored in its own column family
+     */
+    static final String LAYOUT_TYPED = "typed";
+
+    /**
+     * Layout value for databases that are being migrated from the "default" column family to the
+     * typed ones
+     */
+    static final String LAYOUT_MIGRATING = "migrating";
+
+    private static final Map<TYPE, String> NAMES = Map.of(//
+            TYPE.COMMIT, "commits", //
+            TYPE.TREE, "trees", //
+            TYPE.FEATURE, "features", //
+            TYPE.FEATURETYPE, "featuretypes", //
+            TYPE.TAG, "tags");
+
+    private static final Map<String, TYPE> TYPES = NAMES.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
+
+    /**
+     * Order in which the typed column families are searched for an object of unknown type, most
+     * numerous types first
+     */
+    static final List<TYPE> LOOKUP_ORDER = List.of(TYPE.FEATURE, TYPE.TREE, TYPE.COMMIT,
+            TYPE.FEATURETYPE, TYPE.TAG);
+
+    private static final boolean IS_WINDOWS = System.getProperty("os.name").toLowerCase()
+            .contains("windows");
+
+    private final DBHandle dbhandle;
+
+    private volatile Layout layout;
+
+    private TypedColumnFamilies(@NonNull DBHandle dbhandle) {
+        this.dbhandle = dbhandle;
+        this.layout = new Layout(dbhandle.getMetadata(LAYOUT_KEY).orElse(null), dbhandle);
+    }
+
+    /**
+     * @return the typed column families of the database, shared by all the stores open on it
+     */
+    static TypedColumnFamilies of(@NonNull DBHandle dbhandle) {
+        return dbhandle.getAttachment(TypedColumnFamilies.class.getName(),
+                TypedColumnFamilies::new);
+    }
+
+    /**
+     * No-op, the column family handles are owned and closed by the {@link DBHandle}
+     */
+    public @Override void close() {
+        // no-op
+    }
+
+    /**
+     * @return the current storage layout of the database
+     */
+    Layout layout() {
+        return layout;
+    }
+
+    /**
+     * Changes the storage layout of the database, both in its metadata and for all the stores open
+     * on it
+     */
+    synchronized void setLayout(@NonNull String name) {
+        dbhandle.setMetadata(LAYOUT_KEY, name);
+        this.layout = new Layout(name, dbhandle);
+    }
+
+    /**
+     * @return the name of the column family {@code type} objects are stored in on the typed layout
+     */
+    static String columnFamily(@NonNull TYPE type) {
+        return NAMES.get(type);
+    }
+
+    /**
+     * @return the names of all the typed column families
+     */
+    static Set<String> columnFamilyNames() {
+        return Set.copyOf(NAMES.values());
+    }
+
+    /**
+     * @return the object type stored in the given column family, or empty if it's not a typed
+     *         column family
+     */
+    static Optional<TYPE> typeOf(@NonNull String columnFamilyName) {
+        return Optional.ofNullable(TYPES.get(columnFamilyName));
+    }
+
+    /**
+     * Creates the column family options for the given object type.
+     *
+     * @param caches provides the block cache for each object type, so that the caches are shared by
+     *        the column families of all the open databases
+     * @param resources receives the native objects created for the options, to be closed once the
+     *        database is closed
+     */
+    static ColumnFamilyOptions options(@NonNull TYPE type, @NonNull Function<TYPE, Cache> caches,
+            @NonNull List<AutoCloseable> resources) {
+
+        final BlockBasedTableConfig table = new BlockBasedTableConfig();
+        final ColumnFamilyOptions options = new ColumnFamilyOptions();
+        final BloomFilter bloomFilter;
+        switch (type) {
+        case TREE:
+            bloomFilter = new BloomFilter(12, false);
+            table.setBlockSize(4 * 1024)//
+                    .setCacheIndexAndFilterBlocks(true)//
+                    .setCacheIndexAndFilterBlocksWithHighPriority(true)//
+                    .setPinL0FilterAndIndexBlocksInCache(true);
+            options.setCompressionType(CompressionType.NO_COMPRESSION);
+            break;
+        case FEATURE:
+            bloomFilter = new BloomFilter(10, false);
+            table.setBlockSize(16 * 1024);
+            // the Windows jar doesn't come with native compression libraries
+            options.setCompressionType(
+                    IS_WINDOWS ? CompressionType.NO_COMPRESSION : CompressionType.LZ4_COMPRESSION);
+            break;
+        default:
+            bloomFilter = new BloomFilter(10, false);
+            table.setBlockSize(4 * 1024);
+            options.setCompressionType(CompressionType.NO_COMPRESSION);
+            break;
+        }
+        table.setFilterPolicy(bloomFilter);
+        table.setBlockCache(caches.apply(type));
+        options.setTableFormatConfig(table);
+        resources.add(bloomFilter);
+        resources.add(options);
+        return options;
+    }
+
+    /**
+     * The column families each object type is written to and looked up in for a given layout
+     */
+    static final class Layout {
+
+        private final @Nullable String name;
+
+        private final ColumnFamilyHandle defaultColumn;
+
+        private final ColumnFamilyHandle[] writeColumns;
+
+        private final List<List<ColumnFamilyHandle>> readColumns;
+
+        private final List<ColumnFamilyHandle> allColumns;
+
+        Layout(@Nullable String name, @NonNull DBHandle dbhandle) {
+            Preconditions.checkState(
+                    name == null || LAYOUT_TYPED.equals(name) || LAYOUT_MIGRATING.equals(name),
+                    "Unsupported storage layout: %s", name);
+            this.name = name;
+            try (RocksDBReference dbRef = dbhandle.getReference()) {
+                this.defaultColumn = dbRef.db().getDefaultColumnFamily();
+            }
+            final boolean migrating = LAYOUT_MIGRATING.equals(name);
+            final TYPE[] types = TYPE.values();
+            this.writeColumns = new ColumnFamilyHandle[types.length];
+            this.readColumns = new ArrayList<>(types.length);
+            for (TYPE type : types) {
+                ColumnFamilyHandle column = defaultColumn;
+                if (name != null) {
+                    column = dbhandle.getColumnFamily(columnFamily(type));
+                    Preconditions.checkState(column != null, "Column family %s not found",
+                            columnFamily(type));
+                }
+                writeColumns[type.value()] = column;
+                readColumns.add(migrating ? List.of(column, defaultColumn) : List.of(column));
+            }
+            List<ColumnFamilyHandle> all = new ArrayList<>();
+            if (name != null) {
+                LOOKUP_ORDER.forEach(type -> all.add(writeColumns[type.value()]));
+            }
+            if (name == null || migrating) {
+                all.add(defaultColumn);
+            }
+            this.allColumns = List.copyOf(all);
+        }
+
+        /**
+         * @return the layout name, or {@code null} for the legacy layout where all objects are
+         *         stored in the "default" column family
+         */
+        public @Nullable String name() {
+            return name;
+        }
+
+        /**
+         * @return the "default" column family, where all objects are stored in the legacy layout
+         */
+        ColumnFamilyHandle defaultColumn() {
+            return defaultColumn;
+        }
+
+        /**
+         * @return the column family objects of the given type are written to
+         */
+        ColumnFamilyHandle writeColumn(@NonNull TYPE type) {
+            return writeColumns[type.value()];
+        }
+
+        /**
+         * @return the column families to look up an object of the given type in, in order, or all
+         *         the column families that can contain objects if the type is unknown
+         */
+        List<ColumnFamilyHandle> readColumns(@Nullable TYPE type) {
+            return type == null ? allColumns : readColumns.get(type.value());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb.commands;
+
+import java.net.URI;
+
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.repository.Hints;
+import org.locationtech.geogig.repository.ProgressListener;
+import org.locationtech.geogig.repository.RepositoryFinder;
+import org.locationtech.geogig.repository.RepositoryResolver;
+import org.locationtech.geogig.repository.impl.AbstractGeoGigOp;
+import org.locationtech.geogig.rocksdb.RocksdbObjectStore;
+import org.locationtech.geogig.rocksdb.RocksdbRepositoryResolver;
+
+/**
+ * Given a RocksDB repository, migrates its objects and index databases to the typed storage layout,
+ * where each kind of object is stored in its own column family, and returns the number of objects
+ * moved.
+ * <p>
+ * Repositories created before the typed layout was introduced keep working without being migrated,
+ * but don't benefit from the per object type tuning. The migration is resumable, and the repository
+ * can be used while it runs.
+ * 
+ * @see RocksdbObjectStore#upgradeLayout
+ * @since 2.0
+ */
+public class RocksdbDatabaseUpgrade extends AbstractGeoGigOp<Long> {
+
+    protected @Override Long _call() {
+        final URI location = repository().getLocation();
+        final RepositoryResolver resolver = RepositoryFinder.INSTANCE.lookup(location);
+        Preconditions.checkState(resolver instanceof RocksdbRepositoryResolver,
+                "Not a RocksDB repository: %s", location);
+
+        final Hints hints = new Hints().uri(location);
+        long moved = upgrade("objects",
+                (RocksdbObjectStore) resolver.resolveObjectDatabase(location, hints));
+        moved += upgrade("index",
+                (RocksdbObjectStore) resolver.resolveIndexDatabase(location, hints));
+        return moved;
+    }
+
+    private long upgrade(String name, RocksdbObjectStore store) {
+        final ProgressListener listener = getProgressListener();
+        listener.setDescription("Upgrading the storage layout of the %s database...", name);
+        store.open();
+        try {
+            long moved = store.upgradeLayout(listener);
+            listener.setDescription("Moved %,d objects of the %s database.", moved, name);
+            return moved;
+        } finally {
+            store.close();
+        }
+    }
+}
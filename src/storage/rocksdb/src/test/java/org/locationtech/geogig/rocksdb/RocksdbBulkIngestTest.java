@@ -0,0 +1,194 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.RevObject;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.rocksdb.DBHandle.RocksDBReference;
+import org.locationtech.geogig.storage.BulkIngest;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksIterator;
+
+public class RocksdbBulkIngestTest {
+
+    public @Rule TemporaryFolder folder = new TemporaryFolder();
+
+    private List<RevObject> objects;
+
+    private RocksdbObjectStore expected, actual;
+
+    public @Before void setUp() {
+        List<RevObject> objects = new ArrayList<>();
+        IntStream.range(0, 5000).mapToObj(i -> RevObjectTestSupport.feature(i, "f" + i))
+                .forEach(objects::add);
+        objects.addAll(RevObjectTestSupport.createCommits(10));
+        Collections.shuffle(objects);
+        this.objects = objects;
+    }
+
+    public @After void tearDown() {
+        if (expected != null) {
+            expected.close();
+        }
+        if (actual != null) {
+            actual.close();
+        }
+    }
+
+    private RocksdbObjectStore open(String name, boolean typedLayout) throws Exception {
+        RocksdbObjectStore store = new RocksdbObjectStore(folder.newFolder(name), false);
+        store.createTypedLayout = typedLayout;
+        store.open();
+        return store;
+    }
+
+    /**
+     * Creates the expected database with {@code putAll} and the actual one with a bulk ingest
+     * session, adding the objects twice to check duplicates are dropped
+     */
+    private void ingest(boolean typedLayout, long runSize) throws Exception {
+        expected = open("expected", typedLayout);
+        actual = open("actual", typedLayout);
+        expected.putAll(objects.iterator());
+        try (BulkIngest ingest = new RocksdbBulkIngest(actual, actual.dbhandle, actual.dbDirectory,
+                runSize)) {
+            ingest.putAll(objects.iterator());
+            ingest.putAll(objects.subList(0, 100).iterator());
+            assertFalse(actual.exists(objects.get(0).getId()));
+            assertEquals(objects.size(), ingest.ingest());
+        }
+    }
+
+    private Map<String, Map<ObjectId, byte[]>> contents(RocksdbObjectStore store) {
+        Map<String, Map<ObjectId, byte[]>> contents = new TreeMap<>();
+        List<String> names = new ArrayList<>(TypedColumnFamilies.columnFamilyNames());
+        names.add("default");
+        try (RocksDBReference dbRef = store.dbhandle.getReference()) {
+            for (String name : names) {
+                ColumnFamilyHandle column = "default".equals(name)
+                        ? dbRef.db().getDefaultColumnFamily()
+                        : store.dbhandle.getColumnFamily(name);
+                Map<ObjectId, byte[]> values = new TreeMap<>();
+                try (RocksIterator it = dbRef.db().newIterator(column)) {
+                    for (it.seekToFirst(); it.isValid(); it.next()) {
+                        values.put(ObjectId.create(it.key()), it.value());
+                    }
+                }
+                contents.put(name, values);
+            }
+        }
+        return contents;
+    }
+
+    private void assertSameContents() {
+        Map<String, Map<ObjectId, byte[]>> expectedContents = contents(expected);
+        Map<String, Map<ObjectId, byte[]>> actualContents = contents(actual);
+        assertEquals(expectedContents.keySet(), actualContents.keySet());
+        expectedContents.forEach((column, values) -> {
+            Map<ObjectId, byte[]> actualValues = actualContents.get(column);
+            assertEquals(column, values.keySet(), actualValues.keySet());
+            values.forEach((id, value) -> assertArrayEquals(value, actualValues.get(id)));
+        });
+        for (RevObject o : objects) {
+            assertEquals(o, actual.get(o.getId()));
+        }
+    }
+
+    public @Test void testIngestInMemory() throws Exception {
+        ingest(true, RocksdbBulkIngest.DEFAULT_RUN_SIZE);
+        assertSameContents();
+        assertEquals(5000, contents(actual).get("features").size());
+        assertEquals(10, contents(actual).get("commits").size());
+    }
+
+    public @Test void testIngestSpillingRuns() throws Exception {
+        ingest(true, 16 * 1024);
+        assertSameContents();
+    }
+
+    public @Test void testIngestLegacyLayout() throws Exception {
+        ingest(false, 16 * 1024);
+        assertSameContents();
+        assertEquals(objects.size(), contents(actual).get("default").size());
+    }
+
+    public @Test void testIngestIntoPopulatedDatabase() throws Exception {
+        expected = open("expected", true);
+        actual = open("actual", true);
+        expected.putAll(objects.iterator());
+        actual.putAll(objects.subList(0, 1000).iterator());
+        try (BulkIngest ingest = actual.bulkIngest()) {
+            ingest.putAll(objects.subList(500, objects.size()).iterator());
+            ingest.ingest();
+        }
+        assertSameContents();
+    }
+
+    public @Test void testCloseWithoutIngest() throws Exception {
+        actual = open("actual", true);
+        final File parent = actual.dbDirectory.getParentFile();
+        try (BulkIngest ingest = new RocksdbBulkIngest(actual, actual.dbhandle, actual.dbDirectory,
+                16 * 1024)) {
+            ingest.putAll(objects.iterator());
+            assertEquals(1, tempDirectories(parent).size());
+        }
+        assertTrue(tempDirectories(parent).isEmpty());
+        for (RevObject o : objects) {
+            assertFalse(actual.exists(o.getId()));
+        }
+    }
+
+    public @Test void testIngestOnce() throws Exception {
+        actual = open("actual", true);
+        RevCommit commit = RevObjectTestSupport.createCommits(1).get(0);
+        RevFeature feature = RevObjectTestSupport.feature(0, "f0");
+        try (BulkIngest ingest = actual.bulkIngest()) {
+            ingest.putAll(List.of(commit).iterator());
+            assertEquals(1L, ingest.ingest());
+            try {
+                ingest.putAll(List.of(feature).iterator());
+                fail("Expected ISE");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().contains("already ingested"));
+            }
+        }
+        assertTrue(actual.exists(commit.getId()));
+        assertFalse(actual.exists(feature.getId()));
+    }
+
+    private List<File> tempDirectories(File parent) {
+        return List.of(parent.listFiles()).stream()
+                .filter(f -> f.isDirectory() && f.getName().contains(".ingest"))
+                .collect(Collectors.toList());
+    }
+}
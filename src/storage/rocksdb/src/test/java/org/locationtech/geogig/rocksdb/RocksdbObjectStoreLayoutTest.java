@@ -0,0 +1,222 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.RevObject;
+import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.repository.DefaultProgressListener;
+import org.locationtech.geogig.rocksdb.DBHandle.RocksDBReference;
+import org.locationtech.geogig.storage.AutoCloseableIterator;
+import org.locationtech.geogig.storage.BulkOpListener;
+import org.rocksdb.ColumnFamilyHandle;
+
+import com.google.common.collect.Lists;
+
+public class RocksdbObjectStoreLayoutTest {
+
+    public @Rule TemporaryFolder folder = new TemporaryFolder();
+
+    private File dbdir;
+
+    private RocksdbObjectStore store;
+
+    private List<RevFeature> features;
+
+    private List<RevCommit> commits;
+
+    private RevTree tree;
+
+    public @Before void setUp() throws Exception {
+        dbdir = folder.newFolder("objects.rocksdb");
+        features = IntStream.range(0, 2500).mapToObj(i -> RevObjectTestSupport.feature(i, "f" + i))
+                .collect(Collectors.toList());
+        commits = RevObjectTestSupport.createCommits(3);
+    }
+
+    public @After void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private RocksdbObjectStore open(boolean typedLayout) {
+        RocksdbObjectStore store = new RocksdbObjectStore(dbdir, false);
+        store.createTypedLayout = typedLayout;
+        store.open();
+        return store;
+    }
+
+    private void insertObjects() {
+        store.putAll(features.iterator());
+        commits.forEach(store::put);
+        tree = RevObjectTestSupport.INSTANCE.createFeaturesTree(store, "f", 10);
+    }
+
+    private List<RevObject> allObjects() {
+        List<RevObject> all = new ArrayList<>(features);
+        all.addAll(commits);
+        all.add(tree);
+        return all;
+    }
+
+    private @Nullable byte[] get(String columnFamily, ObjectId id) throws Exception {
+        try (RocksDBReference dbRef = store.dbhandle.getReference()) {
+            ColumnFamilyHandle column = "default".equals(columnFamily)
+                    ? dbRef.db().getDefaultColumnFamily()
+                    : store.dbhandle.getColumnFamily(columnFamily);
+            return dbRef.db().get(column, id.getRawValue());
+        }
+    }
+
+    private void assertStoredIn(String columnFamily, RevObject object) throws Exception {
+        assertNotNull(get(columnFamily, object.getId()));
+        if (!"default".equals(columnFamily)) {
+            assertNull(get("default", object.getId()));
+        }
+    }
+
+    private void assertTypedLayout() throws Exception {
+        assertEquals(TypedColumnFamilies.LAYOUT_TYPED, store.layout());
+        assertStoredIn("features", features.get(0));
+        assertStoredIn("features", features.get(features.size() - 1));
+        assertStoredIn("commits", commits.get(0));
+        assertStoredIn("trees", tree);
+        assertNull(get("trees", features.get(0).getId()));
+    }
+
+    private void assertAllObjectsFound() {
+        for (RevObject o : allObjects()) {
+            assertTrue(store.exists(o.getId()));
+            assertEquals(o, store.get(o.getId()));
+            assertEquals(o, store.get(o.getId(), o.getType().binding()));
+        }
+        Set<ObjectId> expected = allObjects().stream().map(RevObject::getId)
+                .collect(Collectors.toSet());
+        Set<ObjectId> actual = new HashSet<>();
+        try (AutoCloseableIterator<ObjectId> ids = store.getAllIds()) {
+            ids.forEachRemaining(actual::add);
+        }
+        assertEquals(expected, actual);
+    }
+
+    public @Test void testNewDatabaseIsTyped() throws Exception {
+        store = open(true);
+        insertObjects();
+        assertTypedLayout();
+        assertAllObjectsFound();
+
+        store.close();
+        store = open(true);
+        assertTypedLayout();
+    }
+
+    public @Test void testLegacyLayout() throws Exception {
+        store = open(false);
+        insertObjects();
+        assertNull(store.layout());
+        assertStoredIn("default", features.get(0));
+        assertStoredIn("default", commits.get(0));
+        assertStoredIn("default", tree);
+        assertAllObjectsFound();
+
+        // reopening with the default settings doesn't change the layout of an existing database
+        store.close();
+        store = open(true);
+        assertNull(store.layout());
+        assertAllObjectsFound();
+    }
+
+    public @Test void testUpgradeLayout() throws Exception {
+        store = open(false);
+        insertObjects();
+
+        long moved = store.upgradeLayout(new DefaultProgressListener());
+        assertEquals(allObjects().size(), moved);
+        assertTypedLayout();
+        assertAllObjectsFound();
+
+        assertEquals(0L, store.upgradeLayout(new DefaultProgressListener()));
+
+        store.close();
+        store = open(false);
+        assertTypedLayout();
+        assertAllObjectsFound();
+    }
+
+    public @Test void testCancelledUpgradeIsResumable() throws Exception {
+        store = open(false);
+        insertObjects();
+
+        DefaultProgressListener listener = new DefaultProgressListener() {
+            public @Override void setProgress(float progress) {
+                super.setProgress(progress);
+                cancel();
+            }
+        };
+        long moved = store.upgradeLayout(listener);
+        assertEquals(RocksdbObjectStore.BULK_BATCH_SIZE, moved);
+        assertEquals(TypedColumnFamilies.LAYOUT_MIGRATING, store.layout());
+        // objects are found in both the typed and default column families while migrating
+        assertAllObjectsFound();
+
+        store.close();
+        store = open(false);
+        assertEquals(TypedColumnFamilies.LAYOUT_MIGRATING, store.layout());
+        assertAllObjectsFound();
+        moved += store.upgradeLayout(new DefaultProgressListener());
+        assertEquals(allObjects().size(), moved);
+        assertTypedLayout();
+        assertAllObjectsFound();
+    }
+
+    public @Test void testTypeHint() {
+        store = open(true);
+        insertObjects();
+
+        final RevFeature feature = features.get(0);
+        assertNull(store.getIfPresent(feature.getId(), RevTree.class));
+        assertEquals(feature, store.getIfPresent(feature.getId(), RevFeature.class));
+
+        List<ObjectId> ids = Lists.transform(allObjects(), RevObject::getId);
+        assertEquals(features.size(), Lists
+                .newArrayList(store.getAll(ids, BulkOpListener.NOOP_LISTENER, RevFeature.class))
+                .size());
+        assertEquals(commits.size(),
+                Lists.newArrayList(store.getAll(ids, BulkOpListener.NOOP_LISTENER, RevCommit.class))
+                        .size());
+        List<RevObject> all = Lists.newArrayList(store.getAll(ids));
+        assertEquals(allObjects().size(), all.size());
+        assertEquals(1, all.stream().filter(o -> o.getType() == TYPE.TREE).count());
+    }
+}
@@ -0,0 +1,34 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.storage.impl.ObjectStoreConformanceTest;
+
+/**
+ * Runs the {@link ObjectStoreConformanceTest} against a database with the legacy storage layout,
+ * where all objects are stored in the "default" column family
+ */
+public class RocksdbObjectStoreLegacyLayoutConformanceTest extends ObjectStoreConformanceTest {
+
+    public @Rule TemporaryFolder folder = new TemporaryFolder();
+
+    protected @Override RocksdbObjectStore createOpen() throws IOException {
+        File dbdir = folder.newFolder(".geogig");
+        RocksdbObjectStore store = new RocksdbObjectStore(dbdir, false);
+        store.createTypedLayout = false;
+        store.open();
+        return store;
+    }
+}
@@ -0,0 +1,116 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.geogig.model.RevFeature;
+import org.locationtech.geogig.model.RevObject.TYPE;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+
+public class RocksdbResourcesTest {
+
+    public @Rule TemporaryFolder folder = new TemporaryFolder();
+
+    public @Test void testParseSize() {
+        assertEquals(1024L, RocksdbResources.parseSize("1024"));
+        assertEquals(1024L, RocksdbResources.parseSize("1024b"));
+        assertEquals(64L * 1024, RocksdbResources.parseSize("64K"));
+        assertEquals(512L * 1024 * 1024, RocksdbResources.parseSize("512M"));
+        assertEquals(512L * 1024 * 1024, RocksdbResources.parseSize("512MB"));
+        assertEquals(1536L * 1024 * 1024, RocksdbResources.parseSize("1.5g"));
+        for (String invalid : new String[] { "", "-1", "1T", "1GG", "abc" }) {
+            try {
+                RocksdbResources.parseSize(invalid);
+                fail("Expected IAE for " + invalid);
+            } catch (IllegalArgumentException expected) {
+                assertTrue(true);
+            }
+        }
+    }
+
+    public @Test void testBudgets() {
+        // use the same number of threads than the default instance, the Env thread pools are global
+        final int threads = RocksdbResources.INSTANCE.getBackgroundThreads();
+        RocksdbResources resources = new RocksdbResources(1024L * 1024 * 1024, 256L * 1024 * 1024,
+                threads);
+        assertEquals(1024L * 1024 * 1024, resources.getBlockCacheCapacity());
+        assertEquals(256L * 1024 * 1024, resources.getTreeCacheCapacity());
+        assertEquals(256L * 1024 * 1024, resources.getWriteBufferCapacity());
+        assertEquals(threads, resources.getBackgroundThreads());
+        assertSame(resources.cache(TYPE.FEATURE), resources.sharedCache());
+        assertSame(resources.cache(TYPE.COMMIT), resources.sharedCache());
+        assertFalse(resources.cache(TYPE.TREE) == resources.sharedCache());
+        assertEquals(0, resources.getOpenDatabases());
+    }
+
+    public @Test void testDatabasesRegisteredWhileOpen() throws Exception {
+        final RocksdbResources resources = RocksdbResources.INSTANCE;
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(mbeanServer.isRegistered(new ObjectName("org.geogig:type=rocksdb")));
+
+        final int openDatabases = resources.getOpenDatabases();
+        File dir1 = folder.newFolder("db1");
+        File dir2 = folder.newFolder("db2");
+        RocksdbObjectStore store1 = new RocksdbObjectStore(dir1, false);
+        RocksdbObjectStore store2 = new RocksdbObjectStore(dir2, false);
+        store1.open();
+        store2.open();
+        try {
+            assertEquals(openDatabases + 2, resources.getOpenDatabases());
+            Set<String> paths = databaseBeans(mbeanServer).stream()
+                    .map(name -> name.getKeyProperty("database")).map(ObjectName::unquote)
+                    .collect(Collectors.toSet());
+            assertTrue(paths.contains(dir1.getAbsolutePath()));
+            assertTrue(paths.contains(dir2.getAbsolutePath()));
+
+            store1.putAll(IntStream.range(0, 1000)
+                    .mapToObj(i -> (RevFeature) RevObjectTestSupport.feature(i, "f" + i))
+                    .iterator());
+            ObjectName name = new ObjectName(
+                    String.format("org.geogig:type=rocksdb,database=%s,readOnly=false",
+                            ObjectName.quote(dir1.getAbsolutePath())));
+            long memTables = (Long) mbeanServer.getAttribute(name, "MemTablesSize");
+            assertTrue(memTables > 0);
+            assertTrue(resources.getWriteBufferUsage() >= memTables);
+        } finally {
+            store1.close();
+            store2.close();
+        }
+        assertEquals(openDatabases, resources.getOpenDatabases());
+        Set<String> paths = databaseBeans(mbeanServer).stream()
+                .map(name -> ObjectName.unquote(name.getKeyProperty("database")))
+                .collect(Collectors.toSet());
+        assertFalse(paths.contains(dir1.getAbsolutePath()));
+        assertFalse(paths.contains(dir2.getAbsolutePath()));
+    }
+
+    private Set<ObjectName> databaseBeans(MBeanServer mbeanServer) throws Exception {
+        return mbeanServer.queryNames(new ObjectName("org.geogig:type=rocksdb,*"), null).stream()
+                .filter(name -> name.getKeyProperty("database") != null)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,156 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb.integration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.locationtech.geogig.model.NodeRef;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.plumbing.LsTreeOp;
+import org.locationtech.geogig.plumbing.LsTreeOp.Strategy;
+import org.locationtech.geogig.porcelain.LogOp;
+import org.locationtech.geogig.repository.IndexInfo;
+import org.locationtech.geogig.repository.IndexInfo.IndexType;
+import org.locationtech.geogig.repository.Repository;
+import org.locationtech.geogig.repository.RepositoryFinder;
+import org.locationtech.geogig.repository.RepositoryResolver;
+import org.locationtech.geogig.storage.IndexDatabase;
+import org.locationtech.geogig.storage.ObjectDatabase;
+import org.locationtech.geogig.test.integration.RepositoryTestCase;
+
+public class RocksCloneDatabasesTest extends RepositoryTestCase {
+
+    public @Rule RocksdbTestRepositoryURIBuilder uriBuilder = new RocksdbTestRepositoryURIBuilder();
+
+    private Repository clone;
+
+    private RepositoryResolver resolver;
+
+    private RevTree pointsTree;
+
+    protected @Override void beforeSetup() {
+        testRepository.setURIBuilder(uriBuilder);
+    }
+
+    protected @Override void setUpInternal() throws Exception {
+        insertAndAdd(points1, lines1);
+        commit("initial");
+        insertAndAdd(points2, points3, lines2);
+        commit("second");
+        // the index contents don't matter, just that they're copied
+        IndexDatabase indexes = repo.context().indexDatabase();
+        IndexInfo index = indexes.createIndexInfo(pointsName, "pp", IndexType.QUADTREE, null);
+        pointsTree = repo.context().objectDatabase()
+                .getTree(repo.context().workingTree().getFeatureTypeTrees().stream()
+                        .filter(r -> r.name().equals(pointsName)).findFirst().get().getObjectId());
+        indexes.put(pointsTree);
+        indexes.addIndexedTree(index, pointsTree.getId(), pointsTree.getId());
+        clone = testRepository.createAndInitRepository("clone");
+        resolver = RepositoryFinder.INSTANCE.lookup(clone.getLocation());
+    }
+
+    private boolean cloneDatabases(boolean includeIndexes) {
+        return resolver.cloneDatabases(repo.getLocation(), clone, includeIndexes);
+    }
+
+    public @Test void testCloneDatabases() throws Exception {
+        clone.context().blobStore().putBlob("blob", new byte[] { 1, 2, 3 });
+        assertTrue(cloneDatabases(true));
+        assertTrue(clone.isOpen());
+
+        final ObjectDatabase objects = clone.context().objectDatabase();
+        List<RevCommit> log = toList(repo.command(LogOp.class).call());
+        assertEquals(2, log.size());
+        for (RevCommit c : log) {
+            assertEquals(c, objects.getCommit(c.getId()));
+            assertTrue(objects.exists(c.getTreeId()));
+            assertEquals(c.getParentIds(), clone.context().graphDatabase().getParents(c.getId()));
+        }
+        List<NodeRef> features = toList(repo.command(LsTreeOp.class)
+                .setStrategy(Strategy.DEPTHFIRST_ONLY_FEATURES).setReference("HEAD").call());
+        assertEquals(5, features.size());
+        for (NodeRef f : features) {
+            assertTrue(objects.exists(f.getObjectId()));
+        }
+
+        List<IndexInfo> indexes = clone.context().indexDatabase().getIndexInfos();
+        assertEquals(repo.context().indexDatabase().getIndexInfos(), indexes);
+        Optional<ObjectId> indexTree = clone.context().indexDatabase()
+                .resolveIndexedTree(indexes.get(0), pointsTree.getId());
+        assertTrue(indexTree.isPresent());
+        assertTrue(clone.context().indexDatabase().exists(indexTree.get()));
+
+        // the clone's blob store is preserved
+        assertArrayEquals(new byte[] { 1, 2, 3 },
+                clone.context().blobStore().getBlob("blob").orElse(null));
+    }
+
+    public @Test void testCloneDatabasesWithoutIndexes() throws Exception {
+        assertTrue(cloneDatabases(false));
+        RevCommit head = toList(repo.command(LogOp.class).call()).get(0);
+        assertTrue(clone.context().objectDatabase().exists(head.getId()));
+        assertTrue(clone.context().indexDatabase().getIndexInfos().isEmpty());
+    }
+
+    public @Test void testCloneIsIndependent() throws Exception {
+        assertTrue(cloneDatabases(true));
+        RevCommit head = toList(repo.command(LogOp.class).call()).get(0);
+
+        // objects added to either repository after the copy are not seen by the other one
+        insertAndAdd(lines3);
+        RevCommit commit = commit("third");
+        assertFalse(clone.context().objectDatabase().exists(commit.getId()));
+        assertTrue(clone.context().objectDatabase().exists(head.getId()));
+        assertTrue(repo.context().objectDatabase().exists(head.getId()));
+    }
+
+    public @Test void testCommitGraphIsNotShared() throws Exception {
+        assertTrue(cloneDatabases(true));
+        RevCommit head = toList(repo.command(LogOp.class).call()).get(0);
+        // the repository location is its .geogig directory
+        final Path sourceGraph = Paths.get(repo.getLocation()).resolve("graph.rocksdb")
+                .resolve("commit-graph");
+        assertTrue(Files.isRegularFile(sourceGraph));
+        final byte[] sourceGraphContents = Files.readAllBytes(sourceGraph);
+
+        ObjectId cloneCommit = RevObjectTestSupport.hashString("clone commit");
+        assertTrue(clone.context().graphDatabase().put(cloneCommit, List.of(head.getId())));
+        assertEquals(List.of(head.getId()),
+                clone.context().graphDatabase().getParents(cloneCommit));
+
+        assertArrayEquals(sourceGraphContents, Files.readAllBytes(sourceGraph));
+        assertFalse(repo.context().graphDatabase().exists(cloneCommit));
+        assertTrue(repo.context().graphDatabase().getParents(cloneCommit).isEmpty());
+    }
+
+    public @Test void testSameRepository() throws Exception {
+        try {
+            resolver.cloneDatabases(repo.getLocation(), repo, true);
+            fail("Expected IAE");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("are the same"));
+        }
+    }
+}
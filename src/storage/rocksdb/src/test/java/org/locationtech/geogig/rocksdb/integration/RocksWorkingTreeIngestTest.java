@@ -0,0 +1,88 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.locationtech.geogig.feature.Feature;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.RevTree;
+import org.locationtech.geogig.repository.DefaultProgressListener;
+import org.locationtech.geogig.repository.FeatureInfo;
+import org.locationtech.geogig.repository.WorkingTree;
+import org.locationtech.geogig.storage.ObjectDatabase;
+import org.locationtech.geogig.test.integration.RepositoryTestCase;
+
+public class RocksWorkingTreeIngestTest extends RepositoryTestCase {
+
+    public @Rule RocksdbTestRepositoryURIBuilder uriBuilder = new RocksdbTestRepositoryURIBuilder();
+
+    private List<Feature> features;
+
+    protected @Override void beforeSetup() {
+        testRepository.setURIBuilder(uriBuilder);
+    }
+
+    protected @Override void setUpInternal() throws Exception {
+        features = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            features.add(feature(pointsType, "p" + i, "s" + i, i, "POINT(" + i + " " + i + ")"));
+            features.add(feature(linesType, "l" + i, "s" + i, i,
+                    "LINESTRING(" + i + " " + i + ", 0 0)"));
+        }
+        // make sure the feature types exist
+        featureInfo(points1);
+        featureInfo(lines1);
+    }
+
+    public @Test void testIngestEqualsInsert() throws Exception {
+        final WorkingTree workTree = repo.context().workingTree();
+        final ObjectDatabase objects = repo.context().objectDatabase();
+
+        final ObjectId ingested = workTree.insert(features.iterator(), this::featureInfo, 4, true,
+                new DefaultProgressListener());
+        assertEquals(5000, workTree.getTree().size());
+        for (Feature f : features) {
+            FeatureInfo fi = featureInfo(f);
+            assertTrue(objects.exists(fi.getFeature().getId()));
+        }
+
+        workTree.updateWorkHead(RevTree.EMPTY_TREE_ID, "reset");
+        final ObjectId inserted = workTree.insert(features.iterator(), this::featureInfo, 4, false,
+                new DefaultProgressListener());
+        assertEquals(inserted, ingested);
+    }
+
+    public @Test void testCancelledIngest() throws Exception {
+        final WorkingTree workTree = repo.context().workingTree();
+        final ObjectId workHead = workTree.getTree().getId();
+        DefaultProgressListener listener = new DefaultProgressListener() {
+            public @Override void setProgress(float progress) {
+                super.setProgress(progress);
+                if (progress > 1000) {
+                    cancel();
+                }
+            }
+        };
+        ObjectId result = workTree.insert(features.iterator(), this::featureInfo, 1, true,
+                listener);
+        assertEquals(workHead, result);
+        for (Feature f : features) {
+            FeatureInfo fi = featureInfo(f);
+            assertTrue(!repo.context().objectDatabase().exists(fi.getFeature().getId()));
+        }
+    }
+}
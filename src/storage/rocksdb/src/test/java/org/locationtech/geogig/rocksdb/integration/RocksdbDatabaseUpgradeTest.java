@@ -0,0 +1,42 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.rocksdb.integration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.locationtech.geogig.model.RevCommit;
+import org.locationtech.geogig.porcelain.LogOp;
+import org.locationtech.geogig.rocksdb.commands.RocksdbDatabaseUpgrade;
+import org.locationtech.geogig.test.integration.RepositoryTestCase;
+
+public class RocksdbDatabaseUpgradeTest extends RepositoryTestCase {
+
+    public @Rule RocksdbTestRepositoryURIBuilder uriBuilder = new RocksdbTestRepositoryURIBuilder();
+
+    protected @Override void beforeSetup() {
+        testRepository.setURIBuilder(uriBuilder);
+    }
+
+    protected @Override void setUpInternal() throws Exception {
+        insertAndAdd(points1, lines1);
+        commit("initial");
+    }
+
+    public @Test void testNewRepositoryIsUpToDate() {
+        long moved = repo.command(RocksdbDatabaseUpgrade.class).call();
+        assertEquals(0L, moved);
+        List<RevCommit> log = toList(repo.command(LogOp.class).call());
+        assertEquals(1, log.size());
+    }
+}
@@ -0,0 +1,46 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.tempstorage.rocksdb;
+
+import org.locationtech.geogig.base.Preconditions;
+import org.locationtech.geogig.remotes.internal.DeduplicationService;
+import org.locationtech.geogig.remotes.internal.Deduplicator;
+import org.locationtech.geogig.repository.Hints;
+
+/**
+ * {@link DeduplicationService} creating {@link OffHeapDeduplicator}s, which keep the visited ids in
+ * off-heap memory up to a memory budget, and spill to a temporary rocksdb database afterwards.
+ * <p>
+ * Not registered as a default service, enable it by setting the {@link Hints#DEDUPLICATOR} hint to
+ * this class name. The off-heap memory budget is taken from the
+ * {@code geogig.deduplicator.maxMemory} System property, in bytes, defaulting to
+ * {@link #DEFAULT_MAX_MEMORY 256MB}.
+ */
+public class OffHeapDeduplicationService implements DeduplicationService {
+
+    public static final String MAX_MEMORY_PROPERTY = "geogig.deduplicator.maxMemory";
+
+    public static final long DEFAULT_MAX_MEMORY = 256L * 1024 * 1024;
+
+    private final long maxMemory;
+
+    public OffHeapDeduplicationService() {
+        this(Long.getLong(MAX_MEMORY_PROPERTY, DEFAULT_MAX_MEMORY));
+    }
+
+    public OffHeapDeduplicationService(long maxMemory) {
+        Preconditions.checkArgument(maxMemory > 0, "maxMemory must be > 0: %s", maxMemory);
+        this.maxMemory = maxMemory;
+    }
+
+    public @Override Deduplicator createDeduplicator() {
+        return new OffHeapDeduplicator(maxMemory);
+    }
+}
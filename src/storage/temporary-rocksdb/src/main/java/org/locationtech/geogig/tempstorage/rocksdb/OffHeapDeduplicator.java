@@ -0,0 +1,375 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.tempstorage.rocksdb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.remotes.internal.Deduplicator;
+import org.locationtech.geogig.remotes.internal.HeapDeduplicator;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteOptions;
+
+/**
+ * A {@link Deduplicator} that keeps track of the visited ids in compact off-heap open addressing
+ * hash tables of raw {@link ObjectId#NUM_BYTES 20-byte} keys, instead of a heap {@code Set} of
+ * object pairs like {@link HeapDeduplicator} does, and spills to a temporary rocksdb database once
+ * the tables can't grow without exceeding the configured memory budget.
+ * <p>
+ * Single ids are stored by their raw value. {@code (left, right)} pairs with a non
+ * {@link ObjectId#NULL NULL} left id are stored by the SHA-1 hash of both ids.
+ * <p>
+ * The keys are distributed in 256 segments by their first byte, each one guarded by its own lock,
+ * hence concurrent visits only contend if their keys fall on the same segment. A segment's table
+ * doubles its capacity when it reaches {@code 75%} load, if the total off-heap memory used by all
+ * segments allows it. Otherwise the segment switches to spill mode and its new keys are stored in
+ * the temporary database, which is created lazily and deleted on {@link #reset()} and
+ * {@link #release()}.
+ */
+public class OffHeapDeduplicator implements Deduplicator {
+
+    private static final int KEY_SIZE = ObjectId.NUM_BYTES;
+
+    private static final int NUM_SEGMENTS = 256;
+
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final long maxMemory;
+
+    private final AtomicLong offHeapBytes = new AtomicLong();
+
+    private final LongAdder spilledCount = new LongAdder();
+
+    private Segment[] segments;
+
+    private volatile RocksdbHandle spillDb;
+
+    private WriteOptions spillWriteOptions;
+
+    /**
+     * Whether the all-zeros key has been visited, since it's used as the empty slot marker
+     */
+    private volatile boolean nullVisited;
+
+    public OffHeapDeduplicator(long maxMemory) {
+        this.maxMemory = maxMemory;
+        this.segments = new Segment[NUM_SEGMENTS];
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    public @Override boolean visit(ObjectId id) {
+        return visit(ObjectId.NULL, id);
+    }
+
+    public @Override boolean visit(ObjectId left, ObjectId right) {
+        byte[] key = key(left, right);
+        if (isNullKey(key)) {
+            boolean added = !nullVisited;
+            nullVisited = true;
+            return added;
+        }
+        return segment(key).add(key);
+    }
+
+    public @Override boolean isDuplicate(ObjectId id) {
+        return isDuplicate(ObjectId.NULL, id);
+    }
+
+    public @Override boolean isDuplicate(ObjectId left, ObjectId right) {
+        byte[] key = key(left, right);
+        if (isNullKey(key)) {
+            return nullVisited;
+        }
+        return segment(key).contains(key);
+    }
+
+    public @Override void removeDuplicates(List<ObjectId> ids) {
+        Iterator<ObjectId> iterator = ids.iterator();
+        while (iterator.hasNext()) {
+            if (isDuplicate(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public @Override void reset() {
+        for (Segment s : segments) {
+            s.clear();
+        }
+        nullVisited = false;
+        spilledCount.reset();
+        disposeSpillDb();
+    }
+
+    public @Override void release() {
+        for (Segment s : segments) {
+            s.release();
+        }
+        disposeSpillDb();
+    }
+
+    /**
+     * @return the number of visited keys, including the spilled ones
+     */
+    public long size() {
+        long size = nullVisited ? 1 : 0;
+        for (Segment s : segments) {
+            size += s.size();
+        }
+        return size + spilledCount.sum();
+    }
+
+    /**
+     * @return the number of bytes allocated off-heap by the in-memory tables
+     */
+    public long offHeapBytes() {
+        return offHeapBytes.get();
+    }
+
+    /**
+     * @return whether the memory budget was exceeded and keys are being stored on the temporary
+     *         database
+     */
+    public boolean isSpilled() {
+        return spillDb != null;
+    }
+
+    private static byte[] key(ObjectId left, ObjectId right) {
+        if (left.isNull()) {
+            return right.getRawValue();
+        }
+        return ObjectId.HASH_FUNCTION.newHasher().putBytes(left.getRawValue())
+                .putBytes(right.getRawValue()).hash().asBytes();
+    }
+
+    private static boolean isNullKey(byte[] key) {
+        for (int i = 0; i < KEY_SIZE; i++) {
+            if (key[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Segment segment(byte[] key) {
+        return segments[key[0] & 0xFF];
+    }
+
+    private RocksDB spillDb() {
+        RocksdbHandle db = this.spillDb;
+        if (db == null) {
+            synchronized (this) {
+                db = this.spillDb;
+                if (db == null) {
+                    Path dir;
+                    try {
+                        dir = Files.createTempDirectory("geogig-deduplicator");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    db = RocksdbHandle.create(dir);
+                    spillWriteOptions = new WriteOptions();
+                    spillWriteOptions.setDisableWAL(true);
+                    spillWriteOptions.setSync(false);
+                    this.spillDb = db;
+                }
+            }
+        }
+        return db.db;
+    }
+
+    private synchronized void disposeSpillDb() {
+        RocksdbHandle db = this.spillDb;
+        this.spillDb = null;
+        if (db != null) {
+            db.dispose();
+            spillWriteOptions.close();
+            spillWriteOptions = null;
+        }
+    }
+
+    /**
+     * An open addressing, linear probing, hash table of 20-byte keys in a direct buffer, with the
+     * all-zeros key as the empty slot marker.
+     */
+    private class Segment {
+
+        private ByteBuffer table;
+
+        private int capacity;
+
+        private int size;
+
+        private boolean spilled;
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized boolean add(byte[] key) {
+            if (table == null) {
+                allocate(INITIAL_SEGMENT_CAPACITY);
+            }
+            final long k1 = getLong(key, 0), k2 = getLong(key, 8);
+            final int k3 = getInt(key, 16);
+            final int slot = find(table, capacity, k1, k2, k3);
+            if (!isEmpty(table, slot)) {
+                return false;
+            }
+            if (spilled) {
+                return spillAdd(key);
+            }
+            if (size + 1 > capacity * MAX_LOAD_FACTOR) {
+                if (!grow()) {
+                    spilled = true;
+                    return spillAdd(key);
+                }
+                int newSlot = find(table, capacity, k1, k2, k3);
+                set(table, newSlot, k1, k2, k3);
+            } else {
+                set(table, slot, k1, k2, k3);
+            }
+            size++;
+            return true;
+        }
+
+        synchronized boolean contains(byte[] key) {
+            if (table == null) {
+                return false;
+            }
+            int slot = find(table, capacity, getLong(key, 0), getLong(key, 8), getInt(key, 16));
+            if (!isEmpty(table, slot)) {
+                return true;
+            }
+            return spilled && spillContains(key);
+        }
+
+        synchronized void clear() {
+            release();
+        }
+
+        synchronized void release() {
+            if (table != null) {
+                offHeapBytes.addAndGet(-((long) capacity * KEY_SIZE));
+            }
+            table = null;
+            capacity = 0;
+            size = 0;
+            spilled = false;
+        }
+
+        private void allocate(int newCapacity) {
+            table = ByteBuffer.allocateDirect(newCapacity * KEY_SIZE);
+            capacity = newCapacity;
+            offHeapBytes.addAndGet((long) newCapacity * KEY_SIZE);
+        }
+
+        private boolean grow() {
+            final long currentBytes = (long) capacity * KEY_SIZE;
+            final long newBytes = currentBytes * 2;
+            if (newBytes > Integer.MAX_VALUE
+                    || offHeapBytes.get() - currentBytes + newBytes > maxMemory) {
+                return false;
+            }
+            final ByteBuffer oldTable = this.table;
+            final int oldCapacity = this.capacity;
+            allocate(oldCapacity * 2);
+            offHeapBytes.addAndGet(-currentBytes);
+            for (int i = 0; i < oldCapacity; i++) {
+                if (!isEmpty(oldTable, i)) {
+                    int offset = i * KEY_SIZE;
+                    long k1 = oldTable.getLong(offset);
+                    long k2 = oldTable.getLong(offset + 8);
+                    int k3 = oldTable.getInt(offset + 16);
+                    set(table, find(table, capacity, k1, k2, k3), k1, k2, k3);
+                }
+            }
+            return true;
+        }
+
+        private boolean spillAdd(byte[] key) {
+            RocksDB db = spillDb();
+            try {
+                if (RocksDB.NOT_FOUND != db.get(key, NO_DATA)) {
+                    return false;
+                }
+                db.put(spillWriteOptions, key, NO_DATA);
+            } catch (RocksDBException e) {
+                throw new IllegalStateException(e);
+            }
+            spilledCount.increment();
+            return true;
+        }
+
+        private boolean spillContains(byte[] key) {
+            try {
+                return RocksDB.NOT_FOUND != spillDb().get(key, NO_DATA);
+            } catch (RocksDBException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it'd be inserted
+     */
+    private static int find(ByteBuffer table, int capacity, long k1, long k2, int k3) {
+        final int mask = capacity - 1;
+        // the first byte is used to select the segment, use the next four as hash code
+        int slot = (int) (k1 >>> 24) & mask;
+        while (true) {
+            final int offset = slot * KEY_SIZE;
+            final long s1 = table.getLong(offset);
+            final long s2 = table.getLong(offset + 8);
+            final int s3 = table.getInt(offset + 16);
+            if ((s1 == k1 && s2 == k2 && s3 == k3) || (s1 == 0L && s2 == 0L && s3 == 0)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean isEmpty(ByteBuffer table, int slot) {
+        final int offset = slot * KEY_SIZE;
+        return table.getLong(offset) == 0L && table.getLong(offset + 8) == 0L
+                && table.getInt(offset + 16) == 0;
+    }
+
+    private static void set(ByteBuffer table, int slot, long k1, long k2, int k3) {
+        final int offset = slot * KEY_SIZE;
+        table.putLong(offset, k1);
+        table.putLong(offset + 8, k2);
+        table.putInt(offset + 16, k3);
+    }
+
+    private static long getLong(byte[] b, int offset) {
+        return ((long) getInt(b, offset) << 32) | (getInt(b, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private static int getInt(byte[] b, int offset) {
+        return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16)
+                | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+    }
+}
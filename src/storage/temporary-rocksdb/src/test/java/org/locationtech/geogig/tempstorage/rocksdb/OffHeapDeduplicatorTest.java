@@ -0,0 +1,141 @@
+/* Copyright (c) 2020 Gabriel Roldan
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/org/documents/edl-v10.html
+ *
+ * Contributors:
+ * Gabriel Roldan - initial implementation
+ */
+package org.locationtech.geogig.tempstorage.rocksdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.locationtech.geogig.model.ObjectId;
+import org.locationtech.geogig.model.impl.RevObjectTestSupport;
+import org.locationtech.geogig.remotes.internal.DeduplicationService;
+import org.locationtech.geogig.remotes.internal.Deduplicator;
+import org.locationtech.geogig.remotes.internal.HeapDeduplicator;
+import org.locationtech.geogig.repository.Hints;
+
+public class OffHeapDeduplicatorTest {
+
+    private OffHeapDeduplicator dedup;
+
+    public @After void after() {
+        if (dedup != null) {
+            dedup.release();
+        }
+    }
+
+    private List<ObjectId> ids(int count) {
+        return IntStream.range(0, count).mapToObj(i -> RevObjectTestSupport.hashString("id" + i))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testVisitInMemory() {
+        dedup = new OffHeapDeduplicator(OffHeapDeduplicationService.DEFAULT_MAX_MEMORY);
+        testVisit(ids(10_000));
+        assertFalse(dedup.isSpilled());
+    }
+
+    @Test
+    public void testVisitSpillsOverMemoryBudget() {
+        dedup = new OffHeapDeduplicator(512 * 1024);
+        testVisit(ids(50_000));
+        assertTrue(dedup.isSpilled());
+        assertTrue(dedup.offHeapBytes() <= 512 * 1024);
+    }
+
+    private void testVisit(List<ObjectId> ids) {
+        for (ObjectId id : ids) {
+            assertFalse(dedup.isDuplicate(id));
+            assertTrue(dedup.visit(id));
+        }
+        assertEquals(ids.size(), dedup.size());
+        for (ObjectId id : ids) {
+            assertTrue(dedup.isDuplicate(id));
+            assertFalse(dedup.visit(id));
+        }
+        assertEquals(ids.size(), dedup.size());
+    }
+
+    @Test
+    public void testVisitPairs() {
+        dedup = new OffHeapDeduplicator(OffHeapDeduplicationService.DEFAULT_MAX_MEMORY);
+        ObjectId left = RevObjectTestSupport.hashString("left");
+        ObjectId right = RevObjectTestSupport.hashString("right");
+
+        assertTrue(dedup.visit(left, right));
+        assertTrue(dedup.isDuplicate(left, right));
+        assertFalse(dedup.isDuplicate(right, left));
+        assertFalse(dedup.isDuplicate(right));
+        assertFalse(dedup.visit(left, right));
+
+        assertTrue(dedup.visit(ObjectId.NULL, right));
+        assertTrue(dedup.isDuplicate(right));
+
+        assertFalse(dedup.isDuplicate(ObjectId.NULL));
+        assertTrue(dedup.visit(ObjectId.NULL));
+        assertTrue(dedup.isDuplicate(ObjectId.NULL));
+        assertFalse(dedup.visit(ObjectId.NULL));
+        assertEquals(3, dedup.size());
+    }
+
+    @Test
+    public void testRemoveDuplicates() {
+        dedup = new OffHeapDeduplicator(OffHeapDeduplicationService.DEFAULT_MAX_MEMORY);
+        List<ObjectId> ids = ids(100);
+        ids.subList(0, 50).forEach(dedup::visit);
+        List<ObjectId> list = new ArrayList<>(ids);
+        dedup.removeDuplicates(list);
+        assertEquals(ids.subList(50, 100), list);
+    }
+
+    @Test
+    public void testReset() {
+        dedup = new OffHeapDeduplicator(256 * 1024);
+        List<ObjectId> ids = ids(20_000);
+        ids.forEach(dedup::visit);
+        assertTrue(dedup.isSpilled());
+        dedup.reset();
+        assertFalse(dedup.isSpilled());
+        assertEquals(0, dedup.size());
+        assertEquals(0, dedup.offHeapBytes());
+        ids.forEach(id -> assertFalse(dedup.isDuplicate(id)));
+        testVisit(ids);
+    }
+
+    @Test
+    public void testConcurrentVisits() {
+        dedup = new OffHeapDeduplicator(512 * 1024);
+        List<ObjectId> ids = ids(50_000);
+        long added = ids.parallelStream().filter(dedup::visit).count()
+                + ids.parallelStream().filter(dedup::visit).count();
+        assertEquals(ids.size(), added);
+        assertEquals(ids.size(), dedup.size());
+    }
+
+    @Test
+    public void testSelectedThroughHints() {
+        Deduplicator deduplicator = DeduplicationService.create(new Hints());
+        assertTrue(deduplicator instanceof HeapDeduplicator);
+        deduplicator.release();
+
+        Hints hints = new Hints();
+        hints.set(Hints.DEDUPLICATOR, OffHeapDeduplicationService.class.getName());
+        deduplicator = DeduplicationService.create(hints);
+        assertTrue(deduplicator instanceof OffHeapDeduplicator);
+        deduplicator.release();
+    }
+}